@@ -0,0 +1,291 @@
+package jp.kusumotolab.kgenprog;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.spi.StopOptionHandler;
+import org.kohsuke.args4j.spi.StringArrayOptionHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.jdt.DigestStrategy;
+import jp.kusumotolab.kgenprog.project.jdt.JDTASTConstruction;
+
+/**
+ * 複数の設定による自動プログラム修正を1つのプロセスで実行するクラス．<br>
+ * シードや設定ファイルを変えてkGenProgを繰り返し実行する場合に，JVMの起動やJDT・コンパイラの初期化を1度で済ませる．<br>
+ *
+ * 実行の一覧は，設定ファイルのリストとシードの範囲の組み合わせとして与える．<br>
+ * {@code --} 以降の引数は全ての実行に共通するkGenProgの引数として扱う．<br>
+ * 各実行の結果は，バッチの出力ディレクトリ直下の実行ごとのディレクトリに出力する．<br>
+ *
+ * 同一プロジェクトに対する実行の間では，以下を共有する．<br>
+ * 1. 初期個体の抽象構文木（JDTのASTはスレッドセーフではないため，同一スレッドで行われる実行の間でのみ共有する）<br>
+ * 2. 初期個体のビルド結果・テスト結果・疑惑値（{@code --cache-dir}のキャッシュを介して共有する）<br>
+ * 最初の実行の設定で初期個体の評価のみを行い，その結果をキャッシュしてから全ての実行を並列に行う．<br>
+ *
+ * ログの出力レベルはプロセス全体で共有されるため，最初の実行の設定に従ってバッチ全体で1度だけ設定する．<br>
+ * 各実行のログには，MDCのキー{@value #RUN_NAME_KEY}に実行の名前を設定する．<br>
+ *
+ * @author shinsuke
+ */
+public class BatchLauncher {
+
+  private static final Logger log = LoggerFactory.getLogger(BatchLauncher.class);
+
+  /**
+   * 実行の名前を設定するMDCのキー
+   */
+  public static final String RUN_NAME_KEY = "run";
+
+  @Option(name = "--batch-config", metaVar = "<path> ...",
+      usage = "Specifies config files, each of which is used for a run.",
+      handler = StringArrayOptionHandler.class)
+  private List<String> configPaths = new ArrayList<>();
+
+  @Option(name = "--batch-seeds", metaVar = "<from>-<to>",
+      usage = "Specifies the range of random seeds. Each config is run once for each seed.")
+  private String seedRange = null;
+
+  @Option(name = "--batch-threads", metaVar = "<num>",
+      usage = "Specifies how many runs are executed concurrently.")
+  private int threads = 1;
+
+  @Option(name = "--batch-out-dir", metaVar = "<path>",
+      usage = "Writes the results of each run under <path>/<run name>.")
+  private String outDir = "kgenprog-batch-out";
+
+  @Argument(handler = StopOptionHandler.class, metaVar = "-- <kgenprog options> ...")
+  private List<String> commonArgs = new ArrayList<>();
+
+  private final ThreadLocal<Map<DigestStrategy, SharedASTConstruction>> astConstructions =
+      ThreadLocal.withInitial(HashMap::new);
+
+  public static void main(final String[] args) {
+    try {
+      final BatchLauncher launcher = new BatchLauncher();
+      final CmdLineParser parser = new CmdLineParser(launcher);
+      try {
+        parser.parseArgument(args);
+      } catch (final CmdLineException e) {
+        parser.printUsage(System.err);
+        throw new IllegalArgumentException(e.getMessage());
+      }
+
+      final int failedCount = launcher.launch(launcher.createRuns());
+      if (0 < failedCount) {
+        log.error(failedCount + " runs failed");
+        System.exit(1);
+      }
+    } catch (final RuntimeException e) {
+      log.error(e.getMessage(), e);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * 実行の一覧を受け取り，全ての実行を行う．<br>
+   * 個々の実行の失敗は記録したうえで，残りの実行を続ける．<br>
+   *
+   * @param runs 実行の一覧
+   * @return 失敗した実行の数
+   */
+  public int launch(final List<Run> runs) {
+    if (runs.isEmpty()) {
+      return 0;
+    }
+
+    CUILauncher.setLogLevel(runs.get(0).config.getLogLevel());
+
+    // 初期個体の評価結果をキャッシュさせてから，全ての実行を並列に行う
+    evaluateInitialVariant(runs.get(0));
+
+    int failedCount = 0;
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    try {
+      final List<Future<Boolean>> futures = new ArrayList<>();
+      for (final Run run : runs) {
+        futures.add(executor.submit(() -> launch(run)));
+      }
+      for (final Future<Boolean> future : futures) {
+        if (!future.get()) {
+          failedCount++;
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread()
+          .interrupt();
+      throw new RuntimeException(e);
+    } catch (final ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    return failedCount;
+  }
+
+  /**
+   * 実行の設定で初期個体の評価のみを行い，その結果をキャッシュに保存させる．<br>
+   * 失敗した場合も，各実行で改めて評価されるため実行は続ける．<br>
+   *
+   * @param run 設定を用いる実行
+   */
+  private void evaluateInitialVariant(final Run run) {
+    MDC.put(RUN_NAME_KEY, run.name);
+    log.info("evaluate the initial variant with the config of run " + run.name);
+    try {
+      new CUILauncher().evaluateInitialVariant(run.config, getASTConstruction(run));
+    } catch (final Throwable e) {
+      log.warn("failed to evaluate the initial variant: " + e.getMessage(), e);
+    } finally {
+      MDC.remove(RUN_NAME_KEY);
+    }
+  }
+
+  private boolean launch(final Run run) {
+    MDC.put(RUN_NAME_KEY, run.name);
+    log.info("start run " + run.name);
+    try {
+      new CUILauncher().launch(run.config, getASTConstruction(run));
+      log.info("finish run " + run.name);
+      return true;
+    } catch (final Throwable e) {
+      // 例外に限らず，実行中のエラー（StackOverflowError等）も他の実行に波及させない
+      log.error("run " + run.name + " failed: " + e.getMessage(), e);
+      return false;
+    } finally {
+      MDC.remove(RUN_NAME_KEY);
+    }
+  }
+
+  private SharedASTConstruction getASTConstruction(final Run run) {
+    return astConstructions.get()
+        .computeIfAbsent(run.config.getDigestStrategy(), SharedASTConstruction::new);
+  }
+
+  /**
+   * 設定ファイルのリストとシードの範囲から実行の一覧を作成する．<br>
+   * 全ての実行で同一のキャッシュディレクトリを用いる．
+   * キャッシュディレクトリが指定されていない場合は，バッチの出力ディレクトリ直下に作成する．<br>
+   *
+   * @return 実行の一覧
+   */
+  List<Run> createRuns() {
+    final List<String> configs = configPaths.isEmpty() ? Arrays.asList((String) null)
+        : configPaths;
+    final List<Long> seeds = parseSeedRange(seedRange);
+    final Path batchOutDir = Paths.get(outDir)
+        .toAbsolutePath();
+
+    final List<Run> runs = new ArrayList<>();
+    for (final String configPath : configs) {
+      for (final Long seed : seeds) {
+        final List<String> args = new ArrayList<>(commonArgs);
+        if (null != configPath) {
+          args.add("--config");
+          args.add(configPath);
+        }
+        if (null != seed) {
+          args.add("--random-seed");
+          args.add(seed.toString());
+        }
+
+        final Configuration.Builder builder =
+            Configuration.Builder.createFromCmdLineArgs(args.toArray(new String[0]));
+        final String name = createRunName(configPath, seed, runs.size());
+        builder.setOutDir(batchOutDir.resolve(name));
+        if (!builder.hasCacheDir()) {
+          builder.setCacheDir(batchOutDir.resolve("cache"));
+        }
+        runs.add(new Run(name, builder.build()));
+      }
+    }
+    return runs;
+  }
+
+  private static List<Long> parseSeedRange(final String seedRange) {
+    if (null == seedRange) {
+      return Arrays.asList((Long) null);
+    }
+
+    final String[] values = seedRange.split("-", 2);
+    try {
+      final long from = Long.parseLong(values[0].trim());
+      final long to = 1 < values.length ? Long.parseLong(values[1].trim()) : from;
+      if (to < from) {
+        throw new IllegalArgumentException("invalid seed range: " + seedRange);
+      }
+      final List<Long> seeds = new ArrayList<>();
+      for (long seed = from; seed <= to; seed++) {
+        seeds.add(seed);
+      }
+      return seeds;
+    } catch (final NumberFormatException e) {
+      throw new IllegalArgumentException("invalid seed range: " + seedRange, e);
+    }
+  }
+
+  private static String createRunName(final String configPath, final Long seed,
+      final int index) {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%04d", index));
+    if (null != configPath) {
+      final String fileName = Paths.get(configPath)
+          .getFileName()
+          .toString();
+      sb.append('-')
+          .append(fileName.replaceFirst("\\.toml$", ""));
+    }
+    if (null != seed) {
+      sb.append("-seed")
+          .append(seed);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * バッチ中の1回の実行
+   */
+  public static class Run {
+
+    public final String name;
+    public final Configuration config;
+
+    public Run(final String name, final Configuration config) {
+      this.name = name;
+      this.config = config;
+    }
+  }
+
+  /**
+   * 同一プロジェクトに対して構築した初期個体のソースコードを再利用する{@link JDTASTConstruction}．<br>
+   * {@link GeneratedSourceCode}は変更されないため，異なる実行の間で共有できる．<br>
+   */
+  private static class SharedASTConstruction extends JDTASTConstruction {
+
+    private final Map<TargetProject, GeneratedSourceCode> sourceCodes = new HashMap<>();
+
+    private SharedASTConstruction(final DigestStrategy digestStrategy) {
+      super(digestStrategy);
+    }
+
+    @Override
+    public GeneratedSourceCode constructAST(final TargetProject project) {
+      return sourceCodes.computeIfAbsent(project, super::constructAST);
+    }
+  }
+}
@@ -21,7 +21,7 @@ import jp.kusumotolab.kgenprog.ga.validation.DefaultCodeValidation;
 import jp.kusumotolab.kgenprog.ga.validation.SourceCodeValidation;
 import jp.kusumotolab.kgenprog.ga.variant.Variant;
 import jp.kusumotolab.kgenprog.output.Exporters;
-import jp.kusumotolab.kgenprog.project.test.LocalTestExecutor;
+import jp.kusumotolab.kgenprog.project.jdt.JDTASTConstruction;
 import jp.kusumotolab.kgenprog.project.test.TestExecutor;
 
 public class CUILauncher {
@@ -40,7 +40,39 @@ public class CUILauncher {
 
   public List<Variant> launch(final Configuration config) {
     setLogLevel(config.getLogLevel());
+    return launch(config, new JDTASTConstruction(config.getDigestStrategy()));
+  }
+
+  /**
+   * 抽象構文木の生成を行うインスタンスを指定して自動プログラム修正を実行する．<br>
+   * {@link BatchLauncher}が，同一プロジェクトに対する複数の実行で構文解析の結果を共有するために用いる．<br>
+   * ログの出力レベルは設定しないため，呼び出し元で設定すること．<br>
+   *
+   * @param config 設定情報
+   * @param astConstruction 抽象構文木の生成を行うインスタンス
+   * @return 得られた解
+   */
+  public List<Variant> launch(final Configuration config,
+      final JDTASTConstruction astConstruction) {
+    return createKGenProgMain(config, astConstruction).run();
+  }
 
+  /**
+   * 初期個体の評価のみを行う．<br>
+   * {@link BatchLauncher}が，各実行に先立って初期個体の評価結果をキャッシュに保存するために用いる．<br>
+   * ログの出力レベルは設定しないため，呼び出し元で設定すること．<br>
+   *
+   * @param config 設定情報
+   * @param astConstruction 抽象構文木の生成を行うインスタンス
+   * @return 評価した初期個体
+   */
+  public Variant evaluateInitialVariant(final Configuration config,
+      final JDTASTConstruction astConstruction) {
+    return createKGenProgMain(config, astConstruction).evaluateInitialVariant();
+  }
+
+  private KGenProgMain createKGenProgMain(final Configuration config,
+      final JDTASTConstruction astConstruction) {
     final FaultLocalization faultLocalization = config.getFaultLocalization()
         .initialize();
     final Random random = new Random(config.getRandomSeed());
@@ -57,20 +89,27 @@ public class CUILauncher {
     final Crossover crossover = config.getCrossoverType()
         .initialize(random, firstVariantSelectionStrategy,
             secondVariantSelectionStrategy, config.getCrossoverGeneratingCount());
-    final SourceCodeGeneration sourceCodeGeneration = new DefaultSourceCodeGeneration();
+    final SourceCodeGeneration sourceCodeGeneration =
+        new DefaultSourceCodeGeneration(config.getSourceCacheSize(),
+            config.isNormalizedDuplicateDetection(), config.getReproducedRegistrySize());
     final SourceCodeValidation sourceCodeValidation = new DefaultCodeValidation();
     final VariantSelection variantSelection = new DefaultVariantSelection(config.getHeadcount(),
         random);
-    final TestExecutor testExecutor = new LocalTestExecutor(config);
+    final TestExecutor testExecutor = config.getTestExecutorType()
+        .initialize(config);
     final Exporters exporters = new Exporters(config);
-    final KGenProgMain kGenProgMain =
-        new KGenProgMain(config, faultLocalization, mutation, crossover, sourceCodeGeneration,
-            sourceCodeValidation, variantSelection, testExecutor, exporters);
-
-    return kGenProgMain.run();
+    return new KGenProgMain(config, faultLocalization, mutation, crossover,
+        sourceCodeGeneration, sourceCodeValidation, variantSelection, testExecutor, exporters,
+        astConstruction);
   }
 
-  private void setLogLevel(final Level logLevel) {
+  /**
+   * ログの出力レベルを設定する．<br>
+   * ルートロガーのレベルはプロセス全体で共有されるため，{@link BatchLauncher}はバッチ全体で1度だけ設定する．<br>
+   *
+   * @param logLevel ログの出力レベル
+   */
+  static void setLogLevel(final Level logLevel) {
     final ch.qos.logback.classic.Logger rootLogger =
         (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
     rootLogger.setLevel(logLevel);
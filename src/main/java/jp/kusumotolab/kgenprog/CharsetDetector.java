@@ -30,4 +30,19 @@ public class CharsetDetector {
       return Charset.defaultCharset();
     }
   }
+
+  /**
+   * 与えられたバイト列の文字コードを調べる．
+   * 文字コードがわからなかった場合はデフォルトの文字コードを返す
+   *
+   * @param bytes 文字コードを調べたいバイト列（ファイルの内容）
+   * @return バイト列の文字コード
+   */
+  public Charset detect(final byte[] bytes) {
+    final UniversalDetector detector = new UniversalDetector();
+    detector.handleData(bytes, 0, bytes.length);
+    detector.dataEnd();
+    final String charsetName = detector.getDetectedCharset();
+    return charsetName != null ? Charset.forName(charsetName) : Charset.defaultCharset();
+  }
 }
@@ -40,6 +40,9 @@ import jp.kusumotolab.kgenprog.ga.mutation.Scope;
 import jp.kusumotolab.kgenprog.project.factory.JUnitLibraryResolver.JUnitVersion;
 import jp.kusumotolab.kgenprog.project.factory.TargetProject;
 import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.project.jdt.DigestStrategy;
+import jp.kusumotolab.kgenprog.project.test.CoveragePolicy;
+import jp.kusumotolab.kgenprog.project.test.TestExecutor;
 
 public class Configuration {
 
@@ -63,6 +66,24 @@ public class Configuration {
   public static final SecondVariantSelectionStrategy.Strategy DEFAULT_SECOND_VARIANT_SELECTION_STRATEGY =
       SecondVariantSelectionStrategy.Strategy.Random;
   public static final boolean DEFAULT_HISTORY_RECORD = false;
+  public static final int DEFAULT_TEST_THREADS = 1;
+  public static final TestExecutor.Type DEFAULT_TEST_EXECUTOR_TYPE = TestExecutor.Type.Local;
+  public static final int DEFAULT_WORKER_RECYCLE_COUNT = 100;
+  public static final Duration DEFAULT_WORKER_TIMEOUT = Duration.ofSeconds(60);
+  public static final boolean DEFAULT_TEST_SELECTION = false;
+  public static final boolean DEFAULT_TEST_PRIORITIZATION = false;
+  public static final boolean DEFAULT_EARLY_ABORT = false;
+  public static final CoveragePolicy DEFAULT_COVERAGE_POLICY = CoveragePolicy.Always;
+  public static final boolean DEFAULT_INCREMENTAL_FAULT_LOCALIZATION = false;
+  public static final int DEFAULT_SOURCE_CACHE_SIZE = 0;
+  public static final DigestStrategy DEFAULT_DIGEST_STRATEGY = DigestStrategy.AstMd5;
+  public static final boolean DEFAULT_NORMALIZED_DUPLICATE_DETECTION = false;
+  public static final int DEFAULT_REPRODUCED_REGISTRY_SIZE = 0;
+  public static final Path DEFAULT_CACHE_DIR = null;
+  public static final boolean DEFAULT_DEPENDENCY_AWARE_BUILD = false;
+  public static final boolean DEFAULT_BUILD_CACHE_EVICTION = false;
+  public static final boolean DEFAULT_CLASS_LOADER_REUSE = false;
+  public static final Duration DEFAULT_VARIANT_TIME_LIMIT = Duration.ZERO;
 
   private final TargetProject targetProject;
   private final List<String> executionTests;
@@ -83,6 +104,24 @@ public class Configuration {
   private final FirstVariantSelectionStrategy.Strategy firstVariantSelectionStrategy;
   private final SecondVariantSelectionStrategy.Strategy secondVariantSelectionStrategy;
   private final boolean historyRecord;
+  private final int testThreads;
+  private final TestExecutor.Type testExecutorType;
+  private final int workerRecycleCount;
+  private final Duration workerTimeout;
+  private final boolean testSelection;
+  private final boolean testPrioritization;
+  private final boolean earlyAbort;
+  private final CoveragePolicy coveragePolicy;
+  private final boolean incrementalFaultLocalization;
+  private final int sourceCacheSize;
+  private final DigestStrategy digestStrategy;
+  private final boolean normalizedDuplicateDetection;
+  private final int reproducedRegistrySize;
+  private final Path cacheDir;
+  private final boolean dependencyAwareBuild;
+  private final boolean buildCacheEviction;
+  private final boolean classLoaderReuse;
+  private final Duration variantTimeLimit;
   private final Builder builder;
 
   private Configuration(final Builder builder) {
@@ -105,6 +144,24 @@ public class Configuration {
     this.firstVariantSelectionStrategy = builder.firstVariantSelectionStrategy;
     this.secondVariantSelectionStrategy = builder.secondVariantSelectionStrategy;
     this.historyRecord = builder.historyRecord;
+    this.testThreads = builder.testThreads;
+    this.testExecutorType = builder.testExecutorType;
+    this.workerRecycleCount = builder.workerRecycleCount;
+    this.workerTimeout = builder.workerTimeout;
+    this.testSelection = builder.testSelection;
+    this.testPrioritization = builder.testPrioritization;
+    this.earlyAbort = builder.earlyAbort;
+    this.coveragePolicy = builder.coveragePolicy;
+    this.incrementalFaultLocalization = builder.incrementalFaultLocalization;
+    this.sourceCacheSize = builder.sourceCacheSize;
+    this.digestStrategy = builder.digestStrategy;
+    this.normalizedDuplicateDetection = builder.normalizedDuplicateDetection;
+    this.reproducedRegistrySize = builder.reproducedRegistrySize;
+    this.cacheDir = builder.cacheDir;
+    this.dependencyAwareBuild = builder.dependencyAwareBuild;
+    this.buildCacheEviction = builder.buildCacheEviction;
+    this.classLoaderReuse = builder.classLoaderReuse;
+    this.variantTimeLimit = builder.variantTimeLimit;
     this.builder = builder;
   }
 
@@ -192,6 +249,78 @@ public class Configuration {
     return historyRecord;
   }
 
+  public int getTestThreads() {
+    return testThreads;
+  }
+
+  public TestExecutor.Type getTestExecutorType() {
+    return testExecutorType;
+  }
+
+  public int getWorkerRecycleCount() {
+    return workerRecycleCount;
+  }
+
+  public Duration getWorkerTimeout() {
+    return workerTimeout;
+  }
+
+  public boolean isTestSelection() {
+    return testSelection;
+  }
+
+  public boolean isTestPrioritization() {
+    return testPrioritization;
+  }
+
+  public boolean isEarlyAbort() {
+    return earlyAbort;
+  }
+
+  public CoveragePolicy getCoveragePolicy() {
+    return coveragePolicy;
+  }
+
+  public boolean isIncrementalFaultLocalization() {
+    return incrementalFaultLocalization;
+  }
+
+  public int getSourceCacheSize() {
+    return sourceCacheSize;
+  }
+
+  public DigestStrategy getDigestStrategy() {
+    return digestStrategy;
+  }
+
+  public boolean isNormalizedDuplicateDetection() {
+    return normalizedDuplicateDetection;
+  }
+
+  public int getReproducedRegistrySize() {
+    return reproducedRegistrySize;
+  }
+
+  public Path getCacheDir() {
+    return cacheDir;
+  }
+
+  public boolean isDependencyAwareBuild() {
+    return dependencyAwareBuild;
+  }
+
+  public boolean isBuildCacheEviction() {
+    return buildCacheEviction;
+  }
+
+  public boolean isClassLoaderReuse() {
+    return classLoaderReuse;
+  }
+
+  public Duration getVariantTimeLimit() {
+    return variantTimeLimit;
+  }
+
   @Override
   public String toString() {
     return builder.toString();
@@ -309,6 +438,84 @@ public class Configuration {
     @PreserveNotNull
     private boolean historyRecord = DEFAULT_HISTORY_RECORD;
 
+    @com.electronwill.nightconfig.core.conversion.Path("test-threads")
+    @PreserveNotNull
+    private int testThreads = DEFAULT_TEST_THREADS;
+
+    @com.electronwill.nightconfig.core.conversion.Path("test-executor")
+    @PreserveNotNull
+    @Conversion(TestExecutorTypeToString.class)
+    private TestExecutor.Type testExecutorType = DEFAULT_TEST_EXECUTOR_TYPE;
+
+    @com.electronwill.nightconfig.core.conversion.Path("worker-recycle-count")
+    @PreserveNotNull
+    private int workerRecycleCount = DEFAULT_WORKER_RECYCLE_COUNT;
+
+    @com.electronwill.nightconfig.core.conversion.Path("worker-timeout")
+    @PreserveNotNull
+    @Conversion(DurationToInteger.class)
+    private Duration workerTimeout = DEFAULT_WORKER_TIMEOUT;
+
+    @com.electronwill.nightconfig.core.conversion.Path("test-selection")
+    @PreserveNotNull
+    private boolean testSelection = DEFAULT_TEST_SELECTION;
+
+    @com.electronwill.nightconfig.core.conversion.Path("test-prioritization")
+    @PreserveNotNull
+    private boolean testPrioritization = DEFAULT_TEST_PRIORITIZATION;
+
+    @com.electronwill.nightconfig.core.conversion.Path("early-abort")
+    @PreserveNotNull
+    private boolean earlyAbort = DEFAULT_EARLY_ABORT;
+
+    @com.electronwill.nightconfig.core.conversion.Path("coverage-policy")
+    @PreserveNotNull
+    @Conversion(CoveragePolicyToString.class)
+    private CoveragePolicy coveragePolicy = DEFAULT_COVERAGE_POLICY;
+
+    @com.electronwill.nightconfig.core.conversion.Path("incremental-fault-localization")
+    @PreserveNotNull
+    private boolean incrementalFaultLocalization = DEFAULT_INCREMENTAL_FAULT_LOCALIZATION;
+
+    @com.electronwill.nightconfig.core.conversion.Path("source-cache-size")
+    @PreserveNotNull
+    private int sourceCacheSize = DEFAULT_SOURCE_CACHE_SIZE;
+
+    @com.electronwill.nightconfig.core.conversion.Path("digest-strategy")
+    @PreserveNotNull
+    @Conversion(DigestStrategyToString.class)
+    private DigestStrategy digestStrategy = DEFAULT_DIGEST_STRATEGY;
+
+    @com.electronwill.nightconfig.core.conversion.Path("normalized-duplicate-detection")
+    @PreserveNotNull
+    private boolean normalizedDuplicateDetection = DEFAULT_NORMALIZED_DUPLICATE_DETECTION;
+
+    @com.electronwill.nightconfig.core.conversion.Path("reproduced-registry-size")
+    @PreserveNotNull
+    private int reproducedRegistrySize = DEFAULT_REPRODUCED_REGISTRY_SIZE;
+
+    @com.electronwill.nightconfig.core.conversion.Path("cache-dir")
+    @PreserveNotNull
+    @Conversion(PathToString.class)
+    private Path cacheDir = DEFAULT_CACHE_DIR;
+
+    @com.electronwill.nightconfig.core.conversion.Path("dependency-aware-build")
+    @PreserveNotNull
+    private boolean dependencyAwareBuild = DEFAULT_DEPENDENCY_AWARE_BUILD;
+
+    @com.electronwill.nightconfig.core.conversion.Path("build-cache-eviction")
+    @PreserveNotNull
+    private boolean buildCacheEviction = DEFAULT_BUILD_CACHE_EVICTION;
+
+    @com.electronwill.nightconfig.core.conversion.Path("class-loader-reuse")
+    @PreserveNotNull
+    private boolean classLoaderReuse = DEFAULT_CLASS_LOADER_REUSE;
+
+    @com.electronwill.nightconfig.core.conversion.Path("variant-time-limit")
+    @PreserveNotNull
+    @Conversion(DurationToInteger.class)
+    private Duration variantTimeLimit = DEFAULT_VARIANT_TIME_LIMIT;
+
     private final transient Set<String> optionsSetByCmdLineArgs = new HashSet<>();
     private final transient Set<String> optionsSetByConfigFile = new HashSet<>();
 
@@ -503,9 +710,134 @@ public class Configuration {
       return this;
     }
 
+    public Builder setTestThreads(final int testThreads) {
+      this.testThreads = testThreads;
+      return this;
+    }
+
+    public Builder setTestExecutorType(final TestExecutor.Type testExecutorType) {
+      this.testExecutorType = testExecutorType;
+      return this;
+    }
+
+    public Builder setWorkerRecycleCount(final int workerRecycleCount) {
+      this.workerRecycleCount = workerRecycleCount;
+      return this;
+    }
+
+    public Builder setWorkerTimeout(final Duration workerTimeout) {
+      this.workerTimeout = workerTimeout;
+      return this;
+    }
+
+    public Builder setTestSelection(final boolean testSelection) {
+      this.testSelection = testSelection;
+      return this;
+    }
+
+    public Builder setTestPrioritization(final boolean testPrioritization) {
+      this.testPrioritization = testPrioritization;
+      return this;
+    }
+
+    public Builder setEarlyAbort(final boolean earlyAbort) {
+      this.earlyAbort = earlyAbort;
+      return this;
+    }
+
+    public Builder setCoveragePolicy(final CoveragePolicy coveragePolicy) {
+      this.coveragePolicy = coveragePolicy;
+      return this;
+    }
+
+    public Builder setIncrementalFaultLocalization(final boolean incrementalFaultLocalization) {
+      this.incrementalFaultLocalization = incrementalFaultLocalization;
+      return this;
+    }
+
+    public Builder setSourceCacheSize(final int sourceCacheSize) {
+      this.sourceCacheSize = sourceCacheSize;
+      return this;
+    }
+
+    public Builder setDigestStrategy(final DigestStrategy digestStrategy) {
+      this.digestStrategy = digestStrategy;
+      return this;
+    }
+
+    public Builder setNormalizedDuplicateDetection(final boolean normalizedDuplicateDetection) {
+      this.normalizedDuplicateDetection = normalizedDuplicateDetection;
+      return this;
+    }
+
+    public Builder setReproducedRegistrySize(final int reproducedRegistrySize) {
+      this.reproducedRegistrySize = reproducedRegistrySize;
+      return this;
+    }
+
+    public Builder setCacheDir(final Path cacheDir) {
+      this.cacheDir = cacheDir;
+      return this;
+    }
+
+    /**
+     * キャッシュディレクトリが指定されているか否かを返す．<br>
+     * {@link BatchLauncher}が，Configurationを生成せずに既定のキャッシュディレクトリの要否を判断するために用いる．<br>
+     *
+     * @return キャッシュディレクトリが指定されていればtrue
+     */
+    boolean hasCacheDir() {
+      return null != cacheDir;
+    }
+
+    public Builder setDependencyAwareBuild(final boolean dependencyAwareBuild) {
+      this.dependencyAwareBuild = dependencyAwareBuild;
+      return this;
+    }
+
+    public Builder setBuildCacheEviction(final boolean buildCacheEviction) {
+      this.buildCacheEviction = buildCacheEviction;
+      return this;
+    }
+
+    public Builder setClassLoaderReuse(final boolean classLoaderReuse) {
+      this.classLoaderReuse = classLoaderReuse;
+      return this;
+    }
+
+    public Builder setVariantTimeLimit(final Duration variantTimeLimit) {
+      this.variantTimeLimit = variantTimeLimit;
+      return this;
+    }
+
     private static void validateArgument(final Builder builder) throws IllegalArgumentException {
       validateExistences(builder);
       validateCurrentDir(builder);
+      validateTestThreads(builder);
+      validateWorkerSettings(builder);
+    }
+
+    private static void validateTestThreads(final Builder builder)
+        throws IllegalArgumentException {
+      if (builder.testThreads < 1) {
+        log.error("test-threads must be positive: " + builder.testThreads);
+        throw new IllegalArgumentException("test-threads must be positive: "
+            + builder.testThreads);
+      }
+    }
+
+    private static void validateWorkerSettings(final Builder builder)
+        throws IllegalArgumentException {
+      if (builder.workerTimeout.isNegative() || builder.workerTimeout.isZero()) {
+        log.error("worker-timeout must be positive: " + builder.workerTimeout.getSeconds());
+        throw new IllegalArgumentException("worker-timeout must be positive: "
+            + builder.workerTimeout.getSeconds());
+      }
+      if (builder.workerRecycleCount < 1) {
+        log.error("worker-recycle-count must be positive: " + builder.workerRecycleCount);
+        throw new IllegalArgumentException("worker-recycle-count must be positive: "
+            + builder.workerRecycleCount);
+      }
     }
 
     private static void validateExistences(final Builder builder) throws IllegalArgumentException {
@@ -611,6 +943,10 @@ public class Configuration {
       if (!outDir.equals(DEFAULT_OUT_DIR)) {
         outDir = resolveAgainstConfigDirAndNormalize(outDir);
       }
+
+      if (null != cacheDir) {
+        cacheDir = resolveAgainstConfigDirAndNormalize(cacheDir);
+      }
     }
 
     private Path resolveAgainstConfigDirAndNormalize(final Path path) {
@@ -837,6 +1173,148 @@ public class Configuration {
       this.optionsSetByCmdLineArgs.add("historyRecord");
     }
 
+    @Option(name = "--test-threads", metaVar = "<num>",
+        usage = "Specifies how many threads are used to build and test variants in parallel.")
+    private void setTestThreadsFromCmdLineParser(final int testThreads) {
+      this.testThreads = testThreads;
+      this.optionsSetByCmdLineArgs.add("testThreads");
+    }
+
+    @Option(name = "--test-executor",
+        usage = "Specifies where tests are executed: in the kGenProg JVM or in forked JVMs.")
+    private void setTestExecutorTypeFromCmdLineParser(final TestExecutor.Type testExecutorType) {
+      this.testExecutorType = testExecutorType;
+      this.optionsSetByCmdLineArgs.add("testExecutorType");
+    }
+
+    @Option(name = "--worker-recycle-count", metaVar = "<num>",
+        usage = "Specifies how many variants a forked test worker evaluates before restarting.")
+    private void setWorkerRecycleCountFromCmdLineParser(final int workerRecycleCount) {
+      this.workerRecycleCount = workerRecycleCount;
+      this.optionsSetByCmdLineArgs.add("workerRecycleCount");
+    }
+
+    @Option(name = "--worker-timeout", metaVar = "<sec>",
+        usage = "Specifies time limit for a forked test worker to evaluate a variant in second.")
+    private void setWorkerTimeoutFromCmdLineParser(final long workerTimeout) {
+      this.workerTimeout = Duration.ofSeconds(workerTimeout);
+      this.optionsSetByCmdLineArgs.add("workerTimeout");
+    }
+
+    @Option(name = "--test-selection",
+        usage = "Executes only tests covering code modified from the initial variant"
+            + " and reuses the initial results for the other tests.")
+    private void setTestSelectionFromCmdLineParser(final boolean testSelection) {
+      this.testSelection = testSelection;
+      this.optionsSetByCmdLineArgs.add("testSelection");
+    }
+
+    @Option(name = "--test-prioritization",
+        usage = "Executes test classes that failed on the initial variant"
+            + " or often fail on variants first.")
+    private void setTestPrioritizationFromCmdLineParser(final boolean testPrioritization) {
+      this.testPrioritization = testPrioritization;
+      this.optionsSetByCmdLineArgs.add("testPrioritization");
+    }
+
+    @Option(name = "--early-abort",
+        usage = "Stops testing a variant once it cannot reach"
+            + " the worst fitness of the current variants.")
+    private void setEarlyAbortFromCmdLineParser(final boolean earlyAbort) {
+      this.earlyAbort = earlyAbort;
+      this.optionsSetByCmdLineArgs.add("earlyAbort");
+    }
+
+    @Option(name = "--coverage-policy",
+        usage = "Specifies when coverage is measured: for all variants, only for the"
+            + " initial variant, or lazily when fault localization is required.")
+    private void setCoveragePolicyFromCmdLineParser(final CoveragePolicy coveragePolicy) {
+      this.coveragePolicy = coveragePolicy;
+      this.optionsSetByCmdLineArgs.add("coveragePolicy");
+    }
+
+    @Option(name = "--incremental-fault-localization",
+        usage = "Reuses the fault localization results of the parent variant for"
+            + " unchanged source files.")
+    private void setIncrementalFaultLocalizationFromCmdLineParser(
+        final boolean incrementalFaultLocalization) {
+      this.incrementalFaultLocalization = incrementalFaultLocalization;
+      this.optionsSetByCmdLineArgs.add("incrementalFaultLocalization");
+    }
+
+    @Option(name = "--source-cache-size", metaVar = "<num>",
+        usage = "Specifies how many generated source codes are cached to derive child"
+            + " variants from their parents.")
+    private void setSourceCacheSizeFromCmdLineParser(final int sourceCacheSize) {
+      this.sourceCacheSize = sourceCacheSize;
+      this.optionsSetByCmdLineArgs.add("sourceCacheSize");
+    }
+
+    @Option(name = "--digest-strategy",
+        usage = "Specifies how source digests are computed: MD5 of the AST, or Murmur3"
+            + " of the source text or of its tokens.")
+    private void setDigestStrategyFromCmdLineParser(final DigestStrategy digestStrategy) {
+      this.digestStrategy = digestStrategy;
+      this.optionsSetByCmdLineArgs.add("digestStrategy");
+    }
+
+    @Option(name = "--normalized-duplicate-detection",
+        usage = "Detects reproduced variants by normalized ASTs, ignoring empty"
+            + " statements, nested blocks and operand order of commutative operators.")
+    private void setNormalizedDuplicateDetectionFromCmdLineParser(
+        final boolean normalizedDuplicateDetection) {
+      this.normalizedDuplicateDetection = normalizedDuplicateDetection;
+      this.optionsSetByCmdLineArgs.add("normalizedDuplicateDetection");
+    }
+
+    @Option(name = "--reproduced-registry-size", metaVar = "<num>",
+        usage = "Specifies how many digests of generated source codes are kept to"
+            + " detect reproduced variants. 0 means unlimited.")
+    private void setReproducedRegistrySizeFromCmdLineParser(final int reproducedRegistrySize) {
+      this.reproducedRegistrySize = reproducedRegistrySize;
+      this.optionsSetByCmdLineArgs.add("reproducedRegistrySize");
+    }
+
+    @Option(name = "--cache-dir", metaVar = "<path>",
+        usage = "Caches the test results and suspiciousnesses of the original source"
+            + " code in the specified directory, and reuses them in later runs.")
+    private void setCacheDirFromCmdLineParser(final String cacheDir) {
+      this.cacheDir = Paths.get(cacheDir);
+      this.optionsSetByCmdLineArgs.add("cacheDir");
+    }
+
+    @Option(name = "--dependency-aware-build",
+        usage = "Recompiles the source files depending on a modified one only when its"
+            + " API (signatures) changes.")
+    private void setDependencyAwareBuildFromCmdLineParser(final boolean dependencyAwareBuild) {
+      this.dependencyAwareBuild = dependencyAwareBuild;
+      this.optionsSetByCmdLineArgs.add("dependencyAwareBuild");
+    }
+
+    @Option(name = "--build-cache-eviction",
+        usage = "Discards cached binaries used by neither the initial variant nor the current"
+            + " variants, at every generation.")
+    private void setBuildCacheEvictionFromCmdLineParser(final boolean buildCacheEviction) {
+      this.buildCacheEviction = buildCacheEviction;
+      this.optionsSetByCmdLineArgs.add("buildCacheEviction");
+    }
+
+    @Option(name = "--class-loader-reuse",
+        usage = "Loads unchanged classes without static state once per worker thread"
+            + " and shares them among test executions.")
+    private void setClassLoaderReuseFromCmdLineParser(final boolean classLoaderReuse) {
+      this.classLoaderReuse = classLoaderReuse;
+      this.optionsSetByCmdLineArgs.add("classLoaderReuse");
+    }
+
+    @Option(name = "--variant-time-limit", metaVar = "<sec>",
+        usage = "Runs the tests of each variant on a supervised thread and abandons"
+            + " them when they exceed the specified time in seconds. 0 disables the supervision.")
+    private void setVariantTimeLimitFromCmdLineParser(final long variantTimeLimit) {
+      this.variantTimeLimit = Duration.ofSeconds(variantTimeLimit);
+      this.optionsSetByCmdLineArgs.add("variantTimeLimit");
+    }
+
     @Option(name = "--version", usage = "Print version.")
     private void printVersion(final boolean dummy) {
       System.out.println("kGenProg version: " + Version.instance.id);
@@ -1010,6 +1488,64 @@ public class Configuration {
       }
     }
 
+    private static class TestExecutorTypeToString
+        implements Converter<TestExecutor.Type, String> {
+
+      @Override
+      public TestExecutor.Type convertToField(final String value) {
+        if (value == null) {
+          return null;
+        }
+        return TestExecutor.Type.valueOf(value);
+      }
+
+      @Override
+      public String convertFromField(final TestExecutor.Type value) {
+        if (value == null) {
+          return null;
+        }
+        return value.toString();
+      }
+    }
+
+    private static class CoveragePolicyToString implements Converter<CoveragePolicy, String> {
+
+      @Override
+      public CoveragePolicy convertToField(final String value) {
+        if (value == null) {
+          return null;
+        }
+        return CoveragePolicy.valueOf(value);
+      }
+
+      @Override
+      public String convertFromField(final CoveragePolicy value) {
+        if (value == null) {
+          return null;
+        }
+        return value.toString();
+      }
+    }
+
+    private static class DigestStrategyToString implements Converter<DigestStrategy, String> {
+
+      @Override
+      public DigestStrategy convertToField(final String value) {
+        if (value == null) {
+          return null;
+        }
+        return DigestStrategy.valueOf(value);
+      }
+
+      @Override
+      public String convertFromField(final DigestStrategy value) {
+        if (value == null) {
+          return null;
+        }
+        return value.toString();
+      }
+    }
+
     private static class SecondVariantSelectionStrategyToString
         implements Converter<SecondVariantSelectionStrategy.Strategy, String> {
 
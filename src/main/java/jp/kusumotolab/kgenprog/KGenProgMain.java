@@ -11,6 +11,8 @@ import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import jp.kusumotolab.kgenprog.fl.FaultLocalization;
+import jp.kusumotolab.kgenprog.fl.IncrementalFaultLocalization;
+import jp.kusumotolab.kgenprog.fl.SpectrumBasedFaultLocalization;
 import jp.kusumotolab.kgenprog.ga.codegeneration.SourceCodeGeneration;
 import jp.kusumotolab.kgenprog.ga.crossover.Crossover;
 import jp.kusumotolab.kgenprog.ga.mutation.Mutation;
@@ -64,6 +66,32 @@ public class KGenProgMain {
       final SourceCodeGeneration sourceCodeGeneration,
       final SourceCodeValidation sourceCodeValidation, final VariantSelection variantSelection,
       final TestExecutor testExecutor, final Exporters exporters) {
+    this(config, faultLocalization, mutation, crossover, sourceCodeGeneration,
+        sourceCodeValidation, variantSelection, testExecutor, exporters,
+        new JDTASTConstruction(config.getDigestStrategy()));
+  }
+
+  /**
+   * コンストラクタ．初期個体の抽象構文木の生成を行うインスタンスを指定する．<br>
+   * 同一プロジェクトに対する複数の実行で，構文解析の結果を共有するために用いる．<br>
+   *
+   * @param config 設定情報
+   * @param faultLocalization 自動バグ限局を行うインスタンス
+   * @param mutation 変異を行うインスタンス
+   * @param crossover 交叉を行うインスタンス
+   * @param sourceCodeGeneration コード生成を行うインスタンス
+   * @param sourceCodeValidation コード評価を行うインスタンス
+   * @param variantSelection 個体の選択を行うインスタンス
+   * @param testExecutor テスト実行を行うインスタンス
+   * @param exporters 出力処理を行うインスタンス
+   * @param astConstruction 抽象構文木の生成を行うインスタンス
+   */
+  public KGenProgMain(final Configuration config, final FaultLocalization faultLocalization,
+      final Mutation mutation, final Crossover crossover,
+      final SourceCodeGeneration sourceCodeGeneration,
+      final SourceCodeValidation sourceCodeValidation, final VariantSelection variantSelection,
+      final TestExecutor testExecutor, final Exporters exporters,
+      final JDTASTConstruction astConstruction) {
 
     this.config = config;
     this.faultLocalization = faultLocalization;
@@ -73,7 +101,7 @@ public class KGenProgMain {
     this.sourceCodeValidation = sourceCodeValidation;
     this.variantSelection = variantSelection;
     this.testExecutor = testExecutor;
-    this.astConstruction = new JDTASTConstruction();
+    this.astConstruction = astConstruction;
     this.exporters = exporters;
   }
 
@@ -88,12 +116,13 @@ public class KGenProgMain {
 
     testExecutor.initialize();
 
-    final Strategies strategies = new Strategies(faultLocalization, astConstruction,
+    final Strategies strategies = new Strategies(createFaultLocalization(), astConstruction,
         sourceCodeGeneration, sourceCodeValidation, testExecutor, variantSelection);
     final VariantStore variantStore = new VariantStore(config, strategies);
     final Variant initialVariant = variantStore.getInitialVariant();
 
     logInitialFailedTests(initialVariant.getTestResults());
+    testExecutor.initialize(initialVariant);
 
     mutation.setCandidates(initialVariant.getGeneratedSourceCode()
         .getProductAsts());
@@ -157,6 +186,39 @@ public class KGenProgMain {
     return variantStore.getFoundSolutions(config.getRequiredSolutionsCount());
   }
 
+  /**
+   * 初期個体の評価（ビルド，テスト実行，自動バグ限局）のみを行う．<br>
+   * {@link BatchLauncher}が，初期個体の評価結果をキャッシュに保存してから各実行を並列に行うために用いる．<br>
+   *
+   * @return 評価した初期個体
+   */
+  public Variant evaluateInitialVariant() {
+    testExecutor.initialize();
+
+    final Strategies strategies = new Strategies(createFaultLocalization(), astConstruction,
+        sourceCodeGeneration, sourceCodeValidation, testExecutor, variantSelection);
+    try {
+      final Variant initialVariant = new VariantStore(config, strategies).getInitialVariant();
+      // 評価は遅延されるため，ここで結果を求めておく
+      initialVariant.getTestResults();
+      initialVariant.getSuspiciousnesses();
+      return initialVariant;
+    } finally {
+      strategies.finish();
+    }
+  }
+
+  /**
+   * 差分FLが有効であれば，親個体の計算結果を再利用するFLでラップする．
+   */
+  private FaultLocalization createFaultLocalization() {
+    if (config.isIncrementalFaultLocalization()
+        && faultLocalization instanceof SpectrumBasedFaultLocalization) {
+      return new IncrementalFaultLocalization((SpectrumBasedFaultLocalization) faultLocalization);
+    }
+    return faultLocalization;
+  }
+
   private boolean reachedMaxGeneration(final OrdinalNumber generation) {
     return config.getMaxGeneration() <= generation.get();
   }
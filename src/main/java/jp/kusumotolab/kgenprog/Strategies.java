@@ -75,6 +75,20 @@ public class Strategies {
     return faultLocalization.exec(generatedSourceCode, testResults);
   }
 
+  /**
+   * 親個体のソースコードを与えて自動バグ限局を実行するメソッド．<br>
+   * 親個体の計算結果を再利用できるFLであれば，変化した部分だけを計算し直す．<br>
+   *
+   * @param generatedSourceCode 自動バグ限局の対象ソースコード
+   * @param testResults テストの実行結果
+   * @param parentSourceCode 親個体のソースコード
+   * @return 自動バグ限局の実行結果
+   */
+  public List<Suspiciousness> execFaultLocalization(final GeneratedSourceCode generatedSourceCode,
+      final TestResults testResults, final GeneratedSourceCode parentSourceCode) {
+    return faultLocalization.exec(generatedSourceCode, testResults, parentSourceCode);
+  }
+
   /**
    * ソースコード生成を実行するメソッド．<br>
    * 生成の基になるソースコード群と生成に用いる遺伝子を与え，生成したソースコードを返す．<br>
@@ -110,6 +124,30 @@ public class Strategies {
     return testExecutor.execAsync(variantSingle);
   }
 
+  /**
+   * カバレッジ計測の要否を指定して，テストの実行を非同期で行うメソッド．<br>
+   *
+   * @param variantSingle テストの実行対象となる個体（ソースコード）
+   * @param measuresCoverage カバレッジを計測するか否か
+   * @return テストの実行結果
+   */
+  public Single<TestResults> execAsyncTestExecutor(final Single<Variant> variantSingle,
+      final boolean measuresCoverage) {
+    return testExecutor.execAsync(variantSingle, measuresCoverage);
+  }
+
+  /**
+   * 疑惑値の計算に用いるカバレッジを得るために，テストの再実行を非同期で行うメソッド．<br>
+   * 早期打ち切りなどは行わず，テスト優先順位付けのための失敗履歴にも記録しない．<br>
+   *
+   * @param variantSingle テストの実行対象となる個体（ソースコード）
+   * @return カバレッジを含むテストの実行結果
+   */
+  public Single<TestResults> execAsyncTestExecutorForCoverage(
+      final Single<Variant> variantSingle) {
+    return testExecutor.execAsyncForCoverage(variantSingle);
+  }
+
   /**
    * ソースコードの評価を行うメソッド．<br>
    * ソースコードの評価に用いる情報を渡し，評価結果を返す．<br>
@@ -144,4 +182,13 @@ public class Strategies {
       final List<Variant> generated) {
     return variantSelection.exec(current, generated);
   }
+
+  /**
+   * 世代交代が行われたことをテスト実行に通知するメソッド．<br>
+   *
+   * @param currentVariants 次の世代の親となる個体群
+   */
+  public void proceedNextGeneration(final List<Variant> currentVariants) {
+    testExecutor.proceedNextGeneration(currentVariants);
+  }
 }
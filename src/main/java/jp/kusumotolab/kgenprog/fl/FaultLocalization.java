@@ -9,6 +9,20 @@ public interface FaultLocalization {
   List<Suspiciousness> exec(GeneratedSourceCode generatedSourceCode,
       TestResults testResults);
 
+  /**
+   * 親個体のソースコードを与えて疑惑値を計算する．<br>
+   * 親個体の計算結果を再利用できる実装のためのもので，既定では親個体を考慮せずに計算する．<br>
+   *
+   * @param generatedSourceCode 自動バグ限局の対象ソースコード
+   * @param testResults テストの実行結果
+   * @param parentSourceCode 親個体のソースコード．親個体がない場合はnull
+   * @return 疑惑値
+   */
+  default List<Suspiciousness> exec(final GeneratedSourceCode generatedSourceCode,
+      final TestResults testResults, final GeneratedSourceCode parentSourceCode) {
+    return exec(generatedSourceCode, testResults);
+  }
+
   enum Technique {
     Ample {
       @Override
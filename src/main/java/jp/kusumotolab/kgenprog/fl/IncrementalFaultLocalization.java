@@ -0,0 +1,58 @@
+package jp.kusumotolab.kgenprog.fl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.test.TestResults;
+
+/**
+ * 親個体のスペクトラムを再利用して疑惑値を計算するFL．<br>
+ * 変異によって書き換わるのは1つのソースファイルのみであることが多いため，<br>
+ * 書き換わっていないファイルの ef, ep は親個体のものを使い回す．<br>
+ *
+ * 個体のソースコードをキーとしてスペクトラムを保持する．<br>
+ * キーは弱参照なので，個体が破棄されればスペクトラムも破棄される．<br>
+ *
+ * @author shinsuke
+ * @see Spectrum
+ */
+public class IncrementalFaultLocalization implements FaultLocalization {
+
+  private final SpectrumBasedFaultLocalization faultLocalization;
+  private final Map<GeneratedSourceCode, Spectrum> spectra;
+
+  /**
+   * @param faultLocalization 疑惑値の計算式を提供するFL
+   */
+  public IncrementalFaultLocalization(final SpectrumBasedFaultLocalization faultLocalization) {
+    this.faultLocalization = faultLocalization;
+    this.spectra = Collections.synchronizedMap(new WeakHashMap<>());
+  }
+
+  @Override
+  public List<Suspiciousness> exec(final GeneratedSourceCode generatedSourceCode,
+      final TestResults testResults) {
+    return exec(generatedSourceCode, testResults, null);
+  }
+
+  /**
+   * 疑惑値を計算する．<br>
+   * 親個体のスペクトラムが計算済みであれば，それを基に差分だけを計算する．<br>
+   *
+   * @param generatedSourceCode 自動バグ限局の対象ソースコード
+   * @param testResults テストの実行結果
+   * @param parentSourceCode 親個体のソースコード．親個体がない場合はnull
+   * @return 疑惑値
+   */
+  @Override
+  public List<Suspiciousness> exec(final GeneratedSourceCode generatedSourceCode,
+      final TestResults testResults, final GeneratedSourceCode parentSourceCode) {
+    final Spectrum parent = null == parentSourceCode ? null : spectra.get(parentSourceCode);
+    final Spectrum spectrum =
+        faultLocalization.createSpectrum(generatedSourceCode, testResults, parent);
+    spectra.put(generatedSourceCode, spectrum);
+    return faultLocalization.exec(spectrum);
+  }
+}
@@ -0,0 +1,329 @@
+package jp.kusumotolab.kgenprog.fl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import jp.kusumotolab.kgenprog.project.ASTLocation;
+import jp.kusumotolab.kgenprog.project.ASTLocations;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.test.EmptyTestResults;
+import jp.kusumotolab.kgenprog.project.test.TestResult;
+import jp.kusumotolab.kgenprog.project.test.TestResults;
+
+/**
+ * 全ての文に対するFLの4メトリクス（ef, nf, ep, np）をまとめた行列．<br>
+ * テスト結果を一度走査するだけで作成し，各メトリクスはプリミティブ配列として保持する．<br>
+ *
+ * 一度作成したスペクトラムは，複数のFL戦略の計算式の評価に使い回せる．<br>
+ *
+ * ソースファイルごとの ef, ep を保持しており，親個体のスペクトラムを基に差分だけを計算し直すこともできる．<br>
+ * ソースファイルのダイジェストが変わらず，そのファイルのクラスを実行したテストの結果とカバレッジも<br>
+ * 変わっていなければ，そのファイルの ef, ep は親個体のものと等しい．<br>
+ * nf, np は失敗・成功テストの総数に依存するため，常に計算し直す．<br>
+ *
+ * @author shinsuke
+ */
+public class Spectrum {
+
+  private final TestResults testResults;
+  private final Map<ProductSourcePath, Segment> segments;
+  private final List<ASTLocation> locations;
+  private final double[] ef;
+  private final double[] nf;
+  private final double[] ep;
+  private final double[] np;
+  private final int reusedSegmentsSize;
+
+  private Spectrum(final TestResults testResults, final List<Segment> segments,
+      final int reusedSegmentsSize) {
+    this.testResults = testResults;
+    this.segments = new HashMap<>();
+    this.reusedSegmentsSize = reusedSegmentsSize;
+    this.locations = new ArrayList<>();
+    segments.forEach(segment -> {
+      this.segments.put(segment.ast.getSourcePath(), segment);
+      this.locations.addAll(segment.locations);
+    });
+
+    // 失敗・成功テストの総数はスペクトラム全体で一度だけ求める
+    final int failedTests = testResults.getNumberOfExecutedFailedTests();
+    final int succeededTests = testResults.getNumberOfSucceededTests();
+
+    final int size = locations.size();
+    this.ef = new double[size];
+    this.nf = new double[size];
+    this.ep = new double[size];
+    this.np = new double[size];
+    int offset = 0;
+    for (final Segment segment : segments) {
+      for (int i = 0; i < segment.ef.length; i++) {
+        ef[offset + i] = segment.ef[i];
+        nf[offset + i] = failedTests - segment.ef[i];
+        ep[offset + i] = segment.ep[i];
+        np[offset + i] = succeededTests - segment.ep[i];
+      }
+      offset += segment.ef.length;
+    }
+  }
+
+  /**
+   * 全ての文についてスペクトラムを作成する．
+   *
+   * @param generatedSourceCode 自動バグ限局の対象ソースコード
+   * @param testResults テストの実行結果
+   * @return スペクトラム
+   */
+  public static Spectrum create(final GeneratedSourceCode generatedSourceCode,
+      final TestResults testResults) {
+    return create(generatedSourceCode, testResults, null, false);
+  }
+
+  /**
+   * 指定したFL戦略全てに必要な文についてスペクトラムを作成する．<br>
+   * 全てのFL戦略が ef=0 の文の疑惑値を 0 とする場合，失敗テストが実行していないクラスの文は省く．<br>
+   *
+   * @param generatedSourceCode 自動バグ限局の対象ソースコード
+   * @param testResults テストの実行結果
+   * @param faultLocalizations スペクトラムを評価するFL戦略
+   * @return スペクトラム
+   */
+  public static Spectrum create(final GeneratedSourceCode generatedSourceCode,
+      final TestResults testResults,
+      final Collection<? extends SpectrumBasedFaultLocalization> faultLocalizations) {
+    final boolean skippable = faultLocalizations.stream()
+        .allMatch(SpectrumBasedFaultLocalization::isSkippable);
+    return create(generatedSourceCode, testResults, null, skippable);
+  }
+
+  /**
+   * 親個体のスペクトラムを基にスペクトラムを作成する．<br>
+   * 親個体から変化のないソースファイルについては，親個体の ef, ep を再利用する．<br>
+   *
+   * @param generatedSourceCode 自動バグ限局の対象ソースコード
+   * @param testResults テストの実行結果
+   * @param parent 親個体のスペクトラム．nullの場合は全て計算する
+   * @param skipsUnexecutedByFailedTests 失敗テストが実行していないクラスの文を省くか否か
+   * @return スペクトラム
+   */
+  static Spectrum create(final GeneratedSourceCode generatedSourceCode,
+      final TestResults testResults, final Spectrum parent,
+      final boolean skipsUnexecutedByFailedTests) {
+
+    final Set<FullyQualifiedName> executedFailedTargetFQNs = testResults.getFailedTestResults()
+        .stream()
+        .map(TestResult::getExecutedTargetFQNs)
+        .flatMap(Collection::stream)
+        .collect(Collectors.toSet());
+
+    // テスト結果が得られなかった場合は再利用せずに全て0とする
+    final Spectrum reusableParent = testResults instanceof EmptyTestResults ? null : parent;
+    final Set<FullyQualifiedName> affectedTargetFQNs =
+        null == reusableParent ? Collections.emptySet()
+            : getAffectedTargetFQNs(reusableParent.testResults, testResults);
+
+    final List<Segment> segments = new ArrayList<>();
+    int reusedSegmentsSize = 0;
+    for (final GeneratedAST<ProductSourcePath> ast : generatedSourceCode.getProductAsts()) {
+
+      // do nothing if none of failed target fqns contain the ast
+      if (skipsUnexecutedByFailedTests
+          && !executedFailedTargetFQNs.contains(ast.getPrimaryClassName())) {
+        continue;
+      }
+
+      final Segment parentSegment = null == reusableParent ? null
+          : reusableParent.segments.get(ast.getSourcePath());
+      Segment segment = null;
+      if (isReusable(parentSegment, ast, testResults, affectedTargetFQNs)) {
+        segment = parentSegment.reuse(ast);
+      }
+      if (null == segment) {
+        segment = Segment.create(ast, testResults);
+      } else {
+        reusedSegmentsSize++;
+      }
+      if (!segment.locations.isEmpty()) {
+        segments.add(segment);
+      }
+    }
+    return new Spectrum(testResults, segments, reusedSegmentsSize);
+  }
+
+  private static boolean isReusable(final Segment parentSegment,
+      final GeneratedAST<ProductSourcePath> ast, final TestResults testResults,
+      final Set<FullyQualifiedName> affectedTargetFQNs) {
+    if (null == parentSegment || !parentSegment.ast.getMessageDigest()
+        .equals(ast.getMessageDigest())) {
+      return false;
+    }
+    if (affectedTargetFQNs.isEmpty()) {
+      return true;
+    }
+    return testResults.getCorrespondingFqns(ast.getSourcePath())
+        .stream()
+        .noneMatch(affectedTargetFQNs::contains);
+  }
+
+  /**
+   * 2つのテスト結果の間で，成否かカバレッジが変化したテストが実行したクラスのFQNを返す．
+   */
+  private static Set<FullyQualifiedName> getAffectedTargetFQNs(final TestResults before,
+      final TestResults after) {
+    final Set<FullyQualifiedName> testFQNs = new HashSet<>(before.getExecutedTestFQNs());
+    testFQNs.addAll(after.getExecutedTestFQNs());
+
+    final Set<FullyQualifiedName> affectedTargetFQNs = new HashSet<>();
+    for (final FullyQualifiedName testFQN : testFQNs) {
+      final TestResult beforeResult = before.getTestResult(testFQN);
+      final TestResult afterResult = after.getTestResult(testFQN);
+      if (isSameResult(beforeResult, afterResult)) {
+        continue;
+      }
+      if (null != beforeResult) {
+        affectedTargetFQNs.addAll(beforeResult.getExecutedTargetFQNs());
+      }
+      if (null != afterResult) {
+        affectedTargetFQNs.addAll(afterResult.getExecutedTargetFQNs());
+      }
+    }
+    return affectedTargetFQNs;
+  }
+
+  private static boolean isSameResult(final TestResult before, final TestResult after) {
+    if (null == before || null == after) {
+      return false;
+    }
+    if (before.failed != after.failed || before.skipped != after.skipped) {
+      return false;
+    }
+    final List<FullyQualifiedName> targetFQNs = before.getExecutedTargetFQNs();
+    if (targetFQNs.size() != after.getExecutedTargetFQNs()
+        .size()) {
+      return false;
+    }
+    return targetFQNs.stream()
+        .allMatch(fqn -> Objects.equals(before.getCoverages(fqn), after.getCoverages(fqn)));
+  }
+
+  /**
+   * 指定したFL戦略の計算式で全ての文の疑惑値を計算する．
+   *
+   * @param faultLocalization FL戦略
+   * @return 疑惑値が正の文の疑惑値
+   */
+  public List<Suspiciousness> evaluate(final SpectrumBasedFaultLocalization faultLocalization) {
+    final List<Suspiciousness> suspiciousnesses = new ArrayList<>();
+    for (int i = 0; i < ef.length; i++) {
+      final double value = faultLocalization.formula(ef[i], nf[i], ep[i], np[i]);
+
+      // zero or nan means nothing
+      if (value <= 0 || Double.isNaN(value)) {
+        continue;
+      }
+      suspiciousnesses.add(new Suspiciousness(locations.get(i), value));
+    }
+    return suspiciousnesses;
+  }
+
+  /**
+   * スペクトラムに含まれる文の数を返す．
+   *
+   * @return 文の数
+   */
+  public int size() {
+    return locations.size();
+  }
+
+  /**
+   * 親個体のスペクトラムから再利用したソースファイルの数を返す．
+   *
+   * @return 再利用したソースファイルの数
+   */
+  public int getReusedSegmentsSize() {
+    return reusedSegmentsSize;
+  }
+
+  /**
+   * 1つのソースファイルに含まれる文の ef, ep．
+   */
+  private static class Segment {
+
+    private final GeneratedAST<ProductSourcePath> ast;
+    private final List<ASTLocation> locations;
+    private final long[] ef;
+    private final long[] ep;
+
+    private Segment(final GeneratedAST<ProductSourcePath> ast, final List<ASTLocation> locations,
+        final long[] ef, final long[] ep) {
+      this.ast = ast;
+      this.locations = locations;
+      this.ef = ef;
+      this.ep = ep;
+    }
+
+    private static Segment create(final GeneratedAST<ProductSourcePath> ast,
+        final TestResults testResults) {
+      final List<ASTLocation> locations = collectLocations(ast);
+
+      // TODO location:lineNum = 1:N の時の対策が必要．ひとまずNの一行目だけを使う．
+      final int[] lineNumbers = locations.stream()
+          .mapToInt(location -> location.inferLineNumbers().start)
+          .toArray();
+      final long[] ef = new long[lineNumbers.length];
+      final long[] ep = new long[lineNumbers.length];
+      if (0 < lineNumbers.length) {
+        testResults.countTestsExecutingTheLines(ast.getSourcePath(), lineNumbers, ef, ep);
+      }
+      return new Segment(ast, locations, ef, ep);
+    }
+
+    /**
+     * 同じ内容の別のASTに対して ef, ep を再利用する．<br>
+     * 文の位置はAST自体に結びついているため，ASTが別インスタンスの場合は作り直す．<br>
+     *
+     * @return 再利用したSegment．文の数が一致しない場合はnull
+     */
+    private Segment reuse(final GeneratedAST<ProductSourcePath> newAst) {
+      if (ast == newAst) {
+        return this;
+      }
+      final List<ASTLocation> newLocations = collectLocations(newAst);
+      if (newLocations.size() != locations.size()) {
+        return null;
+      }
+      return new Segment(newAst, newLocations, ef, ep);
+    }
+
+    private static List<ASTLocation> collectLocations(final GeneratedAST<ProductSourcePath> ast) {
+      final List<ASTLocation> locations = new ArrayList<>();
+      final Set<ASTLocation> registeredLocations = new HashSet<>();
+      final int lastLineNumber = ast.getNumberOfLines();
+      final ASTLocations astLocations = ast.createLocations();
+
+      for (int line = 1; line <= lastLineNumber; line++) {
+        final List<ASTLocation> lineLocations = astLocations.infer(line);
+
+        // no location found
+        if (lineLocations.isEmpty()) {
+          continue;
+        }
+
+        final ASTLocation location = lineLocations.get(lineLocations.size() - 1);
+        if (registeredLocations.add(location)) {
+          locations.add(location);
+        }
+      }
+      return locations;
+    }
+  }
+}
@@ -1,18 +1,7 @@
 package jp.kusumotolab.kgenprog.fl;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-import jp.kusumotolab.kgenprog.project.ASTLocation;
-import jp.kusumotolab.kgenprog.project.ASTLocations;
-import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
-import jp.kusumotolab.kgenprog.project.GeneratedAST;
 import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
-import jp.kusumotolab.kgenprog.project.ProductSourcePath;
-import jp.kusumotolab.kgenprog.project.test.TestResult;
 import jp.kusumotolab.kgenprog.project.test.TestResults;
 
 /**
@@ -21,7 +10,7 @@ import jp.kusumotolab.kgenprog.project.test.TestResults;
  */
 public abstract class SpectrumBasedFaultLocalization implements FaultLocalization {
 
-  private boolean skippableFormula;
+  private final boolean skippableFormula;
 
   public SpectrumBasedFaultLocalization() {
     skippableFormula = isSkippableFormula();
@@ -40,6 +29,15 @@ public abstract class SpectrumBasedFaultLocalization implements FaultLocalizatio
         formula(0, 33, 55, 66) == 0d;
   }
 
+  /**
+   * ef=0 の場合に常に計算結果が 0 になる数式か否かを返す．
+   *
+   * @return 計算手順を省略可能な場合true
+   */
+  boolean isSkippable() {
+    return skippableFormula;
+  }
+
   /**
    * 疑惑値を計算する.
    *
@@ -50,58 +48,34 @@ public abstract class SpectrumBasedFaultLocalization implements FaultLocalizatio
   @Override
   public List<Suspiciousness> exec(final GeneratedSourceCode generatedSourceCode,
       final TestResults testResults) {
+    final Spectrum spectrum =
+        Spectrum.create(generatedSourceCode, testResults, null, skippableFormula);
+    return exec(spectrum);
+  }
 
-    final List<Suspiciousness> suspiciousnesses = new ArrayList<>();
-
-    final Set<FullyQualifiedName> executedFailedTargetFQNs = testResults.getFailedTestResults()
-        .stream()
-        .map(TestResult::getExecutedTargetFQNs)
-        .flatMap(Collection::stream)
-        .collect(Collectors.toSet());
-
-    final Set<ASTLocation> registeredLocations = new HashSet<>();
-
-    for (final GeneratedAST<ProductSourcePath> ast : generatedSourceCode.getProductAsts()) {
-
-      // do nothing if none of failed target fqns contain the ast
-      if (skippableFormula && !executedFailedTargetFQNs.contains(ast.getPrimaryClassName())) {
-        continue;
-      }
-
-      final ProductSourcePath path = ast.getSourcePath();
-      final int lastLineNumber = ast.getNumberOfLines();
-      final ASTLocations astLocations = ast.createLocations();
-
-      for (int line = 1; line <= lastLineNumber; line++) {
-        final List<ASTLocation> locations = astLocations.infer(line);
-
-        // no location found
-        if (locations.isEmpty()) {
-          continue;
-        }
-
-        final ASTLocation location = locations.get(locations.size() - 1);
-        if (registeredLocations.contains(location)) {
-          continue;
-        }
-        registeredLocations.add(location);
-        final long ef = testResults.getNumberOfFailedTestsExecutingTheStatement(path, location);
-        final long nf = testResults.getNumberOfFailedTestsNotExecutingTheStatement(path, location);
-        final long ep = testResults.getNumberOfPassedTestsExecutingTheStatement(path, location);
-        final long np = testResults.getNumberOfPassedTestsNotExecutingTheStatement(path, location);
-
-        final double value = formula(ef, nf, ep, np);
-
-        // zero or nan means nothing
-        if (value <= 0 || Double.isNaN(value)) {
-          continue;
-        }
+  /**
+   * 親個体のスペクトラムを基にスペクトラムを作成する.<br>
+   * 親個体から変化のないソースファイルについては，親個体の計算結果を再利用する.<br>
+   *
+   * @param generatedSourceCode 自動バグ限局の対象ソースコード
+   * @param testResults テストの実行結果
+   * @param parent 親個体のスペクトラム．nullの場合は全て計算する
+   * @return スペクトラム
+   */
+  public Spectrum createSpectrum(final GeneratedSourceCode generatedSourceCode,
+      final TestResults testResults, final Spectrum parent) {
+    return Spectrum.create(generatedSourceCode, testResults, parent, skippableFormula);
+  }
 
-        final Suspiciousness s = new Suspiciousness(location, value);
-        suspiciousnesses.add(s);
-      }
-    }
-    return suspiciousnesses;
+  /**
+   * 作成済みのスペクトラムから疑惑値を計算する.<br>
+   * 複数のFL戦略で同じスペクトラムを使い回す場合に用いる.<br>
+   *
+   * @param spectrum FLの4メトリクスの行列
+   * @return suspiciousnesses 疑惑値
+   */
+  public List<Suspiciousness> exec(final Spectrum spectrum) {
+    return spectrum.evaluate(this);
   }
 
   /**
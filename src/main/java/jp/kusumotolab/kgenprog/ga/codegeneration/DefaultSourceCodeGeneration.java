@@ -1,25 +1,91 @@
 package jp.kusumotolab.kgenprog.ga.codegeneration;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import jp.kusumotolab.kgenprog.ga.variant.Base;
 import jp.kusumotolab.kgenprog.ga.variant.Gene;
 import jp.kusumotolab.kgenprog.ga.variant.Variant;
 import jp.kusumotolab.kgenprog.ga.variant.VariantStore;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
 import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
 import jp.kusumotolab.kgenprog.project.Operation;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
 import jp.kusumotolab.kgenprog.project.ReproducedSourceCode;
+import jp.kusumotolab.kgenprog.project.jdt.GeneratedJDTAST;
 
 /**
  * Gene の情報を基にソースコードの生成を行うクラス
  * このクラスはすでに生成済みのソースコードを生成しようとすると，
  * そのソースコードの生成をやめて，ReproducedSourceCode を返す
  *
+ * キャッシュの容量を指定した場合，生成したソースコードを Gene (Base の列) をキーとして保持する．
+ * Gene の先頭部分が一致するソースコードがキャッシュにあれば，そこから残りの Base だけを適用する．
+ * 変異による子個体の Gene は親個体の Gene に Base を1つ足したものなので，適用する Base は1つで済む．
+ * Base の適用対象の位置は Operation が JDTASTLocation#locate で適用先の AST 上に探し直すため，
+ * 親個体の AST にそのまま適用できる．
+ *
+ * 正規化による重複検出を有効にした場合，生成済みか否かを正規化した AST のダイジェストで判定する．
+ * 空文の有無やブロックの入れ子のみが異なるソースコードも，ビルドの前に生成済みとみなせる．
+ *
  * @see SourceCodeGeneration
  */
 public class DefaultSourceCodeGeneration implements SourceCodeGeneration {
 
-  private final Map<String, ReproducedStatus> sourceCodeMap = new HashMap<>();
+  private final ReproducedSourceRegistry registry;
+  private final Map<List<Base>, GeneratedSourceCode> sourceCodeCache;
+  private final int cacheSize;
+  private final boolean normalizesSourceCode;
+
+  /**
+   * 生成したソースコードをキャッシュしないインスタンスを作成する
+   */
+  public DefaultSourceCodeGeneration() {
+    this(0);
+  }
+
+  /**
+   * @param cacheSize 生成したソースコードを保持する数．0の場合はキャッシュしない
+   */
+  public DefaultSourceCodeGeneration(final int cacheSize) {
+    this(cacheSize, false);
+  }
+
+  /**
+   * @param cacheSize 生成したソースコードを保持する数．0の場合はキャッシュしない
+   * @param normalizesSourceCode 正規化した AST により生成済みか否かを判定するか
+   */
+  public DefaultSourceCodeGeneration(final int cacheSize, final boolean normalizesSourceCode) {
+    this(cacheSize, normalizesSourceCode, 0);
+  }
+
+  /**
+   * @param cacheSize 生成したソースコードを保持する数．0の場合はキャッシュしない
+   * @param normalizesSourceCode 正規化した AST により生成済みか否かを判定するか
+   * @param registrySize 生成済みか否かの判定のために記録するソースコードの数の上限．<br>
+   *        0の場合は上限を設けない
+   */
+  public DefaultSourceCodeGeneration(final int cacheSize, final boolean normalizesSourceCode,
+      final int registrySize) {
+    this.cacheSize = cacheSize;
+    this.normalizesSourceCode = normalizesSourceCode;
+    this.registry = new ReproducedSourceRegistry(registrySize);
+    // 最も長く使われていないものから破棄する
+    this.sourceCodeCache = new LinkedHashMap<List<Base>, GeneratedSourceCode>(16, 0.75f, true) {
+
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(
+          final Map.Entry<List<Base>, GeneratedSourceCode> eldest) {
+        return size() > DefaultSourceCodeGeneration.this.cacheSize;
+      }
+    };
+  }
 
   /**
    * 重複したソースコードの生成を避けるため，初期状態のソースコードの情報をここで保持する
@@ -29,7 +95,7 @@ public class DefaultSourceCodeGeneration implements SourceCodeGeneration {
   @Override
   public void initialize(final Variant initialVariant) {
     final GeneratedSourceCode generatedSourceCode = initialVariant.getGeneratedSourceCode();
-    putSourceCode(generatedSourceCode);
+    putSourceCode(createDigest(generatedSourceCode), generatedSourceCode);
   }
 
   /**
@@ -46,27 +112,78 @@ public class DefaultSourceCodeGeneration implements SourceCodeGeneration {
   @Override
   public GeneratedSourceCode exec(final VariantStore variantStore, final Gene gene) {
     final Variant initialVariant = variantStore.getInitialVariant();
+    final List<Base> bases = gene.getBases();
     GeneratedSourceCode generatedSourceCode = initialVariant.getGeneratedSourceCode();
+    int appliedBasesSize = 0;
+
+    // Gene の先頭部分のうち，最も長いものに対応するソースコードから生成を始める
+    if (0 < cacheSize) {
+      for (int prefixSize = bases.size(); 0 < prefixSize; prefixSize--) {
+        final GeneratedSourceCode cachedSourceCode =
+            sourceCodeCache.get(bases.subList(0, prefixSize));
+        if (null != cachedSourceCode) {
+          generatedSourceCode = cachedSourceCode;
+          appliedBasesSize = prefixSize;
+          break;
+        }
+      }
+    }
 
-    for (final Base base : gene.getBases()) {
+    for (final Base base : bases.subList(appliedBasesSize, bases.size())) {
       final Operation operation = base.getOperation();
       generatedSourceCode = operation.apply(generatedSourceCode, base.getTargetLocation());
     }
 
-    if (sourceCodeMap.containsKey((generatedSourceCode.getMessageDigest()))) {
-      final ReproducedStatus status = sourceCodeMap.get(generatedSourceCode.getMessageDigest());
-      status.incrementCounter();
+    if (0 < cacheSize && appliedBasesSize < bases.size()
+        && generatedSourceCode.isGenerationSuccess()) {
+      sourceCodeCache.put(new ArrayList<>(bases), generatedSourceCode);
+    }
+
+    final String digest = createDigest(generatedSourceCode);
+    final ReproducedStatus status = registry.find(digest);
+    if (null != status) {
       generatedSourceCode = new ReproducedSourceCode(status);
     } else {
-      putSourceCode(generatedSourceCode);
+      putSourceCode(digest, generatedSourceCode);
     }
 
     return generatedSourceCode;
   }
 
-  private void putSourceCode(final GeneratedSourceCode generatedSourceCode) {
-    final ReproducedStatus status = new ReproducedStatus(
-        generatedSourceCode.isGenerationSuccess(), generatedSourceCode.getGenerationMessage());
-    sourceCodeMap.put(generatedSourceCode.getMessageDigest(), status);
+  private void putSourceCode(final String digest,
+      final GeneratedSourceCode generatedSourceCode) {
+    registry.put(digest, generatedSourceCode.isGenerationSuccess(),
+        generatedSourceCode.getGenerationMessage());
+  }
+
+  /**
+   * @return 生成済みのソースコードを記録している表
+   */
+  public ReproducedSourceRegistry getRegistry() {
+    return registry;
+  }
+
+  private String createDigest(final GeneratedSourceCode generatedSourceCode) {
+    final List<GeneratedAST<ProductSourcePath>> asts = generatedSourceCode.getProductAsts();
+    if (!normalizesSourceCode || asts.isEmpty()) {
+      return generatedSourceCode.getMessageDigest();
+    }
+
+    // ファイルごとのダイジェストを順序に依存しない方法で結合する
+    final List<HashCode> hashCodes = new ArrayList<>(asts.size());
+    for (final GeneratedAST<ProductSourcePath> ast : asts) {
+      final String digest = ast instanceof GeneratedJDTAST
+          ? ((GeneratedJDTAST<?>) ast).getNormalizedDigest()
+          : ast.getMessageDigest();
+      hashCodes.add(Hashing.murmur3_128()
+          .newHasher()
+          .putString(ast.getSourcePath()
+              .toString(), StandardCharsets.UTF_8)
+          .putByte((byte) 0)
+          .putString(digest, StandardCharsets.UTF_8)
+          .hash());
+    }
+    return Hashing.combineUnordered(hashCodes)
+        .toString();
   }
 }
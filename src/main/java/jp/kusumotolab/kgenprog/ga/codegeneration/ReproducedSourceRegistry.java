@@ -0,0 +1,263 @@
+package jp.kusumotolab.kgenprog.ga.codegeneration;
+
+import java.nio.charset.StandardCharsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * 生成済みのソースコードのダイジェストを記録する表．<br>
+ * ダイジェストを128bitの値（2つのlong）として，オープンアドレス法のプリミティブ配列に格納する．<br>
+ * 16進文字列のキーと ReproducedStatus を1件ごとに保持する HashMap に比べ，1件あたりのメモリ量が小さい．<br>
+ *
+ * 上限を指定した場合は，表を新旧2世代に分けて保持する．<br>
+ * 新しい世代が上限の半分に達した時点で古い世代を破棄し，新しい世代を古い世代とする．<br>
+ * 古い世代で見つかったダイジェストは新しい世代に移すため，よく再生成されるソースコードほど残りやすい．<br>
+ * 上限を指定しない場合は破棄を行わず，全てのダイジェストを保持する．<br>
+ *
+ * @author shinsuke
+ */
+public class ReproducedSourceRegistry {
+
+  private static final int INITIAL_CAPACITY = 1 << 10;
+  private static final int HEX_DIGEST_LENGTH = 32;
+
+  private final int maxSize;
+  private Table current;
+  private Table previous;
+  private long hitCount;
+  private long missCount;
+  private long evictedCount;
+
+  /**
+   * 上限のない表を作成する
+   */
+  public ReproducedSourceRegistry() {
+    this(0);
+  }
+
+  /**
+   * @param maxSize 保持するダイジェストの数の上限．0の場合は上限を設けない
+   */
+  public ReproducedSourceRegistry(final int maxSize) {
+    this.maxSize = maxSize;
+    this.current = new Table(INITIAL_CAPACITY);
+    this.previous = null;
+  }
+
+  /**
+   * 指定ダイジェストのソースコードが生成済みであれば，その重複回数を1増やして状態を返す．
+   *
+   * @param digest ソースコードのダイジェスト
+   * @return 生成済みの場合はその状態，そうでなければnull
+   */
+  public ReproducedStatus find(final String digest) {
+    final long high = toHigh(digest);
+    final long low = toLow(digest);
+
+    int index = current.indexOf(high, low);
+    if (index < 0 && null != previous) {
+      final Table table = previous;
+      final int previousIndex = table.indexOf(high, low);
+      if (0 <= previousIndex) {
+        // 古い世代から新しい世代に移す
+        final boolean success = table.successes[previousIndex];
+        final String message = table.messages[previousIndex];
+        final int count = table.counts[previousIndex];
+        table.remove(previousIndex);
+        index = insert(high, low, success, message, count);
+      }
+    }
+
+    if (index < 0) {
+      missCount++;
+      return null;
+    }
+
+    hitCount++;
+    final int count = ++current.counts[index];
+    return new ReproducedStatus(current.successes[index], current.messages[index], count);
+  }
+
+  /**
+   * 生成したソースコードのダイジェストを記録する．
+   *
+   * @param digest ソースコードのダイジェスト
+   * @param isGenerationSuccess コード生成に成功したかどうか
+   * @param generationMessage コード生成時のメッセージ
+   */
+  public void put(final String digest, final boolean isGenerationSuccess,
+      final String generationMessage) {
+    final long high = toHigh(digest);
+    final long low = toLow(digest);
+    if (0 <= current.indexOf(high, low)) {
+      return;
+    }
+    insert(high, low, isGenerationSuccess, generationMessage, 0);
+  }
+
+  /**
+   * @return 記録しているダイジェストの数
+   */
+  public int size() {
+    return current.size + (null == previous ? 0 : previous.size);
+  }
+
+  /**
+   * @return 生成済みと判定した回数
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return 生成済みでないと判定した回数
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return 上限により破棄したダイジェストの数
+   */
+  public long getEvictedCount() {
+    return evictedCount;
+  }
+
+  private int insert(final long high, final long low, final boolean success,
+      final String message, final int count) {
+    if (0 < maxSize && (maxSize + 1) / 2 <= current.size) {
+      if (null != previous) {
+        evictedCount += previous.size;
+      }
+      previous = current;
+      current = new Table(INITIAL_CAPACITY);
+    } else if (current.successes.length <= current.size * 2) {
+      current = current.grow();
+    }
+    return current.insert(high, low, success, message, count);
+  }
+
+  private static long toHigh(final String digest) {
+    return isHexDigest(digest) ? Long.parseUnsignedLong(digest.substring(0, 16), 16)
+        : hash(digest).asLong();
+  }
+
+  private static long toLow(final String digest) {
+    if (isHexDigest(digest)) {
+      return Long.parseUnsignedLong(digest.substring(16), 16);
+    }
+    final byte[] bytes = hash(digest).asBytes();
+    long low = 0;
+    for (int i = 15; 8 <= i; i--) {
+      low = (low << 8) | (bytes[i] & 0xff);
+    }
+    return low;
+  }
+
+  /**
+   * 128bitの16進文字列か否かを返す．<br>
+   * それ以外の形式のダイジェストは，128bitのハッシュ値に変換して格納する．<br>
+   */
+  private static boolean isHexDigest(final String digest) {
+    if (HEX_DIGEST_LENGTH != digest.length()) {
+      return false;
+    }
+    for (int i = 0; i < HEX_DIGEST_LENGTH; i++) {
+      if (Character.digit(digest.charAt(i), 16) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static HashCode hash(final String digest) {
+    return Hashing.murmur3_128()
+        .hashString(digest, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * 線形探査のオープンアドレス法による表．容量は常に2の冪とする
+   */
+  private static class Table {
+
+    private final long[] highs;
+    private final long[] lows;
+    private final boolean[] used;
+    private final boolean[] successes;
+    private final String[] messages;
+    private final int[] counts;
+    private final int mask;
+    private int size;
+
+    private Table(final int capacity) {
+      this.highs = new long[capacity];
+      this.lows = new long[capacity];
+      this.used = new boolean[capacity];
+      this.successes = new boolean[capacity];
+      this.messages = new String[capacity];
+      this.counts = new int[capacity];
+      this.mask = capacity - 1;
+    }
+
+    private int indexOf(final long high, final long low) {
+      int index = slot(high, low);
+      while (used[index]) {
+        if (highs[index] == high && lows[index] == low) {
+          return index;
+        }
+        index = (index + 1) & mask;
+      }
+      return -1;
+    }
+
+    private int insert(final long high, final long low, final boolean success,
+        final String message, final int count) {
+      int index = slot(high, low);
+      while (used[index]) {
+        index = (index + 1) & mask;
+      }
+      used[index] = true;
+      highs[index] = high;
+      lows[index] = low;
+      successes[index] = success;
+      messages[index] = message;
+      counts[index] = count;
+      size++;
+      return index;
+    }
+
+    /**
+     * 指定位置の要素を削除し，後続の要素を詰め直す
+     */
+    private void remove(final int removedIndex) {
+      used[removedIndex] = false;
+      messages[removedIndex] = null;
+      size--;
+
+      int index = (removedIndex + 1) & mask;
+      while (used[index]) {
+        final String message = messages[index];
+        used[index] = false;
+        messages[index] = null;
+        size--;
+        insert(highs[index], lows[index], successes[index], message, counts[index]);
+        index = (index + 1) & mask;
+      }
+    }
+
+    private Table grow() {
+      final Table table = new Table(used.length * 2);
+      for (int i = 0; i < used.length; i++) {
+        if (used[i]) {
+          table.insert(highs[i], lows[i], successes[i], messages[i], counts[i]);
+        }
+      }
+      return table;
+    }
+
+    private int slot(final long high, final long low) {
+      // ダイジェストは一様に分布しているため，下位ビットをそのまま用いる
+      return (int) (low ^ (high >>> 32)) & mask;
+    }
+  }
+}
@@ -16,8 +16,19 @@ public class ReproducedStatus {
    * @param generationMessage ソースコードのハッシュ値
    */
   public ReproducedStatus(final boolean isGenerationSuccess, final String generationMessage) {
+    this(isGenerationSuccess, generationMessage, 0);
+  }
+
+  /**
+   * @param isGenerationSuccess コード生成に成功したかどうか
+   * @param generationMessage ソースコードのハッシュ値
+   * @param count これまでに重複した回数
+   */
+  ReproducedStatus(final boolean isGenerationSuccess, final String generationMessage,
+      final int count) {
     this.isGenerationSuccess = isGenerationSuccess;
     this.generationMessage = generationMessage;
+    this.counter.set(count);
   }
 
   /**
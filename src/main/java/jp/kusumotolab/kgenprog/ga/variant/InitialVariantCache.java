@@ -0,0 +1,305 @@
+package jp.kusumotolab.kgenprog.ga.variant;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.Version;
+import jp.kusumotolab.kgenprog.fl.Suspiciousness;
+import jp.kusumotolab.kgenprog.project.ASTLocation;
+import jp.kusumotolab.kgenprog.project.ClassPath;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.SourcePath;
+import jp.kusumotolab.kgenprog.project.TestSourcePath;
+import jp.kusumotolab.kgenprog.project.build.BinaryStoreCodec;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.test.EmptyTestResults;
+import jp.kusumotolab.kgenprog.project.test.TestResults;
+import jp.kusumotolab.kgenprog.project.test.TestResultsCodec;
+
+/**
+ * 初期個体のビルド結果・テスト結果・疑惑値をディスクに保存し，次回以降の実行で再利用するためのキャッシュ．<br>
+ * 同一のプロジェクトに対してシードやFL手法を変えて繰り返し実行する場合に，初期個体の評価を省略できる．<br>
+ *
+ * キャッシュはソースコードのダイジェスト，クラスパス，javaとkgpのバージョン，実行するテスト等から求めたキーごとの
+ * ディレクトリに保存する．<br>
+ * テスト結果にはビルド結果（バイナリ集合）とカバレッジを含める．<br>
+ * 疑惑値はFL手法ごとに別のファイルに保存する．<br>
+ * 読み書きに失敗した場合はキャッシュが存在しないものとして扱い，通常通り初期個体を評価する．<br>
+ *
+ * @author shinsuke
+ */
+class InitialVariantCache {
+
+  private static final Logger log = LoggerFactory.getLogger(InitialVariantCache.class);
+  private static final String TEST_RESULTS_FILE_NAME = "test-results.bin";
+  private static final String SUSPICIOUSNESS_FILE_PREFIX = "suspiciousness-";
+  private static final String SUSPICIOUSNESS_FILE_SUFFIX = ".bin";
+
+  private final Configuration config;
+  private final Path cacheDir;
+  private final Path rootPath;
+
+  /**
+   * @param config 設定．キャッシュの保存先には{@link Configuration#getCacheDir()}を用いる
+   */
+  InitialVariantCache(final Configuration config) {
+    this.config = config;
+    this.cacheDir = config.getCacheDir();
+    this.rootPath = config.getTargetProject().rootPath;
+  }
+
+  /**
+   * 保存済みの初期個体のテスト結果を読み込む．
+   *
+   * @param sourceCode 初期個体のソースコード
+   * @param measuresCoverage カバレッジを計測したテスト結果を求めるかどうか
+   * @return 保存済みのテスト結果．保存されていない場合はnull
+   */
+  TestResults loadTestResults(final GeneratedSourceCode sourceCode,
+      final boolean measuresCoverage) {
+    final Path file = getTestResultsFile(sourceCode, measuresCoverage);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    try (final DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      final BuildResults buildResults = BinaryStoreCodec.readBuildResults(in, rootPath);
+      final TestResults testResults = TestResultsCodec.read(in, buildResults);
+      log.info("loaded the test results of the initial variant from " + file);
+      return testResults;
+    } catch (final IOException e) {
+      log.warn("failed to load the cache " + file, e);
+      return null;
+    }
+  }
+
+  /**
+   * 初期個体のテスト結果を保存する．<br>
+   * ビルドに失敗した場合などの空のテスト結果は保存しない．<br>
+   *
+   * @param sourceCode 初期個体のソースコード
+   * @param measuresCoverage テスト結果がカバレッジを計測したものかどうか
+   * @param testResults 保存するテスト結果
+   */
+  void saveTestResults(final GeneratedSourceCode sourceCode, final boolean measuresCoverage,
+      final TestResults testResults) {
+    if (testResults instanceof EmptyTestResults) {
+      return;
+    }
+
+    write(getTestResultsFile(sourceCode, measuresCoverage), out -> {
+      BinaryStoreCodec.write(out, testResults.getBuildResults().binaryStore);
+      TestResultsCodec.write(out, testResults);
+    });
+  }
+
+  /**
+   * 保存済みの初期個体の疑惑値を読み込む．
+   *
+   * @param sourceCode 初期個体のソースコード
+   * @return 保存済みの疑惑値のリスト．保存されていない場合はnull
+   */
+  List<Suspiciousness> loadSuspiciousnesses(final GeneratedSourceCode sourceCode) {
+    final Path file = getSuspiciousnessFile(sourceCode);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    final List<GeneratedAST<ProductSourcePath>> asts = sourceCode.getProductAsts();
+    try (final DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      final int size = in.readInt();
+      final List<Suspiciousness> suspiciousnesses = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        final int astIndex = in.readInt();
+        final int locationIndex = in.readInt();
+        final double value = in.readDouble();
+        final ASTLocation location = asts.get(astIndex)
+            .createLocations()
+            .getAll()
+            .get(locationIndex);
+        suspiciousnesses.add(new Suspiciousness(location, value));
+      }
+      log.info("loaded the suspiciousnesses of the initial variant from " + file);
+      return suspiciousnesses;
+    } catch (final IOException | IndexOutOfBoundsException e) {
+      log.warn("failed to load the cache " + file, e);
+      return null;
+    }
+  }
+
+  /**
+   * 初期個体の疑惑値を保存する．<br>
+   * 疑惑値の位置は，ASTの番号とそのAST内のLocationの番号の組として保存する．<br>
+   *
+   * @param sourceCode 初期個体のソースコード
+   * @param suspiciousnesses 保存する疑惑値のリスト
+   */
+  void saveSuspiciousnesses(final GeneratedSourceCode sourceCode,
+      final List<Suspiciousness> suspiciousnesses) {
+    final List<GeneratedAST<ProductSourcePath>> asts = sourceCode.getProductAsts();
+    final Map<SourcePath, Integer> astIndices = new HashMap<>();
+    for (int i = 0; i < asts.size(); i++) {
+      astIndices.put(asts.get(i)
+          .getSourcePath(), i);
+    }
+    final Map<ASTLocation, Integer> locationIndices = new HashMap<>();
+
+    write(getSuspiciousnessFile(sourceCode), out -> {
+      out.writeInt(suspiciousnesses.size());
+      for (final Suspiciousness suspiciousness : suspiciousnesses) {
+        final ASTLocation location = suspiciousness.getLocation();
+        final int astIndex = astIndices.get(location.getSourcePath());
+        if (!locationIndices.containsKey(location)) {
+          final List<ASTLocation> locations = asts.get(astIndex)
+              .createLocations()
+              .getAll();
+          for (int i = 0; i < locations.size(); i++) {
+            locationIndices.put(locations.get(i), i);
+          }
+        }
+        out.writeInt(astIndex);
+        out.writeInt(locationIndices.get(location));
+        out.writeDouble(suspiciousness.getValue());
+      }
+    });
+  }
+
+  private Path getTestResultsFile(final GeneratedSourceCode sourceCode,
+      final boolean measuresCoverage) {
+    return getKeyDir(sourceCode).resolve((measuresCoverage ? "" : "no-coverage-")
+        + TEST_RESULTS_FILE_NAME);
+  }
+
+  private Path getSuspiciousnessFile(final GeneratedSourceCode sourceCode) {
+    return getKeyDir(sourceCode).resolve(SUSPICIOUSNESS_FILE_PREFIX + config.getFaultLocalization()
+        .name() + SUSPICIOUSNESS_FILE_SUFFIX);
+  }
+
+  /**
+   * 初期個体の評価結果に影響しうる情報からキーを求め，キャッシュを保存するディレクトリを返す
+   */
+  private Path getKeyDir(final GeneratedSourceCode sourceCode) {
+    final Hasher hasher = Hashing.murmur3_128()
+        .newHasher();
+    hasher.putString(sourceCode.getMessageDigest(), StandardCharsets.UTF_8);
+    for (final GeneratedAST<TestSourcePath> ast : sourceCode.getTestAsts()) {
+      hasher.putString(ast.getSourcePath()
+          .toString(), StandardCharsets.UTF_8)
+          .putString(ast.getMessageDigest(), StandardCharsets.UTF_8);
+    }
+    for (final ClassPath classPath : config.getTargetProject()
+        .getClassPaths()) {
+      hasher.putString(classPath.path.toAbsolutePath()
+          .toString(), StandardCharsets.UTF_8);
+      putContents(hasher, classPath.path);
+    }
+    for (final String executionTest : config.getExecutedTests()) {
+      hasher.putString(executionTest, StandardCharsets.UTF_8);
+    }
+    hasher.putLong(config.getTestTimeLimitSeconds())
+        .putInt(TestResultsCodec.FORMAT_VERSION)
+        .putString(System.getProperty("java.version"), StandardCharsets.UTF_8)
+        .putString(Version.instance.id, StandardCharsets.UTF_8);
+    return cacheDir.resolve(hasher.hash()
+        .toString());
+  }
+
+  /**
+   * クラスパスの内容をキーに加える．<br>
+   * ディレクトリの更新時刻は直下のエントリの増減でしか変わらず，配下のクラスファイルの書き換えを反映しないため，
+   * ディレクトリの場合は配下の全ファイルの相対パスと内容を，jarファイルの場合はその内容を用いる．<br>
+   * 読み込めない場合は何も加えない．<br>
+   */
+  private void putContents(final Hasher hasher, final Path path) {
+    try {
+      if (!Files.isDirectory(path)) {
+        if (Files.isRegularFile(path)) {
+          putFile(hasher, path);
+        }
+        return;
+      }
+      final List<Path> files;
+      try (final Stream<Path> stream = Files.walk(path)) {
+        files = stream.filter(Files::isRegularFile)
+            .sorted()
+            .collect(Collectors.toList());
+      }
+      for (final Path file : files) {
+        hasher.putString(path.relativize(file)
+            .toString(), StandardCharsets.UTF_8);
+        putFile(hasher, file);
+      }
+    } catch (final IOException | UncheckedIOException e) {
+      log.warn("failed to read the class path " + path, e);
+    }
+  }
+
+  private void putFile(final Hasher hasher, final Path file) throws IOException {
+    try (final InputStream in = Files.newInputStream(file)) {
+      ByteStreams.copy(in, Funnels.asOutputStream(hasher));
+    }
+  }
+
+  /**
+   * 一時ファイルに書き出してから置き換えることで，書き込み途中のファイルが他の実行から読まれないようにする
+   */
+  private void write(final Path file, final Writer writer) {
+    Path tempFile = null;
+    try {
+      Files.createDirectories(file.getParent());
+      tempFile = Files.createTempFile(file.getParent(), file.getFileName()
+          .toString(), ".tmp");
+      try (final DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        writer.write(out);
+      }
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException e) {
+      log.warn("failed to save the cache " + file, e);
+      deleteQuietly(tempFile);
+    }
+  }
+
+  private void deleteQuietly(final Path file) {
+    if (null == file) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (final IOException e) {
+      // 次回以降の読み込みには影響しないため無視する
+    }
+  }
+
+  @FunctionalInterface
+  private interface Writer {
+
+    void write(DataOutputStream out) throws IOException;
+  }
+}
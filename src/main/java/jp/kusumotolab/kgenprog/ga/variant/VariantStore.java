@@ -16,7 +16,11 @@ import jp.kusumotolab.kgenprog.Strategies;
 import jp.kusumotolab.kgenprog.fl.Suspiciousness;
 import jp.kusumotolab.kgenprog.ga.validation.Fitness;
 import jp.kusumotolab.kgenprog.ga.validation.SourceCodeValidation.Input;
+import jp.kusumotolab.kgenprog.project.ASTLocation;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
 import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.test.CoveragePolicy;
 import jp.kusumotolab.kgenprog.project.test.EmptyTestResults;
 import jp.kusumotolab.kgenprog.project.test.TestResults;
 
@@ -36,6 +40,7 @@ public class VariantStore {
   private final AtomicLong variantCounter;
   private final Function<HistoricalElement, HistoricalElement> elementReplacer;
   private final Consumer<Variant> variantRecorder;
+  private final InitialVariantCache initialVariantCache;
   private int variantCount;
   private int syntaxValidVariantCount;
   private int buildSuccessVariantCount;
@@ -51,6 +56,7 @@ public class VariantStore {
     variantCounter = new AtomicLong();
     generation = new OrdinalNumber(0);
     elementReplacer = newElementReplacer(config.isHistoryRecord());
+    initialVariantCache = null == config.getCacheDir() ? null : new InitialVariantCache(config);
     initialVariant = createInitialVariant();
     currentVariants = Collections.singletonList(initialVariant);
     allVariants = new LinkedList<>();
@@ -74,7 +80,11 @@ public class VariantStore {
    */
   public Variant createVariant(final Gene gene, final HistoricalElement element) {
     final GeneratedSourceCode sourceCode = strategies.execSourceCodeGeneration(this, gene);
-    return createVariant(gene, sourceCode, elementReplacer.apply(element));
+    // 履歴を記録しない場合は親個体の情報が失われるので，置き換える前に取り出しておく
+    final GeneratedSourceCode parentSourceCode =
+        config.isIncrementalFaultLocalization() ? getParentSourceCode(element) : null;
+    return createVariant(gene, sourceCode, elementReplacer.apply(element), false,
+        parentSourceCode);
   }
 
   /**
@@ -207,6 +217,7 @@ public class VariantStore {
 
     currentVariants = nextVariants;
     generatedVariants = new ArrayList<>();
+    strategies.proceedNextGeneration(currentVariants);
   }
 
   private Variant createInitialVariant() {
@@ -214,11 +225,14 @@ public class VariantStore {
         strategies.execASTConstruction(config.getTargetProject());
     final HistoricalElement newElement = new OriginalHistoricalElement();
     return createVariant(new Gene(Collections.emptyList()), sourceCode,
-        elementReplacer.apply(newElement));
+        elementReplacer.apply(newElement), true, null);
   }
 
   private Variant createVariant(final Gene gene, final GeneratedSourceCode sourceCode,
-      final HistoricalElement element) {
+      final HistoricalElement element, final boolean isInitialVariant,
+      final GeneratedSourceCode parentSourceCode) {
+    final CoveragePolicy coveragePolicy = config.getCoveragePolicy();
+    final boolean measuresCoverage = coveragePolicy.measuresCoverage(isInitialVariant);
     final LazyVariant variant = new LazyVariant(variantCounter.getAndIncrement(), generation.get(),
         gene, sourceCode, element);
     final Single<Variant> variantSingle = Single.just(variant)
@@ -226,8 +240,9 @@ public class VariantStore {
         .cache();
 
     final Single<TestResults> resultsSingle =
-        sourceCode.shouldBeTested() ? strategies.execAsyncTestExecutor(variantSingle)
-            .cache() : Single.just(new EmptyTestResults("build failed or reproduced."));
+        sourceCode.shouldBeTested() ? execAsyncTestExecutor(variantSingle, sourceCode,
+            measuresCoverage, isInitialVariant).cache()
+            : Single.just(new EmptyTestResults("build failed or reproduced."));
     variant.setTestResultsSingle(resultsSingle);
 
     final Single<Fitness> fitnessSingle = Single
@@ -236,10 +251,15 @@ public class VariantStore {
         .cache();
     variant.setFitnessSingle(fitnessSingle);
 
-    final Single<List<Suspiciousness>> suspiciousnessListSingle = Single
-        .zip(variantSingle, resultsSingle,
-            (v, r) -> strategies.execFaultLocalization(sourceCode, r))
-        .cache();
+    // InitialOnlyの場合，初期個体以外は初期個体の疑惑値を自身のASTに写したものを用いる
+    final Single<List<Suspiciousness>> suspiciousnessListSingle =
+        measuresCoverage || CoveragePolicy.OnDemand == coveragePolicy
+            ? execFaultLocalization(Single.zip(variantSingle,
+                getCoverageResults(variantSingle, resultsSingle, measuresCoverage),
+                (v, r) -> execFaultLocalization(sourceCode, r, parentSourceCode)), sourceCode,
+                isInitialVariant).cache()
+            : resultsSingle.map(r -> mapInitialSuspiciousnesses(sourceCode, r))
+                .cache();
     variant.setSuspiciousnessListSingle(suspiciousnessListSingle);
 
     variant.subscribe();
@@ -247,6 +267,108 @@ public class VariantStore {
     return variant;
   }
 
+  /**
+   * 初期個体の疑惑値を，個体のASTの対応する位置に写す．<br>
+   * 変更によって対応する位置がなくなった疑惑値は捨てる．<br>
+   * ビルドに失敗した場合など，テスト結果が得られなかった個体は疑惑値を持たない．<br>
+   */
+  private List<Suspiciousness> mapInitialSuspiciousnesses(final GeneratedSourceCode sourceCode,
+      final TestResults testResults) {
+    if (testResults instanceof EmptyTestResults) {
+      return Collections.emptyList();
+    }
+
+    final List<Suspiciousness> suspiciousnesses = new ArrayList<>();
+    for (final Suspiciousness suspiciousness : initialVariant.getSuspiciousnesses()) {
+      final ASTLocation initialLocation = suspiciousness.getLocation();
+      final GeneratedAST<ProductSourcePath> ast =
+          sourceCode.getProductAst(initialLocation.getSourcePath());
+      final ASTLocation location = null == ast ? null : ast.createLocations()
+          .find(initialLocation);
+      if (null != location) {
+        suspiciousnesses.add(new Suspiciousness(location, suspiciousness.getValue()));
+      }
+    }
+    return suspiciousnesses;
+  }
+
+  private GeneratedSourceCode getParentSourceCode(final HistoricalElement element) {
+    final List<Variant> parents = element.getParents();
+    return null == parents || parents.isEmpty() ? null : parents.get(0)
+        .getGeneratedSourceCode();
+  }
+
+  private List<Suspiciousness> execFaultLocalization(final GeneratedSourceCode sourceCode,
+      final TestResults testResults, final GeneratedSourceCode parentSourceCode) {
+    if (null == parentSourceCode) {
+      return strategies.execFaultLocalization(sourceCode, testResults);
+    }
+    return strategies.execFaultLocalization(sourceCode, testResults, parentSourceCode);
+  }
+
+  private Single<TestResults> execAsyncTestExecutor(final Single<Variant> variantSingle,
+      final boolean measuresCoverage) {
+    return measuresCoverage ? strategies.execAsyncTestExecutor(variantSingle)
+        : strategies.execAsyncTestExecutor(variantSingle, false);
+  }
+
+  /**
+   * 初期個体のテスト結果がキャッシュに保存されていれば，テストを実行せずにそれを返す．<br>
+   * 保存されていなければテストを実行し，その結果をキャッシュに保存する．<br>
+   */
+  private Single<TestResults> execAsyncTestExecutor(final Single<Variant> variantSingle,
+      final GeneratedSourceCode sourceCode, final boolean measuresCoverage,
+      final boolean isInitialVariant) {
+    if (!isInitialVariant || null == initialVariantCache) {
+      return execAsyncTestExecutor(variantSingle, measuresCoverage);
+    }
+    return Single.defer(() -> {
+      final TestResults cachedResults =
+          initialVariantCache.loadTestResults(sourceCode, measuresCoverage);
+      return null != cachedResults ? Single.just(cachedResults)
+          : execAsyncTestExecutor(variantSingle, measuresCoverage)
+              .doOnSuccess(r -> initialVariantCache.saveTestResults(sourceCode, measuresCoverage,
+                  r));
+    });
+  }
+
+  /**
+   * 初期個体の疑惑値がキャッシュに保存されていれば，FLを実行せずにそれを返す．<br>
+   * 保存されていなければFLを実行し，その結果をキャッシュに保存する．<br>
+   */
+  private Single<List<Suspiciousness>> execFaultLocalization(
+      final Single<List<Suspiciousness>> suspiciousnessListSingle,
+      final GeneratedSourceCode sourceCode, final boolean isInitialVariant) {
+    if (!isInitialVariant || null == initialVariantCache) {
+      return suspiciousnessListSingle;
+    }
+    return Single.defer(() -> {
+      final List<Suspiciousness> cachedSuspiciousnesses =
+          initialVariantCache.loadSuspiciousnesses(sourceCode);
+      return null != cachedSuspiciousnesses ? Single.just(cachedSuspiciousnesses)
+          : suspiciousnessListSingle.doOnSuccess(s -> {
+            // ビルドに失敗した場合など，疑惑値が求まらなかった場合は保存しない
+            if (!s.isEmpty()) {
+              initialVariantCache.saveSuspiciousnesses(sourceCode, s);
+            }
+          });
+    });
+  }
+
+  /**
+   * 疑惑値の計算に用いるカバレッジ付きのテスト結果を返す．<br>
+   * 最初のテスト実行でカバレッジを計測していない場合，購読された時点でカバレッジを計測しながらテストを再実行する．<br>
+   */
+  private Single<TestResults> getCoverageResults(final Single<Variant> variantSingle,
+      final Single<TestResults> resultsSingle, final boolean measuresCoverage) {
+    if (measuresCoverage) {
+      return resultsSingle;
+    }
+    // ビルドに失敗した場合は再実行しない
+    return resultsSingle.flatMap(r -> r instanceof EmptyTestResults ? Single.just(r)
+        : strategies.execAsyncTestExecutorForCoverage(variantSingle));
+  }
+
   private Function<HistoricalElement, HistoricalElement> newElementReplacer(
       final boolean historyRecord) {
     return historyRecord ? element -> element : element -> EmptyHistoricalElement.instance;
@@ -22,4 +22,13 @@ public interface ASTLocations {
   List<ASTLocation> infer(int lineNumber);
 
   List<ASTLocation> getAll();
+
+  /**
+   * 別のAST（通常は同じソースファイルの別の版）の位置情報に対応する，このASTの位置情報を返す。
+   * 対応する位置がない場合（変更によってノードが失われた場合など）はnullを返す。
+   *
+   * @param location 別のASTの位置情報
+   * @return 対応するこのASTの位置情報
+   */
+  ASTLocation find(ASTLocation location);
 }
@@ -1,24 +1,27 @@
 package jp.kusumotolab.kgenprog.project;
 
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import org.apache.commons.codec.binary.Hex;
 
 /**
- * APR によって生成されたソースコード 複数ソースファイルの AST の集合を持つ
+ * APR によって生成されたソースコード 複数ソースファイルの AST の集合を持つ<br>
+ *
+ * {@link #replaceProductAst(GeneratedAST)}により1ファイルのみを置き換えたソースコードを生成する場合，<br>
+ * 置き換えないASTは参照をそのまま共有する．<br>
+ * ソースコード全体のダイジェストは，ファイルごとの値（ソースパスとASTのダイジェストのハッシュ）の128bitの和とする．<br>
+ * 和はファイルの順序に依存せず，置き換えたファイルの分だけ差し引き・加算すれば更新できる．<br>
  */
 public class GeneratedSourceCode {
 
   private static final String DIGEST_ALGORITHM = "MD5";
 
-  private final List<GeneratedAST<ProductSourcePath>> productAsts;
+  private final ProductAstList productAsts;
   private final List<GeneratedAST<TestSourcePath>> testAsts;
-  private final Map<SourcePath, GeneratedAST<ProductSourcePath>> pathToAst;
+  private final long digestHigh;
+  private final long digestLow;
   private final String messageDigest;
 
   /**
@@ -27,13 +30,58 @@ public class GeneratedSourceCode {
    */
   public GeneratedSourceCode(final List<GeneratedAST<ProductSourcePath>> productAsts,
       final List<GeneratedAST<TestSourcePath>> testAsts) {
+    this.productAsts = new ProductAstList(productAsts);
+    this.testAsts = testAsts;
+
+    long high = 0;
+    long low = 0;
+    for (final GeneratedAST<ProductSourcePath> ast : productAsts) {
+      final long[] fileDigest = createFileDigest(ast);
+      final long newLow = low + fileDigest[1];
+      high += fileDigest[0] + carry(low, newLow);
+      low = newLow;
+    }
+    this.digestHigh = high;
+    this.digestLow = low;
+    this.messageDigest = createMessageDigest();
+  }
+
+  private GeneratedSourceCode(final ProductAstList productAsts,
+      final List<GeneratedAST<TestSourcePath>> testAsts, final long digestHigh,
+      final long digestLow) {
     this.productAsts = productAsts;
     this.testAsts = testAsts;
-    pathToAst = productAsts.stream()
-        .collect(Collectors.toMap(GeneratedAST::getSourcePath, v -> v));
+    this.digestHigh = digestHigh;
+    this.digestLow = digestLow;
     this.messageDigest = createMessageDigest();
   }
 
+  /**
+   * 1つのProductソースコードのASTを置き換えたソースコードを生成する．<br>
+   * 置き換えの計算量はプロジェクトのファイル数にほぼ依存しない．<br>
+   *
+   * @param ast 置き換え後のAST．同じソースパスを持つASTと置き換えられる
+   * @return 新しいソースコード
+   */
+  public GeneratedSourceCode replaceProductAst(final GeneratedAST<ProductSourcePath> ast) {
+    final int index = productAsts.indexOfPath(ast.getSourcePath());
+    if (index < 0) {
+      throw new IllegalArgumentException("No such source path: " + ast.getSourcePath());
+    }
+
+    final long[] oldDigest = createFileDigest(productAsts.get(index));
+    final long[] newDigest = createFileDigest(ast);
+
+    // 古いファイルの分を差し引き，新しいファイルの分を加える
+    final long subtractedLow = digestLow - oldDigest[1];
+    final long subtractedHigh = digestHigh - oldDigest[0] - borrow(digestLow, subtractedLow);
+    final long addedLow = subtractedLow + newDigest[1];
+    final long addedHigh = subtractedHigh + newDigest[0] + carry(subtractedLow, addedLow);
+
+    return new GeneratedSourceCode(productAsts.replace(index, ast), testAsts, addedHigh,
+        addedLow);
+  }
+
   public List<GeneratedAST<?>> getAllAsts() {
     final List<GeneratedAST<?>> list = new ArrayList<>();
     list.addAll(productAsts);
@@ -52,8 +100,9 @@ public class GeneratedSourceCode {
   /**
    * 引数のソースコードに対応するASTを取得する
    */
-  public GeneratedAST<ProductSourcePath> getProductAst(final ProductSourcePath path) {
-    return pathToAst.get(path);
+  public GeneratedAST<ProductSourcePath> getProductAst(final SourcePath path) {
+    final int index = productAsts.indexOfPath(path);
+    return index < 0 ? null : productAsts.get(index);
   }
 
   /**
@@ -84,20 +133,43 @@ public class GeneratedSourceCode {
   }
 
   private String createMessageDigest() {
+    return String.format("%016x%016x", digestHigh, digestLow);
+  }
+
+  private static long[] createFileDigest(final GeneratedAST<ProductSourcePath> ast) {
     try {
       final MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
-
-      productAsts.stream()
-          .sorted(Comparator.comparing(v -> v.getSourcePath()
-              .toString()))
-          .map(GeneratedAST::getMessageDigest)
-          .map(String::getBytes)
-          .forEach(digest::update);
-
-      return Hex.encodeHexString(digest.digest());
+      digest.update(String.valueOf(ast.getSourcePath())
+          .getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(String.valueOf(ast.getMessageDigest())
+          .getBytes(StandardCharsets.UTF_8));
+
+      final byte[] bytes = digest.digest();
+      long high = 0;
+      long low = 0;
+      for (int i = 0; i < 8; i++) {
+        high = (high << 8) | (bytes[i] & 0xff);
+        low = (low << 8) | (bytes[i + 8] & 0xff);
+      }
+      return new long[] {high, low};
 
     } catch (final NoSuchAlgorithmException e) {
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * 下位64bitの加算前後の値から，上位64bitへの桁上がりを返す．
+   */
+  private static long carry(final long before, final long after) {
+    return Long.compareUnsigned(after, before) < 0 ? 1 : 0;
+  }
+
+  /**
+   * 下位64bitの減算前後の値から，上位64bitからの桁借りを返す．
+   */
+  private static long borrow(final long before, final long after) {
+    return Long.compareUnsigned(after, before) > 0 ? 1 : 0;
+  }
 }
@@ -0,0 +1,100 @@
+package jp.kusumotolab.kgenprog.project;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * ProductソースコードのASTの永続リスト．<br>
+ * 1要素を置き換えた新しいリストを，元のリストと大部分の構造を共有したまま生成できる．<br>
+ *
+ * 要素は固定長のチャンクに分けて保持し，置き換え時には置き換え対象を含むチャンクとチャンクの配列のみを複製する．<br>
+ * ソースパスから位置への対応は，置き換えによって変化しないため全ての派生リストで共有する．<br>
+ *
+ * @author shinsuke
+ */
+final class ProductAstList extends AbstractList<GeneratedAST<ProductSourcePath>>
+    implements RandomAccess {
+
+  private static final int CHUNK_SHIFT = 5;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private final Map<SourcePath, Integer> pathToIndex;
+  private final Object[][] chunks;
+  private final int size;
+
+  /**
+   * コンストラクタ．
+   *
+   * @param asts 保持するAST
+   */
+  ProductAstList(final List<GeneratedAST<ProductSourcePath>> asts) {
+    this.size = asts.size();
+    this.pathToIndex = new HashMap<>();
+    this.chunks = new Object[(size + CHUNK_MASK) >> CHUNK_SHIFT][];
+    for (int i = 0; i < chunks.length; i++) {
+      chunks[i] = new Object[Math.min(CHUNK_SIZE, size - (i << CHUNK_SHIFT))];
+    }
+
+    int index = 0;
+    for (final GeneratedAST<ProductSourcePath> ast : asts) {
+      if (null != pathToIndex.put(ast.getSourcePath(), index)) {
+        throw new IllegalStateException("Duplicate source path: " + ast.getSourcePath());
+      }
+      chunks[index >> CHUNK_SHIFT][index & CHUNK_MASK] = ast;
+      index++;
+    }
+  }
+
+  private ProductAstList(final Map<SourcePath, Integer> pathToIndex, final Object[][] chunks,
+      final int size) {
+    this.pathToIndex = pathToIndex;
+    this.chunks = chunks;
+    this.size = size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public GeneratedAST<ProductSourcePath> get(final int index) {
+    if (index < 0 || size <= index) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return (GeneratedAST<ProductSourcePath>) chunks[index >> CHUNK_SHIFT][index & CHUNK_MASK];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * 指定ソースパスのASTの位置を返す．
+   *
+   * @param path ソースパス
+   * @return ASTの位置．存在しない場合は-1
+   */
+  int indexOfPath(final SourcePath path) {
+    final Integer index = pathToIndex.get(path);
+    return null == index ? -1 : index;
+  }
+
+  /**
+   * 指定位置の要素を置き換えたリストを返す．このリスト自体は変更しない．
+   *
+   * @param index 置き換える位置
+   * @param ast 置き換え後のAST
+   * @return 新しいリスト
+   */
+  ProductAstList replace(final int index, final GeneratedAST<ProductSourcePath> ast) {
+    get(index); // 範囲チェック
+
+    final Object[][] newChunks = chunks.clone();
+    final Object[] newChunk = chunks[index >> CHUNK_SHIFT].clone();
+    newChunk[index & CHUNK_MASK] = ast;
+    newChunks[index >> CHUNK_SHIFT] = newChunk;
+    return new ProductAstList(pathToIndex, newChunks, size);
+  }
+}
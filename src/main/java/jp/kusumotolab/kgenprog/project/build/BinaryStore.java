@@ -1,14 +1,14 @@
 package jp.kusumotolab.kgenprog.project.build;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
 import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
 import jp.kusumotolab.kgenprog.project.SourcePath;
 
 /**
@@ -24,11 +24,14 @@ import jp.kusumotolab.kgenprog.project.SourcePath;
  * 本クラスは2種類の使われ方がある．<br>
  * - ProjectBuilderが保持する，全ビルド結果保持用のグローバルキャッシュ（kgpプロセスで唯一）<br>
  * - BuildResultsが保持する，そのビルド実行のみの結果（ビルドのたびに生成される）<br>
+ * 後者は通常，グローバルキャッシュの部分集合を複製せずに参照する{@link BinaryStoreView}として生成される．<br>
  *
  * なお，本クラスで用いられるFQNには以下2種類があることに注意．<br>
  * - バイナリの生成元となったソースコードのFQN（jp.kusuomtolab.kgenprog.Configuration）<br>
  * - バイナリ自体のソースコードのFQN（jp.kusuomtolab.kgenprog.Configuration）<br>
- * ほとんどの場合，両者は同値であるが内部クラスが存在する場合に限り，1前者：多後者となる．
+ * ほとんどの場合，両者は同値であるが内部クラスが存在する場合に限り，1前者：多後者となる．<br>
+ *
+ * グローバルキャッシュは複数のビルドスレッドから同時に参照・追加されるため，本クラスはスレッドセーフである．<br>
  *
  * @author shinsuke
  */
@@ -39,17 +42,19 @@ public class BinaryStore {
 
   // 各要素へのアクセス高速化用map
   private final Map<FullyQualifiedName, JavaBinaryObject> fqnMap; // 1対1
-  private final Multimap<SourcePath, JavaBinaryObject> pathMap; // 1対多
-  private final Multimap<String, JavaBinaryObject> originMap; // 1対多
+  private final Map<SourcePath, Set<JavaBinaryObject>> pathMap; // 1対多
+  private final Map<String, Set<JavaBinaryObject>> originMap; // 1対多
+  private final Map<String, Set<JavaBinaryObject>> packageMap; // 1対多
 
   /**
    * コンストラクタ
    */
   public BinaryStore() {
-    cache = new HashSet<>();
-    fqnMap = new HashMap<>();
-    pathMap = HashMultimap.create();
-    originMap = HashMultimap.create();
+    cache = ConcurrentHashMap.newKeySet();
+    fqnMap = new ConcurrentHashMap<>();
+    pathMap = new ConcurrentHashMap<>();
+    originMap = new ConcurrentHashMap<>();
+    packageMap = new ConcurrentHashMap<>();
   }
 
   /**
@@ -60,8 +65,21 @@ public class BinaryStore {
   public void add(final JavaBinaryObject object) {
     cache.add(object);
     fqnMap.put(object.getFqn(), object);
-    pathMap.put(object.getOriginPath(), object);
-    originMap.put(object.getOriginFqn() + object.getOriginDigest(), object);
+    // ConcurrentHashMapはnullキーを許容しないので，生成元パスが不明なバイナリはパス検索の対象外とする
+    if (null != object.getOriginPath()) {
+      put(pathMap, object.getOriginPath(), object);
+    }
+    put(originMap, object.getOriginFqn() + object.getOriginDigest(), object);
+    put(packageMap, getPackageName(object), object);
+  }
+
+  /**
+   * 複数バイナリオブジェクトの格納．
+   *
+   * @param objects 格納対象のバイナリ集合
+   */
+  public void addAll(final Collection<JavaBinaryObject> objects) {
+    objects.forEach(this::add);
   }
 
   /**
@@ -81,7 +99,7 @@ public class BinaryStore {
    * @return バイナリ集合
    */
   public Collection<JavaBinaryObject> get(final FullyQualifiedName fqn, final String digest) {
-    return originMap.get(fqn + digest);
+    return get(originMap, fqn + digest);
   }
 
   /**
@@ -101,7 +119,7 @@ public class BinaryStore {
    * @return バイナリ集合
    */
   public Collection<JavaBinaryObject> get(final SourcePath path) {
-    return pathMap.get(path);
+    return get(pathMap, path);
   }
 
   /**
@@ -117,17 +135,54 @@ public class BinaryStore {
 
   /**
    * パッケージ名をクエリとしたバイナリ集合の取得<br>
-   * （クラスローダからの利用を想定）
+   * （ファイルマネージャからの利用を想定）<br>
+   * 指定パッケージに直接属するバイナリのみを返す（サブパッケージのバイナリは含まない）．<br>
    *
-   * @param packageName パッケージ名
+   * @param packageName パッケージ名（無名パッケージの場合は空文字列）
    * @return バイナリ集合
    */
   public Collection<JavaBinaryObject> get(final String packageName) {
-    // パッケージ名による前方一致（≠完全一致）検索でありMapによる高速化がやりにくい．
-    // また，このメソッドはBinaryStoreの部分集合のみに行われるので計算コストは低め．よって全探索で探す．
-    return cache.parallelStream()
-        .filter(jbo -> jbo.getFqn().value.startsWith(packageName))
+    return get(packageMap, packageName);
+  }
+
+  /**
+   * 指定ソースコードから生成されたバイナリ以外を削除する．<br>
+   * 生きている個体から到達できなくなったバイナリをグローバルキャッシュから破棄するために用いる．<br>
+   * 削除したバイナリを参照中の{@link BinaryStoreView}からは，引き続きそのバイナリを取り出せる．<br>
+   * 削除した領域を回収できるよう，残ったバイナリのバイトコードは新しい領域に詰め直す．<br>
+   *
+   * @param asts 残すバイナリの生成元となるソースコード
+   * @return 削除したバイナリの数
+   */
+  public int retainAll(final Collection<? extends GeneratedAST<?>> asts) {
+    final Set<String> retainedKeys = asts.stream()
+        .map(ast -> ast.getPrimaryClassName() + ast.getMessageDigest())
         .collect(Collectors.toSet());
+
+    int removedCount = 0;
+    final Iterator<Map.Entry<String, Set<JavaBinaryObject>>> iterator = originMap.entrySet()
+        .iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<String, Set<JavaBinaryObject>> entry = iterator.next();
+      if (retainedKeys.contains(entry.getKey())) {
+        continue;
+      }
+      iterator.remove();
+      for (final JavaBinaryObject object : entry.getValue()) {
+        cache.remove(object);
+        fqnMap.remove(object.getFqn(), object);
+        if (null != object.getOriginPath()) {
+          remove(pathMap, object.getOriginPath(), object);
+        }
+        remove(packageMap, getPackageName(object), object);
+        removedCount++;
+      }
+    }
+    if (0 < removedCount) {
+      BytecodeArena.getInstance()
+          .compact(cache);
+    }
+    return removedCount;
   }
 
   /**
@@ -138,6 +193,39 @@ public class BinaryStore {
     fqnMap.clear();
     pathMap.clear();
     originMap.clear();
+    packageMap.clear();
+  }
+
+  /**
+   * バイナリが属するパッケージ名を返す
+   *
+   * @param object バイナリ
+   * @return パッケージ名（無名パッケージの場合は空文字列）
+   */
+  static String getPackageName(final JavaBinaryObject object) {
+    final String fqn = object.getFqn().value;
+    final int index = fqn.lastIndexOf('.');
+    return index < 0 ? "" : fqn.substring(0, index);
+  }
+
+  private static <K> void put(final Map<K, Set<JavaBinaryObject>> map, final K key,
+      final JavaBinaryObject object) {
+    map.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet())
+        .add(object);
+  }
+
+  private static <K> void remove(final Map<K, Set<JavaBinaryObject>> map, final K key,
+      final JavaBinaryObject object) {
+    final Set<JavaBinaryObject> objects = map.get(key);
+    if (null != objects) {
+      objects.remove(object);
+    }
+  }
+
+  private static <K> Collection<JavaBinaryObject> get(final Map<K, Set<JavaBinaryObject>> map,
+      final K key) {
+    final Set<JavaBinaryObject> objects = map.get(key);
+    return null == objects ? Collections.emptySet() : objects;
   }
 
 }
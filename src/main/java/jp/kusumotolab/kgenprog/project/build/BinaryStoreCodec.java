@@ -0,0 +1,140 @@
+package jp.kusumotolab.kgenprog.project.build;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import javax.tools.DiagnosticCollector;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.SourcePath;
+import jp.kusumotolab.kgenprog.project.TargetFullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.TestFullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.TestSourcePath;
+
+/**
+ * {@link BinaryStore}をバイト列に変換（およびその逆変換）する．<br>
+ * プロセス間（別JVMで動くテスト実行ワーカー等）でビルド結果を受け渡すために用いる．<br>
+ *
+ * 各{@link JavaBinaryObject}について，FQN・生成元の情報・バイトコードをそのまま書き出す．<br>
+ * 書き出したバイト列はjavaのバージョンやkgpのバージョンが同一の環境でのみ読み込めることに注意．<br>
+ *
+ * @author shinsuke
+ */
+public final class BinaryStoreCodec {
+
+  private BinaryStoreCodec() {}
+
+  /**
+   * バイナリ集合を書き出す．
+   *
+   * @param out 書き出し先
+   * @param binaryStore 書き出し対象のバイナリ集合
+   * @throws IOException
+   */
+  public static void write(final DataOutput out, final BinaryStore binaryStore)
+      throws IOException {
+    final Collection<JavaBinaryObject> objects = binaryStore.getAll();
+    out.writeInt(objects.size());
+    for (final JavaBinaryObject object : objects) {
+      write(out, object);
+    }
+  }
+
+  /**
+   * バイナリ集合を読み込む．
+   *
+   * @param in 読み込み元
+   * @param rootPath 生成元ソースパスの解決に用いるプロジェクトルート
+   * @return 読み込んだバイナリ集合
+   * @throws IOException
+   */
+  public static BinaryStore read(final DataInput in, final Path rootPath) throws IOException {
+    final BinaryStore binaryStore = new BinaryStore();
+    final int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      binaryStore.add(readObject(in, rootPath));
+    }
+    return binaryStore;
+  }
+
+  /**
+   * バイナリ集合を読み込み，ビルド成功を表すビルド結果として返す．<br>
+   * 診断情報やビルド進捗は引き継がれない．<br>
+   *
+   * @param in 読み込み元
+   * @param rootPath 生成元ソースパスの解決に用いるプロジェクトルート
+   * @return 読み込んだバイナリ集合を保持するビルド結果
+   * @throws IOException
+   */
+  public static BuildResults readBuildResults(final DataInput in, final Path rootPath)
+      throws IOException {
+    final BinaryStore binaryStore = read(in, rootPath);
+    return new BuildResults(binaryStore, new DiagnosticCollector<>(), "", false);
+  }
+
+  private static void write(final DataOutput out, final JavaBinaryObject object)
+      throws IOException {
+    out.writeBoolean(object.isTest());
+    writeString(out, object.getFqn().value);
+    writeString(out, object.getOriginFqn().value);
+    writeString(out, object.getOriginDigest());
+
+    final SourcePath originPath = object.getOriginPath();
+    out.writeBoolean(null != originPath);
+    if (null != originPath) {
+      writeString(out, originPath.path.toString());
+    }
+
+    final byte[] bytecode = object.getByteCode();
+    out.writeInt(bytecode.length);
+    out.write(bytecode);
+  }
+
+  private static JavaBinaryObject readObject(final DataInput in, final Path rootPath)
+      throws IOException {
+    final boolean isTest = in.readBoolean();
+    final FullyQualifiedName fqn = createFqn(readString(in), isTest);
+    final FullyQualifiedName originFqn = createFqn(readString(in), isTest);
+    final String originDigest = readString(in);
+
+    final SourcePath originPath =
+        in.readBoolean() ? createSourcePath(rootPath, Paths.get(readString(in)), isTest) : null;
+
+    final byte[] bytecode = new byte[in.readInt()];
+    in.readFully(bytecode);
+
+    final JavaBinaryObject object =
+        new JavaBinaryObject(fqn, originFqn, originDigest, originPath, isTest);
+    try (final OutputStream os = object.openOutputStream()) {
+      os.write(bytecode);
+    }
+    return object;
+  }
+
+  private static FullyQualifiedName createFqn(final String value, final boolean isTest) {
+    return isTest ? new TestFullyQualifiedName(value) : new TargetFullyQualifiedName(value);
+  }
+
+  private static SourcePath createSourcePath(final Path rootPath, final Path path,
+      final boolean isTest) {
+    return isTest ? new TestSourcePath(rootPath, path) : new ProductSourcePath(rootPath, path);
+  }
+
+  // writeUTFは64KBを超える文字列を扱えないので，長さ付きのUTF-8バイト列として書き出す
+  private static void writeString(final DataOutput out, final String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(final DataInput in) throws IOException {
+    final byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,166 @@
+package jp.kusumotolab.kgenprog.project.build;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
+import jp.kusumotolab.kgenprog.project.SourcePath;
+
+/**
+ * グローバルキャッシュ（{@link BinaryStore}）のうち，指定されたソースコード群に対応する部分集合を表す読み取り専用のビュー．<br>
+ * ビルドのたびにバイナリを新たなBinaryStoreへ複製する代わりに，グローバルキャッシュを参照する．<br>
+ *
+ * ビューはソースコードのFQNとダイジェストの組の集合で定義される．<br>
+ * 作成時に各組に対応するバイナリ集合をグローバルキャッシュから取り出して保持し，FQN+Digestやソースコードパスによる取り出しに用いる．<br>
+ * 全要素・FQN・パッケージ名による取り出しに必要な索引は，初めて必要になった時点で一度だけ作成する．<br>
+ *
+ * 本クラスは要素の追加・削除を受け付けない．<br>
+ * ビューの作成後にグローバルキャッシュからバイナリが破棄されても，ビューからは取り出せる．<br>
+ *
+ * @author shinsuke
+ */
+public class BinaryStoreView extends BinaryStore {
+
+  private final BinaryStore source;
+
+  // 生成元ソースコードのFQNからダイジェストへのmap
+  private final Map<FullyQualifiedName, String> digests;
+
+  // 生成元ソースコードのFQNからバイナリ集合へのmap
+  private final Map<FullyQualifiedName, Collection<JavaBinaryObject>> groups;
+
+  // 生成元ソースコードのパスからFQNへのmap
+  private final Map<SourcePath, FullyQualifiedName> pathToFqn;
+
+  // 必要になるまで作成しない
+  private volatile Index index;
+
+  /**
+   * コンストラクタ
+   *
+   * @param source 参照先のグローバルキャッシュ
+   * @param asts ビューに含めるバイナリの生成元となるソースコード
+   */
+  public BinaryStoreView(final BinaryStore source, final List<GeneratedAST<?>> asts) {
+    this.source = source;
+    this.digests = new HashMap<>();
+    this.groups = new HashMap<>();
+    this.pathToFqn = new HashMap<>();
+    for (final GeneratedAST<?> ast : asts) {
+      final FullyQualifiedName fqn = ast.getPrimaryClassName();
+      digests.put(fqn, ast.getMessageDigest());
+      groups.put(fqn, source.get(fqn, ast.getMessageDigest()));
+      pathToFqn.put(ast.getSourcePath(), fqn);
+    }
+  }
+
+  @Override
+  public void add(final JavaBinaryObject object) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void addAll(final Collection<JavaBinaryObject> objects) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeAll() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int retainAll(final Collection<? extends GeneratedAST<?>> asts) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Collection<JavaBinaryObject> getAll() {
+    return getIndex().all;
+  }
+
+  @Override
+  public Collection<JavaBinaryObject> get(final FullyQualifiedName fqn, final String digest) {
+    if (!digest.equals(digests.get(fqn))) {
+      return Collections.emptySet();
+    }
+    return groups.get(fqn);
+  }
+
+  @Override
+  public JavaBinaryObject get(final FullyQualifiedName fqn) {
+    // 多くの場合，グローバルキャッシュに最後に追加されたバイナリがビューに属する
+    final JavaBinaryObject object = source.get(fqn);
+    if (null != object && contains(object)) {
+      return object;
+    }
+    return getIndex().fqnMap.get(fqn);
+  }
+
+  @Override
+  public Collection<JavaBinaryObject> get(final SourcePath path) {
+    final FullyQualifiedName fqn = pathToFqn.get(path);
+    if (null == fqn) {
+      return Collections.emptySet();
+    }
+    return groups.get(fqn);
+  }
+
+  @Override
+  public boolean exists(final FullyQualifiedName fqn, final String digest) {
+    return !get(fqn, digest).isEmpty();
+  }
+
+  @Override
+  public Collection<JavaBinaryObject> get(final String packageName) {
+    return getIndex().packageMap.getOrDefault(packageName, Collections.emptyList());
+  }
+
+  private boolean contains(final JavaBinaryObject object) {
+    return object.getOriginDigest()
+        .equals(digests.get(object.getOriginFqn()));
+  }
+
+  private Index getIndex() {
+    Index result = index;
+    if (null == result) {
+      synchronized (this) {
+        result = index;
+        if (null == result) {
+          result = new Index();
+          index = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * ビューに属するバイナリの索引
+   */
+  private class Index {
+
+    private final List<JavaBinaryObject> all;
+    private final Map<FullyQualifiedName, JavaBinaryObject> fqnMap;
+    private final Map<String, List<JavaBinaryObject>> packageMap;
+
+    private Index() {
+      final List<JavaBinaryObject> objects = new ArrayList<>();
+      groups.values()
+          .forEach(objects::addAll);
+      all = Collections.unmodifiableList(objects);
+
+      fqnMap = new HashMap<>();
+      packageMap = new HashMap<>();
+      for (final JavaBinaryObject object : objects) {
+        fqnMap.put(object.getFqn(), object);
+        packageMap.computeIfAbsent(getPackageName(object), k -> new ArrayList<>())
+            .add(object);
+      }
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package jp.kusumotolab.kgenprog.project.build;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * コンパイル済みバイトコードをJavaヒープの外に格納する領域．<br>
+ * 長時間の実行ではグローバルキャッシュが保持するバイトコードがold領域の大半を占めるため，
+ * 書き込みが完了したバイトコードはヒープ外の固定長の領域（スラブ）に追記し，読み取り専用のスライスとして参照する．<br>
+ *
+ * 個々のバイトコードを解放する操作は持たない．<br>
+ * スラブはその上の全スライスが参照されなくなった時点でGCにより解放される．
+ * 短命なバイナリとキャッシュに残るバイナリが同じスラブに混在すると，1つの生きたバイナリがスラブ全体の回収を妨げるため，
+ * キャッシュからバイナリを取り除いた際には{@link #compact(Collection)}で残ったバイナリを新しいスラブに詰め直す．<br>
+ * スラブより大きなバイトコードは専用の領域に格納する．<br>
+ *
+ * 複数のビルドスレッドから同時に書き込まれるため，本クラスはスレッドセーフである．<br>
+ *
+ * @author shinsuke
+ */
+class BytecodeArena {
+
+  // 1つの生きたバイナリが回収を妨げる領域を抑えるため，スラブは小さめにとる
+  static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+  private static final BytecodeArena instance = new BytecodeArena(DEFAULT_SLAB_SIZE);
+
+  private final int slabSize;
+  private ByteBuffer currentSlab;
+  private long allocatedBytes;
+  private long storedBytes;
+
+  /**
+   * @param slabSize スラブ1つあたりのバイト数
+   */
+  BytecodeArena(final int slabSize) {
+    this.slabSize = slabSize;
+  }
+
+  /**
+   * @return プロセスで共有する領域
+   */
+  static BytecodeArena getInstance() {
+    return instance;
+  }
+
+  /**
+   * バイトコードを格納する．
+   *
+   * @param bytes 格納するバイト列
+   * @param length 格納するバイト数
+   * @return 格納したバイトコードを参照する読み取り専用のバッファ
+   */
+  ByteBuffer store(final byte[] bytes, final int length) {
+    return store(ByteBuffer.wrap(bytes, 0, length));
+  }
+
+  /**
+   * バイトコードを格納する．
+   *
+   * @param bytes 格納するバイト列（positionからlimitまでを格納する）
+   * @return 格納したバイトコードを参照する読み取り専用のバッファ
+   */
+  synchronized ByteBuffer store(final ByteBuffer bytes) {
+    final int length = bytes.remaining();
+    final ByteBuffer slab;
+    if (slabSize < length) {
+      slab = allocate(length);
+    } else {
+      if (null == currentSlab || currentSlab.remaining() < length) {
+        currentSlab = allocate(slabSize);
+      }
+      slab = currentSlab;
+    }
+
+    final int offset = slab.position();
+    slab.put(bytes);
+    storedBytes += length;
+
+    final ByteBuffer slice = slab.duplicate();
+    slice.position(offset);
+    slice.limit(offset + length);
+    return slice.slice()
+        .asReadOnlyBuffer();
+  }
+
+  /**
+   * 指定バイナリのバイトコードを新しいスラブに詰め直す．<br>
+   * 詰め直した後は古いスラブを参照するバイナリがなくなるため，取り除かれたバイナリの領域がGCで回収できるようになる．<br>
+   * ただし，取り除かれたバイナリを参照中の{@link BinaryStoreView}などが残る間は古いスラブも回収されない．<br>
+   *
+   * @param binaries 詰め直すバイナリ
+   */
+  void compact(final Collection<JavaBinaryObject> binaries) {
+    // 以降の格納が古いスラブに追記されないよう，新しいスラブから始める
+    synchronized (this) {
+      currentSlab = null;
+    }
+    // バイナリのロックを取ってから本領域のロックを取る順序を保つため，ここでは本領域のロックを保持しない
+    binaries.forEach(binary -> binary.relocate(this));
+  }
+
+  /**
+   * @return これまでに確保した領域のバイト数（GCにより解放されたものを含む）
+   */
+  synchronized long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * @return これまでに格納したバイトコードのバイト数
+   */
+  synchronized long getStoredBytes() {
+    return storedBytes;
+  }
+
+  private ByteBuffer allocate(final int size) {
+    allocatedBytes += size;
+    return ByteBuffer.allocateDirect(size);
+  }
+}
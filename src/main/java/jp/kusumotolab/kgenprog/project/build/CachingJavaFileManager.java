@@ -0,0 +1,119 @@
+package jp.kusumotolab.kgenprog.project.build;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.StandardLocation;
+
+/**
+ * クラスパスと標準ライブラリの探索結果をビルドをまたいで保持するファイルマネージャ．<br>
+ * javacは，ビルドのたびに参照するパッケージごとに{@link #list}を呼び出してクラスファイルを探索する．<br>
+ * 探索対象のクラスパスや標準ライブラリはビルド間で変化しないため，一度探索した結果を使い回す．<br>
+ *
+ * ProjectBuilderと同様にスレッドセーフではないため，ProjectBuilderごとに生成すること．<br>
+ *
+ * @author shinsuke
+ */
+class CachingJavaFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+  private final Map<ListKey, List<JavaFileObject>> listCache;
+  private long hitCount;
+  private long missCount;
+
+  /**
+   * @param fileManager クラスファイルの探索に用いるファイルマネージャ
+   */
+  CachingJavaFileManager(final JavaFileManager fileManager) {
+    super(fileManager);
+    this.listCache = new HashMap<>();
+  }
+
+  @Override
+  public Iterable<JavaFileObject> list(final Location location, final String packageName,
+      final Set<Kind> kinds, final boolean recurse) throws IOException {
+    if (!isCacheable(location)) {
+      return fileManager.list(location, packageName, kinds, recurse);
+    }
+
+    final ListKey key = new ListKey(location, packageName, kinds, recurse);
+    final List<JavaFileObject> cachedObjects = listCache.get(key);
+    if (null != cachedObjects) {
+      hitCount++;
+      return cachedObjects;
+    }
+
+    missCount++;
+    final List<JavaFileObject> objects = new ArrayList<>();
+    fileManager.list(location, packageName, kinds, recurse)
+        .forEach(objects::add);
+    listCache.put(key, objects);
+    return objects;
+  }
+
+  /**
+   * @return 探索結果を使い回した回数
+   */
+  long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return 探索を行った回数
+   */
+  long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * ビルド間で内容が変化しない場所か否かを返す．<br>
+   * ソースパスや出力先はビルドごとに変わりうるため対象外とする．<br>
+   */
+  private boolean isCacheable(final Location location) {
+    return StandardLocation.PLATFORM_CLASS_PATH == location
+        || StandardLocation.CLASS_PATH == location
+        || StandardLocation.SYSTEM_MODULES == location
+        || StandardLocation.MODULE_PATH == location;
+  }
+
+  private static class ListKey {
+
+    private final Location location;
+    private final String packageName;
+    private final Set<Kind> kinds;
+    private final boolean recurse;
+
+    private ListKey(final Location location, final String packageName, final Set<Kind> kinds,
+        final boolean recurse) {
+      this.location = location;
+      this.packageName = packageName;
+      this.kinds = Set.copyOf(kinds);
+      this.recurse = recurse;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ListKey)) {
+        return false;
+      }
+      final ListKey that = (ListKey) o;
+      return recurse == that.recurse && location.equals(that.location)
+          && packageName.equals(that.packageName) && kinds.equals(that.kinds);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(location, packageName, kinds, recurse);
+    }
+  }
+}
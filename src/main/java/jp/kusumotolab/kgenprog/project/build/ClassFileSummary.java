@@ -0,0 +1,293 @@
+package jp.kusumotolab.kgenprog.project.build;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * クラスファイルを解析し，依存関係の解決に必要な情報のみを取り出したもの．<br>
+ * 取り出す情報は以下の5つ．<br>
+ * 1. 参照しているクラスの名前（定数プールのクラス参照と，フィールド・メソッドの型記述子に現れるもの）<br>
+ * 2. 親クラスとインタフェースの名前<br>
+ * 3. 他のクラスのコンパイル結果に影響しうる部分（API）の文字列表現<br>
+ * 4. APIのうち，定数の値の文字列表現．定数は参照するクラスにインライン化され，定数プールにクラス参照が残らない<br>
+ * 5. 静的な状態（定数でないstaticフィールドや静的初期化子）を持つか否か<br>
+ *
+ * APIには，クラスの修飾子・親クラス・インタフェース，privateでないフィールドの修飾子・型・定数値，
+ * privateでないメソッドの修飾子・シグネチャを含める．<br>
+ * メソッド本体のみを書き換えた場合，APIは変化しない．<br>
+ *
+ * @author shinsuke
+ */
+public final class ClassFileSummary {
+
+  private static final int ACC_PRIVATE = 0x0002;
+  private static final int ACC_STATIC = 0x0008;
+  private static final String CONSTANT_SEPARATOR = " = ";
+  private static final Pattern TYPE_DESCRIPTOR = Pattern.compile("L([^;<]+)[;<]");
+
+  /**
+   * クラスの名前（パッケージの区切りは'.'，内部クラスの区切りは'$'）
+   */
+  public final String name;
+
+  /**
+   * 参照しているクラスの名前の集合（自身を含まない）
+   */
+  public final Set<String> referencedClasses;
+
+  /**
+   * 親クラスとインタフェースの名前の集合
+   */
+  public final Set<String> superTypes;
+
+  /**
+   * APIの文字列表現
+   */
+  public final String api;
+
+  /**
+   * privateでない定数の値の文字列表現
+   */
+  public final String constants;
+
+  /**
+   * 静的な状態を持つか否か．<br>
+   * 定数（ConstantValue属性を持つstatic final）でないstaticフィールドか，静的初期化子を持つ場合にtrue．<br>
+   */
+  public final boolean hasStaticState;
+
+  private ClassFileSummary(final String name, final Set<String> referencedClasses,
+      final Set<String> superTypes, final String api, final String constants,
+      final boolean hasStaticState) {
+    this.name = name;
+    this.referencedClasses = referencedClasses;
+    this.superTypes = superTypes;
+    this.api = api;
+    this.constants = constants;
+    this.hasStaticState = hasStaticState;
+  }
+
+  /**
+   * クラスファイルを解析する．
+   *
+   * @param byteCode クラスファイルのバイト列
+   * @return 解析結果
+   * @throws IOException クラスファイルの形式が不正な場合
+   */
+  public static ClassFileSummary parse(final byte[] byteCode) throws IOException {
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(byteCode));
+    in.readInt(); // magic
+    in.readUnsignedShort(); // minor_version
+    in.readUnsignedShort(); // major_version
+
+    final ConstantPool pool = new ConstantPool(in);
+
+    final StringBuilder api = new StringBuilder();
+    final int accessFlags = in.readUnsignedShort();
+    final String name = toBinaryName(pool.getClassName(in.readUnsignedShort()));
+    final int superClassIndex = in.readUnsignedShort();
+    final Set<String> superTypes = new HashSet<>();
+    api.append(accessFlags)
+        .append(' ')
+        .append(name)
+        .append(" extends ");
+    if (0 != superClassIndex) {
+      api.append(pool.getClassName(superClassIndex));
+      superTypes.add(toBinaryName(pool.getClassName(superClassIndex)));
+    }
+    final int interfaceCount = in.readUnsignedShort();
+    for (int i = 0; i < interfaceCount; i++) {
+      final String interfaceName = pool.getClassName(in.readUnsignedShort());
+      api.append(0 == i ? " implements " : ",")
+          .append(interfaceName);
+      superTypes.add(toBinaryName(interfaceName));
+    }
+    api.append('\n');
+
+    // クラスの要素の記述順はAPIに含めない
+    final List<String> members = new ArrayList<>();
+    final boolean hasStaticFields = readMembers(in, pool, members, true);
+    final boolean hasStaticInitializer = readMembers(in, pool, members, false);
+    Collections.sort(members);
+    members.forEach(m -> api.append(m)
+        .append('\n'));
+    final StringBuilder constants = new StringBuilder();
+    members.stream()
+        .filter(m -> m.contains(CONSTANT_SEPARATOR))
+        .forEach(m -> constants.append(m)
+            .append('\n'));
+
+    final Set<String> referencedClasses = new HashSet<>();
+    for (final String className : pool.classNames) {
+      addClass(referencedClasses, className);
+    }
+    for (final String descriptor : pool.descriptors) {
+      addDescriptor(referencedClasses, descriptor);
+    }
+    referencedClasses.remove(name);
+
+    return new ClassFileSummary(name, referencedClasses, superTypes, api.toString(),
+        constants.toString(), hasStaticFields || hasStaticInitializer);
+  }
+
+  /**
+   * フィールドまたはメソッドの一覧を読み込む．
+   *
+   * @return 静的な状態を持つ要素（定数でないstaticフィールドか，静的初期化子）があればtrue
+   */
+  private static boolean readMembers(final DataInputStream in, final ConstantPool pool,
+      final List<String> members, final boolean isField) throws IOException {
+    boolean hasStaticState = false;
+    final int count = in.readUnsignedShort();
+    for (int i = 0; i < count; i++) {
+      final int accessFlags = in.readUnsignedShort();
+      final String memberName = pool.getUtf8(in.readUnsignedShort());
+      final String descriptor = pool.getUtf8(in.readUnsignedShort());
+      pool.descriptors.add(descriptor);
+
+      String constantValue = null;
+      final int attributeCount = in.readUnsignedShort();
+      for (int j = 0; j < attributeCount; j++) {
+        final String attributeName = pool.getUtf8(in.readUnsignedShort());
+        final int length = in.readInt();
+        if (isField && "ConstantValue".equals(attributeName)) {
+          constantValue = pool.getConstantValue(in.readUnsignedShort());
+        } else {
+          in.readFully(new byte[length]);
+        }
+      }
+
+      if (isField ? 0 != (accessFlags & ACC_STATIC) && null == constantValue
+          : "<clinit>".equals(memberName)) {
+        hasStaticState = true;
+      }
+      if (0 != (accessFlags & ACC_PRIVATE)) {
+        continue;
+      }
+      members.add((isField ? "field " : "method ") + accessFlags + ' ' + memberName + ' '
+          + descriptor + (null == constantValue ? "" : CONSTANT_SEPARATOR + constantValue));
+    }
+    return hasStaticState;
+  }
+
+  private static void addClass(final Set<String> classes, final String internalName) {
+    if (internalName.startsWith("[")) {
+      addDescriptor(classes, internalName);
+    } else {
+      classes.add(toBinaryName(internalName));
+    }
+  }
+
+  private static void addDescriptor(final Set<String> classes, final String descriptor) {
+    final Matcher matcher = TYPE_DESCRIPTOR.matcher(descriptor);
+    while (matcher.find()) {
+      classes.add(toBinaryName(matcher.group(1)));
+    }
+  }
+
+  private static String toBinaryName(final String internalName) {
+    return internalName.replace('/', '.');
+  }
+
+  /**
+   * 定数プールのうち，解析に必要なエントリのみを保持する
+   */
+  private static class ConstantPool {
+
+    private final Object[] values;
+    private final int[] nameIndices;
+    private final List<String> classNames;
+    private final List<String> descriptors;
+
+    private ConstantPool(final DataInputStream in) throws IOException {
+      final int count = in.readUnsignedShort();
+      values = new Object[count];
+      nameIndices = new int[count];
+      final List<Integer> classIndices = new ArrayList<>();
+      final List<Integer> descriptorIndices = new ArrayList<>();
+
+      for (int i = 1; i < count; i++) {
+        final int tag = in.readUnsignedByte();
+        switch (tag) {
+          case 1: // Utf8
+            values[i] = in.readUTF();
+            break;
+          case 3: // Integer
+            values[i] = in.readInt();
+            break;
+          case 4: // Float
+            values[i] = in.readFloat();
+            break;
+          case 5: // Long（2エントリ分を占める）
+            values[i++] = in.readLong();
+            break;
+          case 6: // Double（2エントリ分を占める）
+            values[i++] = in.readDouble();
+            break;
+          case 7: // Class
+            nameIndices[i] = in.readUnsignedShort();
+            classIndices.add(i);
+            break;
+          case 8: // String
+            nameIndices[i] = in.readUnsignedShort();
+            break;
+          case 12: // NameAndType
+            in.readUnsignedShort();
+            descriptorIndices.add(in.readUnsignedShort());
+            break;
+          case 16: // MethodType
+            descriptorIndices.add(in.readUnsignedShort());
+            break;
+          case 15: // MethodHandle
+            in.readUnsignedByte();
+            in.readUnsignedShort();
+            break;
+          case 9: // Fieldref
+          case 10: // Methodref
+          case 11: // InterfaceMethodref
+          case 17: // Dynamic
+          case 18: // InvokeDynamic
+            in.readInt();
+            break;
+          case 19: // Module
+          case 20: // Package
+            in.readUnsignedShort();
+            break;
+          default:
+            throw new IOException("unknown constant pool tag: " + tag);
+        }
+      }
+
+      classNames = new ArrayList<>();
+      for (final int classIndex : classIndices) {
+        classNames.add(getClassName(classIndex));
+      }
+      descriptors = new ArrayList<>();
+      for (final int descriptorIndex : descriptorIndices) {
+        descriptors.add(getUtf8(descriptorIndex));
+      }
+    }
+
+    private String getUtf8(final int index) {
+      return (String) values[index];
+    }
+
+    private String getClassName(final int index) {
+      return getUtf8(nameIndices[index]);
+    }
+
+    private String getConstantValue(final int index) {
+      // String定数は文字列本体（Utf8）の位置を保持している
+      return null == values[index] ? '"' + getUtf8(nameIndices[index]) + '"'
+          : String.valueOf(values[index]);
+    }
+  }
+}
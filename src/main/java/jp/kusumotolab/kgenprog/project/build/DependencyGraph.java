@@ -0,0 +1,231 @@
+package jp.kusumotolab.kgenprog.project.build;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import com.google.common.hash.Hashing;
+import jp.kusumotolab.kgenprog.project.SourcePath;
+
+/**
+ * ソースコード（コンパイル単位）間の依存関係と，各ソースコードのAPIを記録するクラス．<br>
+ * 依存関係を考慮した差分ビルドのために{@link ProjectBuilder}が用いる．<br>
+ *
+ * 各ソースコードについて，最初にグローバルキャッシュへ公開されたバイナリからAPIのダイジェストと参照先を記録する．<br>
+ * 以降のビルドでAPIが記録と異なるソースコードが現れた場合，そのソースコードに依存するソースコードも再コンパイルする必要がある．<br>
+ * APIが記録と同じ（メソッド本体のみの変更）であれば，依存するソースコードのキャッシュ済みバイナリをそのまま使える．<br>
+ *
+ * 参照は定数プールに現れるクラスから求めるため，以下の2つは依存関係として直接は現れない．<br>
+ * 1. サブタイプを介した継承メンバの参照．定数プールにはサブタイプのみが現れるため，サブタイプの関係も記録し，
+ * APIが変化したソースコードのサブタイプを参照するソースコードも依存元として扱う．<br>
+ * 2. 定数の参照．javacは定数をインライン化するため，定数の値の変化は別途検出し，{@link ProjectBuilder}は全体を再コンパイルする．<br>
+ *
+ * 無名クラスと局所クラスは外部から参照されないため，APIに含めない．<br>
+ * 複数のビルドスレッドから共有されるため，本クラスはスレッドセーフである．<br>
+ *
+ * @author shinsuke
+ */
+public class DependencyGraph {
+
+  // 無名クラスと局所クラスの名前（Outer$1，Outer$1Local）
+  private static final Pattern LOCAL_CLASS_NAME = Pattern.compile(".*\\$[0-9].*");
+
+  private final Map<SourcePath, String> apiDigests;
+  private final Map<SourcePath, String> constantDigests;
+  private final Map<String, SourcePath> classToPath;
+  private final Map<SourcePath, Set<SourcePath>> dependents;
+  private final Map<SourcePath, Set<SourcePath>> subtypes;
+
+  public DependencyGraph() {
+    apiDigests = new HashMap<>();
+    constantDigests = new HashMap<>();
+    classToPath = new HashMap<>();
+    dependents = new HashMap<>();
+    subtypes = new HashMap<>();
+  }
+
+  /**
+   * グローバルキャッシュに公開したバイナリを記録する．<br>
+   * 既に記録済みのソースコードのバイナリは無視する．<br>
+   *
+   * @param binaries 公開したバイナリ
+   */
+  public synchronized void record(final Collection<JavaBinaryObject> binaries) {
+    final Map<SourcePath, List<ClassFileSummary>> summaries = summarize(binaries);
+    summaries.keySet()
+        .removeIf(apiDigests::containsKey);
+
+    for (final Map.Entry<SourcePath, List<ClassFileSummary>> entry : summaries.entrySet()) {
+      apiDigests.put(entry.getKey(), computeApiDigest(entry.getValue()));
+      constantDigests.put(entry.getKey(), computeConstantDigest(entry.getValue()));
+      for (final ClassFileSummary summary : entry.getValue()) {
+        classToPath.put(summary.name, entry.getKey());
+      }
+    }
+
+    for (final Map.Entry<SourcePath, List<ClassFileSummary>> entry : summaries.entrySet()) {
+      for (final SourcePath dependency : getDependencies(entry.getValue())) {
+        if (!dependency.equals(entry.getKey())) {
+          dependents.computeIfAbsent(dependency, k -> new HashSet<>())
+              .add(entry.getKey());
+        }
+      }
+      for (final ClassFileSummary summary : entry.getValue()) {
+        for (final String superType : summary.superTypes) {
+          final SourcePath superTypePath = classToPath.get(superType);
+          if (null != superTypePath && !superTypePath.equals(entry.getKey())) {
+            subtypes.computeIfAbsent(superTypePath, k -> new HashSet<>())
+                .add(entry.getKey());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * 指定バイナリの生成元のうち，APIが記録と異なるソースコードを返す．<br>
+   * 記録のないソースコードは含めない．<br>
+   *
+   * @param binaries コンパイルしたバイナリ
+   * @return APIが変化したソースコードの集合
+   */
+  public synchronized Set<SourcePath> getApiChangedPaths(
+      final Collection<JavaBinaryObject> binaries) {
+    final Set<SourcePath> paths = new HashSet<>();
+    summarize(binaries).forEach((path, summaries) -> {
+      final String apiDigest = apiDigests.get(path);
+      if (null != apiDigest && !apiDigest.equals(computeApiDigest(summaries))) {
+        paths.add(path);
+      }
+    });
+    return paths;
+  }
+
+  /**
+   * 指定バイナリの生成元のうち，定数の値が記録と異なるソースコードを返す．<br>
+   * 記録のないソースコードは含めない．<br>
+   *
+   * @param binaries コンパイルしたバイナリ
+   * @return 定数の値が変化したソースコードの集合
+   */
+  public synchronized Set<SourcePath> getConstantChangedPaths(
+      final Collection<JavaBinaryObject> binaries) {
+    final Set<SourcePath> paths = new HashSet<>();
+    summarize(binaries).forEach((path, summaries) -> {
+      final String constantDigest = constantDigests.get(path);
+      if (null != constantDigest && !constantDigest.equals(computeConstantDigest(summaries))) {
+        paths.add(path);
+      }
+    });
+    return paths;
+  }
+
+  /**
+   * 指定ソースコードのAPIが変化した場合に，再コンパイルが必要なソースコードを返す．<br>
+   * 指定ソースコードを参照するソースコードに加え，そのサブタイプ（推移的に求める）を参照するソースコードも含める．
+   * サブタイプを介して継承したメンバを参照する場合，定数プールにはサブタイプのみが現れるため．<br>
+   *
+   * @param paths APIが変化したソースコード
+   * @return 依存元のソースコードの集合（指定ソースコード自身は含まない）
+   */
+  public synchronized Set<SourcePath> getDependents(final Collection<SourcePath> paths) {
+    final Set<SourcePath> changedPaths = new HashSet<>(paths);
+    final Deque<SourcePath> worklist = new ArrayDeque<>(paths);
+    while (!worklist.isEmpty()) {
+      for (final SourcePath subtype : subtypes.getOrDefault(worklist.poll(),
+          Collections.emptySet())) {
+        if (changedPaths.add(subtype)) {
+          worklist.add(subtype);
+        }
+      }
+    }
+
+    final Set<SourcePath> result = new HashSet<>(changedPaths);
+    for (final SourcePath path : changedPaths) {
+      result.addAll(dependents.getOrDefault(path, Collections.emptySet()));
+    }
+    result.removeAll(paths);
+    return result;
+  }
+
+  /**
+   * 指定バイナリが依存するソースコードを返す．
+   *
+   * @param binaries 対象のバイナリ
+   * @return 依存先のソースコードの集合（記録のないクラスへの依存は含まない）
+   */
+  public synchronized Set<SourcePath> getDependencies(
+      final Collection<JavaBinaryObject> binaries) {
+    final Set<SourcePath> result = new HashSet<>();
+    summarize(binaries).values()
+        .forEach(summaries -> result.addAll(getDependencies(summaries)));
+    return result;
+  }
+
+  private Set<SourcePath> getDependencies(final List<ClassFileSummary> summaries) {
+    final Set<SourcePath> result = new HashSet<>();
+    for (final ClassFileSummary summary : summaries) {
+      for (final String referencedClass : summary.referencedClasses) {
+        final SourcePath path = classToPath.get(referencedClass);
+        if (null != path) {
+          result.add(path);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static Map<SourcePath, List<ClassFileSummary>> summarize(
+      final Collection<JavaBinaryObject> binaries) {
+    final Map<SourcePath, List<ClassFileSummary>> summaries = new HashMap<>();
+    for (final JavaBinaryObject binary : binaries) {
+      try {
+        summaries.computeIfAbsent(binary.getOriginPath(), k -> new ArrayList<>())
+            .add(ClassFileSummary.parse(binary.getByteCode()));
+      } catch (final IOException e) {
+        // javacが生成したクラスファイルは常に解析できるはず
+        throw new IllegalStateException(e);
+      }
+    }
+    return summaries;
+  }
+
+  private static String computeApiDigest(final List<ClassFileSummary> summaries) {
+    return computeDigest(summaries, summary -> summary.api);
+  }
+
+  private static String computeConstantDigest(final List<ClassFileSummary> summaries) {
+    // 定数を持たないクラスの増減は，定数の変化として扱わない
+    return computeDigest(summaries,
+        summary -> summary.constants.isEmpty() ? "" : summary.name + '\n' + summary.constants);
+  }
+
+  private static String computeDigest(final List<ClassFileSummary> summaries,
+      final Function<ClassFileSummary, String> extractor) {
+    final List<String> values = new ArrayList<>();
+    for (final ClassFileSummary summary : summaries) {
+      if (LOCAL_CLASS_NAME.matcher(summary.name)
+          .matches()) {
+        continue;
+      }
+      final String value = extractor.apply(summary);
+      if (!value.isEmpty()) {
+        values.add(value);
+      }
+    }
+    Collections.sort(values);
+    return Hashing.murmur3_128()
+        .hashString(String.join("\n", values), StandardCharsets.UTF_8)
+        .toString();
+  }
+}
@@ -32,7 +32,7 @@ public class InMemoryFileManager extends ForwardingJavaFileManager<JavaFileManag
    * コンストラクタ
    *
    * @param fileManager クラスパス解決に用いるファイルマネージャ
-   * @param binaryStore グローバルキャッシュに用いるバイナリ集合
+   * @param binaryStore ビルド結果の書き出し先となるバイナリ集合
    * @param classPathBinaries クラスパスの解決に用いられるバイナリ集合（差分ビルド用）
    */
   public InMemoryFileManager(final JavaFileManager fileManager, final BinaryStore binaryStore,
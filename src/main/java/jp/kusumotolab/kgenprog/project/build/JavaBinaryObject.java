@@ -9,6 +9,7 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.NestingKind;
 import javax.tools.JavaFileObject;
@@ -20,7 +21,10 @@ import jp.kusumotolab.kgenprog.project.SourcePath;
  * バイナリ自体のFQNやバイナリ生成元となったファイルのPath等，翻訳に必要な情報全てを内包する．<br>
  * 差分コンパイル時の重複回避のために，fqnと生成元のastから得られるdigest情報をキーとして保持する．<br>
  *
- * javax.tools.JavaFileObjectの継承オブジェクトであり，java.tools.JavaFileManagerが呼び出す様々なメソッドを持つ．
+ * javax.tools.JavaFileObjectの継承オブジェクトであり，java.tools.JavaFileManagerが呼び出す様々なメソッドを持つ．<br>
+ *
+ * バイトコードは{@link #openOutputStream()}で得たストリームに書き込み，ストリームを閉じた時点で
+ * ヒープ外の領域（{@link BytecodeArena}）に移す．以降は読み取り専用のバッファとして参照する．<br>
  *
  * @author shinsuke
  */
@@ -33,7 +37,8 @@ public class JavaBinaryObject implements JavaFileObject {
   private final boolean isTest;
   private final Kind kind;
   private final URI uri;
-  private final ByteArrayOutputStream bos;
+  private volatile ByteArrayOutputStream bos; // 書き込み中のバイトコード
+  private volatile ByteBuffer bytecode; // 書き込みが完了したバイトコード
   private final long lastModified;
 
   /**
@@ -56,7 +61,7 @@ public class JavaBinaryObject implements JavaFileObject {
     this.kind = Kind.CLASS; // それ以外ありえないので決め打ち
     this.uri = URI.create("jbo:///" + fqn.value.replace('.', '/') + kind.extension);
 
-    this.bos = new ByteArrayOutputStream(); // バイナリ情報の格納先
+    this.bos = new ByteArrayOutputStream(); // 書き込まれるまでは空のバイナリとして扱う
     this.lastModified = System.currentTimeMillis(); // 生成時刻
   }
 
@@ -76,8 +81,34 @@ public class JavaBinaryObject implements JavaFileObject {
     return originPath;
   }
 
+  /**
+   * バイトコードの複製を返す
+   *
+   * @return バイトコード
+   */
   public byte[] getByteCode() {
-    return bos.toByteArray();
+    final ByteArrayOutputStream pending = bos;
+    if (null != pending) {
+      return pending.toByteArray();
+    }
+    final ByteBuffer buffer = bytecode.duplicate();
+    final byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * バイトコードを複製せずに読み取り専用のバッファとして返す
+   *
+   * @return バイトコード
+   */
+  public ByteBuffer getByteCodeBuffer() {
+    final ByteArrayOutputStream pending = bos;
+    if (null != pending) {
+      return ByteBuffer.wrap(pending.toByteArray())
+          .asReadOnlyBuffer();
+    }
+    return bytecode.duplicate();
   }
 
   public boolean isTest() {
@@ -96,12 +127,47 @@ public class JavaBinaryObject implements JavaFileObject {
 
   @Override
   public final InputStream openInputStream() throws IOException {
-    return new ByteArrayInputStream(bos.toByteArray());
+    return new ByteArrayInputStream(getByteCode());
   }
 
+  /**
+   * バイトコードを書き込むストリームを返す．<br>
+   * ストリームを閉じた時点で，書き込まれた内容がこのバイナリのバイトコードとなる．<br>
+   */
   @Override
   public final OutputStream openOutputStream() throws IOException {
-    return bos;
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream() {
+
+      @Override
+      public synchronized void close() {
+        seal(this, buf, count);
+      }
+    };
+    bos = stream;
+    return stream;
+  }
+
+  private synchronized void seal(final ByteArrayOutputStream stream, final byte[] bytes,
+      final int length) {
+    // 後から別のストリームが開かれている場合は，そちらの内容を優先する
+    if (bos != stream) {
+      return;
+    }
+    bytecode = BytecodeArena.getInstance()
+        .store(bytes, length);
+    bos = null;
+  }
+
+  /**
+   * 書き込みが完了したバイトコードを指定領域に格納し直す．<br>
+   * 書き込み中のバイナリは，書き込み完了時に格納されるため何もしない．<br>
+   *
+   * @param arena 格納先の領域
+   */
+  synchronized void relocate(final BytecodeArena arena) {
+    if (null == bos && null != bytecode) {
+      bytecode = arena.store(bytecode.duplicate());
+    }
   }
 
   @Override
@@ -2,8 +2,11 @@ package jp.kusumotolab.kgenprog.project.build;
 
 import java.io.File;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -13,8 +16,11 @@ import javax.tools.JavaCompiler.CompilationTask;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import jp.kusumotolab.kgenprog.project.GeneratedAST;
 import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.SourcePath;
 import jp.kusumotolab.kgenprog.project.factory.TargetProject;
 
 /**
@@ -26,6 +32,8 @@ import jp.kusumotolab.kgenprog.project.factory.TargetProject;
  * ビルドはファイルシステムを介さず全てメモリ上で実行する（インメモリビルド）．<br>
  * さらに，本クラスはバイナリキャッシュ{@link BinaryStore}を保持しており，<br>
  * 過去にコンパイルしたことのあるソースコードのビルドはスキップする（差分ビルド）．<br>
+ * また，クラスパスと標準ライブラリの探索結果もビルドをまたいで使い回す．<br>
+ * ビルドごとの所要時間はDEBUGレベルでログ出力し，累計は各getterから取得できる．<br>
  *
  * @author shinsuke
  */
@@ -35,12 +43,20 @@ public class ProjectBuilder {
   // TODO #289: 加え，toml からコンパイラバージョンを指定できるようにするべき．
   private static final String DEFAULT_JDK_VERSION = "1.8";
 
+  private static final Logger log = LoggerFactory.getLogger(ProjectBuilder.class);
+
   private final TargetProject targetProject;
   private final BinaryStore binaryStore;
+  private final DependencyGraph dependencyGraph;
   private final JavaCompiler compiler;
   private final StandardJavaFileManager standardFileManager;
+  private final CachingJavaFileManager cachingFileManager;
   // private final InMemoryFileManager inMemoryFileManager;
   private final List<String> compilationOptions;
+  private long buildCount;
+  private long compiledSourceCount;
+  private long buildTimeNanos;
+  private long compilationTimeNanos;
 
   /**
    * コンストラクタ．ビルド対象のプロジェクトを受け取る．
@@ -48,12 +64,41 @@ public class ProjectBuilder {
    * @param targetProject ビルド対象のプロジェクト
    */
   public ProjectBuilder(final TargetProject targetProject) {
+    this(targetProject, new BinaryStore());
+  }
+
+  /**
+   * コンストラクタ．ビルド対象のプロジェクトと，差分ビルドに用いるバイナリキャッシュを受け取る．<br>
+   * 複数のProjectBuilderで同一のキャッシュを共有することで，並列ビルド時もコンパイル結果を使い回せる．<br>
+   * なお，JavaCompilerやファイルマネージャはスレッドセーフではないため，ProjectBuilder自体はスレッドごとに生成すること．<br>
+   *
+   * @param targetProject ビルド対象のプロジェクト
+   * @param binaryStore 差分ビルドのためのバイナリキャッシュ（スレッドセーフ）
+   */
+  public ProjectBuilder(final TargetProject targetProject, final BinaryStore binaryStore) {
+    this(targetProject, binaryStore, null);
+  }
+
+  /**
+   * コンストラクタ．依存関係を考慮した差分ビルドを行う場合は，ソースコード間の依存関係の記録先を受け取る．<br>
+   * 変更されたソースコードのAPI（メソッドのシグネチャ等）が変化した場合に限り，依存するソースコードも再コンパイルする．<br>
+   * メソッド本体のみの変更であれば，依存するソースコードはキャッシュ済みのバイナリを使い回す．<br>
+   * 依存関係の記録先はバイナリキャッシュと共に共有すること．<br>
+   *
+   * @param targetProject ビルド対象のプロジェクト
+   * @param binaryStore 差分ビルドのためのバイナリキャッシュ（スレッドセーフ）
+   * @param dependencyGraph ソースコード間の依存関係の記録先（スレッドセーフ）．nullの場合は依存関係を考慮しない
+   */
+  public ProjectBuilder(final TargetProject targetProject, final BinaryStore binaryStore,
+      final DependencyGraph dependencyGraph) {
     this.targetProject = targetProject;
+    this.binaryStore = binaryStore;
+    this.dependencyGraph = dependencyGraph;
 
     // build()メソッドで再利用可能なオブジェクト
-    binaryStore = new BinaryStore();
     compiler = ToolProvider.getSystemJavaCompiler();
     standardFileManager = compiler.getStandardFileManager(null, null, null);
+    cachingFileManager = new CachingJavaFileManager(standardFileManager);
     compilationOptions = createDefaultCompilationOptions();
   }
 
@@ -65,6 +110,9 @@ public class ProjectBuilder {
    * @return ビルド結果
    */
   public BuildResults build(final GeneratedSourceCode generatedSourceCode) {
+    final long startTime = System.nanoTime();
+    final long previousCompiledSourceCount = compiledSourceCount;
+    final long previousCompilationTimeNanos = compilationTimeNanos;
 
     // コンパイル状況や診断情報等の保持オブジェクトを用意
     final StringWriter progress = new StringWriter();
@@ -75,53 +123,211 @@ public class ProjectBuilder {
     final Set<JavaSourceObject> javaSourceObjects = generateJavaSourceObjects(allAsts);
 
     // コンパイル対象が存在する（≒全コンパイル対象がキャッシュ済みでない）場合はコンパイル
-    if (!javaSourceObjects.isEmpty()) {
-      final boolean success = build(allAsts, javaSourceObjects, diagnostics, progress);
+    // コンパイル済みバイナリを取り出してセットしておく
+    final BinaryStore compiledBinaries = javaSourceObjects.isEmpty()
+        ? extractSubBinaryStore(allAsts)
+        : build(allAsts, javaSourceObjects, diagnostics, progress);
 
-      if (!success) {
-        return new EmptyBuildResults(diagnostics, progress.toString());
-      }
+    record(startTime, compiledSourceCount - previousCompiledSourceCount,
+        compilationTimeNanos - previousCompilationTimeNanos);
+    if (null == compiledBinaries) {
+      return new EmptyBuildResults(diagnostics, progress.toString());
     }
+    return new BuildResults(compiledBinaries, diagnostics, progress.toString(), false);
+  }
 
-    // コンパイル済みバイナリを取り出してセットしておく
-    final BinaryStore compiledBinaries = extractSubBinaryStore(allAsts);
+  /**
+   * @return これまでに行ったビルドの回数
+   */
+  public long getBuildCount() {
+    return buildCount;
+  }
 
-    return new BuildResults(compiledBinaries, diagnostics, progress.toString(), false);
+  /**
+   * @return これまでにコンパイルしたソースコードの数（差分ビルドでスキップしたものは含まない）
+   */
+  public long getCompiledSourceCount() {
+    return compiledSourceCount;
+  }
+
+  /**
+   * @return これまでのビルドの所要時間の累計（ミリ秒）
+   */
+  public long getBuildTimeMillis() {
+    return buildTimeNanos / 1_000_000;
+  }
+
+  /**
+   * @return これまでのビルドのうち，javacによるコンパイルの所要時間の累計（ミリ秒）
+   */
+  public long getCompilationTimeMillis() {
+    return compilationTimeNanos / 1_000_000;
+  }
+
+  private void record(final long startTime, final long compiledCount,
+      final long compilationTime) {
+    final long buildTime = System.nanoTime() - startTime;
+    buildCount++;
+    buildTimeNanos += buildTime;
+
+    if (log.isDebugEnabled()) {
+      log.debug(String.format(
+          "build #%d: %d sources compiled, %.1f ms (javac %.1f ms), classpath lookups %d/%d cached",
+          buildCount, compiledCount, buildTime / 1e6, compilationTime / 1e6,
+          cachingFileManager.getHitCount(),
+          cachingFileManager.getHitCount() + cachingFileManager.getMissCount()));
+    }
   }
 
-  private boolean build(final List<GeneratedAST<?>> allAsts,
+  /**
+   * 指定ソースコードをコンパイルし，成功した場合はグローバルキャッシュに公開する．
+   *
+   * @return ビルド対象の全ソースコードに対応するバイナリ集合．コンパイルに失敗した場合はnull
+   */
+  private BinaryStore build(final List<GeneratedAST<?>> allAsts,
       final Collection<JavaSourceObject> javaSourceObjects,
       final DiagnosticCollector<JavaFileObject> diagnostics, final StringWriter progress) {
 
     // binaryStoreからコンパイル済みバイナリを取り出してIMFMにセットしておく
     final BinaryStore reusableBinaries = extractSubBinaryStore(allAsts);
+    final BinaryStore stagingBinaries =
+        compile(javaSourceObjects, reusableBinaries, diagnostics, progress);
+    if (null == stagingBinaries) {
+      return null;
+    }
+
+    final Set<SourcePath> apiChangedPaths = null == dependencyGraph ? Collections.emptySet()
+        : dependencyGraph.getApiChangedPaths(stagingBinaries.getAll());
+    if (apiChangedPaths.isEmpty()) {
+      publish(stagingBinaries.getAll());
+      return extractSubBinaryStore(allAsts);
+    }
+    return buildDependents(allAsts, javaSourceObjects, reusableBinaries, stagingBinaries,
+        apiChangedPaths, diagnostics, progress);
+  }
+
+  /**
+   * APIが変化したソースコードに依存するソースコードを再コンパイルする．<br>
+   * 再コンパイルした依存元のAPIも確かめ，変化していればその依存元も加えて再コンパイルし直す．<br>
+   * 定数の値が変化した場合は，インライン化された参照を依存関係から追えないため，全てのソースコードを再コンパイルする．<br>
+   *
+   * APIが変化したソースコードのバイナリ，それに依存するバイナリはグローバルキャッシュに公開しない．<br>
+   * 公開すると，以降のビルドで差分ビルドによりコンパイルがスキップされ，依存するソースコードの
+   * 古いバイナリと組み合わされてしまうため．<br>
+   *
+   * @return ビルド対象の全ソースコードに対応するバイナリ集合．コンパイルに失敗した場合はnull
+   */
+  private BinaryStore buildDependents(final List<GeneratedAST<?>> allAsts,
+      final Collection<JavaSourceObject> javaSourceObjects, final BinaryStore reusableBinaries,
+      final BinaryStore stagingBinaries, final Set<SourcePath> apiChangedPaths,
+      final DiagnosticCollector<JavaFileObject> diagnostics, final StringWriter progress) {
+    final Set<SourcePath> compiledPaths = javaSourceObjects.stream()
+        .map(JavaSourceObject::getSourcePath)
+        .collect(Collectors.toSet());
+    final Set<SourcePath> changedPaths = new HashSet<>(apiChangedPaths);
+    boolean fullRebuild = !dependencyGraph.getConstantChangedPaths(stagingBinaries.getAll())
+        .isEmpty();
+
+    while (true) {
+      final Set<SourcePath> affectedPaths = fullRebuild ? allAsts.stream()
+          .map(GeneratedAST::getSourcePath)
+          .collect(Collectors.toSet()) : dependencyGraph.getDependents(changedPaths);
+      affectedPaths.addAll(changedPaths);
+      final Set<SourcePath> dependentPaths = new HashSet<>(affectedPaths);
+      dependentPaths.removeAll(compiledPaths);
+
+      // 再コンパイルするソースコードの古いバイナリを除き，今回コンパイルしたバイナリを加える
+      final BinaryStore classPathBinaries = new BinaryStore();
+      reusableBinaries.getAll()
+          .stream()
+          .filter(jbo -> !dependentPaths.contains(jbo.getOriginPath()))
+          .forEach(classPathBinaries::add);
+      classPathBinaries.addAll(stagingBinaries.getAll());
+
+      final Set<JavaSourceObject> dependentSourceObjects = allAsts.stream()
+          .filter(ast -> dependentPaths.contains(ast.getSourcePath()))
+          .map(JavaSourceObject::new)
+          .collect(Collectors.toSet());
+      final BinaryStore dependentBinaries = dependentSourceObjects.isEmpty() ? new BinaryStore()
+          : compile(dependentSourceObjects, classPathBinaries, diagnostics, progress);
+      if (null == dependentBinaries) {
+        return null;
+      }
+
+      if (!fullRebuild) {
+        // 再コンパイルした依存元の定数やAPIが変化した場合（定数式やブリッジメソッドの変化）はやり直す
+        if (!dependencyGraph.getConstantChangedPaths(dependentBinaries.getAll())
+            .isEmpty()) {
+          fullRebuild = true;
+          continue;
+        }
+        if (changedPaths.addAll(dependencyGraph.getApiChangedPaths(dependentBinaries.getAll()))) {
+          continue;
+        }
+      }
+
+      final List<JavaBinaryObject> publishableBinaries = new ArrayList<>();
+      for (final SourcePath path : compiledPaths) {
+        if (affectedPaths.contains(path)) {
+          continue;
+        }
+        final Collection<JavaBinaryObject> binaries = stagingBinaries.get(path);
+        final Set<SourcePath> dependencies = dependencyGraph.getDependencies(binaries);
+        dependencies.remove(path);
+        if (Collections.disjoint(dependencies, affectedPaths)) {
+          publishableBinaries.addAll(binaries);
+        }
+      }
+      publish(publishableBinaries);
+
+      classPathBinaries.addAll(dependentBinaries.getAll());
+      return classPathBinaries;
+    }
+  }
+
+  /**
+   * コンパイルを実行する．<br>
+   * ビルド結果はまず一時的なstoreに書き出す．書き込み途中のバイナリを他スレッドのビルドから参照されないようにするため．<br>
+   *
+   * @return コンパイル結果のバイナリ集合．コンパイルに失敗した場合はnull
+   */
+  private BinaryStore compile(final Collection<JavaSourceObject> javaSourceObjects,
+      final BinaryStore reusableBinaries, final DiagnosticCollector<JavaFileObject> diagnostics,
+      final StringWriter progress) {
+    final long startTime = System.nanoTime();
+    final BinaryStore stagingBinaries = new BinaryStore();
     final InMemoryFileManager inMemoryFileManager =
-        new InMemoryFileManager(standardFileManager, binaryStore, reusableBinaries);
+        new InMemoryFileManager(cachingFileManager, stagingBinaries, reusableBinaries);
 
     // コンパイルタスクを生成
     final CompilationTask task = compiler.getTask(progress, inMemoryFileManager, diagnostics,
         compilationOptions, null, javaSourceObjects);
 
-    // コンパイルを実行
-    return task.call();
+    final boolean success = task.call();
+    compiledSourceCount += javaSourceObjects.size();
+    compilationTimeNanos += System.nanoTime() - startTime;
+    return success ? stagingBinaries : null;
+  }
+
+  /**
+   * コンパイルに成功したバイナリをグローバルキャッシュに公開する
+   */
+  private void publish(final Collection<JavaBinaryObject> binaries) {
+    binaryStore.addAll(binaries);
+    if (null != dependencyGraph) {
+      dependencyGraph.record(binaries);
+    }
   }
 
   /**
-   * binaryStoreから指定astに対応するJavaBinaryObjectの部分集合を取り出す．
+   * binaryStoreから指定astに対応するJavaBinaryObjectの部分集合を取り出す．<br>
+   * バイナリは複製せず，binaryStoreを参照するビューとして取り出す．<br>
    *
    * @param asts
    * @return
    */
   private BinaryStore extractSubBinaryStore(final List<GeneratedAST<?>> asts) {
-    // TODO
-    // この処理コスト高い．
-    // BinaryStoreからサブBinaryStoreの抜き出し方法は改善したほうが良い．
-    final BinaryStore binStore = new BinaryStore();
-    asts.stream()
-        .map(ast -> binaryStore.get(ast.getPrimaryClassName(), ast.getMessageDigest()))
-        .flatMap(Collection::stream)
-        .forEach(binStore::add);
-    return binStore;
+    return new BinaryStoreView(binaryStore, asts);
   }
 
   /**
@@ -5,6 +5,9 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import jp.kusumotolab.kgenprog.project.ClassPath;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.TestSourcePath;
 import jp.kusumotolab.kgenprog.project.factory.JUnitLibraryResolver.JUnitVersion;
 
 public class TargetProjectFactory {
@@ -63,6 +66,23 @@ public class TargetProjectFactory {
         pathsForClass, junitVersion).create();
   }
 
+  /**
+   * 解決済みのパス情報からTargetProjectを生成するファクトリメソッド．<br>
+   * ファイルシステムの探索やJUnitライブラリの追加は行わない．<br>
+   * 別JVM上で親プロセスと同一のTargetProjectを復元するために用いる．
+   *
+   * @param rootPath 対象のルートパス
+   * @param productSourcePaths プロダクトソースコードのパス
+   * @param testSourcePaths テストソースコードのパス
+   * @param classPaths クラスパス（JUnitライブラリを含む）
+   * @return TargetProject
+   */
+  public static TargetProject create(final Path rootPath,
+      final List<ProductSourcePath> productSourcePaths,
+      final List<TestSourcePath> testSourcePaths, final List<ClassPath> classPaths) {
+    return new TargetProject(rootPath, productSourcePaths, testSourcePaths, classPaths);
+  }
+
   /**
    * ファクトリ一覧の生成
    *
@@ -0,0 +1,212 @@
+package jp.kusumotolab.kgenprog.project.jdt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.CharacterLiteral;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.DoStatement;
+import org.eclipse.jdt.core.dom.EmptyStatement;
+import org.eclipse.jdt.core.dom.EnhancedForStatement;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.ForStatement;
+import org.eclipse.jdt.core.dom.IfStatement;
+import org.eclipse.jdt.core.dom.InfixExpression;
+import org.eclipse.jdt.core.dom.NullLiteral;
+import org.eclipse.jdt.core.dom.NumberLiteral;
+import org.eclipse.jdt.core.dom.ParenthesizedExpression;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.Statement;
+import org.eclipse.jdt.core.dom.StringLiteral;
+import org.eclipse.jdt.core.dom.SwitchStatement;
+import org.eclipse.jdt.core.dom.ThisExpression;
+import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
+import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+import org.eclipse.jdt.core.dom.WhileStatement;
+import com.google.common.hash.Hashing;
+
+/**
+ * 意味を変えない範囲でASTを正規化し，そのダイジェストを計算するクラス．<br>
+ * 正規化は元のASTの複製に対して行い，元のASTは変更しない．<br>
+ *
+ * 行う正規化は以下の通り．<br>
+ * 1. 空文を取り除く（if文の本体などの省略できない位置では空のブロックに置き換える）<br>
+ * 2. ブロック内のブロックを，変数・型の宣言を含まない場合に限り外側のブロックに展開する<br>
+ * 3. if文やループの本体をブロックで囲む<br>
+ * 4. 交換可能な二項演算子の被演算子が共に副作用のない式である場合，文字列順に並べ替える<br>
+ *
+ * 2.と3.により，削除操作で空になったブロックや，削除済みの要素に対する重ねての削除は同じ結果に収束する．<br>
+ *
+ * @author shinsuke
+ */
+class ASTNormalizer {
+
+  /**
+   * 被演算子を入れ替えても評価結果が変わらない演算子．<br>
+   * 短絡評価を行う&&と||は，右辺が評価されるか否かが変わるため含めない．<br>
+   */
+  private static final Set<InfixExpression.Operator> COMMUTATIVE_OPERATORS =
+      Set.of(InfixExpression.Operator.EQUALS, InfixExpression.Operator.NOT_EQUALS,
+          InfixExpression.Operator.TIMES, InfixExpression.Operator.AND,
+          InfixExpression.Operator.OR, InfixExpression.Operator.XOR);
+
+  private ASTNormalizer() {}
+
+  /**
+   * 正規化したASTのダイジェストを返す．
+   *
+   * @param root 対象のAST
+   * @return ダイジェストの16進文字列
+   */
+  static String digest(final CompilationUnit root) {
+    return Hashing.murmur3_128()
+        .hashString(normalize(root).toString(), StandardCharsets.UTF_8)
+        .toString();
+  }
+
+  /**
+   * ASTを複製し，正規化したものを返す．
+   *
+   * @param root 対象のAST
+   * @return 正規化したAST
+   */
+  static CompilationUnit normalize(final CompilationUnit root) {
+    final AST ast = AST.newAST(root.getAST()
+        .apiLevel());
+    final CompilationUnit copy = (CompilationUnit) ASTNode.copySubtree(ast, root);
+    copy.accept(new NormalizingVisitor());
+    return copy;
+  }
+
+  /**
+   * 子から順に正規化するため，全ての処理を endVisit で行う
+   */
+  private static class NormalizingVisitor extends ASTVisitor {
+
+    @Override
+    public void endVisit(final Block node) {
+      @SuppressWarnings("unchecked")
+      final List<Statement> statements = node.statements();
+      int index = 0;
+      while (index < statements.size()) {
+        final Statement statement = statements.get(index);
+        if (statement instanceof EmptyStatement) {
+          statements.remove(index);
+        } else if (statement instanceof Block && !hasDeclarations((Block) statement)) {
+          @SuppressWarnings("unchecked")
+          final List<Statement> innerStatements = ((Block) statement).statements();
+          final List<Statement> movedStatements = new ArrayList<>(innerStatements);
+          innerStatements.clear();
+          statements.remove(index);
+          statements.addAll(index, movedStatements);
+          index += movedStatements.size();
+        } else {
+          index++;
+        }
+      }
+    }
+
+    @Override
+    public void endVisit(final SwitchStatement node) {
+      // case ラベルも文として並んでいるため，ブロックの展開は行わない
+      node.statements()
+          .removeIf(EmptyStatement.class::isInstance);
+    }
+
+    @Override
+    public void endVisit(final IfStatement node) {
+      wrap(node.getThenStatement(), node::setThenStatement);
+      if (null != node.getElseStatement()) {
+        wrap(node.getElseStatement(), node::setElseStatement);
+      }
+    }
+
+    @Override
+    public void endVisit(final WhileStatement node) {
+      wrap(node.getBody(), node::setBody);
+    }
+
+    @Override
+    public void endVisit(final DoStatement node) {
+      wrap(node.getBody(), node::setBody);
+    }
+
+    @Override
+    public void endVisit(final ForStatement node) {
+      wrap(node.getBody(), node::setBody);
+    }
+
+    @Override
+    public void endVisit(final EnhancedForStatement node) {
+      wrap(node.getBody(), node::setBody);
+    }
+
+    @Override
+    public void endVisit(final InfixExpression node) {
+      if (!COMMUTATIVE_OPERATORS.contains(node.getOperator()) || node.hasExtendedOperands()) {
+        return;
+      }
+
+      final Expression left = node.getLeftOperand();
+      final Expression right = node.getRightOperand();
+      if (!isPure(left) || !isPure(right) || left.toString()
+          .compareTo(right.toString()) <= 0) {
+        return;
+      }
+
+      final AST ast = node.getAST();
+      node.setLeftOperand((Expression) ASTNode.copySubtree(ast, right));
+      node.setRightOperand((Expression) ASTNode.copySubtree(ast, left));
+    }
+
+    /**
+     * 文をブロックで囲んだものに置き換える．<br>
+     * 空文は空のブロックに置き換え，ブロックはそのままにする．<br>
+     */
+    private void wrap(final Statement statement, final Consumer<Statement> setter) {
+      if (statement instanceof Block) {
+        return;
+      }
+
+      final Block block = statement.getAST()
+          .newBlock();
+      // 先にブロックと置き換えることで，文を親から切り離す
+      setter.accept(block);
+      if (!(statement instanceof EmptyStatement)) {
+        @SuppressWarnings("unchecked")
+        final List<Statement> statements = block.statements();
+        statements.add(statement);
+      }
+    }
+
+    private boolean hasDeclarations(final Block block) {
+      for (final Object statement : block.statements()) {
+        if (statement instanceof VariableDeclarationStatement
+            || statement instanceof TypeDeclarationStatement) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * 評価しても副作用や例外が生じない式か否かを返す
+     */
+    private boolean isPure(final Expression expression) {
+      if (expression instanceof ParenthesizedExpression) {
+        return isPure(((ParenthesizedExpression) expression).getExpression());
+      }
+      return expression instanceof SimpleName || expression instanceof NumberLiteral
+          || expression instanceof CharacterLiteral || expression instanceof StringLiteral
+          || expression instanceof BooleanLiteral || expression instanceof NullLiteral
+          || expression instanceof ThisExpression;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package jp.kusumotolab.kgenprog.project.jdt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.apache.commons.codec.binary.Hex;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.ToolFactory;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * {@link GeneratedJDTAST}のダイジェストの計算方法．<br>
+ * ダイジェストは，同一のソースコードの判定（再生成されたVariantの検出やビルド結果の再利用）に用いられる．<br>
+ *
+ * @author shinsuke
+ */
+public enum DigestStrategy {
+
+  /**
+   * ASTを文字列化したもののMD5．<br>
+   * 空白や改行，Javadoc以外のコメントの違いは無視される．<br>
+   */
+  AstMd5 {
+
+    @Override
+    String digest(final GeneratedJDTAST<?> ast) {
+      try {
+        final MessageDigest digest = MessageDigest.getInstance("MD5");
+        return Hex.encodeHexString(digest.digest(ast.getRoot()
+            .toString()
+            .getBytes()));
+      } catch (final NoSuchAlgorithmException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  },
+
+  /**
+   * ソースコードの文字列そのもののMurmur3（128bit）．<br>
+   * ASTの文字列化を行わないため最も速いが，空白の違いも区別される．<br>
+   */
+  SourceMurmur3 {
+
+    @Override
+    String digest(final GeneratedJDTAST<?> ast) {
+      return HASH_FUNCTION.hashString(ast.getSourceCode(), StandardCharsets.UTF_8)
+          .toString();
+    }
+  },
+
+  /**
+   * ソースコードを字句解析したトークン列のMurmur3（128bit）．<br>
+   * 空白やコメントの違いを無視するため，書式のみが異なるVariantを同一とみなせる．<br>
+   */
+  TokenMurmur3 {
+
+    @Override
+    String digest(final GeneratedJDTAST<?> ast) {
+      final IScanner scanner = ToolFactory.createScanner(false, false, false, JavaCore.VERSION_1_8);
+      scanner.setSource(ast.getSourceCode()
+          .toCharArray());
+
+      final Hasher hasher = HASH_FUNCTION.newHasher();
+      try {
+        int token = scanner.getNextToken();
+        while (ITerminalSymbols.TokenNameEOF != token) {
+          final char[] source = scanner.getCurrentTokenSource();
+          hasher.putInt(token)
+              .putInt(source.length);
+          for (final char c : source) {
+            hasher.putChar(c);
+          }
+          token = scanner.getNextToken();
+        }
+      } catch (final InvalidInputException e) {
+        // 字句解析できないソースコードは，文字列そのもののダイジェストで代用する
+        return SourceMurmur3.digest(ast);
+      }
+      return hasher.hash()
+          .toString();
+    }
+  };
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+  /**
+   * ASTのダイジェストを計算する．
+   *
+   * @param ast 計算対象のAST
+   * @return ダイジェストの16進文字列
+   */
+  abstract String digest(final GeneratedJDTAST<?> ast);
+}
@@ -1,10 +1,7 @@
 package jp.kusumotolab.kgenprog.project.jdt;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.Optional;
-import org.apache.commons.codec.binary.Hex;
 import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.Modifier;
@@ -16,15 +13,16 @@ import jp.kusumotolab.kgenprog.project.SourcePath;
 
 public class GeneratedJDTAST<T extends SourcePath> implements GeneratedAST<T> {
 
-  private static final String DIGEST_ALGORITHM = "MD5";
-
   private final JDTASTConstruction construction;
   private final CompilationUnit root;
   private final T sourcePath;
   private final FullyQualifiedName primaryClassName;
   private final String sourceCode;
-  private final String messageDigest;
+  private final DigestStrategy digestStrategy;
+  private volatile String messageDigest;
+  private volatile String normalizedDigest;
   private final int numberOfLines;
+  private volatile ASTLocations locations;
 
   public GeneratedJDTAST(final JDTASTConstruction construction, final T sourcePath,
       final CompilationUnit root, final String source) {
@@ -34,7 +32,8 @@ public class GeneratedJDTAST<T extends SourcePath> implements GeneratedAST<T> {
     this.sourceCode = source;
 
     this.primaryClassName = searchPrimaryClassName(root);
-    this.messageDigest = createMessageDigest();
+    this.digestStrategy = null == construction ? DigestStrategy.AstMd5
+        : construction.getDigestStrategy();
     this.numberOfLines = calculateNumberOfLines();
   }
 
@@ -53,14 +52,59 @@ public class GeneratedJDTAST<T extends SourcePath> implements GeneratedAST<T> {
     return primaryClassName;
   }
 
+  /**
+   * ASTの位置情報を返す．<br>
+   * ASTは不変なので，最初に呼び出された時点で一度だけ作成し，以降は同じものを返す．<br>
+   *
+   * @return ASTの位置情報
+   */
   @Override
   public ASTLocations createLocations() {
-    return new JDTASTLocations<>(this, root, sourcePath);
+    ASTLocations result = locations;
+    if (null == result) {
+      synchronized (this) {
+        result = locations;
+        if (null == result) {
+          result = new JDTASTLocations<>(this, root, sourcePath);
+          locations = result;
+        }
+      }
+    }
+    return result;
   }
 
+  /**
+   * ダイジェストを返す．<br>
+   * 最初に呼び出された時点で{@link DigestStrategy}に従って計算し，以降は同じものを返す．<br>
+   *
+   * @return ダイジェスト
+   */
   @Override
   public String getMessageDigest() {
-    return messageDigest;
+    String result = messageDigest;
+    if (null == result) {
+      // 計算結果は常に同じなので，複数スレッドで重複して計算されても問題ない
+      result = digestStrategy.digest(this);
+      messageDigest = result;
+    }
+    return result;
+  }
+
+  /**
+   * 正規化したASTのダイジェストを返す．<br>
+   * 空文やブロックの入れ子など，意味に影響しない違いのみを持つASTは同じ値になる．<br>
+   * 最初に呼び出された時点で計算し，以降は同じものを返す．<br>
+   *
+   * @return 正規化したASTのダイジェスト
+   * @see ASTNormalizer
+   */
+  public String getNormalizedDigest() {
+    String result = normalizedDigest;
+    if (null == result) {
+      result = ASTNormalizer.digest(root);
+      normalizedDigest = result;
+    }
+    return result;
   }
 
   @Override
@@ -116,17 +160,6 @@ public class GeneratedJDTAST<T extends SourcePath> implements GeneratedAST<T> {
     return sourcePath.createFullyQualifiedName(fqnString);
   }
 
-  private String createMessageDigest() {
-    try {
-      final MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
-
-      return Hex.encodeHexString(digest.digest(root.toString()
-          .getBytes()));
-    } catch (final NoSuchAlgorithmException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
   private int calculateNumberOfLines() {
     final int pos = root.getExtendedStartPosition(root) + root.getExtendedLength(root) - 1;
     return root.getLineNumber(pos);
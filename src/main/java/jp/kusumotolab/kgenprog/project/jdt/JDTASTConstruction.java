@@ -5,7 +5,6 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -17,10 +16,8 @@ import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
-import org.eclipse.jdt.core.dom.FileASTRequestor;
 import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 import jp.kusumotolab.kgenprog.CharsetDetector;
-import jp.kusumotolab.kgenprog.project.GeneratedAST;
 import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
 import jp.kusumotolab.kgenprog.project.GenerationFailedSourceCode;
 import jp.kusumotolab.kgenprog.project.ProductSourcePath;
@@ -30,52 +27,48 @@ import jp.kusumotolab.kgenprog.project.factory.TargetProject;
 
 public class JDTASTConstruction {
 
+  private final DigestStrategy digestStrategy;
+
+  public JDTASTConstruction() {
+    this(DigestStrategy.AstMd5);
+  }
+
+  /**
+   * @param digestStrategy 構築したASTのダイジェストの計算方法
+   */
+  public JDTASTConstruction(final DigestStrategy digestStrategy) {
+    this.digestStrategy = digestStrategy;
+  }
+
+  public DigestStrategy getDigestStrategy() {
+    return digestStrategy;
+  }
+
   public GeneratedSourceCode constructAST(final TargetProject project) {
     return constructAST(project.getProductSourcePaths(), project.getTestSourcePaths());
   }
 
+  /**
+   * 指定されたソースファイルを読み込み，ASTを構築する．<br>
+   * 各ファイルは一度だけ読み込み，その内容から文字コードを判定する．<br>
+   * ファイルごとの構築は並列に行うが，構築したASTは引数のソースパスと同じ順序で並べる．<br>
+   *
+   * @param productSourcePaths ProductソースコードのPath
+   * @param testSourcePaths TestソースコードのPath
+   * @return 構築したソースコード．構文エラーがある場合は GenerationFailedSourceCode
+   */
   public GeneratedSourceCode constructAST(final List<ProductSourcePath> productSourcePaths,
       final List<TestSourcePath> testSourcePaths) {
-    final String[] paths = Stream.concat(productSourcePaths.stream(), testSourcePaths.stream())
-        .map(path -> path.getResolvedPath()
-            .toString())
-        .toArray(String[]::new);
-
-    final ASTParser parser = createNewParser();
+    final List<GeneratedJDTAST<ProductSourcePath>> productAsts = constructASTs(productSourcePaths);
+    final List<GeneratedJDTAST<TestSourcePath>> testAsts = constructASTs(testSourcePaths);
 
-    final Map<Path, ProductSourcePath> pathToProductSourcePath = productSourcePaths.stream()
-        .collect(Collectors.toMap(SourcePath::getResolvedPath, path -> path));
-    final Map<Path, TestSourcePath> pathToTestSourcePath = testSourcePaths.stream()
-        .collect(Collectors.toMap(SourcePath::getResolvedPath, path -> path));
-
-    final List<GeneratedAST<ProductSourcePath>> productAsts = new ArrayList<>();
-    final List<GeneratedAST<TestSourcePath>> testAsts = new ArrayList<>();
-    final List<IProblem> problems = new ArrayList<>();
-
-    final FileASTRequestor requestor = new FileASTRequestor() {
-
-      @Override
-      public void acceptAST(final String sourcePath, final CompilationUnit ast) {
-        final ProductSourcePath productPath = pathToProductSourcePath.get(Paths.get(sourcePath));
-        if (productPath != null) {
-          productAsts.add(new GeneratedJDTAST<>(JDTASTConstruction.this, productPath, ast,
-              loadAsString(sourcePath)));
-        }
-
-        final TestSourcePath testPath = pathToTestSourcePath.get(Paths.get(sourcePath));
-        if (testPath != null) {
-          testAsts.add(new GeneratedJDTAST<>(JDTASTConstruction.this, testPath, ast,
-              loadAsString(sourcePath)));
-        }
-
-        problems.addAll(Arrays.asList(ast.getProblems()));
-      }
-    };
-
-    parser.createASTs(paths, null, new String[] {}, requestor, null);
+    final List<IProblem> problems = Stream.concat(productAsts.stream(), testAsts.stream())
+        .flatMap(ast -> Arrays.stream(ast.getRoot()
+            .getProblems()))
+        .collect(Collectors.toList());
 
     if (isConstructionSuccess(problems)) {
-      return new GeneratedSourceCode(productAsts, testAsts);
+      return new GeneratedSourceCode(new ArrayList<>(productAsts), new ArrayList<>(testAsts));
     } else {
       final String messages = concatProblemMessages(problems);
       return new GenerationFailedSourceCode(messages);
@@ -108,11 +101,20 @@ public class JDTASTConstruction {
     return parser;
   }
 
-  private String loadAsString(final String path) {
+  private <T extends SourcePath> List<GeneratedJDTAST<T>> constructASTs(
+      final List<T> sourcePaths) {
+    // ASTParser はスレッドセーフではないため，ファイルごとに生成する
+    return sourcePaths.parallelStream()
+        .map(path -> constructAST(path, loadAsString(path.getResolvedPath())))
+        .collect(Collectors.toList());
+  }
+
+  private String loadAsString(final Path path) {
     try {
+      final byte[] bytes = Files.readAllBytes(path);
       final CharsetDetector detector = new CharsetDetector();
-      final Charset charset = detector.detect(Paths.get(path));
-      final String code = Files.readString(Paths.get(path), charset);
+      final Charset charset = detector.detect(bytes);
+      final String code = new String(bytes, charset);
       return new String(code.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
     } catch (final IOException e) {
       throw new RuntimeException(e);
@@ -1,8 +1,11 @@
 package jp.kusumotolab.kgenprog.project.jdt;
 
+import java.util.AbstractList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.RandomAccess;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import jp.kusumotolab.kgenprog.project.ASTLocation;
@@ -13,26 +16,51 @@ import jp.kusumotolab.kgenprog.project.SourcePath;
  * An helper class for retrieving or searching a location on JDT's AST.
  * JDTのAST上の位置情報の取得･検索のためのヘルパークラス．
  *
+ * 各ノードのLocationは一度だけ生成し，infer/getAllは常に同じインスタンスを返す．
+ * 行からLocationへの対応は，全行分を連結した配列と各行の開始位置の配列で保持する．
+ *
  * @param <T>
  */
 public class JDTASTLocations<T extends SourcePath> implements ASTLocations {
 
-  private final List<List<ASTNode>> lineNumberToStatements;
-  private final List<ASTLocation> allLocations;
-  private final T sourcePath;
   private final GeneratedJDTAST<?> generatedAST;
+  private final CompilationUnit root;
+  private final Map<ASTNode, ASTLocation> nodeToLocation;
+  private final List<ASTLocation> allLocations;
+  private final ASTLocation[] lineToLocations;
+  private final int[] lineOffsets;
 
   public JDTASTLocations(final GeneratedJDTAST<?> generatedAST, final CompilationUnit root,
       final T sourcePath) {
     this.generatedAST = generatedAST;
-    this.sourcePath = sourcePath;
+    this.root = root;
     final ProgramElementVisitor visitor = new StatementAndConditionVisitor();
     visitor.analyzeElements(root);
-    this.lineNumberToStatements = visitor.getLineToElements();
-    this.allLocations = visitor.getElements()
-        .stream()
-        .map(v -> new JDTASTLocation(sourcePath, v, generatedAST))
-        .collect(Collectors.toList());
+
+    final List<ASTNode> elements = visitor.getElements();
+    this.nodeToLocation = new IdentityHashMap<>(elements.size());
+    final ASTLocation[] locations = new ASTLocation[elements.size()];
+    for (int i = 0; i < locations.length; i++) {
+      final ASTNode node = elements.get(i);
+      locations[i] = new JDTASTLocation(sourcePath, node, generatedAST);
+      nodeToLocation.put(node, locations[i]);
+    }
+    this.allLocations = Collections.unmodifiableList(new LocationList(locations, 0,
+        locations.length));
+
+    final List<List<ASTNode>> lineToElements = visitor.getLineToElements();
+    this.lineOffsets = new int[lineToElements.size() + 1];
+    for (int line = 0; line < lineToElements.size(); line++) {
+      lineOffsets[line + 1] = lineOffsets[line] + lineToElements.get(line)
+          .size();
+    }
+    this.lineToLocations = new ASTLocation[lineOffsets[lineToElements.size()]];
+    for (int line = 0; line < lineToElements.size(); line++) {
+      int index = lineOffsets[line];
+      for (final ASTNode node : lineToElements.get(line)) {
+        lineToLocations[index++] = nodeToLocation.get(node);
+      }
+    }
   }
 
   @Override
@@ -42,12 +70,73 @@ public class JDTASTLocations<T extends SourcePath> implements ASTLocations {
 
   @Override
   public List<ASTLocation> infer(final int lineNumber) {
-    if (0 <= lineNumber && lineNumber < lineNumberToStatements.size()) {
-      return lineNumberToStatements.get(lineNumber)
-          .stream()
-          .map(statement -> new JDTASTLocation(this.sourcePath, statement, generatedAST))
-          .collect(Collectors.toList());
+    if (0 <= lineNumber && lineNumber < lineOffsets.length - 1
+        && lineOffsets[lineNumber] < lineOffsets[lineNumber + 1]) {
+      return new LocationList(lineToLocations, lineOffsets[lineNumber],
+          lineOffsets[lineNumber + 1]);
     }
     return Collections.emptyList();
   }
+
+  /**
+   * 別のASTの位置情報に対応する，このASTの位置情報を返す．
+   * 同一のASTの位置情報はそのまま返す．
+   * それ以外は，まずルートからの経路が同じノードを探し，ソースコードが異なれば同形部分の探索（交叉と同じ方法）で探す．
+   */
+  @Override
+  public ASTLocation find(final ASTLocation location) {
+    if (location.getGeneratedAST() == generatedAST) {
+      return location;
+    }
+    if (!(location instanceof JDTASTLocation)) {
+      return null;
+    }
+
+    final JDTASTLocation jdtLocation = (JDTASTLocation) location;
+    final ASTLocation samePathLocation = nodeToLocation.get(locateSamePath(jdtLocation));
+    if (null != samePathLocation && jdtLocation.node.toString()
+        .equals(((JDTASTLocation) samePathLocation).node.toString())) {
+      return samePathLocation;
+    }
+    final ASTNode node = new JDTASTCrossoverLocation(jdtLocation).locate(root);
+    return null == node ? null : nodeToLocation.get(node);
+  }
+
+  private ASTNode locateSamePath(final JDTASTLocation location) {
+    try {
+      return location.locate(root);
+    } catch (final RuntimeException e) {
+      // 経路の途中のノードが変更されており，同じ経路のノードが存在しない
+      return null;
+    }
+  }
+
+  /**
+   * 配列の一部を参照する読み取り専用のList
+   */
+  private static class LocationList extends AbstractList<ASTLocation> implements RandomAccess {
+
+    private final ASTLocation[] locations;
+    private final int from;
+    private final int to;
+
+    private LocationList(final ASTLocation[] locations, final int from, final int to) {
+      this.locations = locations;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public ASTLocation get(final int index) {
+      if (index < 0 || size() <= index) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      return locations[from + index];
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+  }
 }
@@ -1,7 +1,5 @@
 package jp.kusumotolab.kgenprog.project.jdt;
 
-import java.util.List;
-import java.util.stream.Collectors;
 import org.eclipse.jdt.core.dom.rewrite.ASTRewrite;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
@@ -25,24 +23,22 @@ public abstract class JDTOperation implements Operation {
       final ASTLocation location) {
 
     try {
-      final List<GeneratedAST<ProductSourcePath>> newASTs = generatedSourceCode.getProductAsts()
-          .stream()
-          .map(ast -> applyEachAST(ast, location))
-          .collect(Collectors.toList());
-      return new GeneratedSourceCode(newASTs, generatedSourceCode.getTestAsts());
+      // 書き換え対象のファイルのみを再構築し，その他のASTは参照を共有する
+      final GeneratedAST<ProductSourcePath> ast =
+          generatedSourceCode.getProductAst(location.getSourcePath());
+      if (null == ast) {
+        return new GeneratedSourceCode(generatedSourceCode.getProductAsts(),
+            generatedSourceCode.getTestAsts());
+      }
+      return generatedSourceCode.replaceProductAst(applyToAST(ast, location));
     } catch (final Exception e) {
       log.debug("Operation failed: {}", e.getMessage());
       return createGenerationFailedSourceCode(e);
     }
   }
 
-  private <T extends SourcePath> GeneratedAST<T> applyEachAST(final GeneratedAST<T> ast,
+  private <T extends SourcePath> GeneratedAST<T> applyToAST(final GeneratedAST<T> ast,
       final ASTLocation location) {
-    if (!ast.getSourcePath()
-        .equals(location.getSourcePath())) {
-      return ast;
-    }
-
     final GeneratedJDTAST<T> jdtast = (GeneratedJDTAST<T>) ast;
     final ASTRewrite astRewrite = ASTRewrite.create(jdtast.getRoot()
         .getAST());
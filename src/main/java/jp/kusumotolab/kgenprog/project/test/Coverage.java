@@ -56,6 +56,31 @@ public interface Coverage {
    */
   int getStatusesSize();
 
+  /**
+   * 行が実行されたか否かを取得
+   *
+   * @param index 行番号
+   * @return 実行された場合true
+   */
+  default boolean isCovered(final int index) {
+    return 0 <= index && index < getStatusesSize() && Status.COVERED == getStatus(index);
+  }
+
+  /**
+   * 次に実行された行の行番号を取得
+   *
+   * @param fromIndex 探索を始める行番号
+   * @return fromIndex以降で最初に実行された行の行番号．存在しない場合は-1
+   */
+  default int nextCoveredIndex(final int fromIndex) {
+    for (int i = Math.max(fromIndex, 0); i < getStatusesSize(); i++) {
+      if (Status.COVERED == getStatus(i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   String toString(final int indentDepth);
 
 }
@@ -0,0 +1,222 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.SourcePath;
+import jp.kusumotolab.kgenprog.project.TestSourcePath;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.build.JavaBinaryObject;
+
+/**
+ * 初期個体のカバレッジに基づく回帰テスト選択．<br>
+ *
+ * 初期個体のテスト実行で得られたテストごとのカバレッジから，ソースファイルとそれを実行するテストの対応表を作る．<br>
+ * 変異プログラムのうち初期個体から書き換えられたファイルを実行するテストと，初期個体で失敗したテストのみを選択する．<br>
+ * 選択されなかったテストは書き換えられたコードを一切実行しないため，その結果は初期個体のテスト結果を再利用する．<br>
+ *
+ * ファイルの書き換えの有無はASTのダイジェストとバイトコードで判定する．<br>
+ * 依存関係を考慮した差分ビルドでは，依存先のAPIや定数の変化によりソースコードの変わらないファイルも再コンパイルされ，
+ * バイトコードが変わりうるため，そのようなファイルも書き換えられたものとして扱う．<br>
+ *
+ * @author shinsuke
+ */
+public class CoverageBasedTestSelection {
+
+  private final TestResults initialTestResults;
+  private final Map<ProductSourcePath, String> initialDigests;
+  private final Map<ProductSourcePath, Set<FullyQualifiedName>> pathToTests;
+  private final Map<TestSourcePath, String> initialTestDigests;
+  private final Map<SourcePath, Map<FullyQualifiedName, JavaBinaryObject>> initialBinaries;
+  private final Set<FullyQualifiedName> initialFailedTests;
+
+  /**
+   * コンストラクタ．
+   *
+   * @param initialSourceCode 初期個体のソースコード
+   * @param initialTestResults 初期個体のテスト結果（カバレッジ計測済みであること）
+   */
+  public CoverageBasedTestSelection(final GeneratedSourceCode initialSourceCode,
+      final TestResults initialTestResults) {
+    this.initialTestResults = initialTestResults;
+    this.initialDigests = new HashMap<>();
+    this.pathToTests = new HashMap<>();
+    this.initialTestDigests = new HashMap<>();
+    this.initialBinaries = new HashMap<>();
+    this.initialFailedTests = new HashSet<>(initialTestResults.getFailedTestFQNs());
+
+    final BuildResults buildResults = initialTestResults.getBuildResults();
+    for (final GeneratedAST<ProductSourcePath> ast : initialSourceCode.getProductAsts()) {
+      final ProductSourcePath path = ast.getSourcePath();
+      initialDigests.put(path, ast.getMessageDigest());
+      pathToTests.put(path, getTestsExecuting(buildResults.binaryStore.get(path)));
+      putInitialBinaries(path, buildResults);
+    }
+    for (final GeneratedAST<TestSourcePath> ast : initialSourceCode.getTestAsts()) {
+      initialTestDigests.put(ast.getSourcePath(), ast.getMessageDigest());
+      putInitialBinaries(ast.getSourcePath(), buildResults);
+    }
+  }
+
+  /**
+   * 指定ソースコードに対して実行すべきテストメソッドを選択する．<br>
+   * テストコードが書き換えられている場合や，初期個体に存在しないファイルがある場合は全テストを返す．<br>
+   *
+   * @param sourceCode テスト対象のソースコード
+   * @param buildResults テスト対象のビルド結果
+   * @return 実行すべきテストメソッドのFQN
+   */
+  public Set<FullyQualifiedName> select(final GeneratedSourceCode sourceCode,
+      final BuildResults buildResults) {
+    for (final GeneratedAST<TestSourcePath> ast : sourceCode.getTestAsts()) {
+      final TestSourcePath path = ast.getSourcePath();
+      if (!ast.getMessageDigest()
+          .equals(initialTestDigests.get(path)) || isBytecodeChanged(path, buildResults)) {
+        return getAllTests();
+      }
+    }
+
+    final Set<FullyQualifiedName> selectedTests = new HashSet<>(initialFailedTests);
+    for (final GeneratedAST<ProductSourcePath> ast : sourceCode.getProductAsts()) {
+      final ProductSourcePath path = ast.getSourcePath();
+      final String initialDigest = initialDigests.get(path);
+      if (null == initialDigest) {
+        return getAllTests();
+      }
+      if (!initialDigest.equals(ast.getMessageDigest()) || isBytecodeChanged(path,
+          buildResults)) {
+        selectedTests.addAll(pathToTests.get(path));
+      }
+    }
+    return selectedTests;
+  }
+
+  /**
+   * 全テストを選択しているか否かを返す．
+   *
+   * @param selectedTests {@link #select(GeneratedSourceCode, BuildResults)}で得られたテスト
+   * @return 全テストを選択している場合true
+   */
+  public boolean isAllSelected(final Set<FullyQualifiedName> selectedTests) {
+    return selectedTests.containsAll(getAllTests());
+  }
+
+  /**
+   * 選択されたテストの実行結果に，選択されなかったテストの初期個体での結果を加えたテスト結果を返す．<br>
+   *
+   * @param buildResults テスト対象のビルド結果
+   * @param executedTestResults 選択されたテストの実行結果
+   * @param selectedTests 選択されたテスト
+   * @return 全テストの結果
+   */
+  public TestResults merge(final BuildResults buildResults, final TestResults executedTestResults,
+      final Set<FullyQualifiedName> selectedTests) {
+    if (executedTestResults instanceof EmptyTestResults) {
+      return executedTestResults;
+    }
+
+    final TestResults testResults = new TestResults(buildResults);
+    for (final FullyQualifiedName testFQN : initialTestResults.getExecutedTestFQNs()) {
+      if (!selectedTests.contains(testFQN)) {
+        testResults.add(initialTestResults.getTestResult(testFQN));
+      }
+    }
+    for (final FullyQualifiedName testFQN : executedTestResults.getExecutedTestFQNs()) {
+      testResults.add(executedTestResults.getTestResult(testFQN));
+    }
+    return testResults;
+  }
+
+  /**
+   * 選択されなかった（＝結果を再利用する）テストの数を返す．
+   *
+   * @param selectedTests 選択されたテスト
+   * @return 結果を再利用するテストの数
+   */
+  public int getReusedTestCount(final Set<FullyQualifiedName> selectedTests) {
+    return (int) getAllTests().stream()
+        .filter(fqn -> !selectedTests.contains(fqn))
+        .count();
+  }
+
+  /**
+   * 選択されなかった（＝結果を再利用する）テストのうち，初期個体で成功したものの数を返す．
+   *
+   * @param selectedTests 選択されたテスト
+   * @return 結果を再利用するテストのうち成功したものの数
+   */
+  public int getReusedSucceededCount(final Set<FullyQualifiedName> selectedTests) {
+    return (int) initialTestResults.getSucceededTestFQNs()
+        .stream()
+        .filter(fqn -> !selectedTests.contains(fqn))
+        .count();
+  }
+
+  private Set<FullyQualifiedName> getAllTests() {
+    return initialTestResults.getExecutedTestFQNs();
+  }
+
+  private void putInitialBinaries(final SourcePath path, final BuildResults buildResults) {
+    final Map<FullyQualifiedName, JavaBinaryObject> binaries = new HashMap<>();
+    buildResults.binaryStore.get(path)
+        .forEach(jbo -> binaries.put(jbo.getFqn(), jbo));
+    initialBinaries.put(path, binaries);
+  }
+
+  /**
+   * 指定ファイルのバイトコードが初期個体と異なるか否かを返す．<br>
+   * 差分ビルドにより初期個体のバイナリを使い回している場合は，同一のオブジェクトであるため内容を比較しない．<br>
+   *
+   * @param path ソースファイルのパス
+   * @param buildResults テスト対象のビルド結果
+   * @return バイトコードが異なる場合true
+   */
+  private boolean isBytecodeChanged(final SourcePath path, final BuildResults buildResults) {
+    final Map<FullyQualifiedName, JavaBinaryObject> initial = initialBinaries.get(path);
+    final Collection<JavaBinaryObject> binaries = buildResults.binaryStore.get(path);
+    if (binaries.size() != initial.size()) {
+      return true;
+    }
+    for (final JavaBinaryObject binary : binaries) {
+      final JavaBinaryObject initialBinary = initial.get(binary.getFqn());
+      if (null == initialBinary) {
+        return true;
+      }
+      if (binary != initialBinary && !binary.getByteCodeBuffer()
+          .equals(initialBinary.getByteCodeBuffer())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 指定バイナリ群のいずれかの行を実行したテストを返す．
+   *
+   * @param binaries ソースファイルから生成されたバイナリ群（内部クラスを含む）
+   * @return テストメソッドのFQN
+   */
+  private Set<FullyQualifiedName> getTestsExecuting(final Collection<JavaBinaryObject> binaries) {
+    final Set<FullyQualifiedName> tests = new HashSet<>();
+    for (final FullyQualifiedName testFQN : initialTestResults.getExecutedTestFQNs()) {
+      final TestResult testResult = initialTestResults.getTestResult(testFQN);
+      for (final JavaBinaryObject binary : binaries) {
+        if (isExecuted(testResult.getCoverages(binary.getFqn()))) {
+          tests.add(testFQN);
+          break;
+        }
+      }
+    }
+    return tests;
+  }
+
+  private boolean isExecuted(final Coverage coverage) {
+    return null != coverage && 0 <= coverage.nextCoveredIndex(0);
+  }
+}
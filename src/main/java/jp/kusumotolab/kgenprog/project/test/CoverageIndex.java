@@ -0,0 +1,121 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+
+/**
+ * カバレッジの転置インデックス．<br>
+ * (クラスのFQN, 行)から，その行を実行したテストの集合をビット列として引けるようにする．<br>
+ *
+ * 各テストに通し番号を振り，失敗テスト・成功テストの集合も同じビット列で保持する．<br>
+ * FLの4メトリクスは，行のビット列と失敗（成功）テストのビット列の積のpopcountで求まる．<br>
+ *
+ * @author shinsuke
+ */
+class CoverageIndex {
+
+  private final Map<FullyQualifiedName, long[][]> coveringTests;
+  private final long[] failedTests;
+  private final long[] succeededTests;
+  private final int executedFailedTestsSize;
+  private final int succeededTestsSize;
+
+  /**
+   * constructor
+   *
+   * @param testResults インデックスを作成する対象のテスト結果
+   */
+  CoverageIndex(final Collection<TestResult> testResults) {
+    final int wordsSize = (testResults.size() + 63) >> 6;
+    this.coveringTests = new HashMap<>();
+    this.failedTests = new long[wordsSize];
+    this.succeededTests = new long[wordsSize];
+
+    int executedFailedTestsSize = 0;
+    int succeededTestsSize = 0;
+    int testIndex = 0;
+    for (final TestResult testResult : testResults) {
+      final long mask = 1L << testIndex;
+      if (testResult.failed) {
+        failedTests[testIndex >> 6] |= mask;
+        if (!testResult.skipped) {
+          executedFailedTestsSize++;
+        }
+      } else {
+        succeededTests[testIndex >> 6] |= mask;
+        succeededTestsSize++;
+      }
+
+      for (final FullyQualifiedName targetFQN : testResult.getExecutedTargetFQNs()) {
+        final Coverage coverage = testResult.getCoverages(targetFQN);
+        long[][] lines = coveringTests.get(targetFQN);
+        if (null == lines || lines.length < coverage.getStatusesSize()) {
+          lines = null == lines ? new long[coverage.getStatusesSize()][]
+              : Arrays.copyOf(lines, coverage.getStatusesSize());
+          coveringTests.put(targetFQN, lines);
+        }
+        int line = coverage.nextCoveredIndex(0);
+        while (0 <= line) {
+          if (null == lines[line]) {
+            lines[line] = new long[wordsSize];
+          }
+          lines[line][testIndex >> 6] |= mask;
+          line = coverage.nextCoveredIndex(line + 1);
+        }
+      }
+      testIndex++;
+    }
+    this.executedFailedTestsSize = executedFailedTestsSize;
+    this.succeededTestsSize = succeededTestsSize;
+  }
+
+  /**
+   * 指定行を実行したテストの数を返す．
+   *
+   * @param targetFQN 計算対象クラスのFQN
+   * @param lineNumber 計算対象クラスの行番号
+   * @param failed 失敗したテストを数えるか，成功したテストを数えるか
+   * @return テストの数
+   */
+  long countCoveringTests(final FullyQualifiedName targetFQN, final int lineNumber,
+      final boolean failed) {
+    final long[][] lines = coveringTests.get(targetFQN);
+    if (null == lines || lineNumber < 1 || lines.length < lineNumber) {
+      // 計測対象（targetFQN）の行の外を参照した場合．
+      // その行の結果は別のクラス（内部クラス等）のカバレッジに記述されている
+      return 0;
+    }
+    final long[] tests = lines[lineNumber - 1];
+    if (null == tests) {
+      return 0;
+    }
+
+    final long[] outcomes = failed ? failedTests : succeededTests;
+    long count = 0;
+    for (int i = 0; i < tests.length; i++) {
+      count += Long.bitCount(tests[i] & outcomes[i]);
+    }
+    return count;
+  }
+
+  /**
+   * 実際に実行された（スキップされていない）失敗テストの数を返す．
+   *
+   * @return 失敗テストの数
+   */
+  int getExecutedFailedTestsSize() {
+    return executedFailedTestsSize;
+  }
+
+  /**
+   * 成功テストの数を返す．
+   *
+   * @return 成功テストの数
+   */
+  int getSucceededTestsSize() {
+    return succeededTestsSize;
+  }
+}
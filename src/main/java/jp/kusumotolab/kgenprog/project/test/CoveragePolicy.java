@@ -0,0 +1,38 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+/**
+ * テスト実行時にカバレッジを計測するか否かの方針．<br>
+ * カバレッジ計測（JaCoCoによるインストルメントとテストメソッドごとの解析）はテスト実行の主要なコストであり，<br>
+ * カバレッジはVariantの疑惑値を計算する場合にしか用いられない．<br>
+ *
+ * @author shinsuke
+ */
+public enum CoveragePolicy {
+
+  /**
+   * 全てのVariantでカバレッジを計測する
+   */
+  Always,
+
+  /**
+   * 初期個体でのみカバレッジを計測する．<br>
+   * 初期個体以外のVariantは，初期個体の疑惑値を自身のASTの対応する位置に写したものを疑惑値とする．<br>
+   */
+  InitialOnly,
+
+  /**
+   * 初期個体以外のVariantはカバレッジを計測せずにテストを実行する．<br>
+   * 疑惑値が要求された時点で，カバレッジを計測しながらテストを再実行する．<br>
+   */
+  OnDemand;
+
+  /**
+   * Variantの最初のテスト実行でカバレッジを計測するか否かを返す．
+   *
+   * @param isInitialVariant 初期個体か否か
+   * @return カバレッジを計測する場合true
+   */
+  public boolean measuresCoverage(final boolean isInitialVariant) {
+    return isInitialVariant || this == Always;
+  }
+}
@@ -0,0 +1,69 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.MDC;
+
+/**
+ * テスト実行に用いるスレッドの生成器．<br>
+ * kGenProgの終了を妨げないようにデーモンスレッドとして生成する．<br>
+ *
+ * 生成器を作成したスレッドのログのコンテキスト（MDC）を，生成したスレッドに引き継ぐ．<br>
+ * {@link jp.kusumotolab.kgenprog.BatchLauncher}は実行の名前をコンテキストに設定するため，
+ * ワーカースレッドや監視スレッドのログ出力もどの実行のものか区別できる．<br>
+ *
+ * @author shinsuke
+ */
+class DaemonThreadFactory implements ThreadFactory {
+
+  private final String name;
+  private final boolean numbered;
+  private final Map<String, String> context;
+  private final AtomicInteger counter = new AtomicInteger();
+
+  /**
+   * コンストラクタ．
+   *
+   * @param name 生成するスレッドの名前
+   * @param numbered スレッドの名前に連番を付けるか否か
+   */
+  DaemonThreadFactory(final String name, final boolean numbered) {
+    this.name = name;
+    this.numbered = numbered;
+    this.context = MDC.getCopyOfContextMap();
+  }
+
+  @Override
+  public Thread newThread(final Runnable runnable) {
+    final String threadName = numbered ? name + "-" + counter.getAndIncrement() : name;
+    final Thread thread = new Thread(withContext(runnable, context), threadName);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * 現在のスレッドのログのコンテキストを引き継いで処理を実行するRunnableを返す．
+   *
+   * @param runnable 実行する処理
+   * @return コンテキストを引き継ぐRunnable
+   */
+  static Runnable withCurrentContext(final Runnable runnable) {
+    return withContext(runnable, MDC.getCopyOfContextMap());
+  }
+
+  private static Runnable withContext(final Runnable runnable,
+      final Map<String, String> context) {
+    if (null == context) {
+      return runnable;
+    }
+    return () -> {
+      MDC.setContextMap(context);
+      try {
+        runnable.run();
+      } finally {
+        MDC.clear();
+      }
+    };
+  }
+}
@@ -1,5 +1,6 @@
 package jp.kusumotolab.kgenprog.project.test;
 
+import java.util.Arrays;
 import jp.kusumotolab.kgenprog.project.ASTLocation;
 import jp.kusumotolab.kgenprog.project.ProductSourcePath;
 
@@ -74,6 +75,35 @@ public class EmptyTestResults extends TestResults {
     return 0;
   }
 
+  /**
+   * {@inheritDoc}<br>
+   * 0を返す
+   */
+  @Override
+  public int getNumberOfExecutedFailedTests() {
+    return 0;
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * 0を返す
+   */
+  @Override
+  public int getNumberOfSucceededTests() {
+    return 0;
+  }
+
+  /**
+   * {@inheritDoc}<br>
+   * 全ての行について0を格納する
+   */
+  @Override
+  public void countTestsExecutingTheLines(final ProductSourcePath productSourcePath,
+      final int[] lineNumbers, final long[] failedCounts, final long[] passedCounts) {
+    Arrays.fill(failedCounts, 0, lineNumbers.length, 0L);
+    Arrays.fill(passedCounts, 0, lineNumbers.length, 0L);
+  }
+
   /**
    * テスト結果が得られなかった理由を返す．
    *
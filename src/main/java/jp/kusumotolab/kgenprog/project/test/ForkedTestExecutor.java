@@ -0,0 +1,84 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+
+/**
+ * junitテストを別JVM上で実行する．<br>
+ * 変異プログラムの無限ループやSystem.exit，static変数の汚染がkgp本体に波及しないよう，テストを子プロセスに隔離する．<br>
+ *
+ * 子プロセスは{@link Configuration#getTestThreads()}個だけ保持し，複数のVariantで使い回す．<br>
+ * 子プロセスは指定回数のVariantを処理するか，応答がタイムアウトした時点で再起動される．<br>
+ * ビルドは親プロセス上で行い，ビルド結果のバイナリのみを子プロセスに送る．<br>
+ *
+ * @author shinsuke
+ */
+public class ForkedTestExecutor extends ParallelLocalTestExecutor {
+
+  private final List<ForkedWorkerProcess> allWorkers;
+  private final BlockingQueue<ForkedWorkerProcess> idleWorkers;
+  private final ScheduledExecutorService watchdog;
+
+  /**
+   * コンストラクタ．<br>
+   *
+   * @param config テスト実行に必要なプロジェクト設定情報
+   */
+  public ForkedTestExecutor(final Configuration config) {
+    super(config);
+
+    final int threads = config.getTestThreads();
+    allWorkers = new ArrayList<>();
+    idleWorkers = new ArrayBlockingQueue<>(threads);
+    watchdog = Executors.newSingleThreadScheduledExecutor(
+        new DaemonThreadFactory("kgp-test-worker-watchdog", false));
+
+    final long workerTimeoutMillis = config.getWorkerTimeout()
+        .toMillis();
+    for (int i = 0; i < threads; i++) {
+      final ForkedWorkerProcess worker = new ForkedWorkerProcess(config.getTargetProject(),
+          config.getExecutedTests(), config.getTestTimeLimitSeconds(),
+          config.getWorkerRecycleCount(), workerTimeoutMillis, watchdog);
+      allWorkers.add(worker);
+      idleWorkers.add(worker);
+    }
+  }
+
+  /**
+   * 空いている子プロセスを1つ借りてテストを実行する．<br>
+   */
+  @Override
+  protected TestResults execTests(final BuildResults buildResults,
+      final TestExecutionPlan plan) {
+    final ForkedWorkerProcess worker;
+    try {
+      worker = idleWorkers.take();
+    } catch (final InterruptedException e) {
+      Thread.currentThread()
+          .interrupt();
+      return new EmptyTestResults("interrupted.");
+    }
+
+    try {
+      return worker.exec(buildResults, plan);
+    } finally {
+      idleWorkers.add(worker);
+    }
+  }
+
+  /**
+   * 全ての子プロセスを終了させる．<br>
+   */
+  @Override
+  public void finish() {
+    super.finish();
+    allWorkers.forEach(ForkedWorkerProcess::destroy);
+    watchdog.shutdownNow();
+  }
+}
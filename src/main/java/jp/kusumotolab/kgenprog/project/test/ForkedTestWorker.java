@@ -0,0 +1,233 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import jp.kusumotolab.kgenprog.project.ClassPath;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.TestFullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.TestSourcePath;
+import jp.kusumotolab.kgenprog.project.build.BinaryStoreCodec;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+
+/**
+ * 別JVM上でテストを実行するワーカープロセスのエントリポイント．<br>
+ * {@link ForkedTestExecutor}により起動され，標準入出力を介して親プロセスと通信する．<br>
+ *
+ * 通信手順は以下の通り．<br>
+ * 1. 起動直後に対象プロジェクトの情報（ルート・ソースパス・クラスパス・実行テスト・タイムアウト）を受け取る<br>
+ * 2. 以降，コマンドとビルド結果のバイナリ，テストの実行計画を受け取るたびにTestThreadでテストを実行し，テスト結果を返す．
+ * テスト結果を返すまでの間，実行予定のテストメソッド，各テストメソッドの開始と結果を逐次通知する<br>
+ * 3. 終了コマンドを受け取るか，標準入力が閉じられた時点で終了する<br>
+ *
+ * テスト対象が標準出力に書き出すと通信が壊れるため，System.outは標準エラー出力に付け替える．<br>
+ * 逐次の通知により，子プロセスが異常終了したりタイムアウトしたりした場合も，
+ * 親プロセスはそれまでのテスト結果を残し，実行中のテストメソッドを失敗またはタイムアウトとして扱える．<br>
+ *
+ * @author shinsuke
+ */
+public class ForkedTestWorker {
+
+  static final int COMMAND_EXEC = 1;
+  static final int COMMAND_EXIT = 0;
+
+  static final int MESSAGE_RESULTS = 0;
+  static final int MESSAGE_PLANNED = 1;
+  static final int MESSAGE_STARTED = 2;
+  static final int MESSAGE_RECORDED = 3;
+
+  public static void main(final String[] args) throws IOException {
+    final PrintStream protocolStream = System.out;
+    System.setOut(System.err);
+
+    final DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+    final DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(protocolStream));
+
+    final TargetProject targetProject = readTargetProject(in);
+    final List<String> executionTests = readStrings(in);
+    final long timeout = in.readLong();
+
+    try {
+      while (COMMAND_EXEC == in.readInt()) {
+        final BuildResults buildResults =
+            BinaryStoreCodec.readBuildResults(in, targetProject.rootPath);
+        final TestExecutionPlan plan = readPlan(in);
+        final TestThread testThread =
+            new TestThread(buildResults, targetProject, executionTests, plan, timeout);
+        testThread.setProgressListener(new ProgressWriter(out));
+        testThread.run();
+
+        out.writeInt(MESSAGE_RESULTS);
+        TestResultsCodec.write(out, testThread.getTestResults());
+        out.flush();
+      }
+    } catch (final EOFException e) {
+      // 親プロセスが終了した場合．何もせず終了する
+    }
+
+    // テスト対象が生成した非デーモンスレッドが残っていても終了させる
+    System.exit(0);
+  }
+
+  /**
+   * 対象プロジェクトの情報を書き出す．親プロセス側から用いる．
+   *
+   * @param out 書き出し先
+   * @param targetProject 対象プロジェクト
+   * @param executionTests 実行するテストのFQN
+   * @param timeout テストのタイムアウト時間（秒）
+   * @throws IOException
+   */
+  static void writeHeader(final DataOutputStream out, final TargetProject targetProject,
+      final List<String> executionTests, final long timeout) throws IOException {
+    out.writeUTF(targetProject.rootPath.toString());
+
+    final List<String> productPaths = new ArrayList<>();
+    targetProject.getProductSourcePaths()
+        .forEach(p -> productPaths.add(p.path.toString()));
+    writeStrings(out, productPaths);
+
+    final List<String> testPaths = new ArrayList<>();
+    targetProject.getTestSourcePaths()
+        .forEach(p -> testPaths.add(p.path.toString()));
+    writeStrings(out, testPaths);
+
+    final List<String> classPaths = new ArrayList<>();
+    targetProject.getClassPaths()
+        .forEach(cp -> classPaths.add(cp.path.toString()));
+    writeStrings(out, classPaths);
+
+    writeStrings(out, executionTests);
+    out.writeLong(timeout);
+  }
+
+  /**
+   * テストの実行計画を書き出す．親プロセス側から用いる．
+   *
+   * @param out 書き出し先
+   * @param plan テストの実行計画
+   * @throws IOException
+   */
+  static void writePlan(final DataOutputStream out, final TestExecutionPlan plan)
+      throws IOException {
+    final List<String> selectedTestMethods = new ArrayList<>();
+    plan.getSelectedTestMethods()
+        .forEach(fqn -> selectedTestMethods.add(fqn.value));
+    writeStrings(out, selectedTestMethods);
+
+    final List<String> prioritizedTestClasses = new ArrayList<>();
+    plan.getPrioritizedTestClasses()
+        .forEach(fqn -> prioritizedTestClasses.add(fqn.value));
+    writeStrings(out, prioritizedTestClasses);
+
+    out.writeDouble(plan.getAbortThreshold());
+    out.writeInt(plan.getReusedSucceededCount());
+    out.writeInt(plan.getReusedTestCount());
+    out.writeBoolean(plan.measuresCoverage());
+  }
+
+  private static TestExecutionPlan readPlan(final DataInputStream in) throws IOException {
+    final Set<FullyQualifiedName> selectedTestMethods = new HashSet<>();
+    readStrings(in).forEach(value -> selectedTestMethods.add(new TestFullyQualifiedName(value)));
+
+    final List<FullyQualifiedName> prioritizedTestClasses = new ArrayList<>();
+    readStrings(in).forEach(value -> prioritizedTestClasses.add(new TestFullyQualifiedName(value)));
+
+    final double abortThreshold = in.readDouble();
+    final int reusedSucceededCount = in.readInt();
+    final int reusedTestCount = in.readInt();
+    final boolean measuresCoverage = in.readBoolean();
+    return TestExecutionPlan.ALL.select(selectedTestMethods, reusedSucceededCount, reusedTestCount)
+        .prioritize(prioritizedTestClasses)
+        .abortBelow(abortThreshold)
+        .measureCoverage(measuresCoverage);
+  }
+
+  private static TargetProject readTargetProject(final DataInputStream in) throws IOException {
+    final Path rootPath = Paths.get(in.readUTF());
+
+    final List<ProductSourcePath> productSourcePaths = new ArrayList<>();
+    readStrings(in).forEach(p -> productSourcePaths.add(new ProductSourcePath(rootPath,
+        Paths.get(p))));
+
+    final List<TestSourcePath> testSourcePaths = new ArrayList<>();
+    readStrings(in).forEach(p -> testSourcePaths.add(new TestSourcePath(rootPath, Paths.get(p))));
+
+    final List<ClassPath> classPaths = new ArrayList<>();
+    readStrings(in).forEach(p -> classPaths.add(new ClassPath(Paths.get(p))));
+
+    return TargetProjectFactory.create(rootPath, productSourcePaths, testSourcePaths, classPaths);
+  }
+
+  static void writeStrings(final DataOutputStream out, final List<String> values)
+      throws IOException {
+    out.writeInt(values.size());
+    for (final String value : values) {
+      out.writeUTF(value);
+    }
+  }
+
+  static List<String> readStrings(final DataInputStream in) throws IOException {
+    final int size = in.readInt();
+    final List<String> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(in.readUTF());
+    }
+    return values;
+  }
+
+  /**
+   * テストの実行状況を親プロセスに逐次通知する．<br>
+   * 子プロセスがいつ異常終了しても通知済みの内容が親プロセスに届くよう，通知のたびにflushする．<br>
+   * 結果はテスト結果全体と共に改めて返すため，逐次の通知ではカバレッジを省く．<br>
+   */
+  private static class ProgressWriter implements TestThread.ProgressListener {
+
+    private final DataOutputStream out;
+
+    private ProgressWriter(final DataOutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void testsPlanned(final List<FullyQualifiedName> testMethodNames)
+        throws IOException {
+      final List<String> values = new ArrayList<>();
+      testMethodNames.forEach(fqn -> values.add(fqn.value));
+      out.writeInt(MESSAGE_PLANNED);
+      writeStrings(out, values);
+      out.flush();
+    }
+
+    @Override
+    public void testStarted(final FullyQualifiedName testMethodName) throws IOException {
+      out.writeInt(MESSAGE_STARTED);
+      out.writeUTF(testMethodName.value);
+      out.flush();
+    }
+
+    @Override
+    public void testRecorded(final TestResult testResult) throws IOException {
+      out.writeInt(MESSAGE_RECORDED);
+      TestResultsCodec.write(out, new TestResult(testResult.executedTestFQN, testResult.failed,
+          testResult.getFailedReason(), Collections.emptyMap(), testResult.skipped,
+          testResult.timedOut));
+      out.flush();
+    }
+  }
+}
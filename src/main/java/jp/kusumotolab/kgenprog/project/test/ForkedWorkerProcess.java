@@ -0,0 +1,268 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.TestFullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.build.BinaryStoreCodec;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+
+/**
+ * {@link ForkedTestWorker}を実行する子プロセスのハンドル．<br>
+ * 子プロセスは必要になった時点で起動され，指定回数のテスト実行後，または応答がタイムアウトした時点で破棄される．<br>
+ * 破棄された子プロセスは次のテスト実行時に再起動される．<br>
+ * 子プロセスには，親プロセスのJVM引数（ヒープサイズやシステムプロパティ等）を引き継ぐ．
+ * ただし，デバッガの接続ポートは親プロセスと衝突するため，デバッグ用のエージェントは引き継がない．<br>
+ *
+ * 本クラスはスレッドセーフではない．同時に1つのスレッドからのみ利用すること．<br>
+ *
+ * @author shinsuke
+ */
+class ForkedWorkerProcess {
+
+  private static final Logger log = LoggerFactory.getLogger(ForkedWorkerProcess.class);
+
+  private final TargetProject targetProject;
+  private final List<String> executionTests;
+  private final long testTimeout;
+  private final int recycleCount;
+  private final long workerTimeoutMillis;
+  private final ScheduledExecutorService watchdog;
+
+  private Process process;
+  private DataInputStream in;
+  private DataOutputStream out;
+  private int executedCount;
+
+  /**
+   * コンストラクタ．子プロセスはまだ起動しない．
+   *
+   * @param targetProject テスト実行の対象プロジェクト
+   * @param executionTests どのテストを実行するか
+   * @param testTimeout テストのタイムアウト時間（秒）
+   * @param recycleCount 子プロセスを再起動するまでに実行するVariant数
+   * @param workerTimeoutMillis 1つのVariantに対する子プロセスの応答待ち時間（ミリ秒）
+   * @param watchdog 応答待ちのタイムアウトを監視するスケジューラ
+   */
+  ForkedWorkerProcess(final TargetProject targetProject, final List<String> executionTests,
+      final long testTimeout, final int recycleCount, final long workerTimeoutMillis,
+      final ScheduledExecutorService watchdog) {
+    this.targetProject = targetProject;
+    this.executionTests = executionTests;
+    this.testTimeout = testTimeout;
+    this.recycleCount = recycleCount;
+    this.workerTimeoutMillis = workerTimeoutMillis;
+    this.watchdog = watchdog;
+  }
+
+  /**
+   * 子プロセス上でテストを実行する．<br>
+   * 子プロセスが異常終了した場合やタイムアウトした場合は，それまでに通知されたテスト結果を残し，
+   * 実行中のテストメソッドを失敗（タイムアウトの場合はタイムアウト），未実行のテストメソッドをスキップとして扱う．<br>
+   * 実行予定のテストメソッドが通知される前であれば，EmptyTestResultsを返す．<br>
+   *
+   * @param buildResults テスト対象のバイナリを保持するビルド結果
+   * @param plan テストの実行計画
+   * @return テスト結果
+   */
+  TestResults exec(final BuildResults buildResults, final TestExecutionPlan plan) {
+    if (buildResults.isBuildFailed) {
+      return new EmptyTestResults("build failed.");
+    }
+
+    final AtomicBoolean timedOut = new AtomicBoolean(false);
+    final Progress progress = new Progress();
+    try {
+      ensureStarted();
+      final Process current = process;
+      final ScheduledFuture<?> timer = watchdog.schedule(() -> {
+        timedOut.set(true);
+        current.destroyForcibly();
+      }, workerTimeoutMillis, TimeUnit.MILLISECONDS);
+
+      try {
+        out.writeInt(ForkedTestWorker.COMMAND_EXEC);
+        BinaryStoreCodec.write(out, buildResults.binaryStore);
+        ForkedTestWorker.writePlan(out, plan);
+        out.flush();
+        final TestResults testResults = readTestResults(buildResults, progress);
+
+        executedCount++;
+        if (recycleCount <= executedCount) {
+          close();
+        }
+        return testResults;
+      } finally {
+        timer.cancel(false);
+      }
+    } catch (final IOException e) {
+      destroy();
+      final String cause = timedOut.get() ? "test worker timed out." : "test worker crashed.";
+      log.debug(cause, e);
+      return progress.toTestResults(buildResults, cause, timedOut.get());
+    }
+  }
+
+  /**
+   * テスト結果を受け取るまで，子プロセスから逐次通知されるテストの実行状況を読み込む．
+   *
+   * @param buildResults テスト対象のバイナリを保持するビルド結果
+   * @param progress 通知された実行状況の格納先
+   * @return テスト結果
+   * @throws IOException
+   */
+  private TestResults readTestResults(final BuildResults buildResults, final Progress progress)
+      throws IOException {
+    while (true) {
+      final int message = in.readInt();
+      switch (message) {
+        case ForkedTestWorker.MESSAGE_RESULTS:
+          return TestResultsCodec.read(in, buildResults);
+        case ForkedTestWorker.MESSAGE_PLANNED:
+          progress.plannedTests = new ArrayList<>();
+          ForkedTestWorker.readStrings(in)
+              .forEach(value -> progress.plannedTests.add(new TestFullyQualifiedName(value)));
+          break;
+        case ForkedTestWorker.MESSAGE_STARTED:
+          progress.currentTest = new TestFullyQualifiedName(in.readUTF());
+          break;
+        case ForkedTestWorker.MESSAGE_RECORDED:
+          progress.recordedResults.add(TestResultsCodec.readTestResult(in));
+          progress.currentTest = null;
+          break;
+        default:
+          throw new IOException("unknown message from test worker: " + message);
+      }
+    }
+  }
+
+  /**
+   * 子プロセスに終了を指示する．
+   */
+  void close() {
+    if (null == process) {
+      return;
+    }
+    try {
+      out.writeInt(ForkedTestWorker.COMMAND_EXIT);
+      out.flush();
+      if (!process.waitFor(1, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    } catch (final IOException e) {
+      process.destroyForcibly();
+    } catch (final InterruptedException e) {
+      process.destroyForcibly();
+      Thread.currentThread()
+          .interrupt();
+    }
+    process = null;
+  }
+
+  /**
+   * 子プロセスを強制終了する．
+   */
+  void destroy() {
+    if (null != process) {
+      process.destroyForcibly();
+      process = null;
+    }
+  }
+
+  private void ensureStarted() throws IOException {
+    if (null != process && process.isAlive()) {
+      return;
+    }
+
+    final String java = Paths.get(System.getProperty("java.home"), "bin", "java")
+        .toString();
+    final List<String> command = new ArrayList<>();
+    command.add(java);
+    command.addAll(getInheritedJvmArguments(ManagementFactory.getRuntimeMXBean()
+        .getInputArguments()));
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(ForkedTestWorker.class.getName());
+    process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start();
+    in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+    executedCount = 0;
+
+    ForkedTestWorker.writeHeader(out, targetProject, executionTests, testTimeout);
+    out.flush();
+  }
+
+  /**
+   * 親プロセスのJVM引数から，子プロセスに引き継ぐものを選ぶ．<br>
+   * デバッグ用のエージェントは，親プロセスと同じポートを開こうとして子プロセスの起動に失敗するため除く．<br>
+   *
+   * @param inputArguments 親プロセスのJVM引数
+   * @return 子プロセスに引き継ぐJVM引数
+   */
+  static List<String> getInheritedJvmArguments(final List<String> inputArguments) {
+    return inputArguments.stream()
+        .filter(arg -> !arg.startsWith("-agentlib:jdwp") && !arg.startsWith("-Xrunjdwp")
+            && !arg.equals("-Xdebug"))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * 子プロセスから逐次通知されたテストの実行状況．<br>
+   * 子プロセスが異常終了した場合に，途中までのテスト結果を復元するために用いる．<br>
+   */
+  private static class Progress {
+
+    private List<FullyQualifiedName> plannedTests; // 通知される前はnull
+    private FullyQualifiedName currentTest;
+    private final List<TestResult> recordedResults = new ArrayList<>();
+
+    /**
+     * 通知された実行状況からテスト結果を作成する．
+     *
+     * @param buildResults テスト対象のバイナリを保持するビルド結果
+     * @param cause 子プロセスが異常終了した理由
+     * @param timedOut 子プロセスの応答がタイムアウトしたか否か
+     * @return テスト結果
+     */
+    private TestResults toTestResults(final BuildResults buildResults, final String cause,
+        final boolean timedOut) {
+      if (null == plannedTests) {
+        return new EmptyTestResults(cause);
+      }
+
+      final TestResults testResults = new TestResults(buildResults);
+      recordedResults.forEach(testResults::add);
+      final String skippedReason = timedOut ? "skipped by timeout." : "skipped by crash.";
+      for (final FullyQualifiedName fqn : plannedTests) {
+        if (null != testResults.getTestResult(fqn)) {
+          continue;
+        }
+        if (fqn.equals(currentTest)) {
+          testResults.add(new TestResult(fqn, true, cause, Collections.emptyMap(), false,
+              timedOut));
+        } else {
+          testResults.add(new TestResult(fqn, true, skippedReason, Collections.emptyMap(),
+              true));
+        }
+      }
+      return testResults;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.common.hash.Hashing;
+import jp.kusumotolab.kgenprog.project.build.JavaBinaryObject;
+
+/**
+ * JaCoCoによりインストルメントされたバイトコードのキャッシュ．<br>
+ * バイナリのFQNとバイトコードのハッシュ値をキーとし，変更のないクラスの再インストルメントを省く．<br>
+ * 生成元ソースのダイジェストはキーに用いない．依存関係を考慮した差分ビルドでは，
+ * ソースが変わらなくても依存先のAPIや定数の変化によりバイトコードが変わるため．<br>
+ *
+ * インストルメントされたバイトコードは，インストルメントに用いたJaCoCoランタイムに結びついている．<br>
+ * そのためキャッシュはランタイムと共にスレッドごとに保持し，同一スレッド上で実行されるTestThread間で共有する．<br>
+ * カバレッジの計測結果（RuntimeData）はテスト実行ごとに新しく作り直す．<br>
+ *
+ * キャッシュの容量はバイトコードのバイト数で制限し，超過した場合は最も長く使われていないものから破棄する．<br>
+ *
+ * @author shinsuke
+ */
+class InstrumentedBytecodeCache {
+
+  private static final Logger log = LoggerFactory.getLogger(InstrumentedBytecodeCache.class);
+
+  /**
+   * スレッドごとのキャッシュの既定容量（バイト）
+   */
+  static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+
+  private static final ThreadLocal<InstrumentedBytecodeCache> caches =
+      ThreadLocal.withInitial(() -> new InstrumentedBytecodeCache(DEFAULT_CAPACITY));
+
+  private final IRuntime runtime;
+  private final Instrumenter instrumenter;
+  private final LinkedHashMap<String, byte[]> entries;
+  private final long capacity;
+  private long size;
+  private long hitCount;
+  private long missCount;
+
+  /**
+   * 現在のスレッドに結びついたキャッシュを返す．
+   *
+   * @return キャッシュ
+   */
+  static InstrumentedBytecodeCache forCurrentThread() {
+    return caches.get();
+  }
+
+  /**
+   * コンストラクタ．
+   *
+   * @param capacity キャッシュの容量（バイト）
+   */
+  InstrumentedBytecodeCache(final long capacity) {
+    this.runtime = new LoggerRuntime();
+    this.instrumenter = new Instrumenter(runtime);
+    this.entries = new LinkedHashMap<>(16, 0.75f, true); // アクセス順
+    this.capacity = capacity;
+  }
+
+  /**
+   * 現在のスレッドに結びついたキャッシュを破棄する．<br>
+   * 次に{@link #forCurrentThread()}が呼ばれた時点で，新しいランタイムと共に作り直す．<br>
+   *
+   * 見捨てたテスト実行スレッドは，破棄したキャッシュとランタイムを使い続けうる．<br>
+   * 以降のテスト実行がそれらを共有すると，キャッシュを同時に更新したり，計測結果を汚染されたりするため，
+   * テスト実行を見捨てた場合は本メソッドを呼ぶこと．<br>
+   */
+  static void discardCurrentThread() {
+    caches.remove();
+  }
+
+  /**
+   * 新しい計測結果の格納先でランタイムを起動し直す．<br>
+   * 以前のテスト実行で初期化されたクラスの計測結果は，以前の格納先に記録され，今回の格納先には混ざらない．<br>
+   * ただし，以前のテスト実行で生き残ったスレッドが今回の起動後に初めて初期化したクラスは，今回の格納先に記録される．
+   * これを防ぐには，スレッドを見捨てた時点でキャッシュごと破棄する必要がある（{@link #discardCurrentThread()}）．<br>
+   *
+   * @return 今回のテスト実行の計測結果の格納先
+   */
+  RuntimeData startSession() {
+    final RuntimeData runtimeData = new RuntimeData();
+    runtime.shutdown();
+    try {
+      runtime.startup(runtimeData);
+    } catch (final Exception e) {
+      log.error("failed to start up the JaCoCo runtime", e);
+    }
+    return runtimeData;
+  }
+
+  /**
+   * 指定バイナリをインストルメントしたバイトコードを返す．<br>
+   * キャッシュにあればそれを返し，なければインストルメントしてキャッシュに加える．<br>
+   *
+   * @param binary インストルメント対象のバイナリ
+   * @return インストルメントされたバイトコード
+   * @throws IOException
+   */
+  byte[] instrument(final JavaBinaryObject binary) throws IOException {
+    final String key = binary.getFqn().value + "#" + Hashing.murmur3_128()
+        .hashBytes(binary.getByteCodeBuffer())
+        .toString();
+    final byte[] cached = entries.get(key);
+    if (null != cached) {
+      hitCount++;
+      return cached;
+    }
+
+    missCount++;
+    final byte[] instrumented = instrumenter.instrument(binary.getByteCode(), "");
+    entries.put(key, instrumented);
+    size += instrumented.length;
+    evict();
+    return instrumented;
+  }
+
+  long getHitCount() {
+    return hitCount;
+  }
+
+  long getMissCount() {
+    return missCount;
+  }
+
+  long getSize() {
+    return size;
+  }
+
+  private void evict() {
+    final Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet()
+        .iterator();
+    while (capacity < size && iterator.hasNext()) {
+      size -= iterator.next()
+          .getValue().length;
+      iterator.remove();
+    }
+  }
+}
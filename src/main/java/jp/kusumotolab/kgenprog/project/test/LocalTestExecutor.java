@@ -1,9 +1,21 @@
 package jp.kusumotolab.kgenprog.project.test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import jp.kusumotolab.kgenprog.Configuration;
 import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
 import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.build.BinaryStore;
 import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.build.DependencyGraph;
+import jp.kusumotolab.kgenprog.project.build.JavaBinaryObject;
 import jp.kusumotolab.kgenprog.project.build.ProjectBuilder;
 
 /**
@@ -16,8 +28,27 @@ import jp.kusumotolab.kgenprog.project.build.ProjectBuilder;
  */
 public class LocalTestExecutor implements TestExecutor {
 
+  private static final Logger log = LoggerFactory.getLogger(LocalTestExecutor.class);
+
   private final Configuration config;
-  private final ProjectBuilder projectBuilder;
+
+  // サブクラスがオーバーライドしたgetterを用いる場合は作成しないため，初めて必要になった時点で作成する
+  private BinaryStore binaryStore;
+  private DependencyGraph dependencyGraph;
+  private ProjectBuilder projectBuilder;
+
+  // キャッシュ済みバイナリの破棄に用いる．初期個体のテスト結果が得られるまではnull
+  private Variant initialVariant;
+
+  // テスト優先順位付けが無効の場合はnull
+  private final TestFailureHistory testFailureHistory;
+
+  // テスト実行の監視が無効の場合はnull
+  private final TestSupervisor testSupervisor;
+
+  // 初期個体のテスト結果が得られるまではnull（＝全テストを実行する）
+  private volatile CoverageBasedTestSelection testSelection;
+  private volatile double abortThreshold = TestExecutionPlan.NO_ABORT;
 
   /**
    * コンストラクタ．<br>
@@ -26,7 +57,10 @@ public class LocalTestExecutor implements TestExecutor {
    */
   public LocalTestExecutor(final Configuration config) {
     this.config = config;
-    projectBuilder = new ProjectBuilder(config.getTargetProject());
+    testFailureHistory = config.isTestPrioritization() ? new TestFailureHistory() : null;
+    final Duration variantTimeLimit = config.getVariantTimeLimit();
+    testSupervisor = variantTimeLimit.isZero() ? null
+        : new TestSupervisor(config.getTestTimeLimit(), variantTimeLimit);
   }
 
   /**
@@ -35,16 +69,247 @@ public class LocalTestExecutor implements TestExecutor {
    */
   @Override
   public TestResults exec(final Variant variant) {
+    return exec(variant, true);
+  }
+
+  /**
+   * カバレッジ計測の要否を指定して，対象ソースコードのビルドとテストの実行を行う．<br>
+   * ビルド失敗時はEmptyTestResultsを返す．<br>
+   */
+  @Override
+  public TestResults exec(final Variant variant, final boolean measuresCoverage) {
     final GeneratedSourceCode generatedSourceCode = variant.getGeneratedSourceCode();
     if (!generatedSourceCode.isGenerationSuccess()) {
       return new EmptyTestResults("build failed.");
     }
 
-    final BuildResults buildResults = projectBuilder.build(generatedSourceCode);
+    final BuildResults buildResults = getProjectBuilder().build(generatedSourceCode);
+    final TestExecutionPlan plan = createPlan().measureCoverage(measuresCoverage);
+    final TestResults testResults = execTests(generatedSourceCode, buildResults, plan);
+    if (null != testFailureHistory) {
+      testFailureHistory.record(testResults);
+    }
+    return testResults;
+  }
+
+  /**
+   * カバレッジを計測しながら全テストを再実行する．<br>
+   * 早期打ち切りとテスト優先順位付けは行わず，テスト結果を失敗履歴にも記録しない．<br>
+   * ビルド結果はキャッシュされているため，再ビルドは行われない．<br>
+   */
+  @Override
+  public TestResults execForCoverage(final Variant variant) {
+    final GeneratedSourceCode generatedSourceCode = variant.getGeneratedSourceCode();
+    if (!generatedSourceCode.isGenerationSuccess()) {
+      return new EmptyTestResults("build failed.");
+    }
+
+    final BuildResults buildResults = getProjectBuilder().build(generatedSourceCode);
+    return execTests(generatedSourceCode, buildResults, TestExecutionPlan.ALL);
+  }
+
+  private TestResults execTests(final GeneratedSourceCode generatedSourceCode,
+      final BuildResults buildResults, final TestExecutionPlan plan) {
+    final CoverageBasedTestSelection selection = testSelection;
+    if (null == selection || buildResults.isBuildFailed) {
+      return execTests(buildResults, plan);
+    }
+
+    // 書き換えられたコードを実行するテストのみを実行し，残りは初期個体の結果を使い回す
+    final Set<FullyQualifiedName> selectedTests = selection.select(generatedSourceCode,
+        buildResults);
+    if (selection.isAllSelected(selectedTests)) {
+      return execTests(buildResults, plan);
+    }
+    final TestResults executedTestResults = selectedTests.isEmpty() ? new TestResults(buildResults)
+        : execTests(buildResults, plan.select(selectedTests,
+            selection.getReusedSucceededCount(selectedTests),
+            selection.getReusedTestCount(selectedTests)));
+    return selection.merge(buildResults, executedTestResults, selectedTests);
+  }
+
+  private TestExecutionPlan createPlan() {
+    TestExecutionPlan plan = TestExecutionPlan.ALL.abortBelow(abortThreshold);
+    if (null != testFailureHistory) {
+      plan = plan.prioritize(testFailureHistory.getPrioritizedTestClasses());
+    }
+    return plan;
+  }
+
+  /**
+   * 初期個体のテスト結果を受け取る．<br>
+   * テスト選択が有効な場合，初期個体のカバレッジから以降のVariantで実行するテストを選択できるようにする．<br>
+   * テスト優先順位付けが有効な場合，初期個体で失敗したテストクラスを最優先で実行するようにする．<br>
+   * 初期個体のバイナリがキャッシュにない場合（評価結果をディスクから読み込んだ場合）は，キャッシュに加える．<br>
+   */
+  @Override
+  public void initialize(final Variant initialVariant) {
+    this.initialVariant = initialVariant;
+    final TestResults initialTestResults = initialVariant.getTestResults();
+    if (initialTestResults instanceof EmptyTestResults) {
+      return;
+    }
+    addInitialBinaries(initialTestResults.getBuildResults());
+    if (null != testFailureHistory) {
+      testFailureHistory.recordInitial(initialTestResults);
+    }
+    if (config.isTestSelection()) {
+      testSelection = new CoverageBasedTestSelection(initialVariant.getGeneratedSourceCode(),
+          initialTestResults);
+    }
+  }
+
+  /**
+   * 初期個体のバイナリのうち，キャッシュにないものをキャッシュと依存関係に加える．<br>
+   * 加えなければ，以降の個体のビルドで初期個体と変更のないソースコードまで改めてコンパイルすることになる．<br>
+   */
+  private void addInitialBinaries(final BuildResults buildResults) {
+    final BinaryStore store = getBinaryStore();
+    final List<JavaBinaryObject> binaries = buildResults.binaryStore.getAll()
+        .stream()
+        .filter(jbo -> !store.exists(jbo.getOriginFqn(), jbo.getOriginDigest()))
+        .collect(Collectors.toList());
+    if (binaries.isEmpty()) {
+      return;
+    }
+
+    store.addAll(binaries);
+    final DependencyGraph graph = getDependencyGraph();
+    if (null != graph) {
+      graph.record(binaries);
+    }
+    log.debug("added " + binaries.size() + " binaries of the initial variant to the build cache");
+  }
+
+  /**
+   * 世代交代後の個体群を受け取る．<br>
+   * バイナリの破棄が有効な場合，初期個体と個体群のいずれのソースコードにも対応しないバイナリをキャッシュから破棄する．<br>
+   * 早期打ち切りが有効な場合，個体群の中で最も悪いテスト成功率を打ち切りのしきい値とする．<br>
+   * 個体群が定員に満たない場合やビルドに失敗した個体を含む場合は，どのVariantも生き残りうるため打ち切らない．<br>
+   */
+  @Override
+  public void proceedNextGeneration(final List<Variant> currentVariants) {
+    if (config.isBuildCacheEviction()) {
+      evictBinaries(currentVariants);
+    }
+    if (!config.isEarlyAbort()) {
+      return;
+    }
+    if (currentVariants.size() < config.getHeadcount() || currentVariants.stream()
+        .anyMatch(v -> !v.isBuildSucceeded())) {
+      abortThreshold = TestExecutionPlan.NO_ABORT;
+      return;
+    }
+    abortThreshold = currentVariants.stream()
+        .mapToDouble(v -> v.getTestResults()
+            .getSuccessRate())
+        .min()
+        .orElse(TestExecutionPlan.NO_ABORT);
+  }
+
+  /**
+   * 生きている個体から到達できないバイナリをキャッシュから破棄する．<br>
+   * 以降の個体は現世代の個体から生成されるため，その他の個体のバイナリが再び使われることはほとんどない．<br>
+   * 破棄したバイナリが再び必要になった場合は，再コンパイルされる．<br>
+   */
+  private void evictBinaries(final List<Variant> currentVariants) {
+    final List<GeneratedAST<?>> liveAsts = new ArrayList<>();
+    if (null != initialVariant) {
+      liveAsts.addAll(initialVariant.getGeneratedSourceCode()
+          .getAllAsts());
+    }
+    currentVariants.forEach(v -> liveAsts.addAll(v.getGeneratedSourceCode()
+        .getAllAsts()));
+
+    final int evictedCount = getBinaryStore().retainAll(liveAsts);
+    log.debug("evicted " + evictedCount + " binaries from the build cache");
+  }
+
+  /**
+   * ビルド結果に対して全テストを実行する．<br>
+   *
+   * @param buildResults テスト対象のバイナリを保持するビルド結果
+   * @return テスト結果
+   */
+  protected TestResults execTests(final BuildResults buildResults) {
+    return execTests(buildResults, TestExecutionPlan.ALL);
+  }
+
+  /**
+   * ビルド結果に対してテストを実行する．<br>
+   * テストの実行場所を変えるサブクラスはこのメソッドをオーバーライドする．<br>
+   *
+   * @param buildResults テスト対象のバイナリを保持するビルド結果
+   * @param plan テストの実行計画
+   * @return テスト結果
+   */
+  protected TestResults execTests(final BuildResults buildResults,
+      final TestExecutionPlan plan) {
     final TestThread testThread = new TestThread(buildResults, config.getTargetProject(),
-        config.getExecutedTests(), config.getTestTimeLimitSeconds());
+        config.getExecutedTests(), plan, config.getTestTimeLimitSeconds(),
+        config.isClassLoaderReuse());
+    if (null != testSupervisor) {
+      return testSupervisor.supervise(testThread);
+    }
     testThread.run();
 
     return testThread.getTestResults();
   }
+
+  /**
+   * テスト実行の監視を終了する．<br>
+   * 監視を待たずに実行中のテストは見捨てる．<br>
+   * 呼び出したスレッドが保持する共有クラスローダも破棄する．<br>
+   */
+  @Override
+  public void finish() {
+    if (null != testSupervisor) {
+      testSupervisor.shutdown();
+    }
+    SharedClassLoader.releaseCurrentThread();
+  }
+
+  /**
+   * ビルドに用いるProjectBuilderを返す．<br>
+   * 並列実行を行うサブクラスはスレッドごとのProjectBuilderを返すようにオーバーライドする．<br>
+   *
+   * @return ProjectBuilder
+   */
+  protected synchronized ProjectBuilder getProjectBuilder() {
+    if (null == projectBuilder) {
+      projectBuilder = new ProjectBuilder(config.getTargetProject(), getBinaryStore(),
+          getDependencyGraph());
+    }
+    return projectBuilder;
+  }
+
+  /**
+   * ビルドに用いるバイナリキャッシュを返す．<br>
+   * 並列実行を行うサブクラスはワーカー間で共有するキャッシュを返すようにオーバーライドする．<br>
+   *
+   * @return バイナリキャッシュ
+   */
+  protected synchronized BinaryStore getBinaryStore() {
+    if (null == binaryStore) {
+      binaryStore = new BinaryStore();
+    }
+    return binaryStore;
+  }
+
+  /**
+   * 差分ビルドに用いるソースコード間の依存関係を返す．<br>
+   * 並列実行を行うサブクラスはワーカー間で共有するものを返すようにオーバーライドする．<br>
+   *
+   * @return 依存関係．依存関係を考慮した差分ビルドが無効の場合はnull
+   */
+  protected synchronized DependencyGraph getDependencyGraph() {
+    if (null == dependencyGraph && config.isDependencyAwareBuild()) {
+      dependencyGraph = new DependencyGraph();
+    }
+    return dependencyGraph;
+  }
+
+  protected Configuration getConfig() {
+    return config;
+  }
 }
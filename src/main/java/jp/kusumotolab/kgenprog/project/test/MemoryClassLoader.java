@@ -4,6 +4,8 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.security.ProtectionDomain;
 import java.util.HashMap;
 import java.util.Map;
 import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
@@ -36,9 +38,9 @@ public class MemoryClassLoader extends URLClassLoader {
   }
 
   /**
-   * クラス定義を表すMap． クラス名とバイト配列のペアを持つ．
+   * クラス定義を表すMap． クラス名とバイトコードのペアを持つ．
    */
-  private final Map<String, byte[]> definitions = new HashMap<>();
+  private final Map<String, ByteBuffer> definitions = new HashMap<>();
 
   /**
    * メモリ上のバイト配列をクラス定義に追加する．
@@ -47,7 +49,18 @@ public class MemoryClassLoader extends URLClassLoader {
    * @param bytes 追加するクラス定義
    */
   public void addDefinition(final FullyQualifiedName fqn, final byte[] bytes) {
-    definitions.put(fqn.value, bytes);
+    addDefinition(fqn, ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * メモリ上のバッファをクラス定義に追加する．<br>
+   * ヒープ外に格納されたバイトコードを複製せずに定義できる．<br>
+   *
+   * @param name 定義するクラス名
+   * @param buffer 追加するクラス定義
+   */
+  public void addDefinition(final FullyQualifiedName fqn, final ByteBuffer buffer) {
+    definitions.put(fqn.value, buffer);
   }
 
   /**
@@ -79,10 +92,10 @@ public class MemoryClassLoader extends URLClassLoader {
 
     // if fails, try to load from memory
     if (null == c) {
-      final byte[] bytes = definitions.get(name);
-      if (bytes != null) {
+      final ByteBuffer buffer = definitions.get(name);
+      if (buffer != null) {
         try {
-          c = defineClass(name, bytes, 0, bytes.length);
+          c = defineClass(name, buffer.duplicate(), (ProtectionDomain) null);
         } catch (final ClassFormatError e) {
           throw e;
         }
@@ -99,10 +112,13 @@ public class MemoryClassLoader extends URLClassLoader {
   @Override
   public InputStream getResourceAsStream(final String name) {
     final String fqn = convertStringNameToFqn(name);
-    final byte[] bytes = definitions.get(fqn);
-    if (null == bytes) {
+    final ByteBuffer buffer = definitions.get(fqn);
+    if (null == buffer) {
       return super.getResourceAsStream(name);
     }
+    final ByteBuffer duplicate = buffer.duplicate();
+    final byte[] bytes = new byte[duplicate.remaining()];
+    duplicate.get(bytes);
     return new ByteArrayInputStream(bytes);
   }
 
@@ -0,0 +1,119 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.build.BinaryStore;
+import jp.kusumotolab.kgenprog.project.build.DependencyGraph;
+import jp.kusumotolab.kgenprog.project.build.ProjectBuilder;
+
+/**
+ * junitテストをローカルマシン上で並列に実行する．<br>
+ * 固定数のワーカースレッドを持ち，各Variantのビルドとテスト実行をワーカー上で非同期に処理する．<br>
+ *
+ * JavaCompilerやファイルマネージャはスレッドセーフではないため，ProjectBuilderはワーカーごとに保持する．<br>
+ * ただし差分ビルドのためのバイナリキャッシュ（{@link BinaryStore}）とソースコード間の依存関係（{@link DependencyGraph}）は全ワーカーで共有する．<br>
+ * テスト実行に用いる個体ごとのクラスローダはテスト実行ごとに生成されるため，ワーカー間で共有されることはない．<br>
+ * クラスローダの再利用（{@link Configuration#isClassLoaderReuse()}）を有効にした場合，
+ * 変更のないクラスを定義する共有クラスローダ（{@link SharedClassLoader}）はワーカーごとに1つ保持され，
+ * 同一ワーカー上のテスト実行間でのみ共有され，ワーカーの停止と共に破棄される．<br>
+ *
+ * @author shinsuke
+ */
+public class ParallelLocalTestExecutor extends LocalTestExecutor {
+
+  private final BinaryStore binaryStore;
+  private final DependencyGraph dependencyGraph;
+  private final ThreadLocal<ProjectBuilder> projectBuilders;
+  private final ExecutorService executorService;
+  private final Scheduler scheduler;
+
+  /**
+   * コンストラクタ．<br>
+   *
+   * @param config テスト実行に必要なプロジェクト設定情報
+   */
+  public ParallelLocalTestExecutor(final Configuration config) {
+    this(config, config.getTestThreads());
+  }
+
+  /**
+   * コンストラクタ．<br>
+   *
+   * @param config テスト実行に必要なプロジェクト設定情報
+   * @param threads ビルドおよびテスト実行を行うワーカースレッド数
+   */
+  public ParallelLocalTestExecutor(final Configuration config, final int threads) {
+    super(config);
+
+    if (threads < 1) {
+      throw new IllegalArgumentException("the number of test threads must be positive.");
+    }
+
+    binaryStore = new BinaryStore();
+    dependencyGraph = config.isDependencyAwareBuild() ? new DependencyGraph() : null;
+    projectBuilders = ThreadLocal.withInitial(
+        () -> new ProjectBuilder(config.getTargetProject(), binaryStore, dependencyGraph));
+    executorService = Executors.newFixedThreadPool(threads,
+        new DaemonThreadFactory("kgp-test-worker", true));
+    scheduler = Schedulers.from(executorService);
+  }
+
+  /**
+   * ビルドおよびテスト実行をワーカースレッド上で非同期に行う．<br>
+   * 返されるSingleは購読された時点でワーカーにスケジュールされる．<br>
+   */
+  @Override
+  public Single<TestResults> execAsync(final Single<Variant> variantSingle) {
+    return execAsync(variantSingle, true);
+  }
+
+  /**
+   * カバレッジ計測の要否を指定して，ビルドおよびテスト実行をワーカースレッド上で非同期に行う．<br>
+   */
+  @Override
+  public Single<TestResults> execAsync(final Single<Variant> variantSingle,
+      final boolean measuresCoverage) {
+    return variantSingle.flatMap(
+        variant -> Single.fromCallable(() -> exec(variant, measuresCoverage))
+            .subscribeOn(scheduler));
+  }
+
+  /**
+   * カバレッジを得るためのテストの再実行をワーカースレッド上で非同期に行う．<br>
+   */
+  @Override
+  public Single<TestResults> execAsyncForCoverage(final Single<Variant> variantSingle) {
+    return variantSingle.flatMap(variant -> Single.fromCallable(() -> execForCoverage(variant))
+        .subscribeOn(scheduler));
+  }
+
+  @Override
+  protected BinaryStore getBinaryStore() {
+    return binaryStore;
+  }
+
+  @Override
+  protected DependencyGraph getDependencyGraph() {
+    return dependencyGraph;
+  }
+
+  @Override
+  protected ProjectBuilder getProjectBuilder() {
+    return projectBuilders.get();
+  }
+
+  /**
+   * ワーカースレッドを停止する．<br>
+   * 実行中のテストの完了は待たない．<br>
+   */
+  @Override
+  public void finish() {
+    super.finish();
+    executorService.shutdownNow();
+  }
+}
@@ -1,8 +1,9 @@
 package jp.kusumotolab.kgenprog.project.test;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.apache.commons.lang3.StringUtils;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICounter;
@@ -11,14 +12,20 @@ import jp.kusumotolab.kgenprog.project.TargetFullyQualifiedName;
 
 /**
  * 行を単位としたカバレッジ情報を表す．<br>
- * どのソースコードに対して（FQN），各行がどのような結果（Status）だったのかを保持する．
+ * どのソースコードに対して（FQN），各行がどのような結果（Status）だったのかを保持する．<br>
+ *
+ * テスト数×クラス数だけ生成されるため，Statusのリストではなく，<br>
+ * 実行可能な行と実行された行を表す2つのビット列（long[]）として保持する．<br>
+ * そのためPARTLY_COVEREDはCOVEREDとして扱う．<br>
  *
  * @author shinsuke
  */
 public class RawCoverage implements Coverage {
 
   private final FullyQualifiedName executedTargetFQN;
-  private final List<Status> statuses;
+  private final int statusesSize;
+  private final long[] executableLines;
+  private final long[] coveredLines;
 
   /**
    * constructor．<br>
@@ -29,7 +36,10 @@ public class RawCoverage implements Coverage {
   public RawCoverage(final IClassCoverage classCoverage) {
     this.executedTargetFQN = new TargetFullyQualifiedName(classCoverage.getName()
         .replace("/", "."));
-    this.statuses = convertClassCoverage(classCoverage);
+    this.statusesSize = Math.max(classCoverage.getLastLine(), 0);
+    this.executableLines = new long[toWordsSize(statusesSize)];
+    this.coveredLines = new long[toWordsSize(statusesSize)];
+    convertClassCoverage(classCoverage);
   }
 
   /**
@@ -38,17 +48,20 @@ public class RawCoverage implements Coverage {
    */
   public RawCoverage(final FullyQualifiedName executedTargetFQN, final List<Status> statuses) {
     this.executedTargetFQN = executedTargetFQN;
-    this.statuses = statuses;
+    this.statusesSize = statuses.size();
+    this.executableLines = new long[toWordsSize(statusesSize)];
+    this.coveredLines = new long[toWordsSize(statusesSize)];
+    for (int i = 0; i < statusesSize; i++) {
+      setStatus(i, statuses.get(i));
+    }
   }
 
   /**
-   * ClassCoverageに格納されたCoverageをList<Status>に変換する． 実質enumの型変換やってるだけ．
+   * ClassCoverageに格納されたCoverageをビット列に変換する． 実質enumの型変換やってるだけ．
    *
    * @param classCoverage Jacocoが出力したCoverageの情報
-   * @return enumに変換した結果
    */
-  private List<Status> convertClassCoverage(final IClassCoverage classCoverage) {
-    final List<Coverage.Status> statuses = new ArrayList<>();
+  private void convertClassCoverage(final IClassCoverage classCoverage) {
     for (int i = 1; i <= classCoverage.getLastLine(); i++) {
       final Coverage.Status status;
       final int s = classCoverage.getLine(i)
@@ -63,9 +76,28 @@ public class RawCoverage implements Coverage {
       } else {
         status = Coverage.Status.EMPTY;
       }
-      statuses.add(status);
+      setStatus(i - 1, status);
     }
-    return statuses;
+  }
+
+  private void setStatus(final int index, final Status status) {
+    final long mask = 1L << index;
+    switch (status) {
+      case COVERED:
+      case PARTLY_COVERED:
+        coveredLines[index >> 6] |= mask;
+        executableLines[index >> 6] |= mask;
+        break;
+      case NOT_COVERED:
+        executableLines[index >> 6] |= mask;
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static int toWordsSize(final int bitsSize) {
+    return (bitsSize + 63) >> 6;
   }
 
   @Override
@@ -75,12 +107,64 @@ public class RawCoverage implements Coverage {
 
   @Override
   public Status getStatus(final int index) {
-    return statuses.get(index);
+    if (index < 0 || statusesSize <= index) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + statusesSize);
+    }
+    final long mask = 1L << index;
+    if (0 != (coveredLines[index >> 6] & mask)) {
+      return Status.COVERED;
+    }
+    if (0 != (executableLines[index >> 6] & mask)) {
+      return Status.NOT_COVERED;
+    }
+    return Status.EMPTY;
+  }
+
+  @Override
+  public boolean isCovered(final int index) {
+    return 0 <= index && index < statusesSize
+        && 0 != (coveredLines[index >> 6] & (1L << index));
   }
 
   @Override
   public int getStatusesSize() {
-    return statuses.size();
+    return statusesSize;
+  }
+
+  @Override
+  public int nextCoveredIndex(final int fromIndex) {
+    if (fromIndex < 0 || statusesSize <= fromIndex) {
+      return -1;
+    }
+    int wordIndex = fromIndex >> 6;
+    long word = coveredLines[wordIndex] & (-1L << fromIndex);
+    while (0 == word) {
+      if (++wordIndex == coveredLines.length) {
+        return -1;
+      }
+      word = coveredLines[wordIndex];
+    }
+    return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RawCoverage)) {
+      return false;
+    }
+    final RawCoverage that = (RawCoverage) o;
+    return statusesSize == that.statusesSize
+        && executedTargetFQN.equals(that.executedTargetFQN)
+        && Arrays.equals(executableLines, that.executableLines)
+        && Arrays.equals(coveredLines, that.coveredLines);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * executedTargetFQN.hashCode() + Arrays.hashCode(coveredLines);
   }
 
   @Override
@@ -94,7 +178,8 @@ public class RawCoverage implements Coverage {
     sb.append(indent + "  {");
     sb.append("\"executedTargetFQN\": \"" + executedTargetFQN + "\", ");
     sb.append("\"coverages\": [");
-    sb.append(statuses.stream()
+    sb.append(IntStream.range(0, statusesSize)
+        .mapToObj(this::getStatus)
         .map(Enum::ordinal)
         .map(String::valueOf)
         .collect(Collectors.joining(", ")));
@@ -0,0 +1,260 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.build.ClassFileSummary;
+import jp.kusumotolab.kgenprog.project.build.JavaBinaryObject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+
+/**
+ * 個体のテスト実行間で共有する，長寿命のクラスローダ．<br>
+ * 個体ごとのクラスローダ（{@link SkippingMemoryClassLoader}）は，変更のないクラスの定義を本クラスローダに委譲する．<br>
+ * これにより，変更のないクラスやテストクラスの定義・検証・JITコンパイル結果を個体間で使い回す．<br>
+ *
+ * 共有の単位はパッケージとする．<br>
+ * 実行時パッケージはクラスローダごとに異なるため，同一パッケージのクラスが2つのクラスローダに分かれると，
+ * パッケージプライベートなメンバへのアクセスが失敗するためである．<br>
+ * 以下を満たすパッケージのみを共有の候補とする．<br>
+ * 1. 静的な状態（定数でないstaticフィールドや静的初期化子）を持つクラスを含まない．
+ * 共有したクラスの静的な状態は個体間で引き継がれ，テスト結果を汚染しうるため．<br>
+ * 2. JDKやJUnitのクラス，及び他の共有候補パッケージのクラスのみを参照する．
+ * 共有したクラスから個体ごとに定義されるクラスは参照できないため．<br>
+ *
+ * 最初に与えられたビルド結果（通常は初期個体）のバイトコードで共有候補を定義する．<br>
+ * 個体ごとに委譲できるのは，共有候補のうちバイトコードが全て一致し，かつ委譲できないパッケージを参照しないものに限る．<br>
+ *
+ * インストルメントされたクラスはJaCoCoランタイムに結びつくため，本クラスローダはインストルメントしないバイトコードのみを扱う．<br>
+ * スレッドごとに1つだけ保持し，同一スレッド上で実行される同一プロジェクトのTestThread間で共有する．<br>
+ * 別のプロジェクトのテストを実行する場合は作り直し，以前のものは破棄する．<br>
+ *
+ * @author shinsuke
+ */
+class SharedClassLoader extends SkippingMemoryClassLoader {
+
+  private static final ThreadLocal<SharedClassLoader> loaders = new ThreadLocal<>();
+
+  // JDKのクラスか否かの判定結果．全スレッドで共有する
+  private static final Map<String, Boolean> platformClasses = new ConcurrentHashMap<>();
+
+  private final TargetProject targetProject;
+
+  // 共有候補パッケージからクラス名へのmap
+  private final Map<String, Set<String>> packageClasses;
+
+  // 共有候補のクラス名からバイトコードへのmap
+  private final Map<String, ByteBuffer> byteCodes;
+
+  // 共有候補パッケージから参照先の共有候補パッケージ（自身を除く）へのmap
+  private final Map<String, Set<String>> packageReferences;
+
+  // プロダクトのクラスを含む共有候補パッケージ
+  private final Set<String> productPackages;
+
+  /**
+   * 現在のスレッドに結びついた共有クラスローダを返す．<br>
+   * 保持しているものと対象プロジェクトが異なる場合は，与えられたビルド結果から作り直す．<br>
+   *
+   * @param targetProject テスト実行の対象プロジェクト
+   * @param buildResults 共有候補を定義するビルド結果
+   * @param urls クラスパス
+   * @return 共有クラスローダ
+   */
+  static SharedClassLoader forCurrentThread(final TargetProject targetProject,
+      final BuildResults buildResults, final URL[] urls) {
+    SharedClassLoader loader = loaders.get();
+    if (null == loader || !loader.targetProject.equals(targetProject)) {
+      loader = new SharedClassLoader(targetProject, buildResults, urls);
+      loaders.set(loader);
+    }
+    return loader;
+  }
+
+  /**
+   * 現在のスレッドに結びついた共有クラスローダを破棄する．
+   */
+  static void releaseCurrentThread() {
+    loaders.remove();
+  }
+
+  /**
+   * コンストラクタ．
+   *
+   * @param targetProject テスト実行の対象プロジェクト
+   * @param buildResults 共有候補を定義するビルド結果
+   * @param urls クラスパス
+   */
+  SharedClassLoader(final TargetProject targetProject, final BuildResults buildResults,
+      final URL[] urls) {
+    super(urls);
+    this.targetProject = targetProject;
+    packageClasses = new HashMap<>();
+    byteCodes = new HashMap<>();
+    packageReferences = new HashMap<>();
+    productPackages = new HashSet<>();
+
+    final Collection<JavaBinaryObject> binaries = buildResults.binaryStore.getAll();
+    final Set<String> projectClasses = new HashSet<>();
+    for (final JavaBinaryObject binary : binaries) {
+      projectClasses.add(binary.getFqn().value);
+    }
+
+    // 各パッケージが単独で共有候補となりうるかを調べる
+    final Set<String> rejectedPackages = new HashSet<>();
+    final Map<String, Set<String>> references = new HashMap<>();
+    for (final JavaBinaryObject binary : binaries) {
+      final String name = binary.getFqn().value;
+      final String packageName = getPackageName(name);
+      final Set<String> referencedPackages =
+          references.computeIfAbsent(packageName, k -> new HashSet<>());
+      if (!isShareable(binary, projectClasses, referencedPackages)) {
+        rejectedPackages.add(packageName);
+      }
+      packageClasses.computeIfAbsent(packageName, k -> new HashSet<>())
+          .add(name);
+      if (!binary.isTest()) {
+        productPackages.add(packageName);
+      }
+    }
+    packageClasses.keySet()
+        .removeAll(rejectedPackages);
+    for (final String packageName : packageClasses.keySet()) {
+      final Set<String> referencedPackages = references.get(packageName);
+      referencedPackages.remove(packageName);
+      packageReferences.put(packageName, referencedPackages);
+    }
+
+    // 共有候補でないパッケージを参照するパッケージを，変化がなくなるまで取り除く
+    removeUnresolvablePackages(packageClasses.keySet());
+    packageReferences.keySet()
+        .retainAll(packageClasses.keySet());
+    productPackages.retainAll(packageClasses.keySet());
+
+    for (final JavaBinaryObject binary : binaries) {
+      final String name = binary.getFqn().value;
+      if (packageClasses.containsKey(getPackageName(name))) {
+        byteCodes.put(name, binary.getByteCodeBuffer());
+        addDefinition(binary.getFqn(), binary.getByteCodeBuffer());
+      }
+    }
+  }
+
+  /**
+   * 指定されたビルド結果のテスト実行において，本クラスローダに定義を委譲できるパッケージを返す．
+   *
+   * @param buildResults テスト実行対象のバイナリを保持するビルド結果
+   * @param measuresCoverage カバレッジを計測するか否か
+   * @return 委譲できるパッケージ名の集合
+   */
+  Set<String> getDelegatablePackages(final BuildResults buildResults,
+      final boolean measuresCoverage) {
+    if (packageClasses.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    // 共有候補パッケージごとに，このビルド結果に含まれるクラスを集める
+    final Map<String, Set<String>> variantClasses = new HashMap<>();
+    final Set<String> delegatablePackages = new HashSet<>(packageClasses.keySet());
+    for (final JavaBinaryObject binary : buildResults.binaryStore.getAll()) {
+      final String name = binary.getFqn().value;
+      final String packageName = getPackageName(name);
+      if (!delegatablePackages.contains(packageName)) {
+        continue;
+      }
+      if (!binary.getByteCodeBuffer()
+          .equals(byteCodes.get(name))) {
+        delegatablePackages.remove(packageName);
+        continue;
+      }
+      variantClasses.computeIfAbsent(packageName, k -> new HashSet<>())
+          .add(name);
+    }
+
+    // クラスの過不足があるパッケージは委譲できない
+    delegatablePackages.removeIf(p -> !packageClasses.get(p)
+        .equals(variantClasses.get(p)));
+
+    // インストルメントするプロダクトのクラスは委譲できない
+    if (measuresCoverage) {
+      delegatablePackages.removeAll(productPackages);
+    }
+
+    removeUnresolvablePackages(delegatablePackages);
+    return delegatablePackages;
+  }
+
+  /**
+   * 与えられたパッケージ集合の外を参照するパッケージを，変化がなくなるまで取り除く．
+   *
+   * @param packages パッケージ名の集合
+   */
+  private void removeUnresolvablePackages(final Set<String> packages) {
+    boolean changed = true;
+    while (changed) {
+      changed = packages.removeIf(p -> !packages.containsAll(packageReferences.get(p)));
+    }
+  }
+
+  /**
+   * クラスが単独で共有の条件を満たすかを調べ，参照しているプロジェクト内のパッケージを集める．
+   *
+   * @param binary 対象のバイナリ
+   * @param projectClasses プロジェクト内の全クラス名
+   * @param referencedPackages 参照しているパッケージの格納先
+   * @return 共有の条件を満たす場合はtrue
+   */
+  private boolean isShareable(final JavaBinaryObject binary, final Set<String> projectClasses,
+      final Set<String> referencedPackages) {
+    final ClassFileSummary summary;
+    try {
+      summary = ClassFileSummary.parse(binary.getByteCode());
+    } catch (final IOException e) {
+      return false;
+    }
+    if (summary.hasStaticState) {
+      return false;
+    }
+    boolean shareable = true;
+    for (final String referencedClass : summary.referencedClasses) {
+      if (projectClasses.contains(referencedClass)) {
+        referencedPackages.add(getPackageName(referencedClass));
+      } else if (!isPlatformClass(referencedClass)) {
+        shareable = false;
+      }
+    }
+    return shareable;
+  }
+
+  /**
+   * 全ての個体から同一のクラスとして見えるクラスか否かを判定する．<br>
+   * JUnit関係のクラスはAppClassLoaderから，JDKのクラスはPlatformClassLoaderからロードされる．<br>
+   *
+   * @param name クラス名
+   * @return JDKかJUnit関係のクラスであればtrue
+   */
+  private static boolean isPlatformClass(final String name) {
+    if (name.startsWith("org.junit.") || name.startsWith("junit.") || name.startsWith(
+        "org.hamcrest.")) {
+      return true;
+    }
+    return platformClasses.computeIfAbsent(name, n -> null != ClassLoader.getPlatformClassLoader()
+        .getResource(n.replace('.', '/') + ".class"));
+  }
+
+  /**
+   * @param name クラス名
+   * @return パッケージ名（無名パッケージの場合は空文字列）
+   */
+  static String getPackageName(final String name) {
+    final int index = name.lastIndexOf('.');
+    return index < 0 ? "" : name.substring(0, index);
+  }
+}
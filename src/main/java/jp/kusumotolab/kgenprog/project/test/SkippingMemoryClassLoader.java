@@ -1,6 +1,8 @@
 package jp.kusumotolab.kgenprog.project.test;
 
 import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * MemoryClassLoaderの拡張．<br>
@@ -17,11 +19,16 @@ import java.net.URL;
  * KGPのテスト実行時のJUnitクラス，及び題材のテスト実行時のJUnitクラスを同一のクラスローダでロードしないと，<br>
  * JUnitが期待通りに動作しないため．<br>
  *
+ * 共有クラスローダ（{@link SharedClassLoader}）が与えられた場合，委譲対象のパッケージのクラスは，
+ * ExtensionClassLoaderの次に共有クラスローダからロードする．<br>
+ *
  * @author shinsuke
  */
 public class SkippingMemoryClassLoader extends MemoryClassLoader {
 
   private final ClassLoader delegationClassLoader;
+  private final ClassLoader sharedClassLoader;
+  private final Set<String> sharedPackages;
 
   /**
    * コンストラクタ
@@ -29,8 +36,22 @@ public class SkippingMemoryClassLoader extends MemoryClassLoader {
    * @param urls クラスパス
    */
   public SkippingMemoryClassLoader(final URL[] urls) {
+    this(urls, null, Collections.emptySet());
+  }
+
+  /**
+   * コンストラクタ．指定されたパッケージのクラスのロードを共有クラスローダに委譲する．
+   *
+   * @param urls クラスパス
+   * @param sharedClassLoader 共有クラスローダ
+   * @param sharedPackages ロードを委譲するパッケージ名の集合
+   */
+  SkippingMemoryClassLoader(final URL[] urls, final ClassLoader sharedClassLoader,
+      final Set<String> sharedPackages) {
     super(urls);
     delegationClassLoader = findDelegationClassLoader(getClass().getClassLoader());
+    this.sharedClassLoader = sharedClassLoader;
+    this.sharedPackages = sharedPackages;
   }
 
   /**
@@ -57,7 +78,8 @@ public class SkippingMemoryClassLoader extends MemoryClassLoader {
   /**
    * クラスロードを行う．<br>
    * ロード対象がjunit関係のものであれば，直接親のAppClassLoaderからロードする．<br>
-   * そうでない場合，AppClassLoaderをスキップしてExtClassLoaderからロードを試み，最後にメモリからロードを試す．<br>
+   * そうでない場合，AppClassLoaderをスキップしてExtClassLoaderからロードを試み，
+   * 次に委譲対象のパッケージであれば共有クラスローダから，最後にメモリからロードを試す．<br>
    */
   @Override
   protected Class<?> loadClass(final String name, final boolean resolve)
@@ -88,6 +110,14 @@ public class SkippingMemoryClassLoader extends MemoryClassLoader {
           // ignore
         }
       }
+      if (null == c && sharedPackages.contains(SharedClassLoader.getPackageName(name))) {
+        try {
+          // Third, try to load using shared class loader
+          c = sharedClassLoader.loadClass(name);
+        } catch (final ClassNotFoundException e) {
+          // ignore
+        }
+      }
       if (null == c) {
         try {
           // Finally, try to load from memory
@@ -0,0 +1,139 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+
+/**
+ * 1つのVariantに対するテストの実行方法を表す不変オブジェクト．<br>
+ * どのテストメソッドを実行するか，どのテストクラスから実行するか，どの時点で実行を打ち切るか，<br>
+ * カバレッジを計測するかを保持する．<br>
+ *
+ * @author shinsuke
+ */
+public final class TestExecutionPlan {
+
+  /**
+   * 打ち切りを行わないことを表すしきい値
+   */
+  public static final double NO_ABORT = -1.0;
+
+  /**
+   * 全テストを既定の順序で最後まで実行する計画
+   */
+  public static final TestExecutionPlan ALL = new TestExecutionPlan(Collections.emptySet(),
+      Collections.emptyList(), NO_ABORT, 0, 0, true);
+
+  private final Set<FullyQualifiedName> selectedTestMethods;
+  private final List<FullyQualifiedName> prioritizedTestClasses;
+  private final double abortThreshold;
+  private final int reusedSucceededCount;
+  private final int reusedTestCount;
+  private final boolean measuresCoverage;
+
+  private TestExecutionPlan(final Set<FullyQualifiedName> selectedTestMethods,
+      final List<FullyQualifiedName> prioritizedTestClasses, final double abortThreshold,
+      final int reusedSucceededCount, final int reusedTestCount, final boolean measuresCoverage) {
+    this.selectedTestMethods = selectedTestMethods;
+    this.prioritizedTestClasses = prioritizedTestClasses;
+    this.abortThreshold = abortThreshold;
+    this.reusedSucceededCount = reusedSucceededCount;
+    this.reusedTestCount = reusedTestCount;
+    this.measuresCoverage = measuresCoverage;
+  }
+
+  /**
+   * 実行するテストメソッドを絞り込んだ計画を返す．
+   *
+   * @param selectedTestMethods 実行するテストメソッドのFQN．空の場合は全テストメソッドを実行する
+   * @param reusedSucceededCount 実行せずに結果を再利用するテストのうち成功しているものの数
+   * @param reusedTestCount 実行せずに結果を再利用するテストの数
+   * @return 新しい計画
+   */
+  public TestExecutionPlan select(final Set<FullyQualifiedName> selectedTestMethods,
+      final int reusedSucceededCount, final int reusedTestCount) {
+    return new TestExecutionPlan(selectedTestMethods, prioritizedTestClasses, abortThreshold,
+        reusedSucceededCount, reusedTestCount, measuresCoverage);
+  }
+
+  /**
+   * テストクラスの実行順を指定した計画を返す．
+   *
+   * @param prioritizedTestClasses 先に実行するテストクラスのFQN．ここに含まれないクラスはその後に実行される
+   * @return 新しい計画
+   */
+  public TestExecutionPlan prioritize(final List<FullyQualifiedName> prioritizedTestClasses) {
+    return new TestExecutionPlan(selectedTestMethods, prioritizedTestClasses, abortThreshold,
+        reusedSucceededCount, reusedTestCount, measuresCoverage);
+  }
+
+  /**
+   * テスト成功率の上限がしきい値を下回った時点で実行を打ち切る計画を返す．
+   *
+   * @param abortThreshold 打ち切りのしきい値となるテスト成功率．{@link #NO_ABORT}の場合は打ち切らない
+   * @return 新しい計画
+   */
+  public TestExecutionPlan abortBelow(final double abortThreshold) {
+    return new TestExecutionPlan(selectedTestMethods, prioritizedTestClasses, abortThreshold,
+        reusedSucceededCount, reusedTestCount, measuresCoverage);
+  }
+
+  /**
+   * カバレッジ計測の要否を指定した計画を返す．
+   *
+   * @param measuresCoverage カバレッジを計測するか否か
+   * @return 新しい計画
+   */
+  public TestExecutionPlan measureCoverage(final boolean measuresCoverage) {
+    return new TestExecutionPlan(selectedTestMethods, prioritizedTestClasses, abortThreshold,
+        reusedSucceededCount, reusedTestCount, measuresCoverage);
+  }
+
+  public Set<FullyQualifiedName> getSelectedTestMethods() {
+    return selectedTestMethods;
+  }
+
+  public List<FullyQualifiedName> getPrioritizedTestClasses() {
+    return prioritizedTestClasses;
+  }
+
+  public double getAbortThreshold() {
+    return abortThreshold;
+  }
+
+  public int getReusedSucceededCount() {
+    return reusedSucceededCount;
+  }
+
+  public int getReusedTestCount() {
+    return reusedTestCount;
+  }
+
+  public boolean measuresCoverage() {
+    return measuresCoverage;
+  }
+
+  /**
+   * 途中までのテスト結果から，テスト成功率がしきい値に届かないことが確定したか否かを返す．<br>
+   * 残りのテストが全て成功したと仮定した場合の成功率がしきい値を下回る場合に確定とみなす．<br>
+   *
+   * @param succeededCount 実行済みテストのうち成功したものの数
+   * @param remainingCount 未実行のテストの数
+   * @param executionTestCount 実行予定のテストの総数
+   * @return 打ち切るべき場合true
+   */
+  public boolean shouldAbort(final int succeededCount, final int remainingCount,
+      final int executionTestCount) {
+    if (abortThreshold < 0) {
+      return false;
+    }
+    final int total = executionTestCount + reusedTestCount;
+    if (0 == total) {
+      return false;
+    }
+    final double bestSuccessRate =
+        1.0 * (succeededCount + remainingCount + reusedSucceededCount) / total;
+    return bestSuccessRate < abortThreshold;
+  }
+}
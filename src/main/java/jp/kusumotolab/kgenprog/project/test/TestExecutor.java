@@ -1,6 +1,8 @@
 package jp.kusumotolab.kgenprog.project.test;
 
+import java.util.List;
 import io.reactivex.Single;
+import jp.kusumotolab.kgenprog.Configuration;
 import jp.kusumotolab.kgenprog.ga.variant.Variant;
 
 /**
@@ -22,9 +24,87 @@ public interface TestExecutor {
     return variantSingle.map(this::exec);
   }
 
+  /**
+   * カバレッジ計測の要否を指定してテスト実行を行う．<br>
+   * カバレッジを計測しない場合，テスト結果はテストの成否のみを持つ．<br>
+   *
+   * @param variant 実行対象のソースコードを保持するVariant
+   * @param measuresCoverage カバレッジを計測するか否か
+   * @return テスト結果
+   */
+  default TestResults exec(final Variant variant, final boolean measuresCoverage) {
+    return exec(variant);
+  }
+
+  default Single<TestResults> execAsync(final Single<Variant> variantSingle,
+      final boolean measuresCoverage) {
+    return variantSingle.map(v -> exec(v, measuresCoverage));
+  }
+
+  /**
+   * 疑惑値の計算に用いるカバレッジを得るために，カバレッジを計測しながらテストを再実行する．<br>
+   * 既にテスト結果を得た個体に対して用いるため，早期打ち切りなどの実行計画の変更は行わず，
+   * テスト結果をテスト優先順位付けのための失敗履歴にも記録しない．<br>
+   *
+   * @param variant 実行対象のソースコードを保持するVariant
+   * @return カバレッジを含むテスト結果
+   */
+  default TestResults execForCoverage(final Variant variant) {
+    return exec(variant, true);
+  }
+
+  default Single<TestResults> execAsyncForCoverage(final Single<Variant> variantSingle) {
+    return variantSingle.map(this::execForCoverage);
+  }
+
   default void initialize() {
   }
 
+  /**
+   * 初期個体のテスト結果が得られた後に呼び出される．<br>
+   * 初期個体の情報を以降のテスト実行に利用する実装はこのメソッドをオーバーライドする．<br>
+   *
+   * @param initialVariant 初期個体
+   */
+  default void initialize(final Variant initialVariant) {
+  }
+
+  /**
+   * 世代交代が行われた後に呼び出される．<br>
+   * 現世代の個体群の情報を以降のテスト実行に利用する実装はこのメソッドをオーバーライドする．<br>
+   *
+   * @param currentVariants 次の世代の親となる個体群
+   */
+  default void proceedNextGeneration(final List<Variant> currentVariants) {
+  }
+
   default void finish() {
   }
+
+  enum Type {
+    /**
+     * kgpと同一のJVM上でテストを実行する
+     */
+    Local {
+      @Override
+      public TestExecutor initialize(final Configuration config) {
+        if (1 < config.getTestThreads()) {
+          return new ParallelLocalTestExecutor(config);
+        }
+        return new LocalTestExecutor(config);
+      }
+    },
+
+    /**
+     * 使い回される別JVM上でテストを実行する
+     */
+    Forked {
+      @Override
+      public TestExecutor initialize(final Configuration config) {
+        return new ForkedTestExecutor(config);
+      }
+    };
+
+    public abstract TestExecutor initialize(final Configuration config);
+  }
 }
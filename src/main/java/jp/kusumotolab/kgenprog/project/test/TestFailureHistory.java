@@ -0,0 +1,106 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.TestFullyQualifiedName;
+
+/**
+ * テストクラスごとの失敗の履歴．<br>
+ * 失敗しやすいテストクラスから実行できるよう，テストクラスの優先順位を求めるために用いる．<br>
+ *
+ * 初期個体で失敗したテストクラスを最優先とし，残りはこれまでのVariantでの失敗率の高い順に並べる．<br>
+ * 複数のスレッドから同時に記録されてもよい．<br>
+ *
+ * @author shinsuke
+ */
+public class TestFailureHistory {
+
+  private final Set<FullyQualifiedName> initialFailedClasses;
+  private final Map<FullyQualifiedName, Counter> counters;
+
+  public TestFailureHistory() {
+    initialFailedClasses = ConcurrentHashMap.newKeySet();
+    counters = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * 初期個体のテスト結果を記録する．
+   *
+   * @param testResults 初期個体のテスト結果
+   */
+  public void recordInitial(final TestResults testResults) {
+    for (final FullyQualifiedName testFQN : testResults.getFailedTestFQNs()) {
+      initialFailedClasses.add(toClassName(testFQN));
+    }
+    record(testResults);
+  }
+
+  /**
+   * Variantのテスト結果を記録する．スキップされたテストは記録しない．
+   *
+   * @param testResults Variantのテスト結果
+   */
+  public void record(final TestResults testResults) {
+    if (testResults instanceof EmptyTestResults) {
+      return;
+    }
+    for (final FullyQualifiedName testFQN : testResults.getExecutedTestFQNs()) {
+      final TestResult testResult = testResults.getTestResult(testFQN);
+      if (testResult.skipped) {
+        continue;
+      }
+      final Counter counter = counters.computeIfAbsent(toClassName(testFQN), k -> new Counter());
+      counter.executed.incrementAndGet();
+      if (testResult.failed) {
+        counter.failed.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * 失敗しやすい順に並べたテストクラスのFQNを返す．
+   *
+   * @return テストクラスのFQN
+   */
+  public List<FullyQualifiedName> getPrioritizedTestClasses() {
+    final List<FullyQualifiedName> classes = new ArrayList<>(counters.keySet());
+    classes.sort(Comparator
+        .comparing((FullyQualifiedName c) -> !initialFailedClasses.contains(c))
+        .thenComparing(Comparator.comparingDouble(this::getFailureRate)
+            .reversed())
+        .thenComparing(c -> c.value));
+    return classes;
+  }
+
+  /**
+   * 指定テストクラスの失敗率を返す．一度も実行されていない場合は0を返す．
+   *
+   * @param testClass テストクラスのFQN
+   * @return 失敗率
+   */
+  public double getFailureRate(final FullyQualifiedName testClass) {
+    final Counter counter = counters.get(testClass);
+    if (null == counter) {
+      return 0.0d;
+    }
+    final int executed = counter.executed.get();
+    return 0 == executed ? 0.0d : 1.0d * counter.failed.get() / executed;
+  }
+
+  private FullyQualifiedName toClassName(final FullyQualifiedName testMethodFQN) {
+    final String value = testMethodFQN.value;
+    return new TestFullyQualifiedName(value.substring(0, value.lastIndexOf('.')));
+  }
+
+  private static class Counter {
+
+    private final AtomicInteger executed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+  }
+}
@@ -10,6 +10,8 @@ import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
 /**
  * 単一のテスト結果を表すオブジェクト．<br>
  * テストの成否とカバレッジ情報を持つ．<br>
+ * 実行が打ち切られたために実行しなかったテストは，失敗かつスキップとして表す．<br>
+ * 制限時間を超えたために中断されたテストは，失敗かつタイムアウトとして表す．<br>
  *
  * @author shinsuke
  */
@@ -17,6 +19,8 @@ public class TestResult {
 
   public final FullyQualifiedName executedTestFQN;
   public final boolean failed;
+  public final boolean skipped;
+  public final boolean timedOut;
   private final String failedReason;
   private final Map<FullyQualifiedName, Coverage> coverages;
 
@@ -30,8 +34,41 @@ public class TestResult {
    */
   public TestResult(final FullyQualifiedName executedTestFQN, final boolean failed,
       final String failedReason, final Map<FullyQualifiedName, Coverage> coverages) {
+    this(executedTestFQN, failed, failedReason, coverages, false);
+  }
+
+  /**
+   * constructor
+   *
+   * @param executedTestFQN 実行したテストメソッドの名前
+   * @param failed テストの結果
+   * @param failedReason テストに落ちた場合はその理由
+   * @param coverages テスト対象それぞれの行ごとのCoverage計測結果
+   * @param skipped 実行が打ち切られたためにテストを実行しなかったか否か．スキップしたテストは失敗扱いとする
+   */
+  public TestResult(final FullyQualifiedName executedTestFQN, final boolean failed,
+      final String failedReason, final Map<FullyQualifiedName, Coverage> coverages,
+      final boolean skipped) {
+    this(executedTestFQN, failed, failedReason, coverages, skipped, false);
+  }
+
+  /**
+   * constructor
+   *
+   * @param executedTestFQN 実行したテストメソッドの名前
+   * @param failed テストの結果
+   * @param failedReason テストに落ちた場合はその理由
+   * @param coverages テスト対象それぞれの行ごとのCoverage計測結果
+   * @param skipped 実行が打ち切られたためにテストを実行しなかったか否か．スキップしたテストは失敗扱いとする
+   * @param timedOut 制限時間を超えたためにテストを中断したか否か．タイムアウトしたテストは失敗扱いとする
+   */
+  public TestResult(final FullyQualifiedName executedTestFQN, final boolean failed,
+      final String failedReason, final Map<FullyQualifiedName, Coverage> coverages,
+      final boolean skipped, final boolean timedOut) {
     this.executedTestFQN = executedTestFQN;
     this.failed = failed;
+    this.skipped = skipped;
+    this.timedOut = timedOut;
     this.failedReason = failedReason;
     this.coverages = coverages;
   }
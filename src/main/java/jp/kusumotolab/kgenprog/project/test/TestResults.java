@@ -1,7 +1,5 @@
 package jp.kusumotolab.kgenprog.project.test;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,7 +11,6 @@ import jp.kusumotolab.kgenprog.project.LineNumberRange;
 import jp.kusumotolab.kgenprog.project.ProductSourcePath;
 import jp.kusumotolab.kgenprog.project.build.BuildResults;
 import jp.kusumotolab.kgenprog.project.build.JavaBinaryObject;
-import jp.kusumotolab.kgenprog.project.test.Coverage.Status;
 
 /**
  * 全テストの結果を表すオブジェクト．<br>
@@ -29,6 +26,9 @@ public class TestResults {
 
   private final Map<FullyQualifiedName, TestResult> value;
 
+  // FLメトリクス計算用の転置インデックス．テスト結果が追加されると破棄される
+  private volatile CoverageIndex coverageIndex;
+
   /**
    * constructor
    */
@@ -51,6 +51,7 @@ public class TestResults {
    */
   public void add(final TestResult testResult) {
     this.value.put(testResult.executedTestFQN, testResult);
+    this.coverageIndex = null;
   }
 
   /**
@@ -112,6 +113,34 @@ public class TestResults {
         .collect(Collectors.toList());
   }
 
+  /**
+   * 実行が打ち切られたためにスキップされたテストのFQN一覧を取得．<br>
+   * スキップされたテストは失敗したテストにも含まれる．<br>
+   *
+   * @return スキップされたテストのFQN一覧
+   */
+  public List<FullyQualifiedName> getSkippedTestFQNs() {
+    return this.value.values()
+        .stream()
+        .filter(r -> r.skipped)
+        .map(r -> r.executedTestFQN)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * 制限時間を超えたために中断されたテストのFQN一覧を取得．<br>
+   * タイムアウトしたテストは失敗したテストにも含まれる．<br>
+   *
+   * @return タイムアウトしたテストのFQN一覧
+   */
+  public List<FullyQualifiedName> getTimedOutTestFQNs() {
+    return this.value.values()
+        .stream()
+        .filter(r -> r.timedOut)
+        .map(r -> r.executedTestFQN)
+        .collect(Collectors.toList());
+  }
+
   /**
    * 実行された単一テストメソッドの結果を返す．
    *
@@ -160,42 +189,24 @@ public class TestResults {
     // TODO location:lineNum = 1:N の時の対策が必要．ひとまずNの一行目だけを使う．
     final int correspondingLineNumber = correspondingRange.start;
 
+    final CoverageIndex index = getCoverageIndex();
     return correspondingFqns.stream()
-        .map(fqn -> getTestFQNs(fqn, correspondingLineNumber, Status.COVERED, failed))
-        .mapToLong(Collection::size)
+        .mapToLong(fqn -> index.countCoveringTests(fqn, correspondingLineNumber, failed))
         .sum();
   }
 
   /**
-   * FLで用いる4メトリクスのprivateなParameterized-Method
+   * カバレッジの転置インデックスを返す．未作成の場合は作成する．
    *
-   * @param targetFQN 計算対象クラスのFQN
-   * @param lineNumber 計算対象クラスの行番号
-   * @param status 実行されたか否か
-   * @param failed テストが失敗したかどうか
-   * @return
+   * @return カバレッジの転置インデックス
    */
-  private List<FullyQualifiedName> getTestFQNs(final FullyQualifiedName targetFQN,
-      final int lineNumber, final Coverage.Status status, final boolean failed) {
-    final List<FullyQualifiedName> result = new ArrayList<>();
-
-    // 全てのテストケースを探索
-    for (final TestResult testResult : this.value.values()) {
-      final Coverage coverage = testResult.getCoverages(targetFQN);
-
-      if (coverage == null || lineNumber > coverage.getStatusesSize()) {
-        // 計測対象（targetFQN）の行の外を参照した場合．
-        // （＝内部クラス等の理由で，その行の実行結果が別テストのcoverageに記述されている場合）
-        // 何もしなくて良い．
-        // その行の結果は別のcoverageインスタンスに保存されているため．
-        continue;
-      }
-      final Coverage.Status _status = coverage.getStatus(lineNumber - 1);
-      if (status == _status && failed == testResult.failed) {
-        result.add(testResult.executedTestFQN);
-      }
+  private CoverageIndex getCoverageIndex() {
+    CoverageIndex index = coverageIndex;
+    if (null == index) {
+      index = new CoverageIndex(value.values());
+      coverageIndex = index;
     }
-    return result;
+    return index;
   }
 
   /**
@@ -231,7 +242,7 @@ public class TestResults {
    */
   public long getNumberOfPassedTestsNotExecutingTheStatement(
       final ProductSourcePath productSourcePath, final ASTLocation location) {
-    return getSucceededTestResults().size()
+    return getCoverageIndex().getSucceededTestsSize()
         - getNumberOfPassedTestsExecutingTheStatement(productSourcePath, location);
   }
 
@@ -244,10 +255,54 @@ public class TestResults {
    */
   public long getNumberOfFailedTestsNotExecutingTheStatement(
       final ProductSourcePath productSourcePath, final ASTLocation location) {
-    return getFailedTestResults().size()
+    // スキップされたテストはどの文を実行したかが不明なので数えない
+    return getCoverageIndex().getExecutedFailedTestsSize()
         - getNumberOfFailedTestsExecutingTheStatement(productSourcePath, location);
   }
 
+  /**
+   * 実際に実行された（スキップされていない）失敗テストの数を返す．
+   *
+   * @return 失敗テストの数
+   */
+  public int getNumberOfExecutedFailedTests() {
+    return getCoverageIndex().getExecutedFailedTestsSize();
+  }
+
+  /**
+   * 成功テストの数を返す．
+   *
+   * @return 成功テストの数
+   */
+  public int getNumberOfSucceededTests() {
+    return getCoverageIndex().getSucceededTestsSize();
+  }
+
+  /**
+   * 指定ソースコードの複数の行について，a_ef と a_ep をまとめて求める．<br>
+   * ソースコードに対応するFQNの解決は一度だけ行う．<br>
+   *
+   * @param productSourcePath 対象のソースコード
+   * @param lineNumbers 対象の行番号
+   * @param failedCounts 各行を実行した失敗テストの数 (a_ef) の格納先
+   * @param passedCounts 各行を実行した成功テストの数 (a_ep) の格納先
+   */
+  public void countTestsExecutingTheLines(final ProductSourcePath productSourcePath,
+      final int[] lineNumbers, final long[] failedCounts, final long[] passedCounts) {
+    final Set<FullyQualifiedName> correspondingFqns = getCorrespondingFqns(productSourcePath);
+    final CoverageIndex index = getCoverageIndex();
+    for (int i = 0; i < lineNumbers.length; i++) {
+      long failed = 0;
+      long passed = 0;
+      for (final FullyQualifiedName fqn : correspondingFqns) {
+        failed += index.countCoveringTests(fqn, lineNumbers[i], true);
+        passed += index.countCoveringTests(fqn, lineNumbers[i], false);
+      }
+      failedCounts[i] = failed;
+      passedCounts[i] = passed;
+    }
+  }
+
   /**
    * jsonシリアライザ
    *
@@ -276,11 +331,11 @@ public class TestResults {
   }
 
   /**
-   * Pathに対応するFQNを返す (分散に使用するため，privateにはしない)
+   * Pathに対応するFQNを返す (分散・差分FLに使用するため，privateにはしない)
    *
    * @return
    */
-  protected Set<FullyQualifiedName> getCorrespondingFqns(
+  public Set<FullyQualifiedName> getCorrespondingFqns(
       final ProductSourcePath productSourcePath) {
     return buildResults.binaryStore.get(productSourcePath)
         .stream()
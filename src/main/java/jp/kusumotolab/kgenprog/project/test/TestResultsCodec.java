@@ -0,0 +1,163 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.TargetFullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.TestFullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.test.Coverage.Status;
+
+/**
+ * {@link TestResults}をバイト列に変換（およびその逆変換）する．<br>
+ * 別JVMで実行したテストの結果を受け取るために用いる．<br>
+ *
+ * ビルド結果はバイト列に含めない．<br>
+ * 読み込み側が保持しているビルド結果を与えることで，FL計算に必要なソースパスとFQNの対応関係を復元する．<br>
+ *
+ * @author shinsuke
+ */
+public final class TestResultsCodec {
+
+  /**
+   * バイト列の形式の版．形式を変更した場合は値を更新し，保存済みのバイト列を無効にする．
+   */
+  public static final int FORMAT_VERSION = 2;
+
+  private TestResultsCodec() {}
+
+  /**
+   * テスト結果を書き出す．
+   *
+   * @param out 書き出し先
+   * @param testResults 書き出し対象のテスト結果
+   * @throws IOException
+   */
+  public static void write(final DataOutput out, final TestResults testResults)
+      throws IOException {
+    final boolean isEmpty = testResults instanceof EmptyTestResults;
+    out.writeBoolean(isEmpty);
+    if (isEmpty) {
+      writeString(out, ((EmptyTestResults) testResults).getCause());
+      return;
+    }
+
+    final Collection<FullyQualifiedName> testFQNs = testResults.getExecutedTestFQNs();
+    out.writeInt(testFQNs.size());
+    for (final FullyQualifiedName testFQN : testFQNs) {
+      write(out, testResults.getTestResult(testFQN));
+    }
+  }
+
+  /**
+   * テスト結果を読み込む．
+   *
+   * @param in 読み込み元
+   * @param buildResults テスト実行対象となったビルド結果
+   * @return 読み込んだテスト結果
+   * @throws IOException
+   */
+  public static TestResults read(final DataInput in, final BuildResults buildResults)
+      throws IOException {
+    if (in.readBoolean()) {
+      return new EmptyTestResults(readString(in));
+    }
+
+    final TestResults testResults = new TestResults(buildResults);
+    final int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      testResults.add(readTestResult(in));
+    }
+    return testResults;
+  }
+
+  /**
+   * テストメソッド1つ分のテスト結果を書き出す．
+   *
+   * @param out 書き出し先
+   * @param testResult 書き出し対象のテスト結果
+   * @throws IOException
+   */
+  static void write(final DataOutput out, final TestResult testResult) throws IOException {
+    writeString(out, testResult.executedTestFQN.value);
+    out.writeBoolean(testResult.failed);
+    out.writeBoolean(testResult.skipped);
+    out.writeBoolean(testResult.timedOut);
+
+    final String failedReason = testResult.getFailedReason();
+    out.writeBoolean(null != failedReason);
+    if (null != failedReason) {
+      writeString(out, failedReason);
+    }
+
+    final List<FullyQualifiedName> targetFQNs = testResult.getExecutedTargetFQNs();
+    out.writeInt(targetFQNs.size());
+    for (final FullyQualifiedName targetFQN : targetFQNs) {
+      write(out, testResult.getCoverages(targetFQN));
+    }
+  }
+
+  private static void write(final DataOutput out, final Coverage coverage) throws IOException {
+    writeString(out, coverage.getExecutedTargetFQN().value);
+    final int size = coverage.getStatusesSize();
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      out.writeByte(coverage.getStatus(i)
+          .ordinal());
+    }
+  }
+
+  /**
+   * テストメソッド1つ分のテスト結果を読み込む．
+   *
+   * @param in 読み込み元
+   * @return 読み込んだテスト結果
+   * @throws IOException
+   */
+  static TestResult readTestResult(final DataInput in) throws IOException {
+    final FullyQualifiedName testFQN = new TestFullyQualifiedName(readString(in));
+    final boolean failed = in.readBoolean();
+    final boolean skipped = in.readBoolean();
+    final boolean timedOut = in.readBoolean();
+    final String failedReason = in.readBoolean() ? readString(in) : null;
+
+    final Map<FullyQualifiedName, Coverage> coverages = new HashMap<>();
+    final int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      final Coverage coverage = readCoverage(in);
+      coverages.put(coverage.getExecutedTargetFQN(), coverage);
+    }
+    return new TestResult(testFQN, failed, failedReason, coverages, skipped, timedOut);
+  }
+
+  private static Coverage readCoverage(final DataInput in) throws IOException {
+    final FullyQualifiedName targetFQN = new TargetFullyQualifiedName(readString(in));
+    final Status[] values = Status.values();
+    final int size = in.readInt();
+    final List<Status> statuses = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      statuses.add(values[in.readByte()]);
+    }
+    return new RawCoverage(targetFQN, statuses);
+  }
+
+  // writeUTFは64KBを超える文字列を扱えないので，長さ付きのUTF-8バイト列として書き出す
+  private static void writeString(final DataOutput out, final String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(final DataInput in) throws IOException {
+    final byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
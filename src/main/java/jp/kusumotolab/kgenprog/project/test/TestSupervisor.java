@@ -0,0 +1,249 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.runner.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * テスト実行を専用のスレッドで行い，その実行時間を監視する．<br>
+ * 題材のテストは無限ループ等により終了しないことがあるため，
+ * 呼び出し元のスレッドではなく専用のスレッドでTestThreadを実行し，監視スレッドから制限時間を確認する．<br>
+ *
+ * 制限時間は以下の2つ．<br>
+ * 1. テストメソッドごとの制限時間．カスタムJUnitによるタイムアウトが働かなかった場合に備え，猶予を加えて監視する．<br>
+ * 2. 個体ごと（1回のテスト実行全体）の制限時間．<br>
+ * 制限時間を超えた場合はテスト実行スレッドに割り込み，猶予の間に終了しなければ完了を待たずに見捨てる．<br>
+ * 中断したテストメソッドはタイムアウト，見捨てた時点で未実行のテストメソッドはスキップとして記録する．<br>
+ * 見捨てたスレッドは呼び出し元スレッドのキャッシュ（インストルメント済みバイトコードとJaCoCoランタイム）を使い続けうるため，
+ * 見捨てた場合は呼び出し元スレッドのキャッシュを破棄し，以降のテスト実行では作り直したものを用いる．<br>
+ *
+ * JDK 21以降では，テスト実行スレッドに仮想スレッドを用いる．
+ * 見捨てたスレッドがプラットフォームスレッドを占有し続けないようにするためである．<br>
+ * ただし，割り込みに応じずに計算し続けるテストは，仮想スレッドであってもキャリアスレッドを占有する．<br>
+ * 監視は全てのテスト実行で1つのスレッドを共有する．<br>
+ *
+ * @author shinsuke
+ */
+class TestSupervisor {
+
+  private static final Logger log = LoggerFactory.getLogger(TestSupervisor.class);
+
+  /**
+   * 割り込みから見捨てるまでの猶予，及びテストメソッドの制限時間に加える猶予
+   */
+  static final Duration GRACE_PERIOD = Duration.ofSeconds(1);
+
+  /**
+   * 制限時間を確認する間隔
+   */
+  static final Duration CHECK_INTERVAL = Duration.ofMillis(100);
+
+  // JDK 21以降でのみ利用できる仮想スレッドの生成API．利用できない場合はnull
+  private static final Method OF_VIRTUAL = findMethod("java.lang.Thread", "ofVirtual");
+  private static final Method UNSTARTED =
+      findMethod("java.lang.Thread$Builder", "unstarted", Runnable.class);
+
+  private final long testTimeLimitNanos;
+  private final long variantTimeLimitNanos;
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * コンストラクタ．
+   *
+   * @param testTimeLimit テストメソッドごとの制限時間
+   * @param variantTimeLimit 個体ごとの制限時間
+   */
+  TestSupervisor(final Duration testTimeLimit, final Duration variantTimeLimit) {
+    this.testTimeLimitNanos = testTimeLimit.plus(GRACE_PERIOD)
+        .toNanos();
+    this.variantTimeLimitNanos = variantTimeLimit.toNanos();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        new DaemonThreadFactory("kgp-test-supervisor", false));
+  }
+
+  /**
+   * テスト実行スレッドで用いる仮想スレッドが利用できるか否か．
+   *
+   * @return JDK 21以降であればtrue
+   */
+  static boolean isVirtualThreadAvailable() {
+    return null != OF_VIRTUAL && null != UNSTARTED;
+  }
+
+  /**
+   * 専用のスレッドでテストを実行し，完了するか見捨てるまで待つ．
+   *
+   * @param testThread 実行するテスト
+   * @return テスト結果
+   */
+  TestResults supervise(final TestThread testThread) {
+    final CompletableFuture<TestResults> result = new CompletableFuture<>();
+
+    // 呼び出し元スレッドのキャッシュをテスト実行スレッドで使い回す
+    testThread.bindThreadResources();
+    final Thread thread = newThread(DaemonThreadFactory.withCurrentContext(() -> {
+      try {
+        testThread.run();
+        result.complete(testThread.getTestResults());
+      } catch (final Throwable e) {
+        result.completeExceptionally(e);
+      }
+    }));
+
+    final Watch watch = new Watch(testThread, thread, result);
+    thread.start();
+    final long interval = CHECK_INTERVAL.toNanos();
+    final ScheduledFuture<?> check =
+        scheduler.scheduleWithFixedDelay(watch, interval, interval, TimeUnit.NANOSECONDS);
+    try {
+      final TestResults testResults = result.get();
+      if (watch.isAbandoned()) {
+        InstrumentedBytecodeCache.discardCurrentThread();
+      }
+      return testResults;
+    } catch (final InterruptedException e) {
+      Thread.currentThread()
+          .interrupt();
+      thread.interrupt();
+      // 完了を待たずに戻るため，見捨てた場合と同様にキャッシュを破棄する
+      InstrumentedBytecodeCache.discardCurrentThread();
+      return new EmptyTestResults("interrupted.");
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(cause);
+    } finally {
+      check.cancel(false);
+    }
+  }
+
+  /**
+   * 監視を終了する．
+   */
+  void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  /**
+   * テスト実行スレッドを生成する．<br>
+   * 仮想スレッドが利用できない場合は，kGenProgの終了を妨げないデーモンスレッドを生成する．<br>
+   *
+   * @param task 実行する処理
+   * @return 未開始のスレッド
+   */
+  private static Thread newThread(final Runnable task) {
+    if (isVirtualThreadAvailable()) {
+      try {
+        return (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), task);
+      } catch (final ReflectiveOperationException e) {
+        log.debug("failed to create a virtual thread", e);
+      }
+    }
+    final Thread thread = new Thread(task, "kgp-test-runner");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static Method findMethod(final String className, final String methodName,
+      final Class<?>... parameterTypes) {
+    try {
+      return Class.forName(className)
+          .getMethod(methodName, parameterTypes);
+    } catch (final ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * 1回のテスト実行の制限時間を確認する処理．監視スレッドで定期的に実行する．
+   */
+  private class Watch implements Runnable {
+
+    private final TestThread testThread;
+    private final Thread thread;
+    private final CompletableFuture<TestResults> result;
+    private final long startedNanos;
+    private Description interruptedTest;
+    private long interruptedNanos;
+    private boolean variantTimedOut;
+    private volatile boolean abandoned;
+
+    private Watch(final TestThread testThread, final Thread thread,
+        final CompletableFuture<TestResults> result) {
+      this.testThread = testThread;
+      this.thread = thread;
+      this.result = result;
+      this.startedNanos = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+      if (result.isDone()) {
+        return;
+      }
+      final long now = System.nanoTime();
+      final Description currentTest = testThread.getCurrentTest();
+
+      if (0 != interruptedNanos) {
+        // テストメソッド単位の割り込みに応じて次に進んだ場合は監視を続ける
+        if (!variantTimedOut && currentTest != interruptedTest) {
+          interruptedNanos = 0;
+          interruptedTest = null;
+        } else if (now - interruptedNanos > GRACE_PERIOD.toNanos()) {
+          log.warn("abandoned a test execution which did not respond to the interruption");
+          // 呼び出し元は完了と同時に起こされるため，完了させる前に見捨てたことを記録する
+          abandoned = true;
+          if (!result.complete(testThread.abandon(getReason()))) {
+            abandoned = false;
+          }
+        }
+        return;
+      }
+
+      if (0 < variantTimeLimitNanos && now - startedNanos > variantTimeLimitNanos) {
+        variantTimedOut = true;
+        interrupt(currentTest, now);
+      } else if (null != currentTest
+          && now - testThread.getCurrentTestStartedNanos() > testTimeLimitNanos) {
+        interrupt(currentTest, now);
+      }
+    }
+
+    /**
+     * @return テスト実行を見捨てたか否か
+     */
+    private boolean isAbandoned() {
+      return abandoned;
+    }
+
+    private void interrupt(final Description currentTest, final long now) {
+      if (null != currentTest) {
+        testThread.timeOut(currentTest);
+      }
+      interruptedTest = currentTest;
+      interruptedNanos = now;
+      thread.interrupt();
+    }
+
+    private String getReason() {
+      final long seconds =
+          TimeUnit.NANOSECONDS.toSeconds(variantTimedOut ? variantTimeLimitNanos
+              : testTimeLimitNanos);
+      return (variantTimedOut ? "variant" : "test") + " timed out after " + seconds
+          + " seconds.";
+    }
+  }
+}
@@ -6,8 +6,11 @@ import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.jacoco.core.analysis.Analyzer;
@@ -15,14 +18,16 @@ import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.SessionInfoStore;
-import org.jacoco.core.instr.Instrumenter;
-import org.jacoco.core.runtime.IRuntime;
-import org.jacoco.core.runtime.LoggerRuntime;
 import org.jacoco.core.runtime.RuntimeData;
 import org.junit.runner.Description;
 import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Runner;
+import org.junit.runner.manipulation.Filter;
+import org.junit.runner.manipulation.NoTestsRemainException;
 import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
+import org.junit.runners.model.TestTimedOutException;
 import com.google.common.base.Functions;
 import jp.kusumotolab.kgenprog.project.ClassPath;
 import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
@@ -42,18 +47,32 @@ import jp.kusumotolab.kgenprog.project.factory.TargetProject;
  */
 class TestThread extends Thread {
 
-  private final IRuntime jacocoRuntime;
-  private final Instrumenter jacocoInstrumenter;
-  private final RuntimeData jacocoRuntimeData;
+  // 実行スレッドに結びつくためbindThreadResources()で取得する
+  private InstrumentedBytecodeCache instrumentedBytecodeCache;
+  private SharedClassLoader sharedClassLoader;
+  private RuntimeData jacocoRuntimeData;
   private final BuildResults buildResults;
   private TestResults testResults; // スレッドの返り値として用いるためにnon-finalフィールド
 
+  // 監視スレッドから参照される実行状況
+  private final Object recordLock = new Object();
+  private volatile List<Runner> runners;
+  private volatile Description currentTest;
+  private volatile long currentTestStartedNanos;
+  private volatile Description timedOutTest;
+  private volatile boolean abandoned;
+
   private final TargetProject targetProject;
   private final List<String> executionTestNames;
+  private final TestExecutionPlan plan;
+  private final boolean reusesClassLoader;
+  private Set<String> sharedPackages; // 共有クラスローダに委譲するパッケージ．run()で決まる
 
   private long timeout;
   private TimeUnit timeUnit;
 
+  private ProgressListener progressListener;
+
   /**
    * コンストラクタ．
    *
@@ -64,26 +83,57 @@ class TestThread extends Thread {
    */
   public TestThread(final BuildResults buildResults, final TargetProject targetProject,
       final List<String> executionTestNames, final long timeout) {
+    this(buildResults, targetProject, executionTestNames, TestExecutionPlan.ALL, timeout);
+  }
 
-    this.jacocoRuntime = new LoggerRuntime();
-    this.jacocoInstrumenter = new Instrumenter(jacocoRuntime);
-    this.jacocoRuntimeData = new RuntimeData();
-    try {
-      jacocoRuntime.startup(jacocoRuntimeData);
-    } catch (final Exception e) {
-      // TODO should be described to log
-      e.printStackTrace();
-    }
+  /**
+   * コンストラクタ．実行するテストメソッドや実行順序を指定する．
+   *
+   * @param buildResults テスト実行対象のバイナリを保持するビルド結果
+   * @param targetProject テスト実行の対象プロジェクト
+   * @param executionTestNames どのテストを実行するか
+   * @param plan テストの実行計画
+   * @param timeout タイムアウト時間（秒）
+   */
+  public TestThread(final BuildResults buildResults, final TargetProject targetProject,
+      final List<String> executionTestNames, final TestExecutionPlan plan, final long timeout) {
+    this(buildResults, targetProject, executionTestNames, plan, timeout, false);
+  }
 
+  /**
+   * コンストラクタ．変更のないクラスを共有クラスローダで使い回すか否かを指定する．
+   *
+   * @param buildResults テスト実行対象のバイナリを保持するビルド結果
+   * @param targetProject テスト実行の対象プロジェクト
+   * @param executionTestNames どのテストを実行するか
+   * @param plan テストの実行計画
+   * @param timeout タイムアウト時間（秒）
+   * @param reusesClassLoader 共有クラスローダを用いるか否か
+   * @see SharedClassLoader
+   */
+  public TestThread(final BuildResults buildResults, final TargetProject targetProject,
+      final List<String> executionTestNames, final TestExecutionPlan plan, final long timeout,
+      final boolean reusesClassLoader) {
     this.buildResults = buildResults;
     this.targetProject = targetProject;
     this.executionTestNames = executionTestNames;
+    this.plan = plan;
+    this.reusesClassLoader = reusesClassLoader;
 
     // カスタムJUnit上でのタイムアウト時間を設定
     this.timeout = timeout;
     this.timeUnit = TimeUnit.SECONDS; // TODO タイムアウトは秒単位が前提
   }
 
+  /**
+   * テストの実行状況を通知するリスナーを設定する．run()の前に呼ぶこと．
+   *
+   * @param progressListener 実行状況を通知するリスナー
+   */
+  void setProgressListener(final ProgressListener progressListener) {
+    this.progressListener = progressListener;
+  }
+
   /**
    * テスト結果の取り出しAPI．<br>
    * スレッド（非同期）実行されるのでrun()の返り値としてではなく，getで結果を取り出す．<br>
@@ -108,13 +158,16 @@ class TestThread extends Thread {
 
     testResults = new TestResults(buildResults);
 
+    bindThreadResources();
+    jacocoRuntimeData = instrumentedBytecodeCache.startSession();
+
     final List<FullyQualifiedName> productFQNs = getProductFQNs();
     final List<FullyQualifiedName> executionTestFQNs = getExecutionTestFQNs();
 
     // set memoryClassLoader as ContextClassLoader during JUnit execution
     final List<ClassPath> classPaths = targetProject.getClassPaths();
     final URL[] classpathUrls = convertClasspathsToURLs(classPaths);
-    final MemoryClassLoader classLoader = new SkippingMemoryClassLoader(classpathUrls);
+    final MemoryClassLoader classLoader = createClassLoader(classpathUrls);
 
     try {
       addAllDefinitions(classLoader, productFQNs);
@@ -132,7 +185,37 @@ class TestThread extends Thread {
       // 以下ContextClassLoaderのセットは不要．むしろKGPスレッド全体に作用してしまうのでないほうが良い．
       // Thread.currentThread().setContextClassLoader(classLoader);
 
-      junitCore.run(testClasses.toArray(new Class<?>[testClasses.size()]));
+      // テストクラス単位で実行し，クラスの境界ごとに打ち切りの要否を判定する
+      runners = createRunners(testClasses);
+      if (null != progressListener) {
+        final List<FullyQualifiedName> plannedTests = new ArrayList<>();
+        runners.forEach(r -> collectTestMethodNames(r.getDescription(), plannedTests));
+        progressListener.testsPlanned(plannedTests);
+      }
+      final int executionTestCount = runners.stream()
+          .mapToInt(Runner::testCount)
+          .sum();
+      int finishedTestCount = 0;
+      for (int i = 0; i < runners.size(); i++) {
+        if (abandoned) {
+          break;
+        }
+        final int succeededTestCount = testResults.getSucceededTestResults()
+            .size();
+        if (plan.shouldAbort(succeededTestCount, executionTestCount - finishedTestCount,
+            executionTestCount)) {
+          synchronized (recordLock) {
+            if (!abandoned) {
+              runners.subList(i, runners.size())
+                  .forEach(r -> addSkippedTestResults(r.getDescription()));
+            }
+          }
+          break;
+        }
+        final Runner runner = runners.get(i);
+        junitCore.run(runner);
+        finishedTestCount += runner.testCount();
+      }
 
     } catch (final ClassNotFoundException e) {
       // クラスロードに失敗．FQNの指定ミスの可能性が大
@@ -145,9 +228,89 @@ class TestThread extends Thread {
     }
   }
 
+  /**
+   * 実行スレッドに結びつくキャッシュ類を，呼び出したスレッドから取得する．<br>
+   * インストルメント済みバイトコードとJaCoCoランタイム，共有クラスローダは同一スレッド上のテスト実行間で使い回す．<br>
+   * run()を別のスレッドで実行する場合は，事前に呼び出し元のスレッドで本メソッドを呼ぶことで，呼び出し元のものを使い回す．<br>
+   */
+  void bindThreadResources() {
+    if (null != instrumentedBytecodeCache) {
+      return;
+    }
+    instrumentedBytecodeCache = InstrumentedBytecodeCache.forCurrentThread();
+    if (reusesClassLoader && !buildResults.isBuildFailed) {
+      final URL[] urls = convertClasspathsToURLs(targetProject.getClassPaths());
+      sharedClassLoader = SharedClassLoader.forCurrentThread(targetProject, buildResults, urls);
+    }
+  }
+
+  /**
+   * @return 実行中のテストメソッド．テストメソッドを実行していない場合はnull
+   */
+  Description getCurrentTest() {
+    return currentTest;
+  }
+
+  /**
+   * @return 実行中のテストメソッドの開始時刻（{@link System#nanoTime()}）
+   */
+  long getCurrentTestStartedNanos() {
+    return currentTestStartedNanos;
+  }
+
+  /**
+   * 指定されたテストメソッドを，制限時間を超えたものとして記録させる．<br>
+   * テストメソッドの中断は呼び出し側が行う．<br>
+   *
+   * @param description 制限時間を超えたテストメソッド
+   */
+  void timeOut(final Description description) {
+    timedOutTest = description;
+  }
+
+  /**
+   * テスト実行の完了を待たずに，その時点のテスト結果を確定させる．<br>
+   * 実行中のテストメソッドはタイムアウト，未実行のテストメソッドはスキップとして記録する．<br>
+   * 以降に本スレッドが実行したテストの結果は記録しない．<br>
+   *
+   * @param reason タイムアウトの理由
+   * @return 確定したテスト結果
+   */
+  TestResults abandon(final String reason) {
+    synchronized (recordLock) {
+      abandoned = true;
+      final List<Runner> startedRunners = runners;
+      if (null == startedRunners) {
+        // テストクラスのロード中に制限時間を超えた
+        return new EmptyTestResults(reason);
+      }
+      final Description hungTest = currentTest;
+      startedRunners.forEach(r -> addAbandonedTestResults(r.getDescription(), hungTest, reason));
+      return testResults;
+    }
+  }
+
+  /**
+   * テストを実行するクラスローダを作成する．<br>
+   * 共有クラスローダを用いる場合，変更のないパッケージのロードをそれに委譲する．<br>
+   *
+   * @param urls クラスパス
+   * @return クラスローダ
+   */
+  private MemoryClassLoader createClassLoader(final URL[] urls) {
+    if (!reusesClassLoader) {
+      sharedPackages = Collections.emptySet();
+      return new SkippingMemoryClassLoader(urls);
+    }
+    sharedPackages =
+        sharedClassLoader.getDelegatablePackages(buildResults, plan.measuresCoverage());
+    return new SkippingMemoryClassLoader(urls, sharedClassLoader, sharedPackages);
+  }
+
   /**
    * MemoryClassLoaderに対して全てのバイトコード定義を追加する（ロードはせず）．<br>
-   * プロダクト系ソースコードのみJaCoCoインストルメントを適用する．
+   * プロダクト系ソースコードのみJaCoCoインストルメントを適用する（カバレッジを計測する場合のみ）．<br>
+   * 共有クラスローダに委譲するパッケージのクラスは定義しない．
    *
    * @param memoryClassLoader
    * @param fqns
@@ -158,16 +321,18 @@ class TestThread extends Thread {
       final List<FullyQualifiedName> fqns) throws IOException {
     for (final JavaBinaryObject jmo : buildResults.binaryStore.getAll()) {
       final FullyQualifiedName fqn = jmo.getFqn();
-      final byte[] rawBytecode = jmo.getByteCode();
-      final byte[] bytecode = jmo.isTest() ? rawBytecode : instrumentBytecode(rawBytecode);
-      memoryClassLoader.addDefinition(fqn, bytecode);
+      if (sharedPackages.contains(SharedClassLoader.getPackageName(fqn.value))) {
+        continue;
+      }
+      if (jmo.isTest() || !plan.measuresCoverage()) {
+        // インストルメントしない場合はヒープ外のバイトコードを複製せずに定義する
+        memoryClassLoader.addDefinition(fqn, jmo.getByteCodeBuffer());
+      } else {
+        memoryClassLoader.addDefinition(fqn, instrumentedBytecodeCache.instrument(jmo));
+      }
     }
   }
 
-  private byte[] instrumentBytecode(final byte[] bytecode) throws IOException {
-    return jacocoInstrumenter.instrument(bytecode, "");
-  }
-
   private List<FullyQualifiedName> getProductFQNs() {
     return getFQNs(targetProject.getProductSourcePaths());
   }
@@ -241,6 +406,123 @@ class TestThread extends Thread {
   }
 
 
+  /**
+   * テストクラスを実行計画の優先順に並べ，それぞれのJUnitランナーを生成する．<br>
+   * 実行計画でテストメソッドが絞り込まれている場合，対象メソッドを含まないクラスは除外する．<br>
+   *
+   * @param testClasses テストクラス
+   * @return JUnitランナー
+   */
+  private List<Runner> createRunners(final List<Class<?>> testClasses) {
+    final List<FullyQualifiedName> priorities = plan.getPrioritizedTestClasses();
+    final List<Class<?>> orderedClasses = new ArrayList<>(testClasses);
+    orderedClasses.sort(Comparator.comparingInt(c -> {
+      final int index = priorities.indexOf(new TestFullyQualifiedName(c.getName()));
+      return index < 0 ? Integer.MAX_VALUE : index;
+    }));
+
+    final List<Runner> runners = new ArrayList<>();
+    for (final Class<?> testClass : orderedClasses) {
+      final Runner runner = Request.aClass(testClass)
+          .getRunner();
+      if (!plan.getSelectedTestMethods()
+          .isEmpty()) {
+        try {
+          new SelectedTestFilter().apply(runner);
+        } catch (final NoTestsRemainException e) {
+          continue;
+        }
+      }
+      runners.add(runner);
+    }
+    return runners;
+  }
+
+  private void collectTestMethodNames(final Description description,
+      final List<FullyQualifiedName> testMethodNames) {
+    if (description.isTest()) {
+      testMethodNames.add(getTestMethodName(description));
+      return;
+    }
+    description.getChildren()
+        .forEach(c -> collectTestMethodNames(c, testMethodNames));
+  }
+
+  /**
+   * 打ち切りにより実行しなかったテストメソッドをスキップとして記録する．
+   *
+   * @param description 実行しなかったテストの情報
+   */
+  private void addSkippedTestResults(final Description description) {
+    if (description.isTest()) {
+      testResults.add(new TestResult(getTestMethodName(description), true,
+          "skipped by early abort.", Collections.emptyMap(), true));
+      return;
+    }
+    description.getChildren()
+        .forEach(this::addSkippedTestResults);
+  }
+
+  /**
+   * 実行を待たずに打ち切ったテストメソッドのうち，結果が未記録のものを記録する．
+   *
+   * @param description 打ち切ったテストの情報
+   * @param hungTest 打ち切った時点で実行中だったテストメソッド
+   * @param reason タイムアウトの理由
+   */
+  private void addAbandonedTestResults(final Description description, final Description hungTest,
+      final String reason) {
+    if (description.isTest()) {
+      final FullyQualifiedName fqn = getTestMethodName(description);
+      if (null != testResults.getTestResult(fqn)) {
+        return;
+      }
+      if (description.equals(hungTest)) {
+        testResults.add(new TestResult(fqn, true, reason, Collections.emptyMap(), false, true));
+      } else {
+        testResults.add(new TestResult(fqn, true, "skipped by timeout.", Collections.emptyMap(),
+            true));
+      }
+      return;
+    }
+    description.getChildren()
+        .forEach(c -> addAbandonedTestResults(c, hungTest, reason));
+  }
+
+  /**
+   * 指定されたテストメソッドのみを実行するためのJUnitフィルタ．内部クラス．
+   */
+  class SelectedTestFilter extends Filter {
+
+    @Override
+    public boolean shouldRun(final Description description) {
+      if (description.isTest()) {
+        return plan.getSelectedTestMethods()
+            .contains(getTestMethodName(description));
+      }
+      return description.getChildren()
+          .stream()
+          .anyMatch(this::shouldRun);
+    }
+
+    @Override
+    public String describe() {
+      return "selected " + plan.getSelectedTestMethods()
+          .size() + " test methods";
+    }
+  }
+
+  /**
+   * Descriptionから実行したテストメソッドのFQNを取り出す．
+   *
+   * @param description
+   * @return
+   */
+  private FullyQualifiedName getTestMethodName(final Description description) {
+    return new TestFullyQualifiedName(description.getTestClass()
+        .getName() + "." + description.getMethodName());
+  }
+
   /**
    * JUnit実行のイベントリスナー．内部クラス． JUnit実行前のJaCoCoの初期化，およびJUnit実行後のJaCoCoの結果回収を行う．
    *
@@ -252,6 +534,7 @@ class TestThread extends Thread {
 
     private final TestResults testResults;
     private boolean wasFailed;
+    private boolean wasTimedOut;
     private String failedReason;
 
     /**
@@ -265,33 +548,35 @@ class TestThread extends Thread {
     }
 
     @Override
-    public void testStarted(Description description) {
+    public void testStarted(Description description) throws IOException {
       jacocoRuntimeData.reset();
       wasFailed = false;
+      wasTimedOut = false;
       failedReason = null;
+      Thread.interrupted(); // 監視スレッドによる以前の割り込みを持ち越さない
+      currentTestStartedNanos = System.nanoTime();
+      currentTest = description;
+      if (null != progressListener) {
+        progressListener.testStarted(getTestMethodName(description));
+      }
     }
 
     @Override
     public void testFailure(Failure failure) {
       wasFailed = true;
+      wasTimedOut = failure.getException() instanceof TestTimedOutException;
       failedReason = failure.getException()
           .getMessage();
     }
 
     @Override
     public void testFinished(Description description) throws IOException {
-      collectRuntimeData(description);
-    }
-
-    /**
-     * Descriptionから実行したテストメソッドのFQNを取り出す．
-     *
-     * @param description
-     * @return
-     */
-    private FullyQualifiedName getTestMethodName(Description description) {
-      return new TestFullyQualifiedName(description.getTestClass()
-          .getName() + "." + description.getMethodName());
+      if (plan.measuresCoverage()) {
+        collectRuntimeData(description);
+        return;
+      }
+      // カバレッジを計測しない場合はテストの成否のみを記録する
+      addTestResult(description, Collections.emptyMap());
     }
 
     /**
@@ -331,9 +616,12 @@ class TestThread extends Thread {
         final String strFqn = data.getName()
             .replace("/", ".");
         final FullyQualifiedName fqn = new TargetFullyQualifiedName(strFqn);
-        final byte[] bytecode = buildResults.binaryStore.get(fqn)
-            .getByteCode();
-        analyzer.analyzeClass(bytecode, "");
+        final JavaBinaryObject binary = buildResults.binaryStore.get(fqn);
+        if (null == binary) {
+          // 以前のテスト実行で生き残ったスレッドが，今回存在しないクラスを実行した場合
+          continue;
+        }
+        analyzer.analyzeClass(binary.getByteCode(), "");
       }
     }
 
@@ -344,18 +632,63 @@ class TestThread extends Thread {
      * @param description テストの実行情報
      */
     private void addJacocoCoverageToTestResults(final CoverageBuilder coverageBuilder,
-        final Description description) {
-      final FullyQualifiedName testMethodFQN = getTestMethodName(description);
-
+        final Description description) throws IOException {
       final Map<FullyQualifiedName, Coverage> coverages = coverageBuilder.getClasses()
           .stream()
           .map(RawCoverage::new)
           .collect(Collectors.toMap(Coverage::getExecutedTargetFQN, Functions.identity()));
+      addTestResult(description, coverages);
+    }
 
-      final TestResult testResult = new TestResult(testMethodFQN, wasFailed, failedReason,
-          coverages);
-      testResults.add(testResult);
+    private void addTestResult(final Description description,
+        final Map<FullyQualifiedName, Coverage> coverages) throws IOException {
+      final FullyQualifiedName testMethodFQN = getTestMethodName(description);
+      // 監視スレッドにより中断された場合もタイムアウトとして扱う
+      final boolean timedOut = wasTimedOut || description.equals(timedOutTest);
+      final TestResult testResult = new TestResult(testMethodFQN, wasFailed || timedOut,
+          failedReason, coverages, false, timedOut);
+      final boolean recorded;
+      synchronized (recordLock) {
+        currentTest = null;
+        recorded = !abandoned;
+        if (recorded) {
+          testResults.add(testResult);
+        }
+      }
+      if (recorded && null != progressListener) {
+        progressListener.testRecorded(testResult);
+      }
     }
   }
 
+  /**
+   * テストの実行状況の通知を受け取るリスナー．<br>
+   * {@link ForkedTestWorker}が，子プロセスが異常終了した場合にも途中までのテスト結果を親プロセスに残すために用いる．<br>
+   */
+  interface ProgressListener {
+
+    /**
+     * 実行予定のテストメソッドが確定した時点で呼ばれる．
+     *
+     * @param testMethodNames 実行予定のテストメソッドのFQN
+     * @throws IOException
+     */
+    void testsPlanned(List<FullyQualifiedName> testMethodNames) throws IOException;
+
+    /**
+     * テストメソッドの実行を開始する時点で呼ばれる．
+     *
+     * @param testMethodName 実行するテストメソッドのFQN
+     * @throws IOException
+     */
+    void testStarted(FullyQualifiedName testMethodName) throws IOException;
+
+    /**
+     * テストメソッドの結果を記録した時点で呼ばれる．
+     *
+     * @param testResult 記録したテスト結果
+     * @throws IOException
+     */
+    void testRecorded(TestResult testResult) throws IOException;
+  }
 }
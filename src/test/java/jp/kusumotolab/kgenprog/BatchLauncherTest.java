@@ -0,0 +1,74 @@
+package jp.kusumotolab.kgenprog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kohsuke.args4j.CmdLineParser;
+
+public class BatchLauncherTest {
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private BatchLauncher createLauncher(final String... args) throws Exception {
+    final BatchLauncher launcher = new BatchLauncher();
+    new CmdLineParser(launcher).parseArgument(args);
+    return launcher;
+  }
+
+  @Test
+  public void testCreateRunsWithSeedRange() throws Exception {
+    final Path outDir = tempFolder.getRoot()
+        .toPath();
+    final BatchLauncher launcher = createLauncher("--batch-seeds", "3-5", "--batch-out-dir",
+        outDir.toString(), "--", "-r", "example/BuildSuccess01", "-s",
+        "example/BuildSuccess01/src/example/Foo.java", "-t",
+        "example/BuildSuccess01/src/example/FooTest.java");
+
+    final List<BatchLauncher.Run> runs = launcher.createRuns();
+
+    assertThat(runs).extracting(r -> r.name)
+        .containsExactly("0000-seed3", "0001-seed4", "0002-seed5");
+    assertThat(runs).extracting(r -> r.config.getRandomSeed())
+        .containsExactly(3L, 4L, 5L);
+    assertThat(runs).extracting(r -> r.config.getOutDir())
+        .containsExactly(outDir.resolve("0000-seed3"), outDir.resolve("0001-seed4"),
+            outDir.resolve("0002-seed5"));
+
+    // キャッシュディレクトリは全ての実行で共有する
+    assertThat(runs).extracting(r -> r.config.getCacheDir())
+        .containsOnly(outDir.resolve("cache"));
+  }
+
+  @Test
+  public void testCreateRunsWithConfigs() throws Exception {
+    final Path outDir = tempFolder.getRoot()
+        .toPath();
+    final Path config = Paths.get("example/CloseToZero01/kgenprog.toml");
+    final BatchLauncher launcher = createLauncher("--batch-config", config.toString(),
+        "--batch-seeds", "0-1", "--batch-out-dir", outDir.toString(), "--", "--cache-dir",
+        outDir.resolve("shared")
+            .toString());
+
+    final List<BatchLauncher.Run> runs = launcher.createRuns();
+
+    assertThat(runs).extracting(r -> r.name)
+        .containsExactly("0000-kgenprog-seed0", "0001-kgenprog-seed1");
+    assertThat(runs).extracting(r -> r.config.getCacheDir())
+        .containsOnly(outDir.resolve("shared"));
+  }
+
+  @Test
+  public void testCreateRunsWithInvalidSeedRange() throws Exception {
+    final BatchLauncher launcher = createLauncher("--batch-seeds", "5-3", "--", "-r",
+        "example/BuildSuccess01", "-s", "example/BuildSuccess01/src/example/Foo.java", "-t",
+        "example/BuildSuccess01/src/example/FooTest.java");
+
+    assertThatThrownBy(launcher::createRuns).isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -23,6 +23,9 @@ import jp.kusumotolab.kgenprog.ga.mutation.Scope;
 import jp.kusumotolab.kgenprog.project.factory.JUnitLibraryResolver.JUnitVersion;
 import jp.kusumotolab.kgenprog.project.factory.TargetProject;
 import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.project.jdt.DigestStrategy;
+import jp.kusumotolab.kgenprog.project.test.CoveragePolicy;
+import jp.kusumotolab.kgenprog.project.test.TestExecutor;
 
 public class ConfigurationBuilderTest {
 
@@ -2943,5 +2946,452 @@ public class ConfigurationBuilderTest {
         testPaths, Collections.emptyList(), JUnitVersion.JUNIT4);
     assertThat(config.getTargetProject()).isEqualTo(expectedProject);
   }
+  @Test
+  public void testBuildWithTestThreads() {
+    final int testThreads = 4;
+    final Builder builder =
+        new Builder(rootDir, productPaths, testPaths).setTestThreads(testThreads);
+    final Configuration config = builder.build();
+
+    assertThat(config.getTestThreads()).isEqualTo(testThreads);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithTestThreads() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--test-threads", "8"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getTestThreads()).isEqualTo(8);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithNonPositiveTestThreads() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--test-threads", "0"};
+
+    assertThatThrownBy(() -> Builder.buildFromCmdLineArgs(args))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("test-threads must be positive: 0");
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithTestThreads() {
+    final Path configPath = rootDir.resolve("withTestThreads.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getTestThreads()).isEqualTo(4);
+  }
+
+  @Test
+  public void testBuildWithDefaultTestThreads() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.getTestThreads()).isEqualTo(Configuration.DEFAULT_TEST_THREADS);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithForkedTestExecutor() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--test-executor", "Forked", "--worker-recycle-count", "5",
+        "--worker-timeout", "30"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getTestExecutorType()).isEqualTo(TestExecutor.Type.Forked);
+    assertThat(config.getWorkerRecycleCount()).isEqualTo(5);
+    assertThat(config.getWorkerTimeout()).isEqualTo(Duration.ofSeconds(30));
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithNonPositiveWorkerTimeout() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--worker-timeout", "0"};
+
+    assertThatThrownBy(() -> Builder.buildFromCmdLineArgs(args))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("worker-timeout must be positive: 0");
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithNonPositiveWorkerRecycleCount() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--worker-recycle-count", "-1"};
+
+    assertThatThrownBy(() -> Builder.buildFromCmdLineArgs(args))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("worker-recycle-count must be positive: -1");
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithForkedTestExecutor() {
+    final Path configPath = rootDir.resolve("withForkedTestExecutor.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getTestExecutorType()).isEqualTo(TestExecutor.Type.Forked);
+    assertThat(config.getWorkerRecycleCount()).isEqualTo(10);
+    assertThat(config.getWorkerTimeout()).isEqualTo(Duration.ofSeconds(30));
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithWorkerTimeoutOverwrittenFromCmdLineArgs() {
+    final Path configPath = rootDir.resolve("withForkedTestExecutor.toml");
+    final String[] args = {"--config", configPath.toString(), "--worker-timeout", "60"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getTestExecutorType()).isEqualTo(TestExecutor.Type.Forked);
+    assertThat(config.getWorkerTimeout()).isEqualTo(Duration.ofSeconds(60));
+  }
+
+  @Test
+  public void testBuildWithDefaultTestExecutor() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.getTestExecutorType()).isEqualTo(
+        Configuration.DEFAULT_TEST_EXECUTOR_TYPE);
+    assertThat(config.getWorkerRecycleCount()).isEqualTo(
+        Configuration.DEFAULT_WORKER_RECYCLE_COUNT);
+    assertThat(config.getWorkerTimeout()).isEqualTo(Configuration.DEFAULT_WORKER_TIMEOUT);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithTestSelection() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--test-selection"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isTestSelection()).isTrue();
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithTestSelection() {
+    final Path configPath = rootDir.resolve("withTestSelection.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isTestSelection()).isTrue();
+  }
+
+  @Test
+  public void testBuildWithDefaultTestSelection() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.isTestSelection()).isEqualTo(Configuration.DEFAULT_TEST_SELECTION);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithTestPrioritizationAndEarlyAbort() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--test-prioritization", "--early-abort"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isTestPrioritization()).isTrue();
+    assertThat(config.isEarlyAbort()).isTrue();
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithTestPrioritizationAndEarlyAbort() {
+    final Path configPath = rootDir.resolve("withTestPrioritizationAndEarlyAbort.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isTestPrioritization()).isTrue();
+    assertThat(config.isEarlyAbort()).isTrue();
+  }
+
+  @Test
+  public void testBuildWithDefaultTestPrioritizationAndEarlyAbort() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.isTestPrioritization()).isEqualTo(
+        Configuration.DEFAULT_TEST_PRIORITIZATION);
+    assertThat(config.isEarlyAbort()).isEqualTo(Configuration.DEFAULT_EARLY_ABORT);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithCoveragePolicy() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--coverage-policy", "OnDemand"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getCoveragePolicy()).isEqualTo(CoveragePolicy.OnDemand);
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithCoveragePolicy() {
+    final Path configPath = rootDir.resolve("withCoveragePolicy.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getCoveragePolicy()).isEqualTo(CoveragePolicy.InitialOnly);
+  }
+
+  @Test
+  public void testBuildWithDefaultCoveragePolicy() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.getCoveragePolicy()).isEqualTo(Configuration.DEFAULT_COVERAGE_POLICY);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithIncrementalFaultLocalization() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--incremental-fault-localization"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isIncrementalFaultLocalization()).isTrue();
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithIncrementalFaultLocalization() {
+    final Path configPath = rootDir.resolve("withIncrementalFaultLocalization.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isIncrementalFaultLocalization()).isTrue();
+  }
+
+  @Test
+  public void testBuildWithDefaultIncrementalFaultLocalization() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.isIncrementalFaultLocalization()).isEqualTo(
+        Configuration.DEFAULT_INCREMENTAL_FAULT_LOCALIZATION);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithSourceCacheSize() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--source-cache-size", "100"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getSourceCacheSize()).isEqualTo(100);
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithSourceCacheSize() {
+    final Path configPath = rootDir.resolve("withSourceCacheSize.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getSourceCacheSize()).isEqualTo(100);
+  }
+
+  @Test
+  public void testBuildWithDefaultSourceCacheSize() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.getSourceCacheSize()).isEqualTo(Configuration.DEFAULT_SOURCE_CACHE_SIZE);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithDigestStrategy() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--digest-strategy", "TokenMurmur3"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getDigestStrategy()).isEqualTo(DigestStrategy.TokenMurmur3);
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithDigestStrategy() {
+    final Path configPath = rootDir.resolve("withDigestStrategy.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getDigestStrategy()).isEqualTo(DigestStrategy.TokenMurmur3);
+  }
+
+  @Test
+  public void testBuildWithDefaultDigestStrategy() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.getDigestStrategy()).isEqualTo(Configuration.DEFAULT_DIGEST_STRATEGY);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithNormalizedDuplicateDetection() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--normalized-duplicate-detection"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isNormalizedDuplicateDetection()).isTrue();
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithNormalizedDuplicateDetection() {
+    final Path configPath = rootDir.resolve("withNormalizedDuplicateDetection.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isNormalizedDuplicateDetection()).isTrue();
+  }
+
+  @Test
+  public void testBuildWithDefaultNormalizedDuplicateDetection() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.isNormalizedDuplicateDetection()).isEqualTo(
+        Configuration.DEFAULT_NORMALIZED_DUPLICATE_DETECTION);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithReproducedRegistrySize() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--reproduced-registry-size", "100000"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getReproducedRegistrySize()).isEqualTo(100000);
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithReproducedRegistrySize() {
+    final Path configPath = rootDir.resolve("withReproducedRegistrySize.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getReproducedRegistrySize()).isEqualTo(100000);
+  }
+
+  @Test
+  public void testBuildWithDefaultReproducedRegistrySize() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.getReproducedRegistrySize()).isEqualTo(
+        Configuration.DEFAULT_REPRODUCED_REGISTRY_SIZE);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithCacheDir() {
+    final Path cacheDir = rootDir.resolve("cache");
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--cache-dir", cacheDir.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getCacheDir()).isEqualTo(cacheDir);
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithCacheDir() {
+    final Path configPath = rootDir.resolve("withCacheDir.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    // 設定ファイルのディレクトリを基準に解決される
+    final Path cacheDir = rootDir.resolve("cache");
+    assertThat(config.getCacheDir()).isEqualTo(cacheDir);
+  }
+
+  @Test
+  public void testBuildWithDefaultCacheDir() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.getCacheDir()).isNull();
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithDependencyAwareBuild() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--dependency-aware-build"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isDependencyAwareBuild()).isTrue();
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithDependencyAwareBuild() {
+    final Path configPath = rootDir.resolve("withDependencyAwareBuild.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isDependencyAwareBuild()).isTrue();
+  }
+
+  @Test
+  public void testBuildWithDefaultDependencyAwareBuild() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.isDependencyAwareBuild()).isEqualTo(
+        Configuration.DEFAULT_DEPENDENCY_AWARE_BUILD);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithBuildCacheEviction() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--build-cache-eviction"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isBuildCacheEviction()).isTrue();
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithBuildCacheEviction() {
+    final Path configPath = rootDir.resolve("withBuildCacheEviction.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isBuildCacheEviction()).isTrue();
+  }
+
+  @Test
+  public void testBuildWithDefaultBuildCacheEviction() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.isBuildCacheEviction()).isEqualTo(
+        Configuration.DEFAULT_BUILD_CACHE_EVICTION);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithClassLoaderReuse() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--class-loader-reuse"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isClassLoaderReuse()).isTrue();
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithClassLoaderReuse() {
+    final Path configPath = rootDir.resolve("withClassLoaderReuse.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.isClassLoaderReuse()).isTrue();
+  }
+
+  @Test
+  public void testBuildWithDefaultClassLoaderReuse() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.isClassLoaderReuse()).isEqualTo(
+        Configuration.DEFAULT_CLASS_LOADER_REUSE);
+  }
+
+  @Test
+  public void testBuildFromCmdLineArgsWithVariantTimeLimit() {
+    final String[] args = {"-r", rootDir.toString(), "-s", productPath.toString(), "-t",
+        testPath.toString(), "--variant-time-limit", "30"};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getVariantTimeLimit()).isEqualTo(Duration.ofSeconds(30));
+  }
+
+  @Test
+  public void testBuildFromConfigFileWithVariantTimeLimit() {
+    final Path configPath = rootDir.resolve("withVariantTimeLimit.toml");
+    final String[] args = {"--config", configPath.toString()};
+    final Configuration config = Builder.buildFromCmdLineArgs(args);
+
+    assertThat(config.getVariantTimeLimit()).isEqualTo(Duration.ofSeconds(30));
+  }
+
+  @Test
+  public void testBuildWithDefaultVariantTimeLimit() {
+    final Configuration config = new Builder(rootDir, productPaths, testPaths).build();
+
+    assertThat(config.getVariantTimeLimit()).isEqualTo(Configuration.DEFAULT_VARIANT_TIME_LIMIT);
+  }
+
   // todo: 引数がなかった場合の挙動を確かめるために，カレントディレクトリを変更した上でテスト実行
 }
@@ -0,0 +1,109 @@
+package jp.kusumotolab.kgenprog.fl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.project.jdt.GeneratedJDTAST;
+import jp.kusumotolab.kgenprog.project.test.TestResults;
+import jp.kusumotolab.kgenprog.testutil.ExampleAlias.Src;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+/**
+ * IncrementalFaultLocalizationに関するテストクラス.
+ */
+public class IncrementalFaultLocalizationTest {
+
+  private GeneratedSourceCode parentSource;
+  private TestResults testResults;
+
+  @Before
+  public void setup() {
+    final Path rootPath = Paths.get("example/BuildSuccess02");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final Variant initialVariant = TestUtil.createVariant(config);
+    parentSource = initialVariant.getGeneratedSourceCode();
+    testResults = initialVariant.getTestResults();
+  }
+
+  /**
+   * 親個体から変化がない場合，全てのソースファイルの計算結果を再利用することを確認する.
+   */
+  @Test
+  public void testReuseAllSegments() {
+    final Ample ample = new Ample();
+    final GeneratedSourceCode childSource =
+        new GeneratedSourceCode(parentSource.getProductAsts(), parentSource.getTestAsts());
+
+    final Spectrum parent = ample.createSpectrum(parentSource, testResults, null);
+    final Spectrum child = ample.createSpectrum(childSource, testResults, parent);
+
+    assertThat(parent.getReusedSegmentsSize()).isEqualTo(0);
+    assertThat(child.getReusedSegmentsSize()).isEqualTo(2);
+    assertThat(extractValues(ample.exec(child))).isEqualTo(extractValues(ample.exec(parent)));
+  }
+
+  /**
+   * 書き換えられたソースファイルのみ計算し直し，結果は全て計算した場合と一致することを確認する.
+   */
+  @Test
+  public void testRecomputeModifiedSegment() {
+    final Ample ample = new Ample();
+    final GeneratedSourceCode childSource = modifyBar(parentSource);
+
+    final Spectrum parent = ample.createSpectrum(parentSource, testResults, null);
+    final Spectrum child = ample.createSpectrum(childSource, testResults, parent);
+
+    assertThat(child.getReusedSegmentsSize()).isEqualTo(1);
+    assertThat(extractValues(ample.exec(child)))
+        .isEqualTo(extractValues(ample.exec(childSource, testResults)));
+  }
+
+  /**
+   * 親個体のソースコードを与えた場合も，与えなかった場合と同じ疑惑値が得られることを確認する.
+   */
+  @Test
+  public void testExecWithParent() {
+    final FaultLocalization fl = new IncrementalFaultLocalization(new Ochiai());
+    final GeneratedSourceCode childSource = modifyBar(parentSource);
+
+    fl.exec(parentSource, testResults);
+    final List<Suspiciousness> suspiciousnesses = fl.exec(childSource, testResults, parentSource);
+
+    assertThat(extractValues(suspiciousnesses))
+        .isEqualTo(extractValues(new Ochiai().exec(childSource, testResults)));
+  }
+
+  private GeneratedSourceCode modifyBar(final GeneratedSourceCode source) {
+    final List<GeneratedAST<ProductSourcePath>> productAsts = new ArrayList<>();
+    for (final GeneratedAST<ProductSourcePath> ast : source.getProductAsts()) {
+      if (!ast.getSourcePath().path.endsWith(Src.BAR)) {
+        productAsts.add(ast);
+        continue;
+      }
+      // 行番号が変わらないよう，末尾にコメントを足す
+      final GeneratedJDTAST<ProductSourcePath> jdtAst = (GeneratedJDTAST<ProductSourcePath>) ast;
+      productAsts.add(jdtAst.getConstruction()
+          .constructAST(ast.getSourcePath(), ast.getSourceCode() + "// modified\n"));
+    }
+    return new GeneratedSourceCode(productAsts, source.getTestAsts());
+  }
+
+  private List<Double> extractValues(final List<Suspiciousness> suspiciousnesses) {
+    return suspiciousnesses.stream()
+        .map(Suspiciousness::getValue)
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,67 @@
+package jp.kusumotolab.kgenprog.fl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+/**
+ * Spectrumに関するテストクラス.
+ */
+public class SpectrumTest {
+
+  /**
+   * 1つのスペクトラムから複数のFL戦略を評価した結果が，個別に実行した結果と一致することを確認する.
+   */
+  @Test
+  public void testEvaluateMultipleFormulas() {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final Variant initialVariant = TestUtil.createVariant(config);
+
+    final Ochiai ochiai = new Ochiai();
+    final Ample ample = new Ample();
+    final Spectrum spectrum = Spectrum.create(initialVariant.getGeneratedSourceCode(),
+        initialVariant.getTestResults(), Arrays.asList(ochiai, ample));
+
+    assertThat(extractValues(ochiai.exec(spectrum))).isEqualTo(extractValues(ochiai.exec(
+        initialVariant.getGeneratedSourceCode(), initialVariant.getTestResults())));
+    assertThat(extractValues(ample.exec(spectrum))).isEqualTo(extractValues(ample.exec(
+        initialVariant.getGeneratedSourceCode(), initialVariant.getTestResults())));
+  }
+
+  /**
+   * ef=0 の文を省略できるFL戦略のみの場合，スペクトラムに含まれる文が減ることを確認する.
+   */
+  @Test
+  public void testCreateSkippingUnexecutedClasses() {
+    final Path rootPath = Paths.get("example/BuildSuccess02");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final Variant initialVariant = TestUtil.createVariant(config);
+
+    final Spectrum fullSpectrum = Spectrum.create(initialVariant.getGeneratedSourceCode(),
+        initialVariant.getTestResults(), Arrays.asList(new Ochiai(), new Ample()));
+    final Spectrum skippedSpectrum = Spectrum.create(initialVariant.getGeneratedSourceCode(),
+        initialVariant.getTestResults(), Arrays.asList(new Ochiai()));
+
+    assertThat(skippedSpectrum.size()).isLessThan(fullSpectrum.size());
+    assertThat(extractValues(new Ochiai().exec(skippedSpectrum)))
+        .isEqualTo(extractValues(new Ochiai().exec(fullSpectrum)));
+  }
+
+  private List<Double> extractValues(final List<Suspiciousness> suspiciousnesses) {
+    return suspiciousnesses.stream()
+        .map(Suspiciousness::getValue)
+        .collect(Collectors.toList());
+  }
+}
@@ -16,6 +16,7 @@ import jp.kusumotolab.kgenprog.ga.variant.VariantStore;
 import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
 import jp.kusumotolab.kgenprog.project.GenerationFailedSourceCode;
 import jp.kusumotolab.kgenprog.project.NoneOperation;
+import jp.kusumotolab.kgenprog.project.Operation;
 import jp.kusumotolab.kgenprog.project.ReproducedSourceCode;
 import jp.kusumotolab.kgenprog.project.factory.TargetProject;
 import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
@@ -105,6 +106,56 @@ public class DefaultSourceCodeGenerationTest {
     }
   }
 
+  @Test
+  public void testExecWithSourceCache() {
+    final Path rootDir = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootDir);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final VariantStore variantStore = TestUtil.createVariantStoreWithDefaultStrategies(config);
+    final List<GeneratedSourceCode> appliedSourceCodes = new ArrayList<>();
+    final Operation operation = (sourceCode, location) -> {
+      appliedSourceCodes.add(sourceCode);
+      return new GeneratedSourceCode(sourceCode.getProductAsts(), sourceCode.getTestAsts());
+    };
+    final Base parentBase = new Base(null, operation);
+    final Base childBase = new Base(null, operation);
+    final DefaultSourceCodeGeneration sourceCodeGeneration = new DefaultSourceCodeGeneration(10);
+
+    final GeneratedSourceCode parentSourceCode =
+        sourceCodeGeneration.exec(variantStore, new Gene(Arrays.asList(parentBase)));
+    appliedSourceCodes.clear();
+    sourceCodeGeneration.exec(variantStore, new Gene(Arrays.asList(parentBase, childBase)));
+
+    // 親個体のソースコードに対して，追加された Base のみが適用されるはず
+    assertThat(appliedSourceCodes).hasSize(1);
+    assertThat(appliedSourceCodes.get(0)).isSameAs(parentSourceCode);
+  }
+
+  @Test
+  public void testExecWithoutSourceCache() {
+    final Path rootDir = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootDir);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final VariantStore variantStore = TestUtil.createVariantStoreWithDefaultStrategies(config);
+    final List<GeneratedSourceCode> appliedSourceCodes = new ArrayList<>();
+    final Operation operation = (sourceCode, location) -> {
+      appliedSourceCodes.add(sourceCode);
+      return new GeneratedSourceCode(sourceCode.getProductAsts(), sourceCode.getTestAsts());
+    };
+    final Base parentBase = new Base(null, operation);
+    final Base childBase = new Base(null, operation);
+    final DefaultSourceCodeGeneration sourceCodeGeneration = new DefaultSourceCodeGeneration();
+
+    sourceCodeGeneration.exec(variantStore, new Gene(Arrays.asList(parentBase)));
+    appliedSourceCodes.clear();
+    sourceCodeGeneration.exec(variantStore, new Gene(Arrays.asList(parentBase, childBase)));
+
+    // キャッシュしない場合は初期個体から全ての Base が適用されるはず
+    assertThat(appliedSourceCodes).hasSize(2);
+    assertThat(appliedSourceCodes.get(0)).isSameAs(variantStore.getInitialVariant()
+        .getGeneratedSourceCode());
+  }
+
   // TODO: None以外のOperationでテストする必要有り
 
 }
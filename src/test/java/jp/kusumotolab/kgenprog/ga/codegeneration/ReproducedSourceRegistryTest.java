@@ -0,0 +1,72 @@
+package jp.kusumotolab.kgenprog.ga.codegeneration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.Test;
+
+public class ReproducedSourceRegistryTest {
+
+  private static String digest(final int value) {
+    return String.format("%032x", value * 0x9E3779B97F4A7C15L);
+  }
+
+  @Test
+  public void testFind() {
+    final ReproducedSourceRegistry registry = new ReproducedSourceRegistry();
+    registry.put("6547436690a26a399603a7096e876a2d", true, "Generate Success");
+    registry.put("failed", false, "Syntax error");
+
+    final ReproducedStatus status1 = registry.find("6547436690a26a399603a7096e876a2d");
+    assertThat(status1.isGenerationSuccess).isTrue();
+    assertThat(status1.generationMessage).isEqualTo("Generate Success");
+    assertThat(status1.count()).isEqualTo(1);
+
+    // 重複回数は呼び出しをまたいで数えられる
+    final ReproducedStatus status2 = registry.find("6547436690a26a399603a7096e876a2d");
+    assertThat(status2.count()).isEqualTo(2);
+
+    // 16進文字列でないダイジェストも扱える
+    final ReproducedStatus status3 = registry.find("failed");
+    assertThat(status3.isGenerationSuccess).isFalse();
+    assertThat(status3.generationMessage).isEqualTo("Syntax error");
+
+    assertThat(registry.find("00000000000000000000000000000000")).isNull();
+    assertThat(registry.getHitCount()).isEqualTo(3);
+    assertThat(registry.getMissCount()).isEqualTo(1);
+    assertThat(registry.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void testFindWithManyDigests() {
+    final ReproducedSourceRegistry registry = new ReproducedSourceRegistry();
+    for (int i = 0; i < 10000; i++) {
+      registry.put(digest(i), true, "Generate Success");
+    }
+
+    assertThat(registry.size()).isEqualTo(10000);
+    for (int i = 0; i < 10000; i++) {
+      assertThat(registry.find(digest(i))).isNotNull();
+    }
+    assertThat(registry.find(digest(10000))).isNull();
+  }
+
+  @Test
+  public void testEviction() {
+    final ReproducedSourceRegistry registry = new ReproducedSourceRegistry(4);
+    registry.put(digest(0), true, "Generate Success");
+    registry.put(digest(1), true, "Generate Success");
+    registry.put(digest(2), true, "Generate Success");
+    registry.put(digest(3), true, "Generate Success");
+
+    // 古い世代で見つかったものは新しい世代に移る
+    assertThat(registry.find(digest(0))).isNotNull();
+
+    registry.put(digest(4), true, "Generate Success");
+    registry.put(digest(5), true, "Generate Success");
+
+    assertThat(registry.size()).isLessThanOrEqualTo(4);
+    assertThat(registry.getEvictedCount()).isPositive();
+    assertThat(registry.find(digest(0))).isNotNull();
+    assertThat(registry.find(digest(1))).isNull();
+    assertThat(registry.find(digest(5))).isNotNull();
+  }
+}
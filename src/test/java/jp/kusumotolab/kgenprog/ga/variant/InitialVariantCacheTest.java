@@ -0,0 +1,146 @@
+package jp.kusumotolab.kgenprog.ga.variant;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST03;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.fl.Ochiai;
+import jp.kusumotolab.kgenprog.fl.Suspiciousness;
+import jp.kusumotolab.kgenprog.project.ClassPath;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.project.test.EmptyTestResults;
+import jp.kusumotolab.kgenprog.project.test.LocalTestExecutor;
+import jp.kusumotolab.kgenprog.project.test.TestResults;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+public class InitialVariantCacheTest {
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private final Path rootPath = Paths.get("example/BuildSuccess01");
+  private final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+
+  private Configuration createConfiguration() {
+    return new Configuration.Builder(targetProject).setCacheDir(tempFolder.getRoot()
+        .toPath())
+        .build();
+  }
+
+  private TestResults execTests(final Configuration config, final GeneratedSourceCode source) {
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+    return new LocalTestExecutor(config).exec(variant);
+  }
+
+  @Test
+  // 保存したテスト結果を，別に構築した同一のソースコードから読み込めるか
+  public void testSaveAndLoadTestResults() {
+    final Configuration config = createConfiguration();
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final InitialVariantCache cache = new InitialVariantCache(config);
+    assertThat(cache.loadTestResults(source, true)).isNull();
+
+    final TestResults original = execTests(config, source);
+    cache.saveTestResults(source, true, original);
+
+    final GeneratedSourceCode anotherSource = TestUtil.createGeneratedSourceCode(targetProject);
+    final TestResults restored = new InitialVariantCache(config).loadTestResults(anotherSource,
+        true);
+    assertThat(restored.getExecutedTestFQNs()).isEqualTo(original.getExecutedTestFQNs());
+    assertThat(restored.getTestResult(FOO_TEST03).failed).isTrue();
+    assertThat(restored.getBuildResults().binaryStore.getAll()).hasSameSizeAs(
+        original.getBuildResults().binaryStore.getAll());
+    assertThat(restored.getTestResult(FOO_TEST01)
+        .getCoverages(FOO)
+        .toString()).isEqualTo(original.getTestResult(FOO_TEST01)
+            .getCoverages(FOO)
+            .toString());
+
+    // カバレッジの有無が異なるテスト結果は再利用しない
+    assertThat(cache.loadTestResults(anotherSource, false)).isNull();
+  }
+
+  @Test
+  // クラスパスのディレクトリ配下のファイルが書き換えられた場合は，保存したテスト結果を再利用しない
+  public void testLoadTestResultsAfterClassPathChanged() throws IOException {
+    final Path classPathDir = tempFolder.newFolder("lib")
+        .toPath();
+    final Path classFile = classPathDir.resolve("example/Lib.class");
+    Files.createDirectories(classFile.getParent());
+    Files.write(classFile, new byte[] {1});
+
+    final List<ClassPath> classPaths = new ArrayList<>(targetProject.getClassPaths());
+    classPaths.add(new ClassPath(classPathDir));
+    final TargetProject project = TargetProjectFactory.create(rootPath,
+        targetProject.getProductSourcePaths(), targetProject.getTestSourcePaths(), classPaths);
+    final Configuration config = new Configuration.Builder(project).setCacheDir(
+        tempFolder.newFolder("cache")
+            .toPath())
+        .build();
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(project);
+    new InitialVariantCache(config).saveTestResults(source, true, execTests(config, source));
+    assertThat(new InitialVariantCache(config).loadTestResults(source, true)).isNotNull();
+
+    // 直下のエントリは変わらないため，ディレクトリの更新時刻は変わらない
+    Files.write(classFile, new byte[] {2});
+    assertThat(new InitialVariantCache(config).loadTestResults(source, true)).isNull();
+  }
+
+  @Test
+  // 空のテスト結果は保存しない
+  public void testSaveEmptyTestResults() {
+    final Configuration config = createConfiguration();
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final InitialVariantCache cache = new InitialVariantCache(config);
+
+    cache.saveTestResults(source, true, new EmptyTestResults("build failed."));
+
+    assertThat(cache.loadTestResults(source, true)).isNull();
+  }
+
+  @Test
+  // 保存した疑惑値を，別に構築した同一のソースコードのLocationとして読み込めるか
+  public void testSaveAndLoadSuspiciousnesses() {
+    final Configuration config = createConfiguration();
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final InitialVariantCache cache = new InitialVariantCache(config);
+    assertThat(cache.loadSuspiciousnesses(source)).isNull();
+
+    final List<Suspiciousness> original = new Ochiai().exec(source, execTests(config, source));
+    cache.saveSuspiciousnesses(source, original);
+
+    final GeneratedSourceCode anotherSource = TestUtil.createGeneratedSourceCode(targetProject);
+    final List<Suspiciousness> restored = cache.loadSuspiciousnesses(anotherSource);
+    assertThat(restored).hasSameSizeAs(original);
+    for (int i = 0; i < original.size(); i++) {
+      assertThat(restored.get(i)
+          .getValue()).isEqualTo(original.get(i)
+              .getValue());
+      assertThat(restored.get(i)
+          .getLocation()
+          .inferLineNumbers()).isEqualTo(original.get(i)
+              .getLocation()
+              .inferLineNumbers());
+      assertThat(restored.get(i)
+          .getLocation()
+          .getGeneratedAST()).isSameAs(anotherSource.getProductAst(original.get(i)
+              .getLocation()
+              .getSourcePath()));
+    }
+  }
+}
@@ -197,6 +197,7 @@ public class VariantStoreTest {
     when(config.getTargetProject()).thenReturn(project);
     when(config.getTimeLimitSeconds())
         .thenReturn(Configuration.DEFAULT_TEST_TIME_LIMIT.getSeconds());
+    when(config.getCoveragePolicy()).thenReturn(Configuration.DEFAULT_COVERAGE_POLICY);
 
     return config;
   }
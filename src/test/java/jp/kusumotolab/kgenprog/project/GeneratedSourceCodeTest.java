@@ -58,7 +58,7 @@ public class GeneratedSourceCodeTest {
     final GeneratedSourceCode g =
         new GeneratedSourceCode(Arrays.asList(ast1, ast2), Collections.emptyList());
 
-    assertThat(g.getMessageDigest()).isEqualTo("6547436690a26a399603a7096e876a2d");
+    assertThat(g.getMessageDigest()).isEqualTo("0e06fef31810b3b93ee1210c8171e346");
   }
 
   @Test
@@ -78,4 +78,36 @@ public class GeneratedSourceCodeTest {
     assertThat(g1.getMessageDigest()).isEqualTo(g2.getMessageDigest());
   }
 
+  @Test
+  public void testReplaceProductAst() {
+    final ProductSourcePath p1 = new ProductSourcePath(Paths.get("."), Paths.get("a"));
+    final ProductSourcePath p2 = new ProductSourcePath(Paths.get("."), Paths.get("b"));
+    final ProductSourcePath p3 = new ProductSourcePath(Paths.get("."), Paths.get("c"));
+    final GeneratedAST<ProductSourcePath> ast1 = new GeneratedASTMock(p1, "aaa");
+    final GeneratedAST<ProductSourcePath> ast2 = new GeneratedASTMock(p2, "bbb");
+    final GeneratedAST<ProductSourcePath> ast3 = new GeneratedASTMock(p3, "ccc");
+    final GeneratedAST<ProductSourcePath> newAst2 = new GeneratedASTMock(p2, "xxx");
+
+    final GeneratedSourceCode original =
+        new GeneratedSourceCode(Arrays.asList(ast1, ast2, ast3), Collections.emptyList());
+    final GeneratedSourceCode replaced = original.replaceProductAst(newAst2);
+
+    // 置き換えたASTのみが変わり，順序とその他のASTの参照は維持される
+    assertThat(replaced.getProductAsts()).containsExactly(ast1, newAst2, ast3);
+    assertThat(replaced.getProductAst(p2)).isSameAs(newAst2);
+    assertThat(original.getProductAsts()).containsExactly(ast1, ast2, ast3);
+    assertThat(original.getProductAst(p2)).isSameAs(ast2);
+
+    // 差分で更新したダイジェストは，全体から計算し直したものと一致する
+    final GeneratedSourceCode rebuilt =
+        new GeneratedSourceCode(Arrays.asList(ast1, newAst2, ast3), Collections.emptyList());
+    assertThat(replaced.getMessageDigest()).isEqualTo(rebuilt.getMessageDigest())
+        .isEqualTo("85105552116633d5a5e1f7957bd3564e")
+        .isNotEqualTo(original.getMessageDigest());
+
+    // 元に戻せばダイジェストも元に戻る
+    assertThat(replaced.replaceProductAst(ast2)
+        .getMessageDigest()).isEqualTo(original.getMessageDigest());
+  }
+
 }
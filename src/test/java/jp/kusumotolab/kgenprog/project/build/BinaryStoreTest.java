@@ -9,6 +9,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -103,8 +104,34 @@ public class BinaryStoreTest {
     final JavaBinaryObject dummy = new JavaBinaryObject(fqn, fqn, "4444", null, false);
     binStore.add(dummy);
 
-    // o1とo2だけのはず（dummyは含まれない）
+    // サブパッケージのJMOバイナリを追加
+    final FullyQualifiedName subFqn = new TargetFullyQualifiedName("example.sub.Foo");
+    final JavaBinaryObject sub = new JavaBinaryObject(subFqn, subFqn, "5555", null, false);
+    binStore.add(sub);
+
+    // o1とo2だけのはず（dummyとsubは含まれない）
     assertThat(binStore.get("example")).containsExactlyInAnyOrder(object1, object2);
+    assertThat(binStore.get("example.sub")).containsExactly(sub);
+  }
+
+  @Test
+  // 指定したソースコード以外から生成されたバイナリが削除されるか
+  public void testRetainAll() {
+    binStore.add(object1);
+    binStore.add(object2);
+    binStore.add(object3);
+    binStore.add(object4);
+
+    when(ast1.getPrimaryClassName()).thenReturn(FOO);
+    when(ast3.getPrimaryClassName()).thenReturn(BAZ);
+    final int removedCount = binStore.retainAll(Arrays.asList(ast1, ast3));
+
+    assertThat(removedCount).isEqualTo(1);
+    assertThat(binStore.getAll()).containsExactlyInAnyOrder(object1, object3, object4);
+    assertThat(binStore.get(BAR, digest2)).isEmpty();
+    assertThat(binStore.get(BAR)).isNull();
+    assertThat(binStore.get(path2)).isEmpty();
+    assertThat(binStore.get("example")).containsExactlyInAnyOrder(object1, object3, object4);
   }
 
   @Test
@@ -0,0 +1,92 @@
+package jp.kusumotolab.kgenprog.project.build;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAZ;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.QUX;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.testutil.ExampleAlias.Src;
+
+public class BinaryStoreViewTest {
+
+  private BinaryStore binStore;
+  private ProductSourcePath fooPath;
+  private ProductSourcePath bazPath;
+  private JavaBinaryObject foo1;
+  private JavaBinaryObject foo2;
+  private JavaBinaryObject bar;
+  private JavaBinaryObject baz;
+  private JavaBinaryObject qux;
+
+  @Before
+  public void before() {
+    final Path root = Paths.get(".");
+    fooPath = new ProductSourcePath(root, Src.FOO);
+    final ProductSourcePath barPath = new ProductSourcePath(root, Src.BAR);
+    bazPath = new ProductSourcePath(root, Src.BAZ);
+
+    foo1 = new JavaBinaryObject(FOO, FOO, "1111", fooPath, false);
+    foo2 = new JavaBinaryObject(FOO, FOO, "2222", fooPath, false); // Fooの別バージョン
+    bar = new JavaBinaryObject(BAR, BAR, "3333", barPath, false);
+    baz = new JavaBinaryObject(BAZ, BAZ, "4444", bazPath, false);
+    qux = new JavaBinaryObject(QUX, BAZ, "4444", bazPath, false); // Bazの内部クラスを想定
+
+    binStore = new BinaryStore();
+    binStore.addAll(Arrays.asList(foo1, foo2, bar, baz, qux));
+  }
+
+  @SuppressWarnings("unchecked")
+  private GeneratedAST<ProductSourcePath> mockAst(final FullyQualifiedName fqn,
+      final String digest, final ProductSourcePath path) {
+    final GeneratedAST<ProductSourcePath> ast = mock(GeneratedAST.class);
+    when(ast.getPrimaryClassName()).thenReturn(fqn);
+    when(ast.getMessageDigest()).thenReturn(digest);
+    when(ast.getSourcePath()).thenReturn(path);
+    return ast;
+  }
+
+  @Test
+  // ビューに含まれるバイナリのみが取り出せるか
+  public void testGet() {
+    final BinaryStore view = new BinaryStoreView(binStore,
+        Arrays.asList(mockAst(FOO, "1111", fooPath), mockAst(BAZ, "4444", bazPath)));
+
+    assertThat(view.getAll()).containsExactlyInAnyOrder(foo1, baz, qux);
+
+    assertThat(view.get(FOO, "1111")).containsExactly(foo1);
+    assertThat(view.get(FOO, "2222")).isEmpty();
+    assertThat(view.exists(BAR, "3333")).isFalse();
+
+    // グローバルキャッシュに後から追加されたfoo2ではなくfoo1が返る
+    assertThat(view.get(FOO)).isSameAs(foo1);
+    assertThat(view.get(QUX)).isSameAs(qux);
+    assertThat(view.get(BAR)).isNull();
+
+    assertThat(view.get(fooPath)).containsExactly(foo1);
+    assertThat(view.get(bazPath)).containsExactlyInAnyOrder(baz, qux);
+
+    assertThat(view.get("example")).containsExactlyInAnyOrder(foo1, baz, qux);
+    assertThat(view.get("xxx")).isEmpty();
+  }
+
+  @Test
+  // ビューは変更できない
+  public void testImmutable() {
+    final BinaryStore view =
+        new BinaryStoreView(binStore, Arrays.asList(mockAst(FOO, "1111", fooPath)));
+
+    assertThatThrownBy(() -> view.add(bar)).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(view::removeAll).isInstanceOf(UnsupportedOperationException.class);
+  }
+}
@@ -0,0 +1,102 @@
+package jp.kusumotolab.kgenprog.project.build;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class BytecodeArenaTest {
+
+  private static byte[] toArray(final ByteBuffer buffer) {
+    final ByteBuffer duplicate = buffer.duplicate();
+    final byte[] bytes = new byte[duplicate.remaining()];
+    duplicate.get(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void testStore() {
+    final BytecodeArena arena = new BytecodeArena(8);
+
+    final ByteBuffer buffer1 = arena.store(new byte[] {1, 2, 3, 0}, 3);
+    final ByteBuffer buffer2 = arena.store(new byte[] {4, 5, 6}, 3);
+
+    assertThat(buffer1.isDirect()).isTrue();
+    assertThat(toArray(buffer1)).containsExactly(1, 2, 3);
+    assertThat(toArray(buffer2)).containsExactly(4, 5, 6);
+
+    // 2つとも1つ目のスラブに収まる
+    assertThat(arena.getAllocatedBytes()).isEqualTo(8);
+    assertThat(arena.getStoredBytes()).isEqualTo(6);
+
+    // 残り2バイトに収まらないので新たなスラブを確保する
+    final ByteBuffer buffer3 = arena.store(new byte[] {7, 8, 9}, 3);
+    assertThat(toArray(buffer3)).containsExactly(7, 8, 9);
+    assertThat(arena.getAllocatedBytes()).isEqualTo(16);
+
+    // スラブより大きなバイトコードは専用の領域に格納する
+    final ByteBuffer buffer4 = arena.store(new byte[10], 10);
+    assertThat(buffer4.remaining()).isEqualTo(10);
+    assertThat(arena.getAllocatedBytes()).isEqualTo(26);
+  }
+
+  @Test
+  public void testReadOnly() {
+    final BytecodeArena arena = new BytecodeArena(8);
+    final ByteBuffer buffer = arena.store(new byte[] {1, 2, 3}, 3);
+
+    assertThatThrownBy(() -> buffer.put((byte) 0)).isInstanceOf(ReadOnlyBufferException.class);
+  }
+
+  @Test
+  public void testSealJavaBinaryObject() throws Exception {
+    final JavaBinaryObject jbo = new JavaBinaryObject(FOO, FOO, "1111", null, false);
+    assertThat(jbo.getByteCode()).isEmpty();
+
+    // 書き込み中も内容を参照できる
+    final OutputStream os = jbo.openOutputStream();
+    os.write(new byte[] {1, 2, 3});
+    assertThat(jbo.getByteCode()).containsExactly(1, 2, 3);
+
+    // 閉じるとヒープ外に移る
+    os.close();
+    assertThat(jbo.getByteCodeBuffer()
+        .isDirect()).isTrue();
+    assertThat(jbo.getByteCode()).containsExactly(1, 2, 3);
+    assertThat(toArray(jbo.getByteCodeBuffer())).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void testCompact() throws Exception {
+    final BytecodeArena arena = new BytecodeArena(8);
+    final JavaBinaryObject jbo = new JavaBinaryObject(FOO, FOO, "1111", null, false);
+    try (final OutputStream os = jbo.openOutputStream()) {
+      os.write(new byte[] {1, 2, 3});
+    }
+    arena.store(new byte[] {4, 5, 6}, 3);
+    assertThat(arena.getAllocatedBytes()).isEqualTo(8);
+
+    // 残り5バイトに収まるが，古いスラブには追記せず新たなスラブに詰め直す
+    arena.compact(Arrays.asList(jbo));
+    assertThat(arena.getAllocatedBytes()).isEqualTo(16);
+    assertThat(arena.getStoredBytes()).isEqualTo(6);
+    assertThat(toArray(jbo.getByteCodeBuffer())).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void testCompactWritingJavaBinaryObject() throws Exception {
+    final BytecodeArena arena = new BytecodeArena(8);
+    final JavaBinaryObject jbo = new JavaBinaryObject(FOO, FOO, "1111", null, false);
+    final OutputStream os = jbo.openOutputStream();
+    os.write(new byte[] {1, 2, 3});
+
+    // 書き込み中のバイナリは詰め直さない
+    arena.compact(Arrays.asList(jbo));
+    assertThat(arena.getStoredBytes()).isZero();
+    assertThat(jbo.getByteCode()).containsExactly(1, 2, 3);
+  }
+}
@@ -0,0 +1,183 @@
+package jp.kusumotolab.kgenprog.project.build;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.TargetFullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.TestSourcePath;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.testutil.ExampleAlias.Src;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+public class DependencyGraphTest {
+
+  @Rule
+  public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path rootPath;
+  private BinaryStore binaryStore;
+  private DependencyGraph dependencyGraph;
+
+  @Before
+  public void setup() throws IOException {
+    // ソースコードを書き換えるため，題材を一時ディレクトリに複製する
+    rootPath = tempFolder.getRoot()
+        .toPath();
+    final Path exampleRoot = Paths.get("example/BuildSuccess14");
+    for (final Path src : Arrays.asList(Src.FOO, Src.BAR, Src.FOO_TEST)) {
+      Files.createDirectories(rootPath.resolve(src)
+          .getParent());
+      Files.copy(exampleRoot.resolve(src), rootPath.resolve(src));
+    }
+    binaryStore = new BinaryStore();
+    dependencyGraph = new DependencyGraph();
+  }
+
+  private BuildResults build(final ProjectBuilder projectBuilder) {
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    return projectBuilder.build(source);
+  }
+
+  private void rewriteBar(final String target, final String replacement) throws IOException {
+    final Path bar = rootPath.resolve(Src.BAR);
+    final String content = new String(Files.readAllBytes(bar));
+    Files.write(bar, content.replace(target, replacement)
+        .getBytes());
+  }
+
+  private void writeSource(final String className, final String content) throws IOException {
+    Files.write(rootPath.resolve("src/example/" + className + ".java"), content.getBytes());
+  }
+
+  private ProjectBuilder createProjectBuilder() {
+    return new ProjectBuilder(TargetProjectFactory.create(rootPath), binaryStore,
+        dependencyGraph);
+  }
+
+  @Test
+  public void testRecord() {
+    build(createProjectBuilder());
+
+    final ProductSourcePath foo = new ProductSourcePath(rootPath, Src.FOO);
+    final ProductSourcePath bar = new ProductSourcePath(rootPath, Src.BAR);
+    final TestSourcePath fooTest = new TestSourcePath(rootPath, Src.FOO_TEST);
+
+    assertThat(dependencyGraph.getDependents(Collections.singleton(bar)))
+        .containsExactly(foo);
+    assertThat(dependencyGraph.getDependents(Collections.singleton(foo)))
+        .containsExactly(fooTest);
+    assertThat(dependencyGraph.getDependencies(binaryStore.get(fooTest)))
+        .containsExactlyInAnyOrder(foo);
+
+    // 記録時と同じバイナリのAPIは変化しない
+    assertThat(dependencyGraph.getApiChangedPaths(binaryStore.getAll())).isEmpty();
+  }
+
+  @Test
+  public void testBuildWithBodyChange() throws IOException {
+    final ProjectBuilder projectBuilder = createProjectBuilder();
+    build(projectBuilder);
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(3);
+
+    // メソッド本体のみの変更であれば，Barに依存するFooは再コンパイルしない
+    rewriteBar("return n + 1;", "return n + 2;");
+    final BuildResults buildResults = build(projectBuilder);
+
+    assertThat(buildResults.isBuildFailed).isFalse();
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void testBuildWithApiChange() throws IOException {
+    final ProjectBuilder projectBuilder = createProjectBuilder();
+    final BuildResults initialResults = build(projectBuilder);
+    final byte[] initialFoo = initialResults.binaryStore.get(FOO)
+        .getByteCode();
+
+    // シグネチャが変化した場合は，Barに依存するFooも再コンパイルする
+    // Fooのコンパイル結果（呼び出すメソッドの記述子）は変わるが，FooのAPIは変わらないためFooTestは再コンパイルしない
+    rewriteBar("bar1(  int n)", "bar1(  long n)");
+    final BuildResults buildResults = build(projectBuilder);
+
+    assertThat(buildResults.isBuildFailed).isFalse();
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(5);
+    assertThat(buildResults.binaryStore.get(FOO)
+        .getByteCode()).isNotEqualTo(initialFoo);
+  }
+
+  @Test
+  public void testBuildWithApiChangeWithoutDependencyGraph() throws IOException {
+    final ProjectBuilder projectBuilder =
+        new ProjectBuilder(TargetProjectFactory.create(rootPath), binaryStore);
+    build(projectBuilder);
+
+    // 依存関係を考慮しない場合は，書き換えたBarのみをコンパイルする
+    rewriteBar("bar1(  int n)", "bar1(  long n)");
+    build(projectBuilder);
+
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void testBuildWithInheritedApiChange() throws IOException {
+    // QuxはBarを継承したBazを介してBar.bar1を呼び出すため，定数プールにはBarが現れない
+    writeSource("Baz", "package example;\npublic class Baz extends Bar {\n}\n");
+    writeSource("Qux", "package example;\npublic class Qux {\n"
+        + "  public int qux(int n) {\n    return Baz.bar1(n);\n  }\n}\n");
+    final FullyQualifiedName qux = new TargetFullyQualifiedName("example.Qux");
+    final ProjectBuilder projectBuilder = createProjectBuilder();
+    final BuildResults initialResults = build(projectBuilder);
+    final byte[] initialQux = initialResults.binaryStore.get(qux)
+        .getByteCode();
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(5);
+
+    // Barのシグネチャが変化した場合は，Barのサブタイプに依存するQuxも再コンパイルする
+    rewriteBar("bar1(  int n)", "bar1(  long n)");
+    final BuildResults buildResults = build(projectBuilder);
+
+    assertThat(buildResults.isBuildFailed).isFalse();
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(9);
+    assertThat(buildResults.binaryStore.get(qux)
+        .getByteCode()).isNotEqualTo(initialQux);
+  }
+
+  @Test
+  public void testBuildWithConstantChange() throws IOException {
+    // QuxはBaz.BASE2を参照し，その値はBar.BASEから求まる．定数はインライン化され，Quxの定数プールにBarは現れない
+    rewriteBar("public static void bar3(){", "public static final int BASE = 1;\n"
+        + "  public static void bar3(){");
+    writeSource("Baz", "package example;\npublic class Baz {\n"
+        + "  public static final int BASE2 = Bar.BASE + 1;\n}\n");
+    writeSource("Qux", "package example;\npublic class Qux {\n"
+        + "  public int qux() {\n    return Baz.BASE2;\n  }\n}\n");
+    final FullyQualifiedName qux = new TargetFullyQualifiedName("example.Qux");
+    final ProjectBuilder projectBuilder = createProjectBuilder();
+    final BuildResults initialResults = build(projectBuilder);
+    final byte[] initialQux = initialResults.binaryStore.get(qux)
+        .getByteCode();
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(5);
+
+    // 定数の値が変化した場合は，全てのソースコードを再コンパイルする
+    rewriteBar("BASE = 1;", "BASE = 2;");
+    final BuildResults buildResults = build(projectBuilder);
+
+    assertThat(buildResults.isBuildFailed).isFalse();
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(10);
+    assertThat(buildResults.binaryStore.get(qux)
+        .getByteCode()).isNotEqualTo(initialQux);
+  }
+}
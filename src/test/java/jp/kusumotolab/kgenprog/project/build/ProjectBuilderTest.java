@@ -210,6 +210,39 @@ public class ProjectBuilderTest {
     assertThat(binaryStore2.getAll()).hasSize(2);
   }
 
+  @Test
+  // ビルドの回数とコンパイルしたソースコードの数が記録されるか
+  public void testBuildStatistics() throws Exception {
+    final Path rootPath = Paths.get("example/BuildSuccess14");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final ProjectBuilder projectBuilder = new ProjectBuilder(targetProject);
+
+    projectBuilder.build(source);
+    assertThat(projectBuilder.getBuildCount()).isEqualTo(1);
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(3);
+
+    // 差分がない場合はコンパイルしない
+    projectBuilder.build(source);
+    assertThat(projectBuilder.getBuildCount()).isEqualTo(2);
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(3);
+
+    // Fooのdigestを書き換えてコンパイル対象に加わるように
+    final ProductSourcePath fooPath = new ProductSourcePath(rootPath, Src.FOO);
+    final GeneratedAST<?> ast = source.getProductAst(fooPath);
+    final Field field = ast.getClass()
+        .getDeclaredField("messageDigest");
+    field.setAccessible(true);
+    field.set(ast, "xxxx");
+
+    final BuildResults buildResults = projectBuilder.build(source);
+    assertThat(buildResults.isBuildFailed).isFalse();
+    assertThat(projectBuilder.getBuildCount()).isEqualTo(3);
+    assertThat(projectBuilder.getCompiledSourceCount()).isEqualTo(4);
+    assertThat(projectBuilder.getCompilationTimeMillis())
+        .isLessThanOrEqualTo(projectBuilder.getBuildTimeMillis());
+  }
+
   @Test
   // 差分ビルドの確認テスト （一度ビルド，astを操作，2度目のビルド）
   public void testDifferentialBuild01() throws Exception {
@@ -0,0 +1,87 @@
+package jp.kusumotolab.kgenprog.project.jdt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.nio.file.Paths;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+
+public class ASTNormalizerTest {
+
+  private final ProductSourcePath path =
+      new ProductSourcePath(Paths.get("."), Paths.get("A.java"));
+  private final JDTASTConstruction constructor = new JDTASTConstruction();
+
+  private String normalizedDigest(final String source) {
+    return constructor.constructAST(path, source)
+        .getNormalizedDigest();
+  }
+
+  @Test
+  public void testEmptyStatement() {
+    final String source1 = "class A { void a() { int x = 1; x = 2; } }";
+    final String source2 = "class A { void a() { int x = 1; ; x = 2; ; } }";
+
+    assertThat(normalizedDigest(source1)).isEqualTo(normalizedDigest(source2));
+  }
+
+  @Test
+  public void testNestedBlock() {
+    final String source1 = "class A { void a() { b(); c(); } void b() {} void c() {} }";
+    final String source2 = "class A { void a() { { b(); { } } { c(); } } void b() {} void c() {} }";
+
+    assertThat(normalizedDigest(source1)).isEqualTo(normalizedDigest(source2));
+  }
+
+  @Test
+  public void testNestedBlockWithDeclaration() {
+    // 変数宣言を含むブロックは，スコープが変わるため展開しない
+    final String source1 = "class A { void a() { int x = 1; } }";
+    final String source2 = "class A { void a() { { int x = 1; } } }";
+
+    assertThat(normalizedDigest(source1)).isNotEqualTo(normalizedDigest(source2));
+  }
+
+  @Test
+  public void testBody() {
+    final String source1 = "class A { void a(boolean b) { if (b) a(b); else ; while (b) a(b); } }";
+    final String source2 =
+        "class A { void a(boolean b) { if (b) { a(b); } else { } while (b) { a(b); } } }";
+
+    assertThat(normalizedDigest(source1)).isEqualTo(normalizedDigest(source2));
+  }
+
+  @Test
+  public void testCommutativeOperator() {
+    final String source1 = "class A { boolean a(int x, int y) { return x == y; } }";
+    final String source2 = "class A { boolean a(int x, int y) { return y == x; } }";
+    final String source3 = "class A { boolean a(int x, int y) { return x < y; } }";
+    final String source4 = "class A { boolean a(int x, int y) { return y < x; } }";
+
+    assertThat(normalizedDigest(source1)).isEqualTo(normalizedDigest(source2));
+    assertThat(normalizedDigest(source3)).isNotEqualTo(normalizedDigest(source4));
+  }
+
+  @Test
+  public void testCommutativeOperatorWithSideEffect() {
+    // 副作用を持ちうる被演算子は評価順が変わるため並べ替えない
+    final String source1 = "class A { boolean a() { return b() == c(); } int b() {return 0;} "
+        + "int c() {return 0;} }";
+    final String source2 = "class A { boolean a() { return c() == b(); } int b() {return 0;} "
+        + "int c() {return 0;} }";
+
+    assertThat(normalizedDigest(source1)).isNotEqualTo(normalizedDigest(source2));
+  }
+
+  @Test
+  public void testOriginalAstUnchanged() {
+    final String source = "class A { void a() { ; { a(); } } }";
+    final GeneratedJDTAST<ProductSourcePath> ast = constructor.constructAST(path, source);
+    final String before = ast.getRoot()
+        .toString();
+
+    ast.getNormalizedDigest();
+
+    assertThat(ast.getRoot()
+        .toString()).isEqualTo(before);
+  }
+}
@@ -106,6 +106,49 @@ public class GeneratedJDTASTTest {
         .satisfies(j -> assertThat(j).isSameSourceCodeAs(expects.get(1)), atIndex(1));
   }
 
+  @Test
+  public void testInferCanonicalLocations() {
+    final ASTLocations astLocations = ast.createLocations();
+
+    // 位置情報は一度だけ作られ，同じ行に対しては同じLocationが返されるはず
+    assertThat(ast.createLocations()).isSameAs(astLocations);
+    assertThat(astLocations.infer(9)
+        .get(0)).isSameAs(astLocations.infer(9)
+            .get(0));
+    assertThat(astLocations.getAll()).contains(astLocations.infer(9)
+        .get(0));
+  }
+
+  @Test
+  public void testFindLocation() {
+    final ASTLocations astLocations = ast.createLocations();
+    final ASTLocation initialLocation = astLocations.infer(3)
+        .get(0);
+    final ASTLocation printLocation = astLocations.infer(5)
+        .get(0);
+
+    // 同一のASTの位置情報はそのまま返されるはず
+    assertThat(astLocations.find(printLocation)).isSameAs(printLocation);
+
+    // 文が挿入・削除されたASTでは，同形の部分が探されるはず
+    final String source = SOURCE.replace("    int n = 0;\n", "    int m = 1;\n");
+    final ProductSourcePath productSourcePath =
+        new ProductSourcePath(Paths.get("."), Paths.get(FILE_NAME));
+    final GeneratedJDTAST<ProductSourcePath> otherAst = new JDTASTConstruction()
+        .constructAST(productSourcePath, "\n" + source.replace("    if (n == 1)",
+            "    n = 2;\n    if (n == 1)"));
+    final ASTLocations otherLocations = otherAst.createLocations();
+
+    final ASTLocation foundLocation = otherLocations.find(printLocation);
+    assertThat(foundLocation).isSameAs(otherLocations.infer(7)
+        .get(0));
+    assertThat(((JDTASTLocation) foundLocation).node)
+        .isSameSourceCodeAs("System.out.println(n);");
+
+    // 変更によって失われたノードには対応する位置がないはず
+    assertThat(otherLocations.find(initialLocation)).isNull();
+  }
+
   @Test
   public void testgetPrimaryClassName01() {
     final String source = "package a.b.c; class T1{} public class T2{}";
@@ -385,6 +428,39 @@ public class GeneratedJDTASTTest {
     assertThat(ast1.getMessageDigest()).isNotEqualTo(ast2.getMessageDigest());
   }
 
+  @Test
+  public void testGetMessageDigestWithSourceMurmur3() {
+    final String source1 = "class A { public void a() { b(1); } public void b(int v){}}";
+    final String source2 = "class A { public void a() { b(1); } public void b(int v){}}\n\n";
+    final ProductSourcePath path = new ProductSourcePath(Paths.get("."), Paths.get("A.java"));
+    final JDTASTConstruction constructor = new JDTASTConstruction(DigestStrategy.SourceMurmur3);
+    final GeneratedJDTAST<ProductSourcePath> ast1 = constructor.constructAST(path, source1);
+    final GeneratedJDTAST<ProductSourcePath> ast2 = constructor.constructAST(path, source2);
+    final GeneratedJDTAST<ProductSourcePath> ast3 = constructor.constructAST(path, source1);
+
+    // 文字列そのもののハッシュなので，空白の違いも区別される
+    assertThat(ast1.getMessageDigest()).hasSize(32)
+        .isEqualTo(ast3.getMessageDigest())
+        .isNotEqualTo(ast2.getMessageDigest());
+  }
+
+  @Test
+  public void testGetMessageDigestWithTokenMurmur3() {
+    final String source1 = "class A { public void a() { b(1); } public void b(int v){}}";
+    final String source2 = "class A {\n  public void a() {\n    b(1); // call b\n  }\n"
+        + "  /* b */ public void b(int v) {}\n}\n";
+    final String source3 = "class A { public void a() { b(2); } public void b(int v){}}";
+    final ProductSourcePath path = new ProductSourcePath(Paths.get("."), Paths.get("A.java"));
+    final JDTASTConstruction constructor = new JDTASTConstruction(DigestStrategy.TokenMurmur3);
+    final GeneratedJDTAST<ProductSourcePath> ast1 = constructor.constructAST(path, source1);
+    final GeneratedJDTAST<ProductSourcePath> ast2 = constructor.constructAST(path, source2);
+    final GeneratedJDTAST<ProductSourcePath> ast3 = constructor.constructAST(path, source3);
+
+    // 空白やコメントのみの違いは無視され，トークンの違いは区別される
+    assertThat(ast1.getMessageDigest()).isEqualTo(ast2.getMessageDigest())
+        .isNotEqualTo(ast3.getMessageDigest());
+  }
+
   @Test
   public void testGetNumberOfLines() {
     final Path rootPath = Paths.get("example/BuildSuccess01");
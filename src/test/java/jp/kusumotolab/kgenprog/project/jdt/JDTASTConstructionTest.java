@@ -7,6 +7,7 @@ import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Src.FOO_TEST;
 import static org.assertj.core.api.Assertions.assertThat;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.Test;
 import jp.kusumotolab.kgenprog.project.GeneratedAST;
@@ -69,4 +70,29 @@ public class JDTASTConstructionTest {
     final List<GeneratedAST<TestSourcePath>> testAsts = generatedSourceCode.getTestAsts();
     assertThat(testAsts).hasSize(0);
   }
+
+  @Test
+  public void testConstructASTKeepsOrder() {
+    // 並列に構築しても，ASTは引数のソースパスと同じ順序で並ぶはず
+    final Path basePath = Paths.get("example/BuildSuccess02");
+    final ProductSourcePath foo = new ProductSourcePath(basePath, FOO);
+    final ProductSourcePath bar = new ProductSourcePath(basePath, BAR);
+    final TestSourcePath fooTest = new TestSourcePath(basePath, FOO_TEST);
+    final TestSourcePath barTest = new TestSourcePath(basePath, BAR_TEST);
+    final JDTASTConstruction construction = new JDTASTConstruction();
+
+    final GeneratedSourceCode generatedSourceCode1 =
+        construction.constructAST(Arrays.asList(foo, bar), Arrays.asList(barTest, fooTest));
+    assertThat(generatedSourceCode1.getProductAsts()).extracting(GeneratedAST::getSourcePath)
+        .containsExactly(foo, bar);
+    assertThat(generatedSourceCode1.getTestAsts()).extracting(GeneratedAST::getSourcePath)
+        .containsExactly(barTest, fooTest);
+
+    final GeneratedSourceCode generatedSourceCode2 =
+        construction.constructAST(Arrays.asList(bar, foo), Arrays.asList(fooTest, barTest));
+    assertThat(generatedSourceCode2.getProductAsts()).extracting(GeneratedAST::getSourcePath)
+        .containsExactly(bar, foo);
+    assertThat(generatedSourceCode2.getTestAsts()).extracting(GeneratedAST::getSourcePath)
+        .containsExactly(fooTest, barTest);
+  }
 }
@@ -0,0 +1,152 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST02;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST03;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST04;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST05;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST03;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import org.junit.Before;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.GeneratedAST;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.ProductSourcePath;
+import jp.kusumotolab.kgenprog.project.build.BinaryStore;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.build.JavaBinaryObject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.testutil.ExampleAlias.Src;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+public class CoverageBasedTestSelectionTest {
+
+  private Configuration config;
+  private GeneratedSourceCode initialSource;
+  private TestResults initialResults;
+
+  @Before
+  public void setup() {
+    final Path rootPath = Paths.get("example/BuildSuccess02");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    initialSource = TestUtil.createGeneratedSourceCode(targetProject);
+    config = new Configuration.Builder(targetProject).setTestSelection(true)
+        .build();
+
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(initialSource);
+    initialResults = new LocalTestExecutor(config).exec(variant);
+  }
+
+  @Test
+  // 書き換えがなければ初期個体で失敗したテストのみ選択されるはず
+  public void testSelectForUnchangedSource() {
+    final CoverageBasedTestSelection selection =
+        new CoverageBasedTestSelection(initialSource, initialResults);
+    final Set<FullyQualifiedName> selectedTests = selection.select(initialSource,
+        initialResults.getBuildResults());
+
+    assertThat(selectedTests).containsExactly(FOO_TEST03);
+    assertThat(selection.isAllSelected(selectedTests)).isFalse();
+  }
+
+  @Test
+  // Barを書き換えた場合，失敗テストとBarを実行するテストが選択されるはず
+  public void testSelectForModifiedBar() {
+    final CoverageBasedTestSelection selection =
+        new CoverageBasedTestSelection(initialSource, initialResults);
+    final Set<FullyQualifiedName> selectedTests = selection.select(modifyBar(initialSource),
+        initialResults.getBuildResults());
+
+    assertThat(selectedTests).containsExactlyInAnyOrder(FOO_TEST03, //
+        BAR_TEST01, BAR_TEST02, BAR_TEST03, BAR_TEST04, BAR_TEST05);
+  }
+
+  @Test
+  // ソースコードが同一でも，Barのバイトコードが異なれば（依存先の変化による再コンパイル），Barを実行するテストも選択されるはず
+  public void testSelectForRecompiledBar() throws IOException {
+    final CoverageBasedTestSelection selection =
+        new CoverageBasedTestSelection(initialSource, initialResults);
+    final BuildResults buildResults = recompileBar(initialResults.getBuildResults());
+    final Set<FullyQualifiedName> selectedTests = selection.select(initialSource, buildResults);
+
+    assertThat(selectedTests).containsExactlyInAnyOrder(FOO_TEST03, //
+        BAR_TEST01, BAR_TEST02, BAR_TEST03, BAR_TEST04, BAR_TEST05);
+  }
+
+  @Test
+  // 選択実行した結果と再利用した結果を合わせると全テストの結果が得られるはず
+  public void testExecWithTestSelection() {
+    final LocalTestExecutor executor = new LocalTestExecutor(config);
+    final Variant initialVariant = mock(Variant.class);
+    when(initialVariant.getGeneratedSourceCode()).thenReturn(initialSource);
+    when(initialVariant.getTestResults()).thenReturn(initialResults);
+    executor.initialize(initialVariant);
+
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(initialSource);
+    final TestResults results = executor.exec(variant);
+
+    assertThat(results.getExecutedTestFQNs())
+        .containsExactlyInAnyOrderElementsOf(initialResults.getExecutedTestFQNs());
+    assertThat(results.getTestResult(FOO_TEST03).failed).isTrue();
+    assertThat(results.getTestResult(FOO_TEST01)).isSameAs(
+        initialResults.getTestResult(FOO_TEST01));
+    assertThat(results.getTestResult(FOO_TEST03)).isNotSameAs(
+        initialResults.getTestResult(FOO_TEST03));
+    assertThat(results.getSuccessRate()).isEqualTo(initialResults.getSuccessRate());
+  }
+
+  private BuildResults recompileBar(final BuildResults buildResults) throws IOException {
+    final BinaryStore binaryStore = new BinaryStore();
+    for (final JavaBinaryObject binary : buildResults.binaryStore.getAll()) {
+      if (!binary.getFqn()
+          .equals(BAR)) {
+        binaryStore.add(binary);
+        continue;
+      }
+      final JavaBinaryObject recompiled = new JavaBinaryObject(binary.getFqn(),
+          binary.getOriginFqn(), binary.getOriginDigest(), binary.getOriginPath(),
+          binary.isTest());
+      try (final OutputStream out = recompiled.openOutputStream()) {
+        out.write(binary.getByteCode());
+        out.write(0); // 内容の異なるバイトコード
+      }
+      binaryStore.add(recompiled);
+    }
+    return new BuildResults(binaryStore, new DiagnosticCollector<JavaFileObject>(), "", false) {};
+  }
+
+  @SuppressWarnings("unchecked")
+  private GeneratedSourceCode modifyBar(final GeneratedSourceCode source) {
+    final List<GeneratedAST<ProductSourcePath>> productAsts = new ArrayList<>();
+    for (final GeneratedAST<ProductSourcePath> ast : source.getProductAsts()) {
+      if (!ast.getSourcePath().path.endsWith(Src.BAR)) {
+        productAsts.add(ast);
+        continue;
+      }
+      final GeneratedAST<ProductSourcePath> modified = mock(GeneratedAST.class);
+      when(modified.getSourcePath()).thenReturn(ast.getSourcePath());
+      when(modified.getMessageDigest()).thenReturn("modified");
+      productAsts.add(modified);
+    }
+    return new GeneratedSourceCode(productAsts, source.getTestAsts());
+  }
+}
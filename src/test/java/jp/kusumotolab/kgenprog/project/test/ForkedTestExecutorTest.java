@@ -0,0 +1,93 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST02;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST03;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST04;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+public class ForkedTestExecutorTest {
+
+  @Test
+  // 子プロセス上でのテスト実行結果がローカル実行と一致するか
+  public void testExecForBuildSuccess01() {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+
+    // 2回目の実行で子プロセスが再起動されるようにする
+    final Configuration config = new Configuration.Builder(targetProject)
+        .setTestExecutorType(TestExecutor.Type.Forked)
+        .setWorkerRecycleCount(1)
+        .build();
+    final TestExecutor executor = config.getTestExecutorType()
+        .initialize(config);
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+
+    for (int i = 0; i < 2; i++) {
+      final TestResults result = executor.exec(variant);
+      assertThat(result.getExecutedTestFQNs()).containsExactlyInAnyOrder( //
+          FOO_TEST01, FOO_TEST02, FOO_TEST03, FOO_TEST04);
+      assertThat(result.getTestResult(FOO_TEST03).failed).isTrue();
+      assertThat(result.getSuccessRate()).isEqualTo(1.0 * 3 / 4);
+      assertThat(result.getTestResult(FOO_TEST01)
+          .getCoverages(FOO)).isNotNull();
+    }
+
+    executor.finish();
+  }
+
+  @Test
+  // 子プロセスがタイムアウトしても，それまでの実行状況からテスト結果が作られるか
+  public void testExecForWorkerTimeout() {
+    final Path rootPath = Paths.get("example/BuildSuccess04");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+
+    // test03の無限ループをJUnitのタイムアウトより先に子プロセスの応答待ちで打ち切る
+    final Configuration config = new Configuration.Builder(targetProject)
+        .setTestExecutorType(TestExecutor.Type.Forked)
+        .setTestTimeLimitSeconds(60)
+        .setWorkerTimeout(Duration.ofSeconds(2))
+        .build();
+    final TestExecutor executor = config.getTestExecutorType()
+        .initialize(config);
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+
+    final TestResults result = executor.exec(variant);
+    assertThat(result).isNotInstanceOf(EmptyTestResults.class);
+    assertThat(result.getExecutedTestFQNs()).containsExactlyInAnyOrder( //
+        FOO_TEST01, FOO_TEST02, FOO_TEST03);
+    assertThat(result.getTestResult(FOO_TEST02).failed).isTrue();
+    assertThat(result.getTestResult(FOO_TEST03).failed).isTrue();
+    assertThat(result.getTestResult(FOO_TEST03).timedOut).isTrue();
+
+    executor.finish();
+  }
+
+  @Test
+  // 親プロセスのJVM引数のうち，デバッグ用のエージェント以外を子プロセスに引き継ぐか
+  public void testGetInheritedJvmArguments() {
+    final List<String> arguments = ForkedWorkerProcess.getInheritedJvmArguments(Arrays.asList(
+        "-Xmx2g", "-Dfile.encoding=UTF-8",
+        "-agentlib:jdwp=transport=dt_socket,server=y,suspend=n,address=5005", "-Xdebug"));
+    assertThat(arguments).containsExactly("-Xmx2g", "-Dfile.encoding=UTF-8");
+  }
+}
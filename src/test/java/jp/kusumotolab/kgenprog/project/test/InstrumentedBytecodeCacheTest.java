@@ -0,0 +1,107 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST01;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.build.JavaBinaryObject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+public class InstrumentedBytecodeCacheTest {
+
+  @Test
+  // 同一スレッドで同じソースコードを2回テストした場合，2回目はインストルメントを省略しつつ同じカバレッジが得られるはず
+  public void testReuseAcrossTestExecutions() {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final TestExecutor executor = new LocalTestExecutor(config);
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+
+    final TestResults first = executor.exec(variant);
+    final InstrumentedBytecodeCache cache = InstrumentedBytecodeCache.forCurrentThread();
+    final long missCount = cache.getMissCount();
+    final long hitCount = cache.getHitCount();
+    final TestResults second = executor.exec(variant);
+
+    assertThat(cache.getMissCount()).isEqualTo(missCount);
+    assertThat(cache.getHitCount()).isGreaterThan(hitCount);
+    assertThat(second.getTestResult(FOO_TEST01)
+        .getCoverages(FOO)
+        .toString()).isEqualTo(first.getTestResult(FOO_TEST01)
+            .getCoverages(FOO)
+            .toString());
+  }
+
+  @Test
+  // 容量を超えた場合は古いものから破棄されるはず
+  public void testEviction() throws Exception {
+    final Path rootPath = Paths.get("example/BuildSuccess02");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final BuildResults buildResults = new LocalTestExecutor(config).getProjectBuilder()
+        .build(source);
+
+    final InstrumentedBytecodeCache cache = new InstrumentedBytecodeCache(1);
+    for (final JavaBinaryObject binary : buildResults.binaryStore.getAll()) {
+      cache.instrument(binary);
+    }
+    assertThat(cache.getSize()).isEqualTo(0);
+
+    final InstrumentedBytecodeCache largeCache = new InstrumentedBytecodeCache(Long.MAX_VALUE);
+    for (final JavaBinaryObject binary : buildResults.binaryStore.getAll()) {
+      largeCache.instrument(binary);
+      largeCache.instrument(binary);
+    }
+    assertThat(largeCache.getHitCount()).isEqualTo(largeCache.getMissCount());
+    assertThat(largeCache.getSize()).isGreaterThan(0);
+  }
+
+  @Test
+  // FQNと生成元のダイジェストが同じでも，バイトコードが異なればインストルメントし直すはず
+  public void testInstrumentWithSameDigestAndDifferentByteCode() throws Exception {
+    final byte[] byteCode1 = buildFoo(Paths.get("example/BuildSuccess01"));
+    final byte[] byteCode2 = buildFoo(Paths.get("example/BuildSuccess02"));
+    assertThat(byteCode1).isNotEqualTo(byteCode2);
+
+    final InstrumentedBytecodeCache cache = new InstrumentedBytecodeCache(Long.MAX_VALUE);
+    final byte[] instrumented1 = cache.instrument(createBinary(byteCode1));
+    final byte[] instrumented2 = cache.instrument(createBinary(byteCode2));
+
+    assertThat(cache.getMissCount()).isEqualTo(2);
+    assertThat(cache.getHitCount()).isEqualTo(0);
+    assertThat(instrumented2).isNotEqualTo(instrumented1);
+  }
+
+  private byte[] buildFoo(final Path rootPath) {
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    return new LocalTestExecutor(config).getProjectBuilder()
+        .build(source).binaryStore.get(FOO)
+            .getByteCode();
+  }
+
+  private JavaBinaryObject createBinary(final byte[] byteCode) throws IOException {
+    final JavaBinaryObject binary = new JavaBinaryObject(FOO, FOO, "digest", null, false);
+    try (final OutputStream out = binary.openOutputStream()) {
+      out.write(byteCode);
+    }
+    return binary;
+  }
+}
@@ -4,6 +4,7 @@ import static jp.kusumotolab.kgenprog.project.test.Coverage.Status.COVERED;
 import static jp.kusumotolab.kgenprog.project.test.Coverage.Status.EMPTY;
 import static jp.kusumotolab.kgenprog.project.test.Coverage.Status.NOT_COVERED;
 import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST;
 import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST01;
 import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST02;
 import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST03;
@@ -40,6 +41,7 @@ import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
 import jp.kusumotolab.kgenprog.project.LineNumberRange;
 import jp.kusumotolab.kgenprog.project.ProductSourcePath;
 import jp.kusumotolab.kgenprog.project.TargetFullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
 import jp.kusumotolab.kgenprog.project.factory.JUnitLibraryResolver.JUnitVersion;
 import jp.kusumotolab.kgenprog.project.factory.TargetProject;
 import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
@@ -706,6 +708,162 @@ public class LocalTestExecutorTest {
     assertThat(result.getTestResult(FOO_TEST04).failed).isFalse();
   }
 
+  @Test
+  // 失敗を含むFooTestを先に実行した場合，成功率1.0に届かないことが確定した時点でBarTestを打ち切るはず
+  public void testExecWithEarlyAbort() {
+    final Path rootPath = Paths.get("example/BuildSuccess02");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final LocalTestExecutor executor = new LocalTestExecutor(config);
+    final BuildResults buildResults = executor.getProjectBuilder()
+        .build(source);
+
+    final TestExecutionPlan plan = TestExecutionPlan.ALL
+        .prioritize(Arrays.asList(FOO_TEST, BAR_TEST))
+        .abortBelow(1.0d);
+    final TestResults result = executor.execTests(buildResults, plan);
+
+    assertThat(result.getExecutedTestFQNs()).hasSize(9);
+    assertThat(result.getSkippedTestFQNs()).containsExactlyInAnyOrder( //
+        BAR_TEST01, BAR_TEST02, BAR_TEST03, BAR_TEST04, BAR_TEST05);
+    assertThat(result.getTestResult(BAR_TEST01).failed).isTrue();
+    assertThat(result.getSuccessRate()).isEqualTo(3.0d / 9.0d);
+  }
+
+  @Test
+  // 成功するBarTestを先に実行した場合，成功率1.0に届く可能性が残るので打ち切らないはず
+  public void testExecWithEarlyAbortNotTriggered() {
+    final Path rootPath = Paths.get("example/BuildSuccess02");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final LocalTestExecutor executor = new LocalTestExecutor(config);
+    final BuildResults buildResults = executor.getProjectBuilder()
+        .build(source);
+
+    final TestExecutionPlan plan = TestExecutionPlan.ALL
+        .prioritize(Arrays.asList(BAR_TEST, FOO_TEST))
+        .abortBelow(1.0d);
+    final TestResults result = executor.execTests(buildResults, plan);
+
+    assertThat(result.getSkippedTestFQNs()).isEmpty();
+    assertThat(result.getFailedTestFQNs()).containsExactly(FOO_TEST03);
+  }
+
+  @Test
+  // カバレッジを計測しない場合，テストの成否のみが得られるはず
+  public void testExecWithoutCoverage() {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final TestExecutor executor = new LocalTestExecutor(config);
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+    final TestResults result = executor.exec(variant, false);
+
+    assertThat(result.getExecutedTestFQNs()).containsExactlyInAnyOrder( //
+        FOO_TEST01, FOO_TEST02, FOO_TEST03, FOO_TEST04);
+    assertThat(result.getFailedTestFQNs()).containsExactly(FOO_TEST03);
+    assertThat(result.getTestResult(FOO_TEST01)
+        .getExecutedTargetFQNs()).isEmpty();
+  }
+
+  @Test
+  // カバレッジを得るための再実行では，打ち切りのしきい値を設定していても全テストを実行するはず
+  public void testExecForCoverageWithEarlyAbort() {
+    final Path rootPath = Paths.get("example/BuildSuccess02");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject)
+        .setHeadcount(1)
+        .setTestPrioritization(true)
+        .setEarlyAbort(true)
+        .build();
+    final LocalTestExecutor executor = new LocalTestExecutor(config);
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+    when(variant.getTestResults()).thenReturn(executor.exec(variant));
+    when(variant.isBuildSucceeded()).thenReturn(true);
+
+    // 失敗したFooTestを優先し，成功率が全テスト成功を下回った時点で打ち切る状態にする
+    final Variant passedVariant = mock(Variant.class);
+    final TestResults passedResults = mock(TestResults.class);
+    when(passedResults.getSuccessRate()).thenReturn(1.0d);
+    when(passedVariant.getTestResults()).thenReturn(passedResults);
+    when(passedVariant.isBuildSucceeded()).thenReturn(true);
+    executor.initialize(variant);
+    executor.proceedNextGeneration(Collections.singletonList(passedVariant));
+    assertThat(executor.exec(variant)
+        .getSkippedTestFQNs()).isNotEmpty();
+
+    final TestResults result = executor.execForCoverage(variant);
+    assertThat(result.getSkippedTestFQNs()).isEmpty();
+    assertThat(result.getExecutedTestFQNs()).hasSize(9);
+    assertThat(result.getFailedTestFQNs()).containsExactly(FOO_TEST03);
+    assertThat(result.getTestResult(FOO_TEST01)
+        .getExecutedTargetFQNs()).isNotEmpty();
+  }
+
+  @Test
+  // 初期個体と現世代の個体のいずれにも含まれないバイナリは，世代交代時にキャッシュから破棄されるはず
+  public void testProceedNextGenerationWithBuildCacheEviction() {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject)
+        .setBuildCacheEviction(true)
+        .build();
+    final LocalTestExecutor executor = new LocalTestExecutor(config);
+    final BuildResults buildResults = executor.getProjectBuilder()
+        .build(source);
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+
+    // 現世代の個体のバイナリは残る
+    executor.proceedNextGeneration(Collections.singletonList(variant));
+    assertThat(executor.getBinaryStore()
+        .getAll()).hasSize(2);
+
+    // どの個体からも使われないバイナリは破棄される
+    executor.proceedNextGeneration(Collections.emptyList());
+    assertThat(executor.getBinaryStore()
+        .getAll()).isEmpty();
+
+    // 破棄されても，ビルド結果からは取り出せる
+    assertThat(buildResults.binaryStore.getAll()).hasSize(2);
+    final TestResults result = executor.execTests(buildResults);
+    assertThat(result.getFailedTestFQNs()).containsExactly(FOO_TEST03);
+  }
+
+  @Test
+  // 別のビルドで得た初期個体の評価結果を受け取った場合，そのバイナリを差分ビルドに使い回すか
+  public void testInitializeWithInitialVariantBuiltElsewhere() {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject)
+        .setDependencyAwareBuild(true)
+        .build();
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+
+    // キャッシュから読み込んだ場合と同様に，別の実行で評価した結果を与える
+    final TestResults initialResults = new LocalTestExecutor(config).exec(variant);
+    when(variant.getTestResults()).thenReturn(initialResults);
+    final LocalTestExecutor executor = new LocalTestExecutor(config);
+    executor.initialize(variant);
+    assertThat(executor.getBinaryStore()
+        .getAll()).hasSize(2);
+
+    final TestResults result = executor.exec(variant);
+    assertThat(executor.getProjectBuilder()
+        .getCompiledSourceCount()).isZero();
+    assertThat(result.getFailedTestFQNs()).containsExactly(FOO_TEST03);
+  }
+
   private List<Status> extractStatuses(final Coverage coverage) {
     return IntStream.range(0, coverage.getStatusesSize())
         .mapToObj(coverage::getStatus)
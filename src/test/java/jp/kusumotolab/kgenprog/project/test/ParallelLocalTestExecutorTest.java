@@ -0,0 +1,67 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST02;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST03;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST04;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import io.reactivex.Single;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+public class ParallelLocalTestExecutorTest {
+
+  @Test
+  // 並列実行しても逐次実行と同じ結果が得られるか
+  public void testExecAsyncForBuildSuccess01() {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+
+    final Configuration config = new Configuration.Builder(targetProject).setTestThreads(4)
+        .build();
+    final TestExecutor executor = new ParallelLocalTestExecutor(config);
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+
+    // 同一Variantを複数同時に実行する
+    final List<Single<TestResults>> singles = IntStream.range(0, 8)
+        .mapToObj(i -> executor.execAsync(Single.just(variant))
+            .cache())
+        .collect(Collectors.toList());
+    singles.forEach(Single::subscribe);
+
+    for (final Single<TestResults> single : singles) {
+      final TestResults result = single.blockingGet();
+      assertThat(result.getExecutedTestFQNs()).containsExactlyInAnyOrder( //
+          FOO_TEST01, FOO_TEST02, FOO_TEST03, FOO_TEST04);
+      assertThat(result.getTestResult(FOO_TEST03).failed).isTrue();
+      assertThat(result.getSuccessRate()).isEqualTo(1.0 * 3 / 4);
+    }
+
+    executor.finish();
+  }
+
+  @Test
+  public void testInvalidThreads() {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+
+    assertThatThrownBy(() -> new ParallelLocalTestExecutor(config, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
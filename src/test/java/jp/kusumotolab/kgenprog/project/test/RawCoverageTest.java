@@ -0,0 +1,55 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import static jp.kusumotolab.kgenprog.project.test.Coverage.Status.COVERED;
+import static jp.kusumotolab.kgenprog.project.test.Coverage.Status.EMPTY;
+import static jp.kusumotolab.kgenprog.project.test.Coverage.Status.NOT_COVERED;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.project.TargetFullyQualifiedName;
+import jp.kusumotolab.kgenprog.project.test.Coverage.Status;
+
+public class RawCoverageTest {
+
+  @Test
+  // 64行を超えるステータスもビット列から元通りに取り出せるはず
+  public void testGetStatus() {
+    final List<Status> statuses = createStatuses(150);
+    final Coverage coverage = new RawCoverage(new TargetFullyQualifiedName("a.A"), statuses);
+
+    assertThat(coverage.getStatusesSize()).isEqualTo(150);
+    assertThat(IntStream.range(0, coverage.getStatusesSize())
+        .mapToObj(coverage::getStatus)
+        .collect(Collectors.toList())).isEqualTo(statuses);
+    assertThat(coverage.isCovered(2)).isTrue();
+    assertThat(coverage.isCovered(1)).isFalse();
+    assertThat(coverage.isCovered(150)).isFalse();
+  }
+
+  @Test
+  // 実行された行を順に辿れるはず
+  public void testNextCoveredIndex() {
+    final List<Status> statuses = new ArrayList<>();
+    IntStream.range(0, 200)
+        .forEach(i -> statuses.add(EMPTY));
+    statuses.set(3, COVERED);
+    statuses.set(64, COVERED);
+    statuses.set(199, COVERED);
+    final Coverage coverage = new RawCoverage(new TargetFullyQualifiedName("a.A"), statuses);
+
+    assertThat(coverage.nextCoveredIndex(0)).isEqualTo(3);
+    assertThat(coverage.nextCoveredIndex(4)).isEqualTo(64);
+    assertThat(coverage.nextCoveredIndex(65)).isEqualTo(199);
+    assertThat(coverage.nextCoveredIndex(200)).isEqualTo(-1);
+  }
+
+  private List<Status> createStatuses(final int size) {
+    final Status[] values = {EMPTY, NOT_COVERED, COVERED};
+    return IntStream.range(0, size)
+        .mapToObj(i -> values[i % values.length])
+        .collect(Collectors.toList());
+  }
+}
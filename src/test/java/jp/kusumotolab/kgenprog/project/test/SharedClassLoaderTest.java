@@ -0,0 +1,94 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST02;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST03;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST04;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.Collections;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+public class SharedClassLoaderTest {
+
+  private BuildResults build(final TargetProject targetProject) {
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    return new LocalTestExecutor(config).getProjectBuilder()
+        .build(source);
+  }
+
+  @Test
+  public void testGetDelegatablePackages() {
+    final TargetProject targetProject =
+        TargetProjectFactory.create(Paths.get("example/BuildSuccess01"));
+    final BuildResults buildResults = build(targetProject);
+    final SharedClassLoader loader =
+        new SharedClassLoader(targetProject, buildResults, new URL[] {});
+
+    // 静的な状態を持たないFooとFooTestのみからなるため，パッケージごと委譲できる
+    assertThat(loader.getDelegatablePackages(buildResults, false)).containsExactly("example");
+
+    // カバレッジを計測する場合，プロダクトのクラスを含むパッケージは委譲できない
+    assertThat(loader.getDelegatablePackages(buildResults, true)).isEmpty();
+
+    // クラスやバイトコードが異なるパッケージは委譲できない
+    final BuildResults otherResults =
+        build(TargetProjectFactory.create(Paths.get("example/BuildSuccess02")));
+    assertThat(loader.getDelegatablePackages(otherResults, false)).isEmpty();
+  }
+
+  @Test
+  // スレッドごとに保持するのは直近のプロジェクトの共有クラスローダのみ
+  public void testForCurrentThread() {
+    final TargetProject project1 =
+        TargetProjectFactory.create(Paths.get("example/BuildSuccess01"));
+    final TargetProject project2 =
+        TargetProjectFactory.create(Paths.get("example/BuildSuccess02"));
+    final BuildResults buildResults1 = build(project1);
+    final URL[] urls = new URL[] {};
+
+    final SharedClassLoader loader1 =
+        SharedClassLoader.forCurrentThread(project1, buildResults1, urls);
+    assertThat(SharedClassLoader.forCurrentThread(project1, buildResults1, urls))
+        .isSameAs(loader1);
+
+    final SharedClassLoader loader2 =
+        SharedClassLoader.forCurrentThread(project2, build(project2), urls);
+    assertThat(loader2).isNotSameAs(loader1);
+    assertThat(SharedClassLoader.forCurrentThread(project1, buildResults1, urls))
+        .isNotSameAs(loader1);
+
+    SharedClassLoader.releaseCurrentThread();
+  }
+
+  @Test
+  // 共有クラスローダを用いても，用いない場合と同じテスト結果が得られるはず
+  public void testTestThreadWithClassLoaderReuse() {
+    final TargetProject targetProject =
+        TargetProjectFactory.create(Paths.get("example/BuildSuccess01"));
+    final BuildResults buildResults = build(targetProject);
+    final TestExecutionPlan plan = TestExecutionPlan.ALL.measureCoverage(false);
+
+    for (int i = 0; i < 2; i++) {
+      final TestThread testThread = new TestThread(buildResults, targetProject,
+          Collections.emptyList(), plan, 10, true);
+      testThread.run();
+      final TestResults result = testThread.getTestResults();
+
+      assertThat(result.getExecutedTestFQNs()).containsExactlyInAnyOrder( //
+          FOO_TEST01, FOO_TEST02, FOO_TEST03, FOO_TEST04);
+      assertThat(result.getTestResult(FOO_TEST01).failed).isFalse();
+      assertThat(result.getTestResult(FOO_TEST02).failed).isFalse();
+      assertThat(result.getTestResult(FOO_TEST03).failed).isTrue();
+      assertThat(result.getTestResult(FOO_TEST04).failed).isFalse();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.BAR_TEST02;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST02;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.Collections;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.project.FullyQualifiedName;
+
+public class TestFailureHistoryTest {
+
+  @Test
+  // 初期個体で失敗したクラスが，失敗率に関わらず最優先となるはず
+  public void testInitialFailedClassFirst() {
+    final TestFailureHistory history = new TestFailureHistory();
+    history.recordInitial(createResults(FOO_TEST01, false, BAR_TEST01, true));
+    history.record(createResults(FOO_TEST01, true, BAR_TEST01, false));
+    history.record(createResults(FOO_TEST01, true, BAR_TEST01, false));
+
+    assertThat(history.getPrioritizedTestClasses()).containsExactly(BAR_TEST, FOO_TEST);
+    assertThat(history.getFailureRate(FOO_TEST)).isEqualTo(2.0d / 3.0d);
+  }
+
+  @Test
+  // 失敗率の高いクラスが先になり，スキップされたテストは数えないはず
+  public void testFailureRateOrder() {
+    final TestFailureHistory history = new TestFailureHistory();
+    history.recordInitial(createResults(FOO_TEST01, false, BAR_TEST01, false));
+    history.record(createResults(FOO_TEST02, false, BAR_TEST02, true));
+
+    final TestResults skipped = new TestResults();
+    skipped.add(new TestResult(FOO_TEST01, true, "skipped", Collections.emptyMap(), true));
+    history.record(skipped);
+
+    assertThat(history.getPrioritizedTestClasses()).containsExactly(BAR_TEST, FOO_TEST);
+    assertThat(history.getFailureRate(FOO_TEST)).isEqualTo(0.0d);
+  }
+
+  private TestResults createResults(final FullyQualifiedName fooTest, final boolean fooFailed,
+      final FullyQualifiedName barTest, final boolean barFailed) {
+    final TestResults testResults = new TestResults();
+    testResults.add(new TestResult(fooTest, fooFailed, null, Collections.emptyMap()));
+    testResults.add(new TestResult(barTest, barFailed, null, Collections.emptyMap()));
+    return testResults;
+  }
+}
@@ -0,0 +1,109 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST03;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import org.junit.Test;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.build.BinaryStoreCodec;
+import jp.kusumotolab.kgenprog.project.build.BuildResults;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+public class TestResultsCodecTest {
+
+  @Test
+  // 書き出して読み込んだテスト結果が元と一致するか
+  public void testWriteAndRead() throws Exception {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final TestExecutor executor = new LocalTestExecutor(config);
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+    final TestResults original = executor.exec(variant);
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    TestResultsCodec.write(new DataOutputStream(bytes), original);
+    final TestResults restored = TestResultsCodec.read(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+        original.getBuildResults());
+
+    assertThat(restored.getExecutedTestFQNs()).isEqualTo(original.getExecutedTestFQNs());
+    assertThat(restored.getTestResult(FOO_TEST03).failed).isTrue();
+    assertThat(restored.getSuccessRate()).isEqualTo(original.getSuccessRate());
+    assertThat(restored.getTestResult(FOO_TEST01)
+        .getCoverages(FOO)
+        .toString()).isEqualTo(original.getTestResult(FOO_TEST01)
+            .getCoverages(FOO)
+            .toString());
+  }
+
+  @Test
+  // タイムアウトしたテストとスキップしたテストが区別して復元されるか
+  public void testWriteAndReadForTimedOutTestResult() throws Exception {
+    final TestResults original = new TestResults();
+    original.add(new TestResult(FOO_TEST01, true, "test timed out after 11 seconds.",
+        Collections.emptyMap(), false, true));
+    original.add(new TestResult(FOO_TEST03, true, "skipped by timeout.", Collections.emptyMap(),
+        true));
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    TestResultsCodec.write(new DataOutputStream(bytes), original);
+    final TestResults restored = TestResultsCodec.read(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), null);
+
+    assertThat(restored.getTimedOutTestFQNs()).containsExactly(FOO_TEST01);
+    assertThat(restored.getSkippedTestFQNs()).containsExactly(FOO_TEST03);
+    assertThat(restored.getTestResult(FOO_TEST01)
+        .getFailedReason()).isEqualTo("test timed out after 11 seconds.");
+  }
+
+  @Test
+  // EmptyTestResultsが理由ごと復元されるか
+  public void testWriteAndReadForEmptyTestResults() throws Exception {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    TestResultsCodec.write(new DataOutputStream(bytes), new EmptyTestResults("build failed."));
+    final TestResults restored = TestResultsCodec.read(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), null);
+
+    assertThat(restored).isInstanceOf(EmptyTestResults.class);
+    assertThat(((EmptyTestResults) restored).getCause()).isEqualTo("build failed.");
+  }
+
+  @Test
+  // バイナリを書き出して読み込んでもテスト実行できるか
+  public void testExecAfterBinaryStoreTransfer() throws Exception {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject).build();
+    final LocalTestExecutor executor = new LocalTestExecutor(config);
+    final BuildResults buildResults = executor.getProjectBuilder()
+        .build(source);
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryStoreCodec.write(new DataOutputStream(bytes), buildResults.binaryStore);
+    final BuildResults restored = BinaryStoreCodec.readBuildResults(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), rootPath);
+
+    final TestResults result = executor.execTests(restored);
+    assertThat(result.getTestResult(FOO_TEST03).failed).isTrue();
+    assertThat(result.getSuccessRate()).isEqualTo(1.0 * 3 / 4);
+  }
+}
@@ -0,0 +1,89 @@
+package jp.kusumotolab.kgenprog.project.test;
+
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST01;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST02;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST03;
+import static jp.kusumotolab.kgenprog.testutil.ExampleAlias.Fqn.FOO_TEST04;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import org.junit.Test;
+import org.junit.runner.Description;
+import jp.kusumotolab.kgenprog.Configuration;
+import jp.kusumotolab.kgenprog.ga.variant.Variant;
+import jp.kusumotolab.kgenprog.project.GeneratedSourceCode;
+import jp.kusumotolab.kgenprog.project.factory.TargetProject;
+import jp.kusumotolab.kgenprog.project.factory.TargetProjectFactory;
+import jp.kusumotolab.kgenprog.testutil.TestUtil;
+
+public class TestSupervisorTest {
+
+  @Test
+  // 監視下でも，監視しない場合と同じテスト結果が得られるはず
+  public void testExecWithVariantTimeLimit() {
+    final Path rootPath = Paths.get("example/BuildSuccess01");
+    final TargetProject targetProject = TargetProjectFactory.create(rootPath);
+    final GeneratedSourceCode source = TestUtil.createGeneratedSourceCode(targetProject);
+    final Configuration config = new Configuration.Builder(targetProject)
+        .setVariantTimeLimit(Duration.ofSeconds(60))
+        .build();
+    final TestExecutor executor = new LocalTestExecutor(config);
+    final Variant variant = mock(Variant.class);
+    when(variant.getGeneratedSourceCode()).thenReturn(source);
+
+    final TestResults result = executor.exec(variant);
+    executor.finish();
+
+    assertThat(result.getExecutedTestFQNs()).containsExactlyInAnyOrder( //
+        FOO_TEST01, FOO_TEST02, FOO_TEST03, FOO_TEST04);
+    assertThat(result.getTestResult(FOO_TEST03).failed).isTrue();
+    assertThat(result.getTimedOutTestFQNs()).isEmpty();
+  }
+
+  @Test
+  // 割り込みに応じないテストは，制限時間と猶予の経過後に見捨てられるはず
+  public void testAbandonHungTest() {
+    final Description description = Description.createTestDescription("example.FooTest", "test01");
+    final TestResults abandonedResults = new TestResults();
+    final long startedNanos = System.nanoTime();
+
+    final TestThread testThread = mock(TestThread.class);
+    when(testThread.getCurrentTest()).thenReturn(description);
+    when(testThread.getCurrentTestStartedNanos()).thenReturn(startedNanos);
+    when(testThread.abandon(anyString())).thenReturn(abandonedResults);
+    doAnswer(invocation -> {
+      // 割り込みを無視して実行し続ける
+      final long deadline = System.nanoTime() + Duration.ofSeconds(10)
+          .toNanos();
+      while (System.nanoTime() < deadline) {
+        try {
+          Thread.sleep(100);
+        } catch (final InterruptedException e) {
+          // ignore
+        }
+      }
+      return null;
+    }).when(testThread)
+        .run();
+
+    final InstrumentedBytecodeCache cache = InstrumentedBytecodeCache.forCurrentThread();
+    final TestSupervisor supervisor = new TestSupervisor(Duration.ZERO, Duration.ZERO);
+    final TestResults result = supervisor.supervise(testThread);
+    supervisor.shutdown();
+
+    // 見捨てたスレッドが使い続けうるキャッシュは，以降のテスト実行で用いない
+    assertThat(InstrumentedBytecodeCache.forCurrentThread()).isNotSameAs(cache);
+
+    assertThat(result).isSameAs(abandonedResults);
+    assertThat(Duration.ofNanos(System.nanoTime() - startedNanos))
+        .isLessThan(Duration.ofSeconds(10));
+    verify(testThread).timeOut(description);
+    verify(testThread).abandon("test timed out after 1 seconds.");
+  }
+}